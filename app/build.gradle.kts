@@ -25,6 +25,17 @@ android {
             )
         }
     }
+    testOptions {
+        // Robolectric needs merged resources/manifest for the JVM replay tests
+        unitTests.isIncludeAndroidResources = true
+        // Benchmark tier: ./gradlew testDebugUnitTest -Pfitpulse.bench=full
+        unitTests.all {
+            it.systemProperty("fitpulse.bench", project.findProperty("fitpulse.bench") ?: "quick")
+            it.maxHeapSize = "4g"
+            // Small JSON replies from the embedded JDK HttpServer otherwise wait out delayed ACKs
+            it.systemProperty("sun.net.httpserver.nodelay", "true")
+        }
+    }
     java {
         toolchain {
             languageVersion.set(JavaLanguageVersion.of(17))
@@ -40,6 +51,10 @@ dependencies {
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.test.core)
+    // Embedded challenge server for the leaderboard load test
+    testImplementation(project(":challenge-server"))
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("com.github.PhilJay:MPAndroidChart:v3.1.0")
@@ -3,20 +3,27 @@ package com.example.fitpulse;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
 
 /**
  * Central Room database for the app.
  *
- * - Declares the list of @Entity classes managed by Room (here: StepEntry).
- * - Specifies the schema version (version = 1).
+ * - Declares the list of @Entity classes managed by Room (steps, workouts, heart rate,
+ *   per-source step intervals).
+ * - Specifies the schema version (version = 5: source-tagged step intervals).
  * - Room generates the concrete implementation of this abstract class.
  */
-@Database(entities = {StepEntry.class}, version = 1)
+@Database(entities = {StepEntry.class, WorkoutSession.class, WorkoutChunk.class, HeartRateHour.class,
+        StepInterval.class},
+        version = AppDatabase.VERSION)
 public abstract class AppDatabase extends RoomDatabase {
 
-    /** Singleton instance to ensure only one DB object exists per process. */
-    private static AppDatabase instance;
+    static final int VERSION = 5;
+
+    /** File name of the first (legacy) account's database; others are suffixed per account. */
+    static final String DB_NAME = "step_db";
 
     /**
      * Data Access Object (DAO) accessor for StepEntry operations.
@@ -24,29 +31,113 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public abstract StepDao stepDao();
 
+    /** Workout sessions and their compressed sensor chunks. */
+    public abstract WorkoutDao workoutDao();
+
+    /** Per-minute heart-rate summaries packed by hour. */
+    public abstract HeartRateDao heartRateDao();
+
+    /** Source-tagged step intervals merged into the daily totals. */
+    public abstract StepIntervalDao stepIntervalDao();
+
+    private volatile StepChanges stepChanges;
+
+    /** Day-range change notifications for steps, started on first use. */
+    public StepChanges stepChanges() {
+        StepChanges c = stepChanges;
+        if (c != null) return c;
+        synchronized (this) {
+            if (stepChanges == null) stepChanges = new StepChanges(this);
+            return stepChanges;
+        }
+    }
+
+    @Override
+    public void close() {
+        StepChanges c = stepChanges;
+        if (c != null) c.shutdown();
+        super.close();
+    }
+
+    /**
+     * 1 -> 2: adds updatedAt/changeSeq for SyncEngine.
+     * Existing rows get a unique sequence (their rowid) so the whole local history
+     * is uploaded on the first sync instead of staying device-only.
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE steps ADD COLUMN updatedAt INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE steps ADD COLUMN changeSeq INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE steps SET changeSeq = rowid, "
+                    + "updatedAt = CAST(strftime('%s', 'now') AS INTEGER) * 1000");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_steps_changeSeq ON steps (changeSeq)");
+        }
+    };
+
+    /** 2 -> 3: workout sessions with chunked sensor blobs. */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS workouts (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "startedAt INTEGER NOT NULL, endedAt INTEGER NOT NULL, steps INTEGER NOT NULL, "
+                    + "sampleCount INTEGER NOT NULL, chunkCount INTEGER NOT NULL)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS workout_chunks (sessionId INTEGER NOT NULL, seq INTEGER NOT NULL, "
+                    + "startMs INTEGER NOT NULL, endMs INTEGER NOT NULL, sampleCount INTEGER NOT NULL, "
+                    + "data BLOB NOT NULL, PRIMARY KEY(sessionId, seq), "
+                    + "FOREIGN KEY(sessionId) REFERENCES workouts(id) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        }
+    };
+
+    /** 3 -> 4: heart-rate summaries, one row per hour. */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS heart_rate_hours (hour INTEGER NOT NULL, "
+                    + "minuteMask INTEGER NOT NULL, data BLOB NOT NULL, PRIMARY KEY(hour))");
+        }
+    };
+
+    /** 4 -> 5: step intervals tagged with the source that counted them. */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS step_intervals (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "source TEXT NOT NULL, startMs INTEGER NOT NULL, endMs INTEGER NOT NULL, steps INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_step_intervals_startMs ON step_intervals (startMs)");
+        }
+    };
+
+    /** Every upgrade step, oldest first; also used by the migration tests. */
+    static final Migration[] MIGRATIONS = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5};
+
     /**
-     * Thread-safe (synchronized) getter for the singleton DB instance.
+     * The current account's database (see UserSession).
      *
      * @param context any Context; applicationContext is used to avoid leaking an Activity.
-     * @return the single AppDatabase instance.
+     * @return the database of the account that is logged in (or was last).
+     */
+    public static AppDatabase getInstance(Context context) {
+        return UserSession.current(context).db;
+    }
+
+    /**
+     * Build the database object for one account's file; nothing is opened until first use.
      *
      * Implementation details:
      *  - Uses Room.databaseBuilder to create/return the DB.
-     *  - .fallbackToDestructiveMigration() is convenient during development:
-     *      if the schema version changes without a defined Migration, Room will
-     *      DROP and RECREATE the database (⚠ this wipes existing data).
-     *    Replace with proper Migration(s) before production if you need to preserve data.
+     *  - Upgrades run explicit Migrations so step history survives schema changes;
+     *    a schema bump without a Migration now fails loudly instead of wiping data.
+     *  - Only a downgrade (e.g. reinstalling an older build) still resets the DB.
      */
-    public static synchronized AppDatabase getInstance(Context context) {
-        if (instance == null) {
-            instance = Room.databaseBuilder(
-                            context.getApplicationContext(), // use app context to avoid memory leaks
-                            AppDatabase.class,               // RoomDatabase subclass
-                            "step_db"                        // on-disk database filename
-                    )
-                    .fallbackToDestructiveMigration()       // dev convenience: resets DB on schema mismatch
-                    .build();                               // build the DB instance
-        }
-        return instance;
+    static AppDatabase open(Context context, String fileName) {
+        return Room.databaseBuilder(
+                        context.getApplicationContext(), // use app context to avoid memory leaks
+                        AppDatabase.class,               // RoomDatabase subclass
+                        fileName                         // on-disk database filename (per account)
+                )
+                .addMigrations(MIGRATIONS)                  // keep history across schema bumps
+                .fallbackToDestructiveMigrationOnDowngrade()
+                .build();                               // build the DB instance
     }
 }
@@ -0,0 +1,106 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Moves whole months older than the archive horizon from Room into the StepArchive file.
+ * - The horizon (months kept in Room) is FitPulsePrefs "archive_horizon_months", default 12.
+ * - The new archive is written (fsync + rename) before any Room row is deleted, so a
+ *   crash in between leaves duplicates that StepHistory resolves, never lost days.
+ * - The copy runs outside any transaction, so step and heart-rate writes go on meanwhile.
+ *   Only the delete is a (short) transaction, and it is skipped if a row before the cutoff
+ *   changed since the copy started; the next pass picks it up.
+ * - Only daily rows ("yyyy-MM-dd") are archived, and never before SyncEngine uploaded them:
+ *   the cutoff moves back to the month of the oldest pending row. Archived days still go to
+ *   a newly configured server (SyncEngine reads them back through StepHistory).
+ */
+public final class ArchiveManager {
+
+    static final String KEY_HORIZON_MONTHS = "archive_horizon_months";
+    static final int DEFAULT_HORIZON_MONTHS = 12;
+
+    private final AppDatabase db;
+    private final StepHistory history;
+    private final Clock clock;
+
+    /** What one archive() pass did. */
+    public static final class Result {
+        public int rowsMoved;
+        public long archiveBytes;
+        /** Months actually archived end here (before the requested cutoff if rows were pending). */
+        public LocalDate cutoff;
+        /** Pending rows or a write during the copy kept some rows in Room; try again later. */
+        public boolean heldBack;
+    }
+
+    ArchiveManager(AppDatabase db, StepHistory history, Clock clock) {
+        this.db = db;
+        this.history = history;
+        this.clock = clock;
+    }
+
+    public static ArchiveManager get(Context ctx) {
+        return new ArchiveManager(AppDatabase.getInstance(ctx), StepHistory.get(ctx), Clock.systemDefaultZone());
+    }
+
+    public static int horizonMonths(Context ctx) {
+        return UserSession.prefs(ctx, SettingsFragment.PREFS_NAME)
+                .getInt(KEY_HORIZON_MONTHS, DEFAULT_HORIZON_MONTHS);
+    }
+
+    /** First day kept in Room: the 1st of the month horizonMonths before the current one. */
+    static LocalDate cutoff(LocalDate today, int horizonMonths) {
+        return today.withDayOfMonth(1).minusMonths(horizonMonths);
+    }
+
+    /** Archive every month before cutoff(today, horizonMonths). */
+    @WorkerThread
+    public Result archive(int horizonMonths) throws IOException {
+        return archiveBefore(cutoff(LocalDate.now(clock), horizonMonths));
+    }
+
+    /** Archive every month before cutoff whose rows are all uploaded (see the class doc). */
+    @WorkerThread
+    Result archiveBefore(LocalDate cutoff) throws IOException {
+        Result result = new Result();
+        StepDao dao = db.stepDao();
+        String pending = dao.getOldestPendingDate();
+        if (pending != null) {
+            LocalDate pendingMonth = LocalDate.parse(pending, StepStats.DB_FMT).withDayOfMonth(1);
+            if (pendingMonth.isBefore(cutoff)) {
+                cutoff = pendingMonth;
+                result.heldBack = true;
+            }
+        }
+        result.cutoff = cutoff;
+        String cutoffKey = cutoff.format(StepStats.DB_FMT);
+        if (dao.countBefore(cutoffKey) == 0) return result;
+
+        // Existing archive + Room rows (Room wins on the same day) -> one new file
+        String copied = dao.fingerprintBefore(cutoffKey);
+        StepColumns all = new StepColumns(1024);
+        history.read(LocalDate.of(1, 1, 1), cutoff.minusDays(1), all);
+        result.archiveBytes = StepArchive.write(history.archiveFile(), all);
+        history.reloadArchive();
+
+        // A row written since the copy would be lost with the delete: leave it for the next pass
+        db.beginTransaction();
+        try {
+            if (!copied.equals(dao.fingerprintBefore(cutoffKey))) {
+                result.heldBack = true;
+                return result;
+            }
+            result.rowsMoved = dao.deleteBefore(cutoffKey);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return result;
+    }
+}
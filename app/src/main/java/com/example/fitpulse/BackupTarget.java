@@ -0,0 +1,31 @@
+package com.example.fitpulse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where StepBackup keeps its data: content-addressed blocks plus named snapshot manifests.
+ * - A block is stored once under its hash, however many snapshots reference it.
+ * - Writes must be atomic: a reader never sees a half-written block or manifest.
+ * FileBackupTarget is the local implementation; a remote store only has to provide the same calls.
+ */
+public interface BackupTarget {
+
+    boolean hasBlock(String hash) throws IOException;
+
+    void putBlock(String hash, byte[] data) throws IOException;
+
+    byte[] getBlock(String hash) throws IOException;
+
+    List<String> blocks() throws IOException;
+
+    void deleteBlock(String hash) throws IOException;
+
+    void putManifest(String name, byte[] data) throws IOException;
+
+    byte[] getManifest(String name) throws IOException;
+
+    List<String> manifests() throws IOException;
+
+    void deleteManifest(String name) throws IOException;
+}
@@ -0,0 +1,232 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * GitHub-style heatmap of one YearSlice: WEEKS Monday-based columns of 7 day cells.
+ * - Cells are bucketed by steps vs. the goal into LEVELS colors. Cell centers are grouped
+ *   per level into preallocated arrays when the data or the size changes, so onDraw is
+ *   LEVELS drawPoints() calls (square caps, stroke = cell size) plus month labels, with
+ *   no allocation.
+ * - Tapping a cell reports its day through OnDayTappedListener.
+ */
+public class CalendarHeatmapView extends View {
+
+    static final int WEEKS = 53;
+    static final int DAYS = WEEKS * 7;
+    static final int LEVELS = 5;
+
+    /** 53 weeks of daily totals; -1 marks days that haven't happened yet. */
+    public static final class YearSlice {
+        /** Monday of the first column (epoch day). */
+        public final long firstDay;
+        /** Column-major: totals[week * 7 + dayOfWeek]. */
+        public final int[] totals;
+
+        public YearSlice(long firstDay, int[] totals) {
+            if (totals.length != DAYS) throw new IllegalArgumentException("Need " + DAYS + " days");
+            this.firstDay = firstDay;
+            this.totals = totals;
+        }
+
+        /**
+         * The 53 weeks ending slicesBack * 53 weeks before the week of today, filled from
+         * ascending columns (missing rows = 0, days after today = -1).
+         */
+        static YearSlice build(LocalDate today, int slicesBack, StepColumns cols) {
+            LocalDate first = StepStats.weekStart(today).minusWeeks((long) WEEKS * (slicesBack + 1) - 1);
+            int[] totals = new int[DAYS];
+            long todayKey = today.toEpochDay();
+            int i = 0;
+            LocalDate d = first;
+            for (int n = 0; n < DAYS; n++, d = d.plusDays(1)) {
+                if (d.toEpochDay() > todayKey) {
+                    totals[n] = -1;
+                    continue;
+                }
+                int key = StepColumns.dayKey(d);
+                while (i < cols.size && cols.dayKeys[i] < key) i++;
+                totals[n] = (i < cols.size && cols.dayKeys[i] == key) ? cols.steps[i] : 0;
+            }
+            return new YearSlice(first.toEpochDay(), totals);
+        }
+
+        public LocalDate firstDate() {
+            return LocalDate.ofEpochDay(firstDay);
+        }
+
+        public LocalDate lastDate() {
+            return LocalDate.ofEpochDay(firstDay + DAYS - 1);
+        }
+    }
+
+    public interface OnDayTappedListener {
+        void onDayTapped(LocalDate day, int steps);
+    }
+
+    private final Paint[] levelPaints = new Paint[LEVELS];
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    @Nullable private YearSlice slice;
+    private int goal = 10_000;
+    @Nullable private OnDayTappedListener listener;
+
+    // Geometry, recomputed in onSizeChanged
+    private float pitch, cell, gridLeft, gridTop;
+
+    /** Per level: x,y centers for drawPoints, and how many floats are used. */
+    private final float[][] points = new float[LEVELS][DAYS * 2];
+    private final int[] pointFloats = new int[LEVELS];
+
+    /** Month labels: text and x, for the columns where a month starts. */
+    private final String[] monthNames = new String[12];
+    private final String[] monthText = new String[WEEKS];
+    private final float[] monthX = new float[WEEKS];
+    private int months;
+
+    public CalendarHeatmapView(Context context) {
+        this(context, null);
+    }
+
+    public CalendarHeatmapView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        // Empty, <25%, <50%, <100% of goal, goal reached
+        int[] colors = {
+                Color.parseColor("#EBEDF0"),
+                Color.parseColor("#C5CAE9"),
+                Color.parseColor("#7986CB"),
+                Color.parseColor("#3F51B5"),
+                Color.parseColor("#1A237E")
+        };
+        for (int l = 0; l < LEVELS; l++) {
+            Paint p = new Paint();
+            p.setColor(colors[l]);
+            p.setStrokeCap(Paint.Cap.SQUARE);
+            levelPaints[l] = p;
+        }
+        for (Month m : Month.values()) {
+            monthNames[m.ordinal()] = m.getDisplayName(TextStyle.SHORT, Locale.getDefault());
+        }
+        labelPaint.setColor(Color.parseColor("#6E6E6E"));
+        labelPaint.setTextSize(10 * getResources().getDisplayMetrics().scaledDensity);
+        setClickable(true);
+    }
+
+    /** Show slice (null clears) with cells bucketed against goal. */
+    public void setData(@Nullable YearSlice slice, int goal) {
+        this.slice = slice;
+        this.goal = Math.max(1, goal);
+        rebuild();
+        invalidate();
+    }
+
+    @Nullable
+    public YearSlice getData() {
+        return slice;
+    }
+
+    public void setOnDayTappedListener(@Nullable OnDayTappedListener listener) {
+        this.listener = listener;
+    }
+
+    /** Color bucket for a day's total. */
+    static int level(int steps, int goal) {
+        if (steps <= 0) return 0;
+        if (steps * 4L < goal) return 1;
+        if (steps * 2L < goal) return 2;
+        if (steps < goal) return 3;
+        return 4;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Square cells: height follows from the width (7 rows plus a label row)
+        int w = MeasureSpec.getSize(widthMeasureSpec);
+        float p = (w - getPaddingLeft() - getPaddingRight()) / (float) WEEKS;
+        int h = (int) Math.ceil(p * 7 + labelHeight() + getPaddingTop() + getPaddingBottom());
+        setMeasuredDimension(w, resolveSize(h, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        pitch = (w - getPaddingLeft() - getPaddingRight()) / (float) WEEKS;
+        cell = pitch * 0.8f;
+        gridLeft = getPaddingLeft();
+        gridTop = getPaddingTop() + labelHeight();
+        for (Paint p : levelPaints) p.setStrokeWidth(cell);
+        rebuild();
+    }
+
+    private float labelHeight() {
+        return labelPaint.getTextSize() * 1.4f;
+    }
+
+    private void rebuild() {
+        for (int l = 0; l < LEVELS; l++) pointFloats[l] = 0;
+        months = 0;
+        if (slice == null || pitch == 0) return;
+
+        int[] totals = slice.totals;
+        for (int n = 0; n < DAYS; n++) {
+            if (totals[n] < 0) continue;
+            int l = level(totals[n], goal);
+            float[] pts = points[l];
+            pts[pointFloats[l]++] = gridLeft + (n / 7) * pitch + pitch / 2;
+            pts[pointFloats[l]++] = gridTop + (n % 7) * pitch + pitch / 2;
+        }
+
+        // A label over each column whose week contains the 1st of a month
+        LocalDate d = slice.firstDate();
+        for (int wk = 0; wk < WEEKS; wk++, d = d.plusWeeks(1)) {
+            LocalDate sunday = d.plusDays(6);
+            if (sunday.getDayOfMonth() <= 7) {
+                monthText[months] = monthNames[sunday.getMonthValue() - 1];
+                monthX[months] = gridLeft + wk * pitch;
+                months++;
+            }
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        for (int l = 0; l < LEVELS; l++) {
+            if (pointFloats[l] > 0) canvas.drawPoints(points[l], 0, pointFloats[l], levelPaints[l]);
+        }
+        float baseline = gridTop - labelPaint.getTextSize() * 0.4f;
+        for (int m = 0; m < months; m++) canvas.drawText(monthText[m], monthX[m], baseline, labelPaint);
+    }
+
+    /** Index into the slice's totals of the cell under (x, y), or -1. */
+    int cellAt(float x, float y) {
+        if (slice == null || pitch == 0) return -1;
+        int col = (int) Math.floor((x - gridLeft) / pitch);
+        int row = (int) Math.floor((y - gridTop) / pitch);
+        if (col < 0 || col >= WEEKS || row < 0 || row >= 7) return -1;
+        int n = col * 7 + row;
+        return slice.totals[n] < 0 ? -1 : n;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_UP && listener != null && slice != null) {
+            int n = cellAt(event.getX(), event.getY());
+            if (n >= 0) listener.onDayTapped(LocalDate.ofEpochDay(slice.firstDay + n), slice.totals[n]);
+        }
+        return super.onTouchEvent(event);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.fitpulse;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.security.NetworkSecurityPolicy;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * ChallengeActivity (Settings → Group Challenge)
+ * - Not in a challenge: enter the challenge server and a challenge id to join.
+ * - In one: our own rank and the top TOP_SIZE, refreshed every REFRESH_MS while visible.
+ *   Each refresh fetches only what changed on the board since the last one (Leaderboard).
+ * - "Send Steps" pushes right away instead of waiting for ChallengePushJobService.
+ * Network work runs on a worker thread, one request at a time.
+ */
+public class ChallengeActivity extends AppCompatActivity {
+
+    static final int TOP_SIZE = 50;
+    private static final long REFRESH_MS = 30_000;
+    private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.ofPattern("d MMM", Locale.getDefault());
+
+    private GroupChallenges challenges;
+    /** Only touched by the worker thread (one at a time, see busy). */
+    private final Leaderboard board = new Leaderboard(TOP_SIZE);
+    private final List<ChallengeClient.Standing> rows = new ArrayList<>();
+    private RowAdapter adapter;
+    private boolean busy;
+
+    private View joinSection, joinedSection;
+    private EditText editServer, editChallenge;
+    private TextView title, me;
+
+    private final Runnable refreshTick = new Runnable() {
+        @Override
+        public void run() {
+            refresh();
+            joinedSection.postDelayed(this, REFRESH_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_challenge);
+        challenges = GroupChallenges.get(this);
+
+        findViewById(R.id.btn_back_challenge).setOnClickListener(v -> finish());
+        joinSection = findViewById(R.id.challenge_join);
+        joinedSection = findViewById(R.id.challenge_joined);
+        editServer = findViewById(R.id.edit_server_url);
+        editChallenge = findViewById(R.id.edit_challenge_id);
+        title = findViewById(R.id.challenge_title);
+        me = findViewById(R.id.challenge_me);
+
+        ListView list = findViewById(R.id.list_challenge);
+        adapter = new RowAdapter();
+        list.setAdapter(adapter);
+
+        findViewById(R.id.btn_join_challenge).setOnClickListener(v -> join());
+        findViewById(R.id.btn_push_challenge).setOnClickListener(v -> run("Steps sent", () -> {
+            challenges.push();
+            challenges.refresh(board);
+        }));
+        findViewById(R.id.btn_leave_challenge).setOnClickListener(v -> {
+            challenges.leave();
+            rows.clear();
+            adapter.notifyDataSetChanged();
+            joinedSection.removeCallbacks(refreshTick);
+            showState();
+        });
+        showState();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (challenges.isJoined()) refreshTick.run();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        joinedSection.removeCallbacks(refreshTick);
+    }
+
+    private void join() {
+        String url = editServer.getText().toString().trim();
+        String id = editChallenge.getText().toString().trim();
+        if (url.isEmpty() || id.isEmpty()) {
+            Toast.makeText(this, "Enter the server and the challenge id", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        // network_security_config.xml: plain http only to local-network names
+        Uri server = Uri.parse(url);
+        if ("http".equals(server.getScheme()) && server.getHost() != null
+                && !NetworkSecurityPolicy.getInstance().isCleartextTrafficPermitted(server.getHost())) {
+            Toast.makeText(this, "Use https:// for " + server.getHost(), Toast.LENGTH_SHORT).show();
+            return;
+        }
+        run("Joined " + id, () -> {
+            board.reset();
+            challenges.join(url, id);
+            challenges.refresh(board);
+        });
+    }
+
+    private void refresh() {
+        run(null, () -> challenges.refresh(board));
+    }
+
+    private interface Call {
+        void run() throws IOException;
+    }
+
+    /** Run call on a worker thread unless one is in flight, then show the board (and done, if given). */
+    private void run(String done, Call call) {
+        if (busy) return;
+        busy = true;
+        new Thread(() -> {
+            String error = null;
+            List<ChallengeClient.Standing> shown = null;
+            ChallengeClient.Standing mine = null;
+            int participants = 0;
+            try {
+                call.run();
+                shown = new ArrayList<>(board.rows());
+                mine = board.me();
+                participants = board.participants();
+            } catch (IOException e) {
+                error = "Challenge server unreachable: " + e.getMessage();
+            }
+            String message = error != null ? error : done;
+            List<ChallengeClient.Standing> result = shown;
+            ChallengeClient.Standing myRow = mine;
+            int total = participants;
+            runOnUiThread(() -> {
+                busy = false;
+                if (isDestroyed()) return;
+                if (message != null) Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+                if (result != null && challenges.isJoined()) {
+                    rows.clear();
+                    rows.addAll(result);
+                    adapter.notifyDataSetChanged();
+                    showMe(myRow, total);
+                }
+                showState();
+            });
+        }, "challenge").start();
+    }
+
+    private void showState() {
+        boolean joined = challenges.isJoined();
+        joinSection.setVisibility(joined ? View.GONE : View.VISIBLE);
+        joinedSection.setVisibility(joined ? View.VISIBLE : View.GONE);
+        if (!joined) {
+            if (editServer.length() == 0 && challenges.serverUrl() != null) editServer.setText(challenges.serverUrl());
+            return;
+        }
+        LocalDate start = challenges.start(), end = challenges.end();
+        title.setText(String.format(Locale.getDefault(), "%s · %s – %s", challenges.challengeId(),
+                start != null ? DAY_FMT.format(start) : "?", end != null ? DAY_FMT.format(end) : "?"));
+        if (rows.isEmpty()) {
+            int rank = challenges.lastRank();
+            me.setText(rank > 0 ? String.format(Locale.getDefault(), "You: #%,d", rank) : "You: not ranked yet");
+        }
+    }
+
+    private void showMe(ChallengeClient.Standing mine, int participants) {
+        me.setText(mine == null ? "You: not ranked yet"
+                : String.format(Locale.getDefault(), "You: #%,d of %,d · %,d steps", mine.rank, participants, mine.score));
+    }
+
+    private class RowAdapter extends BaseAdapter {
+        @Override public int getCount() { return rows.size(); }
+        @Override public ChallengeClient.Standing getItem(int position) { return rows.get(position); }
+        @Override public long getItemId(int position) { return position; }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View row = convertView != null ? convertView
+                    : LayoutInflater.from(parent.getContext()).inflate(R.layout.item_challenge_row, parent, false);
+            ChallengeClient.Standing s = getItem(position);
+            ((TextView) row.findViewById(R.id.challenge_rank)).setText("#" + s.rank);
+            ((TextView) row.findViewById(R.id.challenge_name)).setText(s.name);
+            ((TextView) row.findViewById(R.id.challenge_steps))
+                    .setText(String.format(Locale.getDefault(), "%,d steps", s.score));
+            return row;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.fitpulse;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client of the group-challenge server (challenge-server module, ChallengeServer).
+ *
+ * Endpoints (relative to baseUrl):
+ * - GET  /challenges/{c}          reply {"id","start","end","participants"}
+ * - POST /challenges/{c}/totals   body {"participant":p,"name":n,"days":[{"d":date,"s":steps},...]}
+ *                                 reply {"rank","score","participants","version"}
+ * - GET  /challenges/{c}/board?participant=p&top=k&since=v
+ *                                 reply {"version","full","participants","entries":[{"p","n","s","r"}],
+ *                                        "me":{...}|null}
+ * Bodies are small, so unlike HttpSyncTransport nothing is compressed. Responses are read to the
+ * end and closed but connections aren't disconnect()ed, so hourly pushes and leaderboard refreshes
+ * reuse kept-alive sockets. Safe to share between threads.
+ */
+final class ChallengeClient {
+
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    /** A challenge as the server describes it. */
+    static final class Info {
+        final String id;
+        final LocalDate start, end;
+        final int participants;
+
+        Info(String id, LocalDate start, LocalDate end, int participants) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.participants = participants;
+        }
+    }
+
+    /** Reply to a push: where this participant stands now. */
+    static final class Posted {
+        final int rank;
+        final long score;
+        final int participants;
+        final long version;
+
+        Posted(int rank, long score, int participants, long version) {
+            this.rank = rank;
+            this.score = score;
+            this.participants = participants;
+            this.version = version;
+        }
+    }
+
+    /** One leaderboard row. */
+    static final class Standing {
+        final String id;
+        final String name;
+        final long score;
+        final int rank;
+
+        Standing(String id, String name, long score, int rank) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+            this.rank = rank;
+        }
+    }
+
+    /** A board reply; apply it with Leaderboard.apply. */
+    static final class Delta {
+        final long version;
+        final boolean full;
+        final int participants;
+        final List<Standing> entries;
+        /** The asking participant, null before their first push. */
+        final Standing me;
+
+        Delta(long version, boolean full, int participants, List<Standing> entries, Standing me) {
+            this.version = version;
+            this.full = full;
+            this.participants = participants;
+            this.entries = entries;
+            this.me = me;
+        }
+    }
+
+    private final String baseUrl;
+
+    ChallengeClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    Info info(String challengeId) throws IOException {
+        HttpURLConnection c = open("/challenges/" + encode(challengeId));
+        try (JsonReader r = readResponse(c)) {
+            String id = challengeId;
+            LocalDate start = null, end = null;
+            int participants = 0;
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "id": id = r.nextString(); break;
+                    case "start": start = LocalDate.parse(r.nextString()); break;
+                    case "end": end = LocalDate.parse(r.nextString()); break;
+                    case "participants": participants = r.nextInt(); break;
+                    default: r.skipValue();
+                }
+            }
+            r.endObject();
+            if (start == null || end == null) throw new IOException("Challenge without dates");
+            return new Info(id, start, end, participants);
+        }
+    }
+
+    /** Send daily totals (yyyy-MM-dd rows); the server replaces those days for this participant. */
+    Posted push(String challengeId, String participant, String name, List<StepEntry> days) throws IOException {
+        HttpURLConnection c = open("/challenges/" + encode(challengeId) + "/totals");
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        c.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+        try (JsonWriter w = new JsonWriter(new OutputStreamWriter(
+                new BufferedOutputStream(c.getOutputStream()), StandardCharsets.UTF_8))) {
+            w.beginObject();
+            w.name("participant").value(participant);
+            w.name("name").value(name);
+            w.name("days").beginArray();
+            for (StepEntry e : days) {
+                w.beginObject();
+                w.name("d").value(e.date);
+                w.name("s").value(e.steps);
+                w.endObject();
+            }
+            w.endArray();
+            w.endObject();
+        }
+
+        int rank = 0, participants = 0;
+        long score = 0, version = 0;
+        try (JsonReader r = readResponse(c)) {
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "rank": rank = r.nextInt(); break;
+                    case "score": score = r.nextLong(); break;
+                    case "participants": participants = r.nextInt(); break;
+                    case "version": version = r.nextLong(); break;
+                    default: r.skipValue();
+                }
+            }
+            r.endObject();
+        }
+        return new Posted(rank, score, participants, version);
+    }
+
+    /** The top k as changes since board version since (0 asks for the full board). */
+    Delta board(String challengeId, String participant, int top, long since) throws IOException {
+        HttpURLConnection c = open("/challenges/" + encode(challengeId) + "/board?participant="
+                + encode(participant) + "&top=" + top + "&since=" + since);
+        try (JsonReader r = readResponse(c)) {
+            long version = 0;
+            boolean full = false;
+            int participants = 0;
+            List<Standing> entries = new ArrayList<>();
+            Standing me = null;
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "version": version = r.nextLong(); break;
+                    case "full": full = r.nextBoolean(); break;
+                    case "participants": participants = r.nextInt(); break;
+                    case "entries":
+                        r.beginArray();
+                        while (r.hasNext()) entries.add(readStanding(r));
+                        r.endArray();
+                        break;
+                    case "me":
+                        if (r.peek() == JsonToken.NULL) r.nextNull();
+                        else me = readStanding(r);
+                        break;
+                    default: r.skipValue();
+                }
+            }
+            r.endObject();
+            return new Delta(version, full, participants, entries, me);
+        }
+    }
+
+    private static Standing readStanding(JsonReader r) throws IOException {
+        String id = null, name = "";
+        long score = 0;
+        int rank = 0;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "p": id = r.nextString(); break;
+                case "n": name = r.nextString(); break;
+                case "s": score = r.nextLong(); break;
+                case "r": rank = r.nextInt(); break;
+                default: r.skipValue();
+            }
+        }
+        r.endObject();
+        if (id == null) throw new IOException("Board entry without a participant");
+        return new Standing(id, name, score, rank);
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        c.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        c.setReadTimeout(READ_TIMEOUT_MS);
+        return c;
+    }
+
+    private static JsonReader readResponse(HttpURLConnection c) throws IOException {
+        int code = c.getResponseCode();
+        if (code < 200 || code >= 300) {
+            throw new IOException("Challenge server returned HTTP " + code + " for " + c.getURL().getPath());
+        }
+        return new JsonReader(new InputStreamReader(new BufferedInputStream(c.getInputStream()), StandardCharsets.UTF_8));
+    }
+
+    private static String encode(String s) {
+        try {
+            // The Charset overload needs API 33
+            return URLEncoder.encode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.fitpulse;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the current account's daily totals to its group challenge once an hour, whenever
+ * the network is up (GroupChallenges.push).
+ * - A failed push asks JobScheduler for a retry with its usual backoff.
+ * - Accounts that aren't in a challenge finish immediately; schedule() is idempotent and
+ *   runs on join and on launches while joined.
+ */
+public class ChallengePushJobService extends JobService {
+
+    private static final String TAG = "ChallengePushJob";
+
+    static final int JOB_ID = 1034;
+
+    /** Register the periodic job unless it is already pending. */
+    public static void schedule(Context ctx) {
+        JobScheduler scheduler = ctx.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(ctx, ChallengePushJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPeriodic(TimeUnit.HOURS.toMillis(1))
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        new Thread(() -> {
+            boolean retry = false;
+            try {
+                GroupChallenges.get(this).push();
+            } catch (IOException e) {
+                Log.w(TAG, "Challenge push failed", e);
+                retry = true;
+            }
+            jobFinished(params, retry);
+        }, "challenge-push").start();
+        return true; // still running on the worker thread
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        return true; // network lost mid-push: try again later
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.fitpulse;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BackupTarget in a local directory.
+ * - blocks/ab/abcdef…: one file per block, fanned out by the first two hash characters.
+ * - snapshots/<name>: one file per manifest.
+ * Files are written to a .tmp sibling, fsynced and renamed into place.
+ * The app's copy lives in files/backup, which Android Auto Backup includes (see backup_rules.xml).
+ */
+public final class FileBackupTarget implements BackupTarget {
+
+    private static final String TMP = ".tmp";
+
+    private final File blocksDir;
+    private final File snapshotsDir;
+
+    public FileBackupTarget(File dir) {
+        this.blocksDir = new File(dir, "blocks");
+        this.snapshotsDir = new File(dir, "snapshots");
+    }
+
+    private File blockFile(String hash) {
+        return new File(new File(blocksDir, hash.substring(0, 2)), hash);
+    }
+
+    @Override
+    public boolean hasBlock(String hash) {
+        return blockFile(hash).isFile();
+    }
+
+    @Override
+    public void putBlock(String hash, byte[] data) throws IOException {
+        writeAtomically(blockFile(hash), data);
+    }
+
+    @Override
+    public byte[] getBlock(String hash) throws IOException {
+        File f = blockFile(hash);
+        if (!f.isFile()) throw new FileNotFoundException("Missing block " + hash);
+        return Files.readAllBytes(f.toPath());
+    }
+
+    @Override
+    public List<String> blocks() {
+        List<String> out = new ArrayList<>();
+        File[] fans = blocksDir.listFiles(File::isDirectory);
+        if (fans == null) return out;
+        for (File fan : fans) {
+            File[] files = fan.listFiles();
+            if (files == null) continue;
+            for (File f : files) {
+                if (!f.getName().endsWith(TMP)) out.add(f.getName());
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void deleteBlock(String hash) throws IOException {
+        File f = blockFile(hash);
+        if (f.exists() && !f.delete()) throw new IOException("Could not delete " + f);
+    }
+
+    @Override
+    public void putManifest(String name, byte[] data) throws IOException {
+        writeAtomically(new File(snapshotsDir, name), data);
+    }
+
+    @Override
+    public byte[] getManifest(String name) throws IOException {
+        File f = new File(snapshotsDir, name);
+        if (!f.isFile()) throw new FileNotFoundException("Missing snapshot " + name);
+        return Files.readAllBytes(f.toPath());
+    }
+
+    @Override
+    public List<String> manifests() {
+        List<String> out = new ArrayList<>();
+        String[] names = snapshotsDir.list();
+        if (names == null) return out;
+        for (String n : names) {
+            if (!n.endsWith(TMP)) out.add(n);
+        }
+        return out;
+    }
+
+    @Override
+    public void deleteManifest(String name) throws IOException {
+        File f = new File(snapshotsDir, name);
+        if (f.exists() && !f.delete()) throw new IOException("Could not delete " + f);
+    }
+
+    private static void writeAtomically(File target, byte[] data) throws IOException {
+        File dir = target.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Could not create " + dir);
+        File tmp = new File(dir, target.getName() + TMP);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new IOException("Could not rename " + tmp + " to " + target);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.Trace;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trace sections around the step path (sensor callback -> pipeline stages -> Room -> broadcast
+ * -> Home/Stats drawing), for "the counter lags" reports.
+ * - Every section is an android.os.Trace section, so it shows up in a system trace (Perfetto,
+ *   Android Studio profiler) like any framework slice.
+ * - While recording, each section is also kept as one complete event (start + duration, so a
+ *   ring wrap never splits a begin from its end) in an in-app ring buffer of the last
+ *   `capacity` events. export() writes them as Chrome trace JSON, which the Perfetto UI opens
+ *   offline (ui.perfetto.dev, "Open trace file").
+ * - Not recording, begin()/end() cost one volatile read besides the Trace call, which itself
+ *   does nothing unless a system trace is capturing: no allocation, no clock read, no lock.
+ * - Debug builds record from install() on (a flight recorder exported with the jank report);
+ *   JVM replay tests call start()/stop() around what they want to see.
+ * Usage: {@code long t = FitTrace.begin(FitTrace.DB_UPSERT); try { ... } finally { FitTrace.end(FitTrace.DB_UPSERT, t); }}
+ */
+public final class FitTrace {
+
+    // Section names (also the slice names in Perfetto)
+    static final String SENSOR_CALLBACK = "StepCounter.onSensorChanged";
+    static final String DB_UPSERT = "db.upsertLocal";
+    static final String DB_TODAY = "db.stepsByDate";
+    static final String DB_WEEK = "db.weekRange";
+    static final String DB_RECENT = "db.recentDays";
+    static final String BROADCAST = "broadcast.STEP_UPDATE";
+    static final String HOME_UPDATE = "HomeFragment.updateSteps";
+    static final String RING_DRAW = "StepProgressView.onDraw";
+    static final String CHART_SETUP = "StatsFragment.configureChart";
+    static final String CHART_DATA = "StatsFragment.buildBarData";
+    static final String CHART_RENDER = "StatsFragment.renderPage";
+    /** Counter track with today's count as broadcast. */
+    static final String STEPS_COUNTER = "steps_today";
+
+    /** Events kept by the debug-build recorder (~1 min of a busy walk). */
+    static final int DEFAULT_CAPACITY = 16_384;
+
+    private static final char COMPLETE = 'X', COUNTER = 'C';
+    private static final DateTimeFormatter FILE_FMT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.US);
+
+    /** Null when not recording; the only thing the fast path looks at. */
+    @Nullable private static volatile Ring ring;
+
+    private FitTrace() {}
+
+    /** Fixed-size event ring; writers lock it only for the few stores of one event. */
+    private static final class Ring {
+        final int capacity;
+        final char[] phase;
+        final String[] name;
+        final long[] startNs, value;
+        final long[] tid;
+        final String[] thread;
+        /** Events ever written; guarded by this. */
+        long written;
+
+        Ring(int capacity) {
+            this.capacity = capacity;
+            phase = new char[capacity];
+            name = new String[capacity];
+            startNs = new long[capacity];
+            value = new long[capacity];
+            tid = new long[capacity];
+            thread = new String[capacity];
+        }
+
+        synchronized void add(char ph, String n, long start, long v) {
+            int i = (int) (written++ % capacity);
+            Thread t = Thread.currentThread();
+            phase[i] = ph;
+            name[i] = n;
+            startNs[i] = start;
+            value[i] = v;
+            tid[i] = t.getId();
+            thread[i] = t.getName();
+        }
+    }
+
+    /** Record from now on in debug builds. Idempotent. */
+    public static void install(Context ctx) {
+        if (JankWatchdog.isDebuggable(ctx) && ring == null) start(DEFAULT_CAPACITY);
+    }
+
+    /** Start a fresh recording of the last capacity events (replaces any running one). */
+    public static void start(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity " + capacity);
+        ring = new Ring(capacity);
+    }
+
+    /** Stop recording; what was recorded is dropped. */
+    public static void stop() {
+        ring = null;
+    }
+
+    public static boolean isRecording() {
+        return ring != null;
+    }
+
+    /**
+     * Open section name on this thread.
+     * @return the start time to pass to end(), or 0 when not recording
+     */
+    public static long begin(String name) {
+        Trace.beginSection(name);
+        return ring != null ? System.nanoTime() : 0;
+    }
+
+    /** Close the section begin(name) opened on this thread; start is what it returned. */
+    public static void end(String name, long start) {
+        Trace.endSection();
+        if (start == 0) return;
+        Ring r = ring;
+        if (r != null) r.add(COMPLETE, name, start, System.nanoTime() - start);
+    }
+
+    /** A value on counter track name (system trace counter and, while recording, a "C" event). */
+    public static void counter(String name, long value) {
+        Trace.setCounter(name, value);
+        Ring r = ring;
+        if (r != null) r.add(COUNTER, name, System.nanoTime(), value);
+    }
+
+    /** Events currently held (at most the capacity). */
+    public static int size() {
+        Ring r = ring;
+        if (r == null) return 0;
+        synchronized (r) {
+            return (int) Math.min(r.written, r.capacity);
+        }
+    }
+
+    /** Events overwritten by newer ones since start(). */
+    public static long dropped() {
+        Ring r = ring;
+        if (r == null) return 0;
+        synchronized (r) {
+            return Math.max(0, r.written - r.capacity);
+        }
+    }
+
+    /**
+     * Chrome trace JSON of the held events, oldest first, timestamps in µs. Threads are
+     * named by "thread_name" metadata so Perfetto labels the tracks. Recording goes on: the
+     * ring is locked only to copy it, not while formatting.
+     */
+    public static void export(Writer w) throws IOException {
+        Ring copy = copyOf(ring);
+        PrintWriter out = new PrintWriter(w);
+        out.print("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        int pid = Process.myPid();
+        Map<Long, String> threads = new LinkedHashMap<>();
+        for (int i = 0; i < copy.written; i++) {
+            threads.putIfAbsent(copy.tid[i], copy.thread[i]);
+            if (i > 0) out.print(',');
+            out.printf(Locale.US, "%n{\"name\":\"%s\",\"ph\":\"%c\",\"pid\":%d,\"tid\":%d,\"ts\":%.3f,",
+                    escape(copy.name[i]), copy.phase[i], pid, copy.tid[i], copy.startNs[i] / 1000.0);
+            if (copy.phase[i] == COMPLETE) {
+                out.printf(Locale.US, "\"dur\":%.3f}", copy.value[i] / 1000.0);
+            } else {
+                out.printf(Locale.US, "\"args\":{\"value\":%d}}", copy.value[i]);
+            }
+        }
+        boolean first = copy.written == 0;
+        for (Map.Entry<Long, String> t : threads.entrySet()) {
+            if (!first) out.print(',');
+            first = false;
+            out.printf(Locale.US, "%n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":%d,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                    pid, t.getKey(), escape(t.getValue()));
+        }
+        out.printf("%n]}%n");
+        out.flush();
+        if (out.checkError()) throw new IOException("Trace export failed");
+    }
+
+    /** The held events of r, oldest first, in a ring of exactly their count (empty for null). */
+    private static Ring copyOf(@Nullable Ring r) {
+        if (r == null) return new Ring(0);
+        synchronized (r) {
+            int n = (int) Math.min(r.written, r.capacity);
+            Ring c = new Ring(n);
+            int from = (int) (Math.max(0, r.written - r.capacity) % Math.max(1, r.capacity));
+            for (int k = 0; k < n; k++) {
+                int i = (from + k) % r.capacity;
+                c.phase[k] = r.phase[i];
+                c.name[k] = r.name[i];
+                c.startNs[k] = r.startNs[i];
+                c.value[k] = r.value[i];
+                c.tid[k] = r.tid[i];
+                c.thread[k] = r.thread[i];
+            }
+            c.written = n;
+            return c;
+        }
+    }
+
+    /** Write the trace to a timestamped .json file in dir; returns that file. */
+    public static File exportTo(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        String stamp = FILE_FMT.format(Instant.now().atZone(ZoneId.systemDefault()));
+        File file = new File(dir, "trace-" + stamp + ".json");
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            export(w);
+        }
+        return file;
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format(Locale.US, "\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+}
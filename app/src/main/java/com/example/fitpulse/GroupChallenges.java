@@ -0,0 +1,152 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The current account's group challenge on a challenge server (see ChallengeClient).
+ * - Membership lives in the account's SharedPreferences "challenge_prefs": server URL,
+ *   challenge id and its dates, and the participant id: one per account, and carried to a
+ *   new phone with the prefs so the account keeps its place. The display name is the account name.
+ * - push() sends the daily totals of every challenge day so far from StepDao. The server
+ *   replaces days rather than adding them, so re-sending is harmless and corrections (a
+ *   merged sync, a restored backup) reach the board on the next push. ChallengePushJobService
+ *   pushes hourly while joined.
+ * - refresh() brings a Leaderboard up to date with a board delta.
+ * Network calls block; run them off the main thread.
+ */
+public final class GroupChallenges {
+
+    static final String PREFS = "challenge_prefs";
+    static final String KEY_SERVER_URL = "server_url";
+    static final String KEY_CHALLENGE_ID = "challenge_id";
+    static final String KEY_START = "start";
+    static final String KEY_END = "end";
+    static final String KEY_LAST_RANK = "last_rank";
+    static final String KEY_PARTICIPANT_ID = "participant_id";
+
+    private final Context appCtx;
+    private final UserSession session;
+    private final SharedPreferences prefs;
+    private final Clock clock;
+
+    GroupChallenges(Context ctx, UserSession session, Clock clock) {
+        this.appCtx = ctx.getApplicationContext();
+        this.session = session;
+        this.prefs = session.prefs(PREFS);
+        this.clock = clock;
+    }
+
+    /** Challenges of the current account. */
+    public static GroupChallenges get(Context ctx) {
+        return new GroupChallenges(ctx, UserSession.current(ctx), Clock.systemDefaultZone());
+    }
+
+    public boolean isJoined() {
+        return prefs.contains(KEY_CHALLENGE_ID);
+    }
+
+    @Nullable
+    public String challengeId() {
+        return prefs.getString(KEY_CHALLENGE_ID, null);
+    }
+
+    @Nullable
+    public String serverUrl() {
+        return prefs.getString(KEY_SERVER_URL, null);
+    }
+
+    @Nullable
+    public LocalDate start() {
+        String s = prefs.getString(KEY_START, null);
+        return s != null ? LocalDate.parse(s) : null;
+    }
+
+    @Nullable
+    public LocalDate end() {
+        String s = prefs.getString(KEY_END, null);
+        return s != null ? LocalDate.parse(s) : null;
+    }
+
+    /** Rank from the last push or refresh, 0 if none yet. */
+    public int lastRank() {
+        return prefs.getInt(KEY_LAST_RANK, 0);
+    }
+
+    /** Look the challenge up, remember it, push our totals and start the hourly push. */
+    ChallengeClient.Posted join(String serverUrl, String challengeId) throws IOException {
+        ChallengeClient.Info info = new ChallengeClient(serverUrl).info(challengeId);
+        prefs.edit()
+                .putString(KEY_SERVER_URL, serverUrl)
+                .putString(KEY_CHALLENGE_ID, info.id)
+                .putString(KEY_START, info.start.toString())
+                .putString(KEY_END, info.end.toString())
+                .remove(KEY_LAST_RANK)
+                .commit();
+        ChallengeClient.Posted posted = push();
+        ChallengePushJobService.schedule(appCtx);
+        return posted;
+    }
+
+    /** Stop pushing; the server keeps our last totals on its board. */
+    public void leave() {
+        prefs.edit().clear().commit();
+    }
+
+    /** Send the totals of every challenge day up to today. Returns null when not joined. */
+    @Nullable
+    ChallengeClient.Posted push() throws IOException {
+        String id = challengeId();
+        String url = serverUrl();
+        LocalDate start = start(), end = end();
+        if (id == null || url == null || start == null || end == null) return null;
+
+        LocalDate today = LocalDate.now(clock);
+        LocalDate last = today.isBefore(end) ? today : end;
+        List<StepEntry> days = new ArrayList<>();
+        if (!last.isBefore(start)) {
+            for (StepEntry e : session.db.stepDao().getRange(start.format(StepStats.DB_FMT), last.format(StepStats.DB_FMT))) {
+                if (e.date.length() == 10) days.add(e); // daily rows only
+            }
+        }
+        ChallengeClient.Posted posted = new ChallengeClient(url).push(id, participantId(), displayName(), days);
+        prefs.edit().putInt(KEY_LAST_RANK, posted.rank).apply();
+        return posted;
+    }
+
+    /** Bring board up to date (a delta since its version, or the full top when it is new). */
+    void refresh(Leaderboard board) throws IOException {
+        String id = challengeId();
+        String url = serverUrl();
+        if (id == null || url == null) return;
+        board.apply(new ChallengeClient(url).board(id, participantId(), board.size(), board.since()));
+        if (board.me() != null) prefs.edit().putInt(KEY_LAST_RANK, board.me().rank).apply();
+    }
+
+    String participantId() {
+        synchronized (GroupChallenges.class) {
+            String id = prefs.getString(KEY_PARTICIPANT_ID, null);
+            if (id == null) {
+                // Joined before the id moved here: it was the account's sync device id
+                id = session.prefs(SyncEngine.PREFS).getString(SyncEngine.KEY_DEVICE_ID, null);
+                if (id == null) id = UUID.randomUUID().toString();
+                prefs.edit().putString(KEY_PARTICIPANT_ID, id).commit();
+            }
+            return id;
+        }
+    }
+
+    private String displayName() {
+        LocalAccounts.Account a = LocalAccounts.current(appCtx);
+        return a != null && !a.name.isEmpty() ? a.name : "FitPulse user";
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.fitpulse;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+@Dao
+public interface HeartRateDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertHour(HeartRateHour hour);
+
+    @Query("SELECT * FROM heart_rate_hours WHERE hour = :hour")
+    HeartRateHour getHour(long hour);
+
+    // Inclusive epoch-hour range, oldest first (chart order)
+    @Query("SELECT * FROM heart_rate_hours WHERE hour BETWEEN :fromHour AND :toHour ORDER BY hour ASC")
+    List<HeartRateHour> getHours(long fromHour, long toHour);
+
+    @Query("SELECT IFNULL(SUM(LENGTH(data)), 0) FROM heart_rate_hours")
+    long getStoredBytes();
+
+    @Query("DELETE FROM heart_rate_hours WHERE hour < :hour")
+    int deleteBefore(long hour);
+
+    /** Fold one closed minute into its hour row (read-modify-write in one transaction). */
+    @Transaction
+    default void mergeMinute(long epochMinute, int min, int avg, int max, int count) {
+        long hour = epochMinute / 60;
+        HeartRateHour row = getHour(hour);
+        if (row == null) row = HeartRateHour.empty(hour);
+        row.mergeMinute((int) (epochMinute % 60), min, avg, max, count);
+        upsertHour(row);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.fitpulse;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * One hour of per-minute heart-rate summaries packed into a single row.
+ * - minuteMask bit m is set when minute m of the hour has a summary.
+ * - data holds BYTES_PER_MINUTE bytes per set bit, in minute order:
+ *   min, avg, max (bpm) and sample count (saturating at 255), all unsigned.
+ * A fully worn day is 24 rows of ~250 bytes instead of 1,440+ rows.
+ */
+@Entity(tableName = "heart_rate_hours")
+public class HeartRateHour {
+
+    static final int BYTES_PER_MINUTE = 4;
+    static final long HOUR_MS = 3_600_000L;
+
+    // Epoch hour: epoch millis / HOUR_MS
+    @PrimaryKey
+    public long hour;
+
+    public long minuteMask;
+
+    @NonNull
+    public byte[] data;
+
+    public HeartRateHour(long hour, long minuteMask, @NonNull byte[] data) {
+        this.hour = hour;
+        this.minuteMask = minuteMask;
+        this.data = data;
+    }
+
+    static HeartRateHour empty(long hour) {
+        return new HeartRateHour(hour, 0L, new byte[0]);
+    }
+
+    boolean hasMinute(int minute) {
+        return (minuteMask & (1L << minute)) != 0;
+    }
+
+    /** Byte offset of minute's summary (valid whether or not it is present). */
+    private int offset(int minute) {
+        return Long.bitCount(minuteMask & ((1L << minute) - 1)) * BYTES_PER_MINUTE;
+    }
+
+    int min(int minute) { return data[offset(minute)] & 0xFF; }
+    int avg(int minute) { return data[offset(minute) + 1] & 0xFF; }
+    int max(int minute) { return data[offset(minute) + 2] & 0xFF; }
+    int count(int minute) { return data[offset(minute) + 3] & 0xFF; }
+
+    /**
+     * Add a minute summary. If the minute already has one (e.g. it was flushed
+     * before a restart), the two are combined, weighting the averages by count.
+     */
+    void mergeMinute(int minute, int min, int avg, int max, int count) {
+        int off = offset(minute);
+        if (hasMinute(minute)) {
+            int oldCount = data[off + 3] & 0xFF;
+            int total = Math.max(1, oldCount + count);
+            data[off] = (byte) Math.min(data[off] & 0xFF, min);
+            data[off + 1] = (byte) (((data[off + 1] & 0xFF) * oldCount + avg * count + total / 2) / total);
+            data[off + 2] = (byte) Math.max(data[off + 2] & 0xFF, max);
+            data[off + 3] = (byte) Math.min(255, oldCount + count);
+            return;
+        }
+        byte[] grown = new byte[data.length + BYTES_PER_MINUTE];
+        System.arraycopy(data, 0, grown, 0, off);
+        System.arraycopy(data, off, grown, off + BYTES_PER_MINUTE, data.length - off);
+        grown[off] = (byte) min;
+        grown[off + 1] = (byte) avg;
+        grown[off + 2] = (byte) max;
+        grown[off + 3] = (byte) Math.min(255, count);
+        data = grown;
+        minuteMask |= 1L << minute;
+    }
+}
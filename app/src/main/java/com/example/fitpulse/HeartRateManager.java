@@ -0,0 +1,187 @@
+package com.example.fitpulse;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.content.ContextCompat;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+
+import java.time.Clock;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Heart-rate ingestion from TYPE_HEART_RATE, alongside StepCounterManager.
+ * - Readings are folded into a running min/avg/max for the current minute; each closed
+ *   minute is merged into its HeartRateHour row on the DB executor (one small write a minute).
+ * - Broadcasts HEART_RATE_UPDATE (local) with "bpm" for live UI.
+ * - Ref-counted start()/stop() like StepCounterManager. The sensor needs BODY_SENSORS;
+ *   callers keep their start() while it is missing and call refresh() once it is granted.
+ * - Raw per-reading samples are not kept here: WorkoutRecorder stores them in its chunks
+ *   while a workout is running.
+ */
+public class HeartRateManager implements SensorEventListener {
+
+    public static final String ACTION_UPDATE = "HEART_RATE_UPDATE";
+    public static final String EXTRA_BPM = "bpm";
+
+    /** Readings outside this range (sensor warm-up, lost contact) are dropped. */
+    static final int MIN_BPM = 25;
+    static final int MAX_BPM = 250;
+
+    private static HeartRateManager INSTANCE;
+
+    private final Context appCtx;
+    @Nullable private final SensorManager sensorManager;
+    @Nullable private final Sensor heartRate;
+    /** Database override for tests; null means the current account's (AppDatabase.getInstance). */
+    @Nullable private final AppDatabase dbOverride;
+    private final Clock clock;
+    private final Executor dbExecutor;
+
+    private int startCount = 0;
+    private boolean registered = false;
+    /** Held unregistered by pause() (backup restore). */
+    private boolean paused = false;
+
+    // Current minute accumulator
+    private long curMinute = -1;
+    private int minBpm, maxBpm, count;
+    private long sumBpm;
+
+    private HeartRateManager(Context ctx) {
+        this(ctx,
+                (SensorManager) ctx.getApplicationContext().getSystemService(Context.SENSOR_SERVICE),
+                null,
+                Clock.systemDefaultZone(),
+                Executors.newSingleThreadExecutor());
+    }
+
+    /**
+     * Wiring constructor for tests.
+     * @param dbExecutor must run tasks in order (a direct executor makes writes synchronous)
+     */
+    @VisibleForTesting
+    HeartRateManager(Context ctx, @Nullable SensorManager sensorManager, @Nullable AppDatabase db, Clock clock,
+                     Executor dbExecutor) {
+        this.appCtx = ctx.getApplicationContext();
+        this.sensorManager = sensorManager;
+        this.heartRate = (sensorManager != null) ? sensorManager.getDefaultSensor(Sensor.TYPE_HEART_RATE) : null;
+        this.dbOverride = db;
+        this.clock = clock;
+        this.dbExecutor = dbExecutor;
+    }
+
+    public static synchronized HeartRateManager get(Context ctx) {
+        if (INSTANCE == null) INSTANCE = new HeartRateManager(ctx.getApplicationContext());
+        return INSTANCE;
+    }
+
+    /** True if the app may read the heart-rate sensor. */
+    public static boolean hasPermission(Context ctx) {
+        return ContextCompat.checkSelfPermission(ctx, Manifest.permission.BODY_SENSORS)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /** False when the device has no heart-rate sensor at all. */
+    public boolean isAvailable() {
+        return heartRate != null;
+    }
+
+    public synchronized void start() {
+        startCount++;
+        refresh();
+    }
+
+    public synchronized void stop() {
+        if (startCount == 0) return;
+        if (--startCount == 0) {
+            if (registered) sensorManager.unregisterListener(this);
+            registered = false;
+            flushMinute(); // don't lose the partial minute
+        }
+    }
+
+    /**
+     * Stop taking readings and wait until the queued minute summaries are written
+     * (StepBackup.restore, before the session's files are replaced).
+     */
+    public void pause() throws InterruptedException {
+        synchronized (this) {
+            paused = true;
+            if (registered) sensorManager.unregisterListener(this);
+            registered = false;
+            flushMinute();
+        }
+        CountDownLatch written = new CountDownLatch(1);
+        dbExecutor.execute(written::countDown);
+        written.await();
+    }
+
+    public synchronized void resume() {
+        paused = false;
+        refresh();
+    }
+
+    /** Register now if someone wants readings and the permission is (newly) granted. */
+    public synchronized void refresh() {
+        if (paused || registered || startCount == 0 || heartRate == null || !hasPermission(appCtx)) return;
+        registered = sensorManager.registerListener(this, heartRate, SensorManager.SENSOR_DELAY_NORMAL);
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (event.sensor.getType() != Sensor.TYPE_HEART_RATE) return;
+        if (event.accuracy == SensorManager.SENSOR_STATUS_NO_CONTACT
+                || event.accuracy == SensorManager.SENSOR_STATUS_UNRELIABLE) return;
+        onReading(clock.millis(), Math.round(event.values[0]));
+    }
+
+    /** One reading at wall time nowMs; entry point for the sensor and for fake sources in tests. */
+    synchronized void onReading(long nowMs, int bpm) {
+        if (bpm < MIN_BPM || bpm > MAX_BPM) return;
+        long minute = Math.floorDiv(nowMs, 60_000L);
+        if (minute != curMinute) {
+            flushMinute();
+            curMinute = minute;
+        }
+        if (count == 0) {
+            minBpm = bpm;
+            maxBpm = bpm;
+        } else {
+            minBpm = Math.min(minBpm, bpm);
+            maxBpm = Math.max(maxBpm, bpm);
+        }
+        sumBpm += bpm;
+        count++;
+
+        Intent intent = new Intent(ACTION_UPDATE);
+        intent.putExtra(EXTRA_BPM, bpm);
+        LocalBroadcastManager.getInstance(appCtx).sendBroadcast(intent);
+    }
+
+    /** Queue the current minute's summary (if any) and reset the accumulator. */
+    synchronized void flushMinute() {
+        if (count == 0) return;
+        long minute = curMinute;
+        int min = minBpm, max = maxBpm, n = count;
+        int avg = (int) ((sumBpm + n / 2) / n);
+        count = 0;
+        sumBpm = 0;
+        dbExecutor.execute(() -> {
+            AppDatabase db = (dbOverride != null) ? dbOverride : AppDatabase.getInstance(appCtx);
+            db.heartRateDao().mergeMinute(minute, min, avg, max, n);
+        });
+    }
+
+    @Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+}
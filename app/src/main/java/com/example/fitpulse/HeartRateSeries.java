@@ -0,0 +1,77 @@
+package com.example.fitpulse;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-minute heart-rate summaries for a time range, as parallel primitive columns
+ * ready for charting (only minutes that have data are present).
+ */
+public final class HeartRateSeries {
+
+    /** Epoch millis of each minute's start, ascending. */
+    public long[] minuteMs = new long[0];
+    public int[] min = new int[0];
+    public int[] avg = new int[0];
+    public int[] max = new int[0];
+    public int size;
+
+    /** Minutes in [fromMs, toMs) with heart-rate data. */
+    public static HeartRateSeries read(HeartRateDao dao, long fromMs, long toMs) {
+        HeartRateSeries out = new HeartRateSeries();
+        if (toMs <= fromMs) return out;
+        List<HeartRateHour> hours = dao.getHours(fromMs / HeartRateHour.HOUR_MS, (toMs - 1) / HeartRateHour.HOUR_MS);
+        int n = 0;
+        for (HeartRateHour h : hours) n += Long.bitCount(h.minuteMask);
+        out.ensureCapacity(n);
+
+        for (HeartRateHour h : hours) {
+            long mask = h.minuteMask;
+            int off = 0;
+            while (mask != 0) {
+                int m = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                long t = h.hour * HeartRateHour.HOUR_MS + m * 60_000L;
+                if (t >= fromMs && t < toMs) {
+                    int i = out.size++;
+                    out.minuteMs[i] = t;
+                    out.min[i] = h.data[off] & 0xFF;
+                    out.avg[i] = h.data[off + 1] & 0xFF;
+                    out.max[i] = h.data[off + 2] & 0xFF;
+                }
+                off += HeartRateHour.BYTES_PER_MINUTE;
+            }
+        }
+        return out;
+    }
+
+    /** Lowest per-minute min, or 0 when empty. */
+    public int overallMin() {
+        int v = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) v = Math.min(v, min[i]);
+        return size == 0 ? 0 : v;
+    }
+
+    /** Highest per-minute max, or 0 when empty. */
+    public int overallMax() {
+        int v = 0;
+        for (int i = 0; i < size; i++) v = Math.max(v, max[i]);
+        return v;
+    }
+
+    /** Mean of the per-minute averages (each minute weighs the same), or 0 when empty. */
+    public int overallAvg() {
+        if (size == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < size; i++) sum += avg[i];
+        return (int) Math.round(sum / (double) size);
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= minuteMs.length) return;
+        minuteMs = Arrays.copyOf(minuteMs, n);
+        min = Arrays.copyOf(min, n);
+        avg = Arrays.copyOf(avg, n);
+        max = Arrays.copyOf(max, n);
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.fitpulse;
+
+import android.animation.ValueAnimator;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Home tab:
+ * - Shows today's steps, calories, active time, and the projected end-of-day total (StepProjection).
+ * - Listens for STEP_UPDATE broadcasts and animates the step counter.
+ * - Reads today's persisted steps from Room on every start (first show, return from the
+ *   background, a new day); while started, live broadcasts keep it current, so switching
+ *   back to this tab does not re-query.
+ * - updateSteps and today's Room read are FitTrace sections.
+ * - The first frame shows the steps and goal this tab last rendered today (UiSnapshot, one
+ *   small file) instead of "0 Steps"; the Room read then corrects it with a short count.
+ */
+public class HomeFragment extends Fragment {
+
+    private StepProgressView progressView;
+    private TextView stepsText;
+    private TextView caloriesText;
+    private TextView durationText;
+    private TextView projectionText;
+    private ImageView btnBackHome;
+
+    /** Daily goal used by the circular progress view (loaded from prefs). */
+    private int stepGoal = 10000;
+
+    /** The current account's first-frame snapshot; updated with every rendered count. */
+    private UiSnapshot ui;
+
+    /** Steps currently rendered, and the latest value received while the tab was hidden. */
+    private int shownSteps = 0;
+    private int pendingSteps = -1;
+
+    /** Live updates received so far, and the latest loadToday() (older results are dropped). */
+    private int liveUpdates = 0;
+    private int loadSeq = 0;
+
+    /** Receives live step updates from StepCounterManager and refreshes UI. */
+    private final BroadcastReceiver stepReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if ("STEP_UPDATE".equals(intent.getAction())) {
+                int stepsToday = intent.getIntExtra("steps_today", 0);
+                liveUpdates++;
+                if (isHidden()) {
+                    pendingSteps = stepsToday; // don't animate off-screen
+                } else {
+                    updateSteps(stepsToday);
+                }
+            }
+        }
+    };
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_home, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        // Bind views
+        progressView  = view.findViewById(R.id.progress_view);
+        stepsText     = view.findViewById(R.id.steps_text);
+        caloriesText  = view.findViewById(R.id.calories_text);
+        durationText  = view.findViewById(R.id.duration_text);
+        projectionText = view.findViewById(R.id.projection_text);
+        btnBackHome   = view.findViewById(R.id.btn_back_home);
+
+        if (btnBackHome != null) btnBackHome.setOnClickListener(v -> {});
+
+        // First frame: what this tab showed last (today only); goal prefs and Room load in onStart
+        UserSession session = UserSession.current(requireContext());
+        ui = session.ui;
+        UiSnapshot.State last = ui.read();
+        int lastSteps = last.stepsOn(LocalDate.now());
+        if (lastSteps >= 0) {
+            stepGoal = last.goal();
+            paintSteps(lastSteps);
+        } else {
+            // Load goal from Settings (FitPulsePrefs/step_goal)
+            stepGoal = getSavedStepGoal();
+        }
+    }
+
+    /**
+     * Today's persisted steps and the goal, read on a background thread. Runs on every start:
+     * the counter is stopped while the app is in the background, and the day may have rolled
+     * over since the last read. Skipped if a live update arrived meanwhile (it is newer).
+     */
+    private void loadToday() {
+        View view = getView();
+        if (view == null) return;
+        UserSession session = UserSession.current(requireContext());
+        String today = LocalDate.now().format(StepStats.DB_FMT);
+        int seq = ++loadSeq;
+        int updatesBefore = liveUpdates;
+        new Thread(() -> {
+            int goal = session.prefs(SettingsFragment.PREFS_NAME).getInt("step_goal", 10000);
+            long trace = FitTrace.begin(FitTrace.DB_TODAY);
+            StepEntry todayEntry;
+            try {
+                todayEntry = session.db.stepDao().getStepsByDate(today);
+            } finally {
+                FitTrace.end(FitTrace.DB_TODAY, trace);
+            }
+            int steps = todayEntry != null ? todayEntry.steps : 0;
+            view.post(() -> {
+                if (getView() == null || seq != loadSeq) return;
+                stepGoal = goal;
+                if (liveUpdates != updatesBefore) return; // already showing (or holding) a newer count
+                if (isHidden()) {
+                    pendingSteps = steps;
+                } else {
+                    updateSteps(steps);
+                }
+            });
+        }, "home-today").start();
+    }
+
+    /** Reads the saved step goal (defaults to 10,000). */
+    private int getSavedStepGoal() {
+        SharedPreferences prefs = UserSession.prefs(requireContext(), SettingsFragment.PREFS_NAME);
+        return prefs.getInt("step_goal", 10000);
+    }
+
+    /** Snapshot values without animation or projection (those need prefs; the Room read follows). */
+    private void paintSteps(int steps) {
+        shownSteps = steps;
+        stepsText.setText(String.format(Locale.getDefault(), "%,d Steps", steps));
+        showEstimates(steps);
+    }
+
+    /** Animator used to smoothly count numbers up/down in the step text. */
+    private ValueAnimator stepAnimator;
+
+    /** Updates UI for steps, progress, calories, and duration. */
+    private void updateSteps(int steps) {
+        long trace = FitTrace.begin(FitTrace.HOME_UPDATE);
+        try {
+            applySteps(steps);
+        } finally {
+            FitTrace.end(FitTrace.HOME_UPDATE, trace);
+        }
+    }
+
+    private void applySteps(int steps) {
+        shownSteps = steps;
+
+        // Parse the current number shown in the label (fallback to 0)
+        int oldSteps;
+        try {
+            oldSteps = Integer.parseInt(stepsText.getText().toString().replaceAll("[^0-9]", ""));
+        } catch (NumberFormatException e) {
+            oldSteps = 0;
+        }
+
+        // Stop any ongoing animation before starting a new one
+        if (stepAnimator != null && stepAnimator.isRunning()) {
+            stepAnimator.cancel();
+        }
+
+        // Short animations for tiny changes; cap duration for large jumps
+        int diff = Math.abs(steps - oldSteps);
+        long duration = diff <= 3 ? 120 : Math.min(500, 20L * diff);
+
+        stepAnimator = ValueAnimator.ofInt(oldSteps, steps);
+        stepAnimator.setDuration(duration);
+        stepAnimator.addUpdateListener(animation -> {
+            int animatedValue = (int) animation.getAnimatedValue();
+            stepsText.setText(String.format(Locale.getDefault(), "%,d Steps", animatedValue));
+        });
+        stepAnimator.start();
+
+        showEstimates(steps);
+        updateProjection();
+        ui.putToday(LocalDate.now(), steps, stepGoal);
+    }
+
+    /** Ring, calories and active time for steps. */
+    private void showEstimates(int steps) {
+        // Ring progress
+        progressView.setSteps(steps, stepGoal);
+
+        // Simple estimates
+        float calories = steps * 0.04f;
+        caloriesText.setText(String.format(Locale.getDefault(), "%.0f Cal", calories));
+
+        int minutes = steps / 130;
+        int seconds = (int) ((steps % 130) / 2.2);
+        durationText.setText(String.format(Locale.getDefault(), "%d:%02d", minutes, seconds));
+    }
+
+    /** End-of-day estimate vs. goal; cheap enough to redo on every update. */
+    private void updateProjection() {
+        if (projectionText == null) return;
+        LocalDateTime now = LocalDateTime.now();
+        StepProjection.Projection p = StepProjection.get(requireContext())
+                .project(now.toLocalDate(), now.getHour() * 60 + now.getMinute(), shownSteps);
+        if (shownSteps >= stepGoal) {
+            projectionText.setText("Goal reached");
+        } else if (p.expectedTotal >= stepGoal) {
+            projectionText.setText(String.format(Locale.getDefault(), "On track: ~%,d by tonight", p.expectedTotal));
+        } else {
+            projectionText.setText(String.format(Locale.getDefault(), "Heading for ~%,d (%,d short)",
+                    p.expectedTotal, stepGoal - p.expectedTotal));
+        }
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        // Stay subscribed while hidden (the fragment is retained), so re-showing needs no DB read
+        LocalBroadcastManager.getInstance(requireContext())
+                .registerReceiver(stepReceiver, new IntentFilter("STEP_UPDATE"));
+        // Back from the background (or a new day): the count may have moved without broadcasts
+        loadToday();
+    }
+
+    @Override
+    public void onStop() {
+        LocalBroadcastManager.getInstance(requireContext()).unregisterReceiver(stepReceiver);
+        ui.flush();
+        super.onStop();
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        if (!hidden) {
+            // Goal may have been edited on the Settings tab
+            int goal = getSavedStepGoal();
+            boolean goalChanged = goal != stepGoal;
+            stepGoal = goal;
+            if (pendingSteps >= 0) {
+                updateSteps(pendingSteps);
+                pendingSteps = -1;
+            } else if (goalChanged) {
+                progressView.setSteps(shownSteps, stepGoal);
+                updateProjection();
+                ui.putToday(LocalDate.now(), shownSteps, stepGoal);
+            }
+        }
+    }
+}
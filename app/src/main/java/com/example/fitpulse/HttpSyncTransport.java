@@ -0,0 +1,204 @@
+package com.example.fitpulse;
+
+import android.util.JsonReader;
+import android.util.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * SyncTransport over plain HttpURLConnection with gzip-compressed JSON bodies.
+ *
+ * Endpoints (relative to baseUrl):
+ * - POST /steps/batch  body {"device":id,"rows":[{"d":date,"s":steps,"u":updatedAt},...]}
+ *                      reply {"accepted":n}, n = rows taken from the start of the batch
+ * - GET  /steps/changes?since=cursor&limit=n
+ *                      reply {"rows":[...],"cursor":c,"more":bool}
+ *
+ * Rows are streamed through JsonWriter/JsonReader, so a batch is never held as one
+ * big string. Compressed byte counters are kept for sync reports and tests.
+ */
+final class HttpSyncTransport implements SyncTransport {
+
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private final String baseUrl;
+    private final String deviceId;
+
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    HttpSyncTransport(String baseUrl, String deviceId) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.deviceId = deviceId;
+    }
+
+    /** Compressed request bytes written so far. */
+    long bytesSent() {
+        return bytesSent.get();
+    }
+
+    /** Compressed response bytes read so far. */
+    long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override
+    public int upload(List<StepEntry> rows) throws IOException {
+        HttpURLConnection c = open("/steps/batch");
+        try {
+            c.setRequestMethod("POST");
+            c.setDoOutput(true);
+            c.setChunkedStreamingMode(0);
+            c.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            c.setRequestProperty("Content-Encoding", "gzip");
+
+            OutputStream counted = new CountingOutputStream(c.getOutputStream(), bytesSent);
+            try (JsonWriter w = new JsonWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(new BufferedOutputStream(counted), 8192), StandardCharsets.UTF_8))) {
+                w.beginObject();
+                w.name("device").value(deviceId);
+                w.name("rows").beginArray();
+                for (StepEntry e : rows) {
+                    writeRow(w, e);
+                }
+                w.endArray();
+                w.endObject();
+            }
+
+            int accepted = 0;
+            try (JsonReader r = readResponse(c)) {
+                r.beginObject();
+                while (r.hasNext()) {
+                    if ("accepted".equals(r.nextName())) accepted = r.nextInt();
+                    else r.skipValue();
+                }
+                r.endObject();
+            }
+            return accepted;
+        } finally {
+            c.disconnect();
+        }
+    }
+
+    @Override
+    public ChangePage fetchChanges(long cursor, int limit) throws IOException {
+        HttpURLConnection c = open("/steps/changes?since=" + cursor + "&limit=" + limit);
+        try {
+            List<StepEntry> rows = new ArrayList<>();
+            long next = cursor;
+            boolean more = false;
+            try (JsonReader r = readResponse(c)) {
+                r.beginObject();
+                while (r.hasNext()) {
+                    switch (r.nextName()) {
+                        case "rows":
+                            r.beginArray();
+                            while (r.hasNext()) rows.add(readRow(r));
+                            r.endArray();
+                            break;
+                        case "cursor":
+                            next = r.nextLong();
+                            break;
+                        case "more":
+                            more = r.nextBoolean();
+                            break;
+                        default:
+                            r.skipValue();
+                    }
+                }
+                r.endObject();
+            }
+            return new ChangePage(rows, next, more);
+        } finally {
+            c.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        c.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        c.setReadTimeout(READ_TIMEOUT_MS);
+        // Set explicitly so we decompress ourselves on every platform
+        c.setRequestProperty("Accept-Encoding", "gzip");
+        return c;
+    }
+
+    /** Throws for non-2xx, otherwise wraps the (possibly gzip) body in a JsonReader. */
+    private JsonReader readResponse(HttpURLConnection c) throws IOException {
+        int code = c.getResponseCode();
+        if (code < 200 || code >= 300) {
+            throw new IOException("Sync server returned HTTP " + code + " for " + c.getURL().getPath());
+        }
+        InputStream in = new BufferedInputStream(c.getInputStream());
+        long len = c.getContentLengthLong();
+        if (len > 0) bytesReceived.addAndGet(len);
+        if ("gzip".equalsIgnoreCase(c.getContentEncoding())) in = new GZIPInputStream(in, 8192);
+        return new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static void writeRow(JsonWriter w, StepEntry e) throws IOException {
+        w.beginObject();
+        w.name("d").value(e.date);
+        w.name("s").value(e.steps);
+        w.name("u").value(e.updatedAt);
+        w.endObject();
+    }
+
+    static StepEntry readRow(JsonReader r) throws IOException {
+        String date = null;
+        int steps = 0;
+        long updatedAt = 0;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "d": date = r.nextString(); break;
+                case "s": steps = r.nextInt(); break;
+                case "u": updatedAt = r.nextLong(); break;
+                default: r.skipValue();
+            }
+        }
+        r.endObject();
+        if (date == null) throw new IOException("Sync row without a date");
+        StepEntry e = new StepEntry(date, steps);
+        e.updatedAt = updatedAt;
+        return e;
+    }
+
+    /** Counts bytes on their way to the socket (i.e. after compression). */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong counter;
+
+        CountingOutputStream(OutputStream out, AtomicLong counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            counter.addAndGet(len);
+        }
+    }
+}
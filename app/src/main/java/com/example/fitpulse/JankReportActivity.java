@@ -0,0 +1,133 @@
+package com.example.fitpulse;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * JankReportActivity (debug builds)
+ * - Shows JankWatchdog's aggregated main-thread stalls and StrictMode violations.
+ * - Tapping a row shows its example stack; Export writes the full report to a text file
+ *   under the app's external files dir ("reports/"), next to the FitTrace recording as a
+ *   Perfetto-compatible trace-*.json.
+ */
+public class JankReportActivity extends AppCompatActivity {
+
+    private final List<JankWatchdog.Entry> rows = new ArrayList<>();
+    private RowAdapter adapter;
+    private TextView summary;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_jank_report);
+
+        findViewById(R.id.btn_back_jank).setOnClickListener(v -> finish());
+        summary = findViewById(R.id.jank_summary);
+
+        ListView list = findViewById(R.id.list_jank);
+        adapter = new RowAdapter();
+        list.setAdapter(adapter);
+        list.setOnItemClickListener((parent, view, position, id) -> {
+            JankWatchdog.Entry e = rows.get(position);
+            new AlertDialog.Builder(this)
+                    .setTitle(e.kind)
+                    .setMessage(e.signature + (e.exampleStack.isEmpty() ? "" : "\n\n" + e.exampleStack))
+                    .setPositiveButton(android.R.string.ok, null)
+                    .show();
+        });
+
+        JankWatchdog watchdog = JankWatchdog.get();
+        if (watchdog == null) {
+            summary.setText("The watchdog only runs in debug builds.");
+            findViewById(R.id.btn_jank_export).setEnabled(false);
+            findViewById(R.id.btn_jank_clear).setEnabled(false);
+            return;
+        }
+
+        findViewById(R.id.btn_jank_clear).setOnClickListener(v -> {
+            watchdog.clear();
+            refresh();
+        });
+
+        // Write off the main thread, or the export would show up in its own report
+        findViewById(R.id.btn_jank_export).setOnClickListener(v -> {
+            new Thread(() -> {
+                File base = getExternalFilesDir(null);
+                File dir = new File(base != null ? base : getFilesDir(), "reports");
+                String msg;
+                try {
+                    msg = "Saved " + watchdog.exportTo(dir).getAbsolutePath();
+                    if (FitTrace.isRecording()) msg += "\nand " + FitTrace.exportTo(dir).getName();
+                } catch (IOException e) {
+                    msg = "Export failed: " + e.getMessage();
+                }
+                String toast = msg;
+                runOnUiThread(() -> Toast.makeText(this, toast, Toast.LENGTH_LONG).show());
+            }).start();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void refresh() {
+        JankWatchdog watchdog = JankWatchdog.get();
+        if (watchdog == null) return;
+        rows.clear();
+        rows.addAll(watchdog.snapshot());
+        adapter.notifyDataSetChanged();
+
+        int stalls = 0, violations = 0;
+        for (JankWatchdog.Entry e : rows) {
+            if (e.isStall()) stalls += e.count;
+            else violations += e.count;
+        }
+        summary.setText(String.format(Locale.getDefault(),
+                "Threshold %d ms · %,d stalls · %,d StrictMode violations · %,d trace events",
+                watchdog.getThresholdMs(), stalls, violations, FitTrace.size()));
+    }
+
+    private class RowAdapter extends BaseAdapter {
+        @Override public int getCount() { return rows.size(); }
+        @Override public JankWatchdog.Entry getItem(int position) { return rows.get(position); }
+        @Override public long getItemId(int position) { return position; }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View row = convertView != null ? convertView
+                    : LayoutInflater.from(parent.getContext()).inflate(R.layout.item_jank, parent, false);
+            JankWatchdog.Entry e = getItem(position);
+
+            TextView kind = row.findViewById(R.id.jank_kind);
+            TextView timing = row.findViewById(R.id.jank_timing);
+            TextView signature = row.findViewById(R.id.jank_signature);
+            kind.setText(String.format(Locale.getDefault(), "%s · %,d×", e.kind, e.count));
+            if (e.isStall()) {
+                timing.setVisibility(View.VISIBLE);
+                timing.setText(String.format(Locale.getDefault(), "total %,d ms · max %,d ms", e.totalMs, e.maxMs));
+            } else {
+                timing.setVisibility(View.GONE);
+            }
+            signature.setText(e.signature);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Looper;
+import android.os.StrictMode;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Debug-build jank watchdog for the main thread.
+ * - Times every message the main Looper dispatches (via its message-logging Printer).
+ * - A sampler thread checks every SAMPLE_INTERVAL_MS; once the current dispatch has run for
+ *   half the threshold it captures the main thread's stack.
+ * - Dispatches at or above the threshold are aggregated by stack signature (the first app
+ *   frames of the most-sampled stack), so one slow call site collapses into one report row.
+ * - StrictMode disk/network violations on the main thread land in the same report.
+ * - install() is a no-op unless the app is debuggable (FLAG_DEBUGGABLE).
+ */
+public final class JankWatchdog {
+
+    /** Dispatches at or above this duration count as stalls. */
+    static final long DEFAULT_THRESHOLD_MS = 100;
+
+    /** How often the sampler thread looks at the main thread. */
+    static final long SAMPLE_INTERVAL_MS = 16;
+
+    /** App frames kept in a stack signature. */
+    static final int SIGNATURE_FRAMES = 3;
+
+    /** Frames kept in the example stack of each row. */
+    static final int EXAMPLE_FRAMES = 25;
+
+    /** Distinct rows kept; stalls with new signatures beyond this are only counted. */
+    static final int MAX_ENTRIES = 200;
+
+    private static final String APP_PACKAGE = "com.example.fitpulse";
+
+    private static final DateTimeFormatter FILE_FMT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.US);
+
+    /** Installed instance, or null in release builds. */
+    @Nullable private static JankWatchdog INSTANCE;
+
+    /** One aggregated report row. */
+    public static final class Entry {
+        /** Kind of main-thread stalls; violations use the StrictMode violation class name. */
+        public static final String KIND_STALL = "Stall";
+
+        public final String kind;
+        public final String signature;
+        public final String exampleStack;
+        public int count;
+        public long totalMs;
+        public long maxMs;
+        public long lastSeenAt;
+
+        Entry(String kind, String signature, String exampleStack) {
+            this.kind = kind;
+            this.signature = signature;
+            this.exampleStack = exampleStack;
+        }
+
+        public boolean isStall() { return KIND_STALL.equals(kind); }
+
+        Entry copy() {
+            Entry e = new Entry(kind, signature, exampleStack);
+            e.count = count;
+            e.totalMs = totalMs;
+            e.maxMs = maxMs;
+            e.lastSeenAt = lastSeenAt;
+            return e;
+        }
+    }
+
+    private final long thresholdMs;
+    private final Clock clock;
+
+    /** Aggregated rows keyed by kind + signature; guarded by itself. */
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private int droppedRows = 0;
+
+    // Current dispatch; written on the main thread, read by the sampler
+    private volatile boolean dispatching = false;
+    private volatile long dispatchStartNs = 0L;
+    private volatile long dispatchSeq = 0L;
+    @Nullable private String dispatchWhat;
+
+    // Stacks sampled during the current dispatch, by signature; guarded by this
+    private final Map<String, Integer> sampleCounts = new HashMap<>();
+    private final Map<String, StackTraceElement[]> sampleStacks = new HashMap<>();
+
+    @VisibleForTesting
+    JankWatchdog(long thresholdMs, Clock clock) {
+        this.thresholdMs = thresholdMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Start watching the main thread if this is a debuggable build.
+     * Must be called on the main thread (StrictMode policies are per-thread). Idempotent.
+     */
+    public static synchronized void install(Context ctx) {
+        if (INSTANCE != null || !isDebuggable(ctx)) return;
+        JankWatchdog w = new JankWatchdog(DEFAULT_THRESHOLD_MS, Clock.systemDefaultZone());
+        w.attach(Looper.getMainLooper());
+        INSTANCE = w;
+    }
+
+    /** The running watchdog, or null when not installed (release builds). */
+    @Nullable
+    public static synchronized JankWatchdog get() {
+        return INSTANCE;
+    }
+
+    static boolean isDebuggable(Context ctx) {
+        return (ctx.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    public long getThresholdMs() {
+        return thresholdMs;
+    }
+
+    private void attach(Looper looper) {
+        // Looper logs ">>>>> Dispatching to ..." before and "<<<<< Finished to ..." after each message
+        looper.setMessageLogging(line -> {
+            if (line.startsWith(">>>>>")) onDispatchStart(System.nanoTime(), line);
+            else if (line.startsWith("<<<<<")) onDispatchEnd(System.nanoTime());
+        });
+
+        Thread main = looper.getThread();
+        Thread sampler = new Thread(() -> {
+            long sampleAfterNs = thresholdMs * 1_000_000L / 2;
+            while (true) {
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long seq = dispatchSeq;
+                long start = dispatchStartNs;
+                if (dispatching && System.nanoTime() - start >= sampleAfterNs) {
+                    onSample(seq, main.getStackTrace());
+                }
+            }
+        }, "fitpulse-jank-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        // Listener runs off the main thread so reporting a violation can't cause another
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .penaltyListener(Executors.newSingleThreadExecutor(), this::onViolation)
+                .build());
+    }
+
+    // ---- Event intake (package-private so tests can drive it without a Looper) ----
+
+    synchronized void onDispatchStart(long nowNs, @Nullable String what) {
+        dispatchSeq++;
+        dispatchWhat = what;
+        sampleCounts.clear();
+        sampleStacks.clear();
+        dispatchStartNs = nowNs;
+        dispatching = true;
+    }
+
+    synchronized void onDispatchEnd(long nowNs) {
+        if (!dispatching) return;
+        dispatching = false;
+        long durationMs = (nowNs - dispatchStartNs) / 1_000_000L;
+        if (durationMs < thresholdMs) return;
+
+        // Attribute the stall to the stack seen most often while it lasted
+        String best = null;
+        int bestCount = 0;
+        for (Map.Entry<String, Integer> e : sampleCounts.entrySet()) {
+            if (e.getValue() > bestCount) {
+                best = e.getKey();
+                bestCount = e.getValue();
+            }
+        }
+        if (best != null) {
+            record(Entry.KIND_STALL, best, formatStack(sampleStacks.get(best)), durationMs);
+        } else {
+            // Over the threshold but finished between samples: fall back to the message target
+            record(Entry.KIND_STALL, "(not sampled) " + describeDispatch(dispatchWhat), "", durationMs);
+        }
+    }
+
+    /** Sequence number of the latest dispatch; samples are tagged with it. */
+    long currentDispatch() {
+        return dispatchSeq;
+    }
+
+    /** Sampled stack of the main thread, taken while dispatch {@code seq} was running. */
+    synchronized void onSample(long seq, StackTraceElement[] stack) {
+        // Drop samples that raced with the end of the dispatch they were taken for
+        if (seq != dispatchSeq || !dispatching || stack.length == 0) return;
+        String sig = signature(stack);
+        Integer n = sampleCounts.get(sig);
+        sampleCounts.put(sig, n == null ? 1 : n + 1);
+        if (n == null) sampleStacks.put(sig, stack);
+    }
+
+    /** StrictMode violation (android.os.strictmode.Violation is a Throwable). */
+    void onViolation(Throwable violation) {
+        StackTraceElement[] stack = violation.getStackTrace();
+        record(violation.getClass().getSimpleName(), signature(stack), formatStack(stack), 0L);
+    }
+
+    private void record(String kind, String signature, String exampleStack, long durationMs) {
+        String key = kind + '\n' + signature;
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e == null) {
+                if (entries.size() >= MAX_ENTRIES) {
+                    droppedRows++;
+                    return;
+                }
+                e = new Entry(kind, signature, exampleStack);
+                entries.put(key, e);
+            }
+            e.count++;
+            e.totalMs += durationMs;
+            e.maxMs = Math.max(e.maxMs, durationMs);
+            e.lastSeenAt = clock.millis();
+        }
+    }
+
+    // ---- Report ----
+
+    /** Copy of all rows: stalls by total stalled time, then violations by count. */
+    public List<Entry> snapshot() {
+        List<Entry> out = new ArrayList<>();
+        synchronized (entries) {
+            for (Entry e : entries.values()) out.add(e.copy());
+        }
+        out.sort((a, b) -> {
+            if (a.isStall() != b.isStall()) return a.isStall() ? -1 : 1;
+            if (a.totalMs != b.totalMs) return Long.compare(b.totalMs, a.totalMs);
+            return Integer.compare(b.count, a.count);
+        });
+        return out;
+    }
+
+    /** Rows not kept because MAX_ENTRIES was reached. */
+    public int getDroppedRows() {
+        synchronized (entries) {
+            return droppedRows;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            droppedRows = 0;
+        }
+    }
+
+    /** Plain-text report, one block per row. */
+    public void writeReport(PrintWriter out) {
+        List<Entry> rows = snapshot();
+        out.printf(Locale.US, "FitPulse jank report, generated %s%n", Instant.ofEpochMilli(clock.millis()));
+        out.printf(Locale.US, "Stall threshold: %d ms, rows: %d, dropped: %d%n%n",
+                thresholdMs, rows.size(), getDroppedRows());
+        for (Entry e : rows) {
+            if (e.isStall()) {
+                out.printf(Locale.US, "[%s] x%d total=%dms max=%dms avg=%dms%n",
+                        e.kind, e.count, e.totalMs, e.maxMs, e.totalMs / e.count);
+            } else {
+                out.printf(Locale.US, "[%s] x%d%n", e.kind, e.count);
+            }
+            out.println("  " + e.signature);
+            if (!e.exampleStack.isEmpty()) out.println(e.exampleStack);
+            out.println();
+        }
+        out.flush();
+    }
+
+    /** Write the report to a timestamped file in {@code dir}; returns that file. */
+    public File exportTo(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        String stamp = FILE_FMT.format(Instant.ofEpochMilli(clock.millis()).atZone(ZoneId.systemDefault()));
+        File file = new File(dir, "jank-" + stamp + ".txt");
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writeReport(out);
+        }
+        return file;
+    }
+
+    // ---- Signatures ----
+
+    /**
+     * Stable key for a stack: the top frame plus the first SIGNATURE_FRAMES app frames,
+     * e.g. "Linux.read ... StepCounterManager.onSensorChanged:130 < ...".
+     */
+    static String signature(StackTraceElement[] stack) {
+        if (stack.length == 0) return "(empty stack)";
+        int firstApp = -1;
+        for (int i = 0; i < stack.length; i++) {
+            if (stack[i].getClassName().startsWith(APP_PACKAGE)) {
+                firstApp = i;
+                break;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        if (firstApp < 0) {
+            // No app code on the stack (framework/library work): key on the top frames
+            for (int i = 0; i < Math.min(SIGNATURE_FRAMES, stack.length); i++) {
+                if (i > 0) sb.append(" < ");
+                sb.append(frame(stack[i], false));
+            }
+            return sb.toString();
+        }
+        if (firstApp > 0) sb.append(frame(stack[0], false)).append(" ... ");
+        int end = Math.min(stack.length, firstApp + SIGNATURE_FRAMES);
+        for (int i = firstApp; i < end; i++) {
+            if (i > firstApp) sb.append(" < ");
+            sb.append(frame(stack[i], true));
+        }
+        return sb.toString();
+    }
+
+    private static String frame(StackTraceElement f, boolean withLine) {
+        String cls = f.getClassName();
+        String simple = cls.substring(cls.lastIndexOf('.') + 1);
+        String s = simple + "." + f.getMethodName();
+        return (withLine && f.getLineNumber() > 0) ? s + ":" + f.getLineNumber() : s;
+    }
+
+    private static String formatStack(@Nullable StackTraceElement[] stack) {
+        if (stack == null) return "";
+        StringBuilder sb = new StringBuilder();
+        int n = Math.min(stack.length, EXAMPLE_FRAMES);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append('\n');
+            sb.append("    at ").append(stack[i]);
+        }
+        if (stack.length > n) sb.append("\n    ... ").append(stack.length - n).append(" more");
+        return sb.toString();
+    }
+
+    /** ">>>>> Dispatching to Handler (x.Y) {1a2b} z.W@3c4d: 0" -> "Handler (x.Y) z.W". */
+    static String describeDispatch(@Nullable String what) {
+        if (what == null) return "unknown message";
+        return what.replaceFirst("^>>>>> Dispatching to ", "")
+                .replaceAll("\\{[0-9a-f]+\\}|@[0-9a-f]+|: -?\\d+$", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.fitpulse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Client copy of a challenge's top k, kept current from board deltas.
+ * - apply(full) replaces the rows; apply(delta) upserts the changed rows, re-sorts (steps
+ *   descending, then participant id, as the server ranks) and keeps k. A delta holds the
+ *   changed entries of the new top k, and with growing scores everyone else in it was held
+ *   already, so this is the server's top k again; rows that fell out sort past k and are
+ *   dropped. The server sends a full board whenever that wouldn't hold.
+ * - Ranks are positions in the list after each apply.
+ * - since() is the version to ask the next delta for. Not thread-safe.
+ */
+final class Leaderboard {
+
+    private static final Comparator<ChallengeClient.Standing> ORDER = (a, b) ->
+            a.score != b.score ? Long.compare(b.score, a.score) : a.id.compareTo(b.id);
+
+    private final int size;
+    private final List<ChallengeClient.Standing> rows = new ArrayList<>();
+    private long version;
+    private int participants;
+    private ChallengeClient.Standing me;
+
+    Leaderboard(int size) {
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long since() {
+        return version;
+    }
+
+    int participants() {
+        return participants;
+    }
+
+    /** This participant's own standing, or null before their first push. */
+    ChallengeClient.Standing me() {
+        return me;
+    }
+
+    List<ChallengeClient.Standing> rows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    void apply(ChallengeClient.Delta d) {
+        if (d.full) {
+            rows.clear();
+            rows.addAll(d.entries);
+        } else {
+            for (ChallengeClient.Standing s : d.entries) {
+                removeRow(s.id);
+                rows.add(s);
+            }
+            rows.sort(ORDER);
+            if (rows.size() > size) rows.subList(size, rows.size()).clear();
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            ChallengeClient.Standing s = rows.get(i);
+            if (s.rank != i + 1) rows.set(i, new ChallengeClient.Standing(s.id, s.name, s.score, i + 1));
+        }
+        version = d.version;
+        participants = d.participants;
+        me = d.me;
+    }
+
+    /** Forget everything; the next refresh asks for a full board. */
+    void reset() {
+        rows.clear();
+        version = 0;
+        participants = 0;
+        me = null;
+    }
+
+    private void removeRow(String id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).id.equals(id)) {
+                rows.remove(i);
+                return;
+            }
+        }
+    }
+}
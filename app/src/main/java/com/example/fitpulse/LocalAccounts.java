@@ -0,0 +1,161 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local accounts on this device (a shared family tablet can hold several).
+ * - Stored in the "accounts" prefs: the id set plus name/email/password per id, the current
+ *   id and the login flag.
+ * - The first account keeps LEGACY_ID, whose storage names are the original unsuffixed
+ *   ones (step_db, FitPulsePrefs, ...); the single account from the old "user_data" prefs
+ *   is migrated into it, so an upgrade keeps its history in place.
+ * - Every other account gets its own database file and prefs via scoped().
+ */
+public final class LocalAccounts {
+
+    static final String PREFS = "accounts";
+    static final String LEGACY_PREFS = "user_data";
+    static final String LEGACY_ID = "default";
+
+    public static final class Account {
+        public final String id;
+        public final String name;
+        public final String email;
+
+        Account(String id, String name, String email) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+        }
+    }
+
+    private LocalAccounts() {}
+
+    /** Storage name for account id: base for the legacy account, else suffixed ("step_db_u2", "step_archive_u2.bin"). */
+    static String scoped(String base, String id) {
+        if (LEGACY_ID.equals(id)) return base;
+        int dot = base.lastIndexOf('.');
+        return (dot > 0) ? base.substring(0, dot) + "_" + id + base.substring(dot) : base + "_" + id;
+    }
+
+    private static synchronized SharedPreferences prefs(Context ctx) {
+        SharedPreferences p = ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        if (!p.contains("ids")) migrateLegacy(ctx, p);
+        return p;
+    }
+
+    /** Carry the pre-multi-account user over as LEGACY_ID (runs once). */
+    private static void migrateLegacy(Context ctx, SharedPreferences p) {
+        SharedPreferences old = ctx.getApplicationContext().getSharedPreferences(LEGACY_PREFS, Context.MODE_PRIVATE);
+        SharedPreferences.Editor e = p.edit();
+        String email = old.getString("email", null);
+        if (email != null) {
+            e.putStringSet("ids", Collections.singleton(LEGACY_ID))
+                    .putString("name_" + LEGACY_ID, old.getString("name", ""))
+                    .putString("email_" + LEGACY_ID, email)
+                    .putString("password_" + LEGACY_ID, old.getString("password", ""))
+                    .putString("current", LEGACY_ID)
+                    .putBoolean("logged_in", old.getBoolean("logged_in", false));
+        } else {
+            e.putStringSet("ids", Collections.emptySet());
+        }
+        e.commit();
+    }
+
+    public static List<Account> all(Context ctx) {
+        SharedPreferences p = prefs(ctx);
+        List<Account> out = new ArrayList<>();
+        for (String id : p.getStringSet("ids", Collections.emptySet())) out.add(account(p, id));
+        return out;
+    }
+
+    /**
+     * Create an account; null if the email is already taken.
+     * The first account on the device takes LEGACY_ID.
+     */
+    @Nullable
+    public static synchronized Account register(Context ctx, String name, String email, String password) {
+        SharedPreferences p = prefs(ctx);
+        Set<String> ids = new HashSet<>(p.getStringSet("ids", Collections.emptySet()));
+        for (String id : ids) {
+            if (email.equalsIgnoreCase(p.getString("email_" + id, ""))) return null;
+        }
+        SharedPreferences.Editor e = p.edit();
+        String id;
+        if (ids.isEmpty()) {
+            id = LEGACY_ID;
+        } else {
+            int next = p.getInt("next_id", 2);
+            id = "u" + next;
+            e.putInt("next_id", next + 1);
+        }
+        ids.add(id);
+        e.putStringSet("ids", ids)
+                .putString("name_" + id, name)
+                .putString("email_" + id, email)
+                .putString("password_" + id, password)
+                .apply();
+        return new Account(id, name, email);
+    }
+
+    /** The account registered with this email, or null. */
+    @Nullable
+    public static Account byEmail(Context ctx, String email) {
+        SharedPreferences p = prefs(ctx);
+        for (String id : p.getStringSet("ids", Collections.emptySet())) {
+            if (email.equalsIgnoreCase(p.getString("email_" + id, ""))) return account(p, id);
+        }
+        return null;
+    }
+
+    /** The account with these credentials, or null. */
+    @Nullable
+    public static Account authenticate(Context ctx, String email, String password) {
+        SharedPreferences p = prefs(ctx);
+        for (String id : p.getStringSet("ids", Collections.emptySet())) {
+            if (email.equalsIgnoreCase(p.getString("email_" + id, ""))
+                    && password.equals(p.getString("password_" + id, null))) {
+                return account(p, id);
+            }
+        }
+        return null;
+    }
+
+    /** Id of the account whose data is shown (kept across logout), LEGACY_ID before any login. */
+    public static String currentId(Context ctx) {
+        return prefs(ctx).getString("current", LEGACY_ID);
+    }
+
+    @Nullable
+    public static Account current(Context ctx) {
+        SharedPreferences p = prefs(ctx);
+        String id = p.getString("current", null);
+        return (id != null && p.getStringSet("ids", Collections.emptySet()).contains(id)) ? account(p, id) : null;
+    }
+
+    public static boolean isLoggedIn(Context ctx) {
+        return prefs(ctx).getBoolean("logged_in", false);
+    }
+
+    /** Log id in; the caller switches the session (UserSession.switchTo). */
+    static void setLoggedIn(Context ctx, String id) {
+        prefs(ctx).edit().putString("current", id).putBoolean("logged_in", true).apply();
+    }
+
+    public static void logout(Context ctx) {
+        prefs(ctx).edit().putBoolean("logged_in", false).apply();
+    }
+
+    private static Account account(SharedPreferences p, String id) {
+        return new Account(id, p.getString("name_" + id, ""), p.getString("email_" + id, ""));
+    }
+}
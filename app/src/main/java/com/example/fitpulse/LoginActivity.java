@@ -1,7 +1,6 @@
 package com.example.fitpulse;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.widget.Button;
 import android.widget.EditText;
@@ -12,9 +11,12 @@ import androidx.appcompat.app.AppCompatActivity;
 
 /**
  * Login screen:
- * - Reads saved credentials from SharedPreferences ("user_data").
+ * - Checks credentials against the local accounts (LocalAccounts).
  * - If already logged in, skips directly to MainActivity.
- * - On login button: validates against saved email/password and sets "logged_in".
+ * - Once the email field is left with a known email, that account's session is built in the
+ *   background (UserSession.prewarm) while the password is typed.
+ * - On login button: switches the session to that account (its own database, prefs and
+ *   caches; see UserSession) and marks it logged in.
  */
 public class LoginActivity extends AppCompatActivity {
 
@@ -22,12 +24,12 @@ public class LoginActivity extends AppCompatActivity {
     private Button btnLogin;
     private TextView registerLink;
 
-    // App-wide preferences used to store user data and login state
-    private SharedPreferences prefs;
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Debug builds: main-thread stall + StrictMode watchdog and trace recorder (no-op in release)
+        JankWatchdog.install(this);
+        FitTrace.install(this);
         setContentView(R.layout.activity_login); // inflate layout
 
         // Bind views
@@ -36,30 +38,31 @@ public class LoginActivity extends AppCompatActivity {
         btnLogin = findViewById(R.id.btn_login);
         registerLink = findViewById(R.id.register_link);
 
-        // Open the preferences file where RegisterActivity saved user info
-        prefs = getSharedPreferences("user_data", MODE_PRIVATE);
-
         // Skip login if already logged in
-        boolean isLoggedIn = prefs.getBoolean("logged_in", false);
-        if (isLoggedIn) {
+        if (LocalAccounts.isLoggedIn(this)) {
             startActivity(new Intent(this, MainActivity.class));
             finish();
             return;
         }
 
+        // Open the account's database and caches before the login tap needs them
+        emailInput.setOnFocusChangeListener((v, hasFocus) -> {
+            if (hasFocus) return;
+            LocalAccounts.Account known = LocalAccounts.byEmail(this, emailInput.getText().toString().trim());
+            if (known != null) UserSession.prewarm(this, known.id);
+        });
+
         btnLogin.setOnClickListener(v -> {
             // Read user input
             String email = emailInput.getText().toString().trim();
             String password = passwordInput.getText().toString().trim();
 
-            // Read saved credentials
-            String savedEmail = prefs.getString("email", null);
-            String savedPassword = prefs.getString("password", null);
-
-            // Compare input with saved values
-            if (email.equals(savedEmail) && password.equals(savedPassword)) {
-                // Save login state
-                prefs.edit().putBoolean("logged_in", true).apply();
+            // Compare input with the saved accounts
+            LocalAccounts.Account account = LocalAccounts.authenticate(this, email, password);
+            if (account != null) {
+                // Swap to the account's data, then save login state
+                UserSession.switchTo(this, account.id);
+                LocalAccounts.setLoggedIn(this, account.id);
 
                 Toast.makeText(this, "Login successful!", Toast.LENGTH_SHORT).show();
                 startActivity(new Intent(this, MainActivity.class)); // go to Home
@@ -1,174 +1,179 @@
 package com.example.fitpulse;
 
-import android.animation.ValueAnimator;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.widget.ImageView;
-import android.widget.TextView;
 
+import androidx.activity.OnBackPressedCallback;
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
 /**
- * Home screen:
- * - Shows today's steps, calories, and active time.
- * - Listens for STEP_UPDATE broadcasts and animates the step counter.
- * - Reads today's persisted steps from Room on resume.
+ * Single host for the four bottom-nav tabs (Home, Stats, Monitor, Settings).
+ * - Each tab is a Fragment created on first visit and then retained: switching tabs
+ *   only shows/hides it, so views, charts and loaded data survive without re-inflating.
+ * - Hidden tabs are capped at STARTED (onPause runs), the visible tab is RESUMED.
+ * - Owns the StepCounterManager and HeartRateManager start/stop for all tabs.
+ * - Other screens can jump to a tab with an Intent carrying EXTRA_TAB.
  */
 public class MainActivity extends AppCompatActivity {
 
-    private StepProgressView progressView;
-    private TextView stepsText;
-    private TextView caloriesText;
-    private TextView durationText;
-    private ImageView btnBackHome;
+    /** Intent extra: menu id of the tab to show (e.g. R.id.nav_stats). */
+    public static final String EXTRA_TAB = "tab";
 
-    /** Daily goal used by the circular progress view (loaded from prefs). */
-    private int stepGoal = 10000;
+    private static final String STATE_TAB = "current_tab";
 
-    /** Receives live step updates from StepCounterManager and refreshes UI. */
-    private final BroadcastReceiver stepReceiver = new BroadcastReceiver() {
+    private BottomNavigationView bottomNav;
+    @IdRes private int currentTab = R.id.nav_home;
+    /** Back from any other tab returns to Home; enabled only while another tab is shown. */
+    private final OnBackPressedCallback backToHome = new OnBackPressedCallback(false) {
         @Override
-        public void onReceive(Context context, Intent intent) {
-            if ("STEP_UPDATE".equals(intent.getAction())) {
-                int stepsToday = intent.getIntExtra("steps_today", 0);
-                updateSteps(stepsToday);
-            }
+        public void handleOnBackPressed() {
+            selectTab(R.id.nav_home);
         }
     };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Also here: the process may be restored straight into MainActivity
+        JankWatchdog.install(this);
+        FitTrace.install(this);
         setContentView(R.layout.activity_main);
 
-        // Bind views
-        progressView  = findViewById(R.id.progress_view);
-        stepsText     = findViewById(R.id.steps_text);
-        caloriesText  = findViewById(R.id.calories_text);
-        durationText  = findViewById(R.id.duration_text);
-        btnBackHome   = findViewById(R.id.btn_back_home);
-
-        // Load goal from Settings (FitPulsePrefs/step_goal)
-        stepGoal = getSavedStepGoal();
-
-        if (btnBackHome != null) btnBackHome.setOnClickListener(v -> {});
-
-        // Bottom navigation wiring
-        BottomNavigationView bottomNav = findViewById(R.id.bottom_navigation);
+        bottomNav = findViewById(R.id.bottom_navigation);
         bottomNav.setOnItemSelectedListener(item -> {
-            int id = item.getItemId();
-            if (id == R.id.nav_home) {
-                return true; // already here
-            } else if (id == R.id.nav_stats) {
-                startActivity(new Intent(MainActivity.this, StatsActivity.class));
-                return true;
-            } else if (id == R.id.nav_monitor) {
-                startActivity(new Intent(MainActivity.this, SensorMonitorActivity.class));
-                return true;
-            } else if (id == R.id.nav_settings) {
-                startActivity(new Intent(MainActivity.this, SettingsActivity.class));
-                return true;
-            }
-            return false;
+            showTab(item.getItemId());
+            return true;
         });
-        bottomNav.setSelectedItemId(R.id.nav_home);
-    }
-
-    /** Reads the saved step goal (defaults to 10,000). */
-    private int getSavedStepGoal() {
-        SharedPreferences prefs = getSharedPreferences("FitPulsePrefs", MODE_PRIVATE);
-        return prefs.getInt("step_goal", 10000);
-    }
-
-    /** Animator used to smoothly count numbers up/down in the step text. */
-    private ValueAnimator stepAnimator;
-
-    /** Updates UI for steps, progress, calories, and duration. */
-    private void updateSteps(int steps) {
-        // Parse the current number shown in the label (fallback to 0)
-        int oldSteps;
-        try {
-            oldSteps = Integer.parseInt(stepsText.getText().toString().replaceAll("[^0-9]", ""));
-        } catch (NumberFormatException e) {
-            oldSteps = 0;
+        // Re-selecting the current tab is a no-op (no reload)
+        bottomNav.setOnItemReselectedListener(item -> {});
+        // Back on Home falls through to the system, which may only move the task to the
+        // background (API 31+ root activity); the callback then still matches the tab shown
+        getOnBackPressedDispatcher().addCallback(this, backToHome);
+
+        if (savedInstanceState != null) {
+            // FragmentManager restored the tab fragments (and their hidden state) already
+            currentTab = savedInstanceState.getInt(STATE_TAB, R.id.nav_home);
+        } else {
+            currentTab = getIntent().getIntExtra(EXTRA_TAB, R.id.nav_home);
         }
+        selectTab(currentTab);
 
-        // Stop any ongoing animation before starting a new one
-        if (stepAnimator != null && stepAnimator.isRunning()) {
-            stepAnimator.cancel();
-        }
-
-        // Short animations for tiny changes; cap duration for large jumps
-        int diff = Math.abs(steps - oldSteps);
-        long duration = diff <= 3 ? 120 : Math.min(500, 20L * diff);
-
-        stepAnimator = ValueAnimator.ofInt(oldSteps, steps);
-        stepAnimator.setDuration(duration);
-        stepAnimator.addUpdateListener(animation -> {
-            int animatedValue = (int) animation.getAnimatedValue();
-            stepsText.setText(String.format(Locale.getDefault(), "%,d Steps", animatedValue));
-        });
-        stepAnimator.start();
-
-        // Ring progress
-        progressView.setSteps(steps, stepGoal);
+        // Daily idle+charging housekeeping of step_db (no-op if already scheduled)
+        StepMaintenanceJobService.schedule(this);
+        // Hourly challenge push and sync, re-registered in case they were lost (e.g. app data restored)
+        if (GroupChallenges.get(this).isJoined()) ChallengePushJobService.schedule(this);
+        if (!SyncEngine.accountsWithServer(this).isEmpty()) SyncJobService.schedule(this);
+    }
 
-        // Simple estimates
-        float calories = steps * 0.04f;
-        caloriesText.setText(String.format(Locale.getDefault(), "%.0f Cal", calories));
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        if (intent.hasExtra(EXTRA_TAB)) selectTab(intent.getIntExtra(EXTRA_TAB, R.id.nav_home));
+    }
 
-        int minutes = steps / 130;
-        int seconds = (int) ((steps % 130) / 2.2);
-        durationText.setText(String.format(Locale.getDefault(), "%d:%02d", minutes, seconds));
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STATE_TAB, currentTab);
     }
 
     @Override
     protected void onStart() {
         super.onStart();
-        // Begin listening to hardware step counter
-        StepCounterManager.get(this).start();
+        // A screen is up: live (unbatched) sensor rates; the step counter (shared by all tabs)
+        // is registered on the first start and then kept, batched, while in the background
+        StepCounterManager.get(this).onUiStarted();
+        // Heart rate registers once BODY_SENSORS is granted (see onRequestPermissionsResult)
+        HeartRateManager.get(this).start();
     }
 
     @Override
     protected void onStop() {
-        // Stop listening when screen not visible
-        StepCounterManager.get(this).stop();
+        // Heart rate stops when the app is not visible; steps switch to batched delivery
+        HeartRateManager.get(this).stop();
+        StepCounterManager.get(this).onUiStopped();
         super.onStop();
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-
-        // Load today's persisted steps from Room (background thread)
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-        new Thread(() -> {
-            AppDatabase db = AppDatabase.getInstance(getApplicationContext());
-            StepEntry todayEntry = db.stepDao().getStepsByDate(today);
-            int steps = todayEntry != null ? todayEntry.steps : 0;
-            runOnUiThread(() -> updateSteps(steps));
-        }).start();
-
-        // Listen for live updates while this Activity is in foreground
-        LocalBroadcastManager.getInstance(this)
-                .registerReceiver(stepReceiver, new IntentFilter("STEP_UPDATE"));
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions,
+                                           @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        // Tabs request permissions through this activity; pick up a fresh BODY_SENSORS grant
+        HeartRateManager.get(this).refresh();
     }
 
-    @Override
-    protected void onPause() {
-        // Stop receiving broadcasts when paused
-        super.onPause();
-        LocalBroadcastManager.getInstance(this).unregisterReceiver(stepReceiver);
+    /** Switch to a tab and keep the bottom nav selection in sync. */
+    public void selectTab(@IdRes int tabId) {
+        if (bottomNav.getSelectedItemId() != tabId) {
+            bottomNav.setSelectedItemId(tabId); // triggers showTab via the listener
+        } else {
+            showTab(tabId);
+        }
+    }
+
+    /** Show the tab's fragment (creating it on first use) and hide the others. */
+    private void showTab(@IdRes int tabId) {
+        FragmentManager fm = getSupportFragmentManager();
+        String tag = tagFor(tabId);
+        Fragment target = fm.findFragmentByTag(tag);
+        backToHome.setEnabled(tabId != R.id.nav_home);
+        if (target != null && target.isVisible()) {
+            currentTab = tabId;
+            return;
+        }
+
+        FragmentTransaction tx = fm.beginTransaction().setReorderingAllowed(true);
+        for (Fragment f : fm.getFragments()) {
+            if (f != target && !f.isHidden()) {
+                tx.hide(f);
+                tx.setMaxLifecycle(f, Lifecycle.State.STARTED);
+            }
+        }
+        if (target == null) {
+            target = newTab(tabId);
+            tx.add(R.id.fragment_container, target, tag);
+        } else {
+            tx.show(target);
+        }
+        tx.setMaxLifecycle(target, Lifecycle.State.RESUMED);
+        tx.commitNow();
+        currentTab = tabId;
+    }
+
+    private static String tagFor(@IdRes int tabId) {
+        if (tabId == R.id.nav_stats)    return "tab_stats";
+        if (tabId == R.id.nav_monitor)  return "tab_monitor";
+        if (tabId == R.id.nav_settings) return "tab_settings";
+        return "tab_home";
+    }
+
+    private static Fragment newTab(@IdRes int tabId) {
+        if (tabId == R.id.nav_stats)    return new StatsFragment();
+        if (tabId == R.id.nav_monitor)  return new SensorMonitorFragment();
+        if (tabId == R.id.nav_settings) return new SettingsFragment();
+        return new HomeFragment();
+    }
+
+    /** Currently shown tab (menu id). */
+    @IdRes
+    public int getCurrentTab() {
+        return currentTab;
+    }
+
+    /** Helper for fragments: switch the host to another tab, if hosted here. */
+    static void navigate(@Nullable Fragment from, @IdRes int tabId) {
+        if (from != null && from.getActivity() instanceof MainActivity) {
+            ((MainActivity) from.getActivity()).selectTab(tabId);
+        }
     }
 }
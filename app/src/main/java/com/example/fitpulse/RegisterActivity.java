@@ -1,7 +1,6 @@
 package com.example.fitpulse;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.widget.Button;
 import android.widget.EditText;
@@ -12,7 +11,7 @@ import androidx.appcompat.app.AppCompatActivity;
 /**
  * Registration screen:
  * - Collects name, email, password.
- * - Saves them to SharedPreferences ("user_data").
+ * - Adds them as a new local account (LocalAccounts); an email can only be registered once.
  * - Navigates back to LoginActivity after success.
  */
 public class RegisterActivity extends AppCompatActivity {
@@ -43,13 +42,11 @@ public class RegisterActivity extends AppCompatActivity {
                 return;
             }
 
-            // Save user data locally
-            SharedPreferences prefs = getSharedPreferences("user_data", MODE_PRIVATE);
-            prefs.edit()
-                    .putString("email", email)
-                    .putString("password", password)
-                    .putString("name", name)
-                    .apply();
+            // Save the account locally (its steps get their own database)
+            if (LocalAccounts.register(this, name, email, password) == null) {
+                Toast.makeText(this, "An account with this email already exists", Toast.LENGTH_SHORT).show();
+                return;
+            }
 
             // Confirm and go back to login
             Toast.makeText(this, "Registered successfully!", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,218 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.time.Clock;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Picks sensor sampling rates and batching latency from two inputs:
+ * - Motion: step-counter advances (reported by StepCounterManager) and, while still, the
+ *   one-shot significant-motion trigger mark the user as moving; no step for
+ *   STILL_AFTER_MS marks them still.
+ * - Visibility: MainActivity reports whether a screen is up (via StepCounterManager, which
+ *   stays registered in the background). Without one, step events are left in the sensor
+ *   FIFO and delivered in batches instead of waking the CPU per step.
+ * Consumers read stepCounterRate()/liveMotionRate(), register with both the rate and
+ * the latency, and re-register when notified. They also record deliveries in counters().
+ */
+public class SamplingPolicy {
+
+    /** Sampling period (SENSOR_DELAY_* constant or µs) plus max report latency (µs). */
+    public static final class Rate {
+        public final int samplingUs;
+        public final int maxLatencyUs;
+
+        Rate(int samplingUs, int maxLatencyUs) {
+            this.samplingUs = samplingUs;
+            this.maxLatencyUs = maxLatencyUs;
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Rate && ((Rate) o).samplingUs == samplingUs && ((Rate) o).maxLatencyUs == maxLatencyUs;
+        }
+
+        @Override public int hashCode() { return Objects.hash(samplingUs, maxLatencyUs); }
+
+        @Override public String toString() { return "Rate(" + samplingUs + ", latency " + maxLatencyUs + "us)"; }
+    }
+
+    /** Notified on the policy's handler (main thread) whenever the rates may have changed. */
+    public interface Listener {
+        void onSamplingChanged(SamplingPolicy policy);
+    }
+
+    /** No step for this long means the user is still. */
+    static final long STILL_AFTER_MS = 60_000;
+
+    // Step counter: live on screen, otherwise batched (longer when still)
+    static final Rate STEP_VISIBLE_MOVING = new Rate(SensorManager.SENSOR_DELAY_UI, 0);
+    static final Rate STEP_VISIBLE_STILL = new Rate(SensorManager.SENSOR_DELAY_NORMAL, 0);
+    static final Rate STEP_HIDDEN_MOVING = new Rate(SensorManager.SENSOR_DELAY_NORMAL, 10_000_000);
+    static final Rate STEP_HIDDEN_STILL = new Rate(SensorManager.SENSOR_DELAY_NORMAL, 60_000_000);
+
+    // Live accel/gyro readouts (only registered while the Monitor tab is resumed)
+    static final Rate MOTION_MOVING = new Rate(SensorManager.SENSOR_DELAY_UI, 0);
+    static final Rate MOTION_STILL = new Rate(SensorManager.SENSOR_DELAY_NORMAL, 0);
+
+    private static SamplingPolicy INSTANCE;
+
+    @Nullable private final SensorManager sensorManager;
+    @Nullable private final Sensor significantMotion;
+    private final Clock clock;
+    private final Handler handler;
+    private final SensorEventCounters counters;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private int startCount = 0;
+    private int visibleCount = 0;
+    private boolean moving = false;
+    private long lastMotionAt = Long.MIN_VALUE;
+    private boolean triggerArmed = false;
+
+    private final TriggerEventListener motionTrigger = new TriggerEventListener() {
+        @Override public void onTrigger(TriggerEvent event) {
+            synchronized (SamplingPolicy.this) {
+                triggerArmed = false; // one-shot: the framework disarmed it
+            }
+            counters.record(Sensor.TYPE_SIGNIFICANT_MOTION);
+            noteMotion(clock.millis());
+        }
+    };
+
+    private final Runnable stillCheck = this::checkStill;
+    private final Runnable notify = () -> {
+        for (Listener l : listeners) l.onSamplingChanged(this);
+    };
+
+    private SamplingPolicy(Context ctx) {
+        this((SensorManager) ctx.getApplicationContext().getSystemService(Context.SENSOR_SERVICE),
+                Clock.systemDefaultZone(),
+                new Handler(Looper.getMainLooper()));
+    }
+
+    /** Wiring constructor for tests. */
+    @VisibleForTesting
+    SamplingPolicy(@Nullable SensorManager sensorManager, Clock clock, Handler handler) {
+        this.sensorManager = sensorManager;
+        this.significantMotion = (sensorManager != null)
+                ? sensorManager.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION) : null;
+        this.clock = clock;
+        this.handler = handler;
+        this.counters = new SensorEventCounters(clock);
+    }
+
+    public static synchronized SamplingPolicy get(Context ctx) {
+        if (INSTANCE == null) INSTANCE = new SamplingPolicy(ctx.getApplicationContext());
+        return INSTANCE;
+    }
+
+    public SensorEventCounters counters() {
+        return counters;
+    }
+
+    public void addListener(Listener l) {
+        listeners.addIfAbsent(l);
+    }
+
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    /** Ref-counted: motion tracking runs while at least one consumer is started. */
+    public synchronized void start() {
+        if (startCount++ > 0) return;
+        if (moving) handler.post(stillCheck); // re-evaluate motion that went stale while stopped
+        else armTrigger();
+    }
+
+    public synchronized void stop() {
+        if (startCount == 0) return;
+        if (--startCount == 0) {
+            disarmTrigger();
+            handler.removeCallbacks(stillCheck);
+        }
+    }
+
+    /** Ref-counted screen visibility (StepCounterManager.onUiStarted/onUiStopped). */
+    public void setUiVisible(boolean visible) {
+        synchronized (this) {
+            boolean was = visibleCount > 0;
+            visibleCount = Math.max(0, visibleCount + (visible ? 1 : -1));
+            if (was == (visibleCount > 0)) return;
+        }
+        notifyListeners();
+    }
+
+    public synchronized boolean isUiVisible() {
+        return visibleCount > 0;
+    }
+
+    public synchronized boolean isMoving() {
+        return moving;
+    }
+
+    /** Evidence of movement at nowMs (a step, or the significant-motion trigger). */
+    public void noteMotion(long nowMs) {
+        synchronized (this) {
+            lastMotionAt = nowMs;
+            if (moving) return; // the pending stillCheck re-arms itself from lastMotionAt
+            moving = true;
+            disarmTrigger();
+            handler.postDelayed(stillCheck, STILL_AFTER_MS);
+        }
+        notifyListeners();
+    }
+
+    /** Runs STILL_AFTER_MS after the last motion; flips to still if nothing arrived since. */
+    @VisibleForTesting
+    void checkStill() {
+        synchronized (this) {
+            if (!moving) return;
+            long idle = clock.millis() - lastMotionAt;
+            if (idle < STILL_AFTER_MS) {
+                handler.postDelayed(stillCheck, STILL_AFTER_MS - idle);
+                return;
+            }
+            moving = false;
+            if (startCount > 0) armTrigger();
+        }
+        notifyListeners();
+    }
+
+    public synchronized Rate stepCounterRate() {
+        if (visibleCount > 0) return moving ? STEP_VISIBLE_MOVING : STEP_VISIBLE_STILL;
+        return moving ? STEP_HIDDEN_MOVING : STEP_HIDDEN_STILL;
+    }
+
+    public synchronized Rate liveMotionRate() {
+        return moving ? MOTION_MOVING : MOTION_STILL;
+    }
+
+    private void armTrigger() {
+        if (triggerArmed || significantMotion == null) return;
+        triggerArmed = sensorManager.requestTriggerSensor(motionTrigger, significantMotion);
+    }
+
+    private void disarmTrigger() {
+        if (!triggerArmed) return;
+        sensorManager.cancelTriggerSensor(motionTrigger, significantMotion);
+        triggerArmed = false;
+    }
+
+    /** Posted: noteMotion() arrives from sensor-processing threads, listeners touch registrations. */
+    private void notifyListeners() {
+        handler.removeCallbacks(notify); // coalesce: listeners re-read the current rates anyway
+        handler.post(notify);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.fitpulse;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Events and wakeups delivered per sensor type, bucketed by epoch hour.
+ * - An event is one onSensorChanged call; a wakeup is a delivery at a new arrival
+ *   millisecond, so a batch flushed from the sensor FIFO counts as one wakeup.
+ * - The last HOURS_KEPT hours are kept per sensor type.
+ * Thread-safe; record() is cheap enough for every sensor callback.
+ */
+public final class SensorEventCounters {
+
+    static final int HOURS_KEPT = 24;
+    private static final long HOUR_MS = 3_600_000L;
+
+    private static final class PerSensor {
+        final long[] hour = new long[HOURS_KEPT];
+        final long[] events = new long[HOURS_KEPT];
+        final long[] wakeups = new long[HOURS_KEPT];
+        long lastArrivalMs = Long.MIN_VALUE;
+
+        PerSensor() {
+            Arrays.fill(hour, -1);
+        }
+
+        int slot(long epochHour) {
+            int i = (int) (epochHour % HOURS_KEPT);
+            if (hour[i] != epochHour) {
+                hour[i] = epochHour;
+                events[i] = 0;
+                wakeups[i] = 0;
+            }
+            return i;
+        }
+    }
+
+    private final Clock clock;
+    private final Map<Integer, PerSensor> sensors = new HashMap<>();
+
+    public SensorEventCounters(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** Count one delivered event of sensorType arriving now. */
+    public void record(int sensorType) {
+        record(sensorType, clock.millis());
+    }
+
+    public synchronized void record(int sensorType, long arrivalMs) {
+        PerSensor s = sensors.get(sensorType);
+        if (s == null) {
+            s = new PerSensor();
+            sensors.put(sensorType, s);
+        }
+        int i = s.slot(arrivalMs / HOUR_MS);
+        s.events[i]++;
+        if (arrivalMs != s.lastArrivalMs) s.wakeups[i]++;
+        s.lastArrivalMs = arrivalMs;
+    }
+
+    /** Events of sensorType in the given epoch hour (0 if not kept). */
+    public synchronized long eventsInHour(int sensorType, long epochHour) {
+        PerSensor s = sensors.get(sensorType);
+        int i = (int) (epochHour % HOURS_KEPT);
+        return (s != null && s.hour[i] == epochHour) ? s.events[i] : 0;
+    }
+
+    /** Wakeups of sensorType in the given epoch hour (0 if not kept). */
+    public synchronized long wakeupsInHour(int sensorType, long epochHour) {
+        PerSensor s = sensors.get(sensorType);
+        int i = (int) (epochHour % HOURS_KEPT);
+        return (s != null && s.hour[i] == epochHour) ? s.wakeups[i] : 0;
+    }
+
+    /** Events of sensorType over the kept hours. */
+    public synchronized long totalEvents(int sensorType) {
+        PerSensor s = sensors.get(sensorType);
+        if (s == null) return 0;
+        long n = 0;
+        for (long e : s.events) n += e;
+        return n;
+    }
+
+    /** Wakeups of sensorType over the kept hours. */
+    public synchronized long totalWakeups(int sensorType) {
+        PerSensor s = sensors.get(sensorType);
+        if (s == null) return 0;
+        long n = 0;
+        for (long w : s.wakeups) n += w;
+        return n;
+    }
+
+    public synchronized void reset() {
+        sensors.clear();
+    }
+
+    /** One line per sensor type for the current hour, e.g. "type 19: 1,204 events, 20 wakeups". */
+    public synchronized String summary() {
+        long hour = clock.millis() / HOUR_MS;
+        StringBuilder sb = new StringBuilder();
+        for (Integer type : new TreeMap<>(sensors).keySet()) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US, "type %d: %,d events, %,d wakeups this hour",
+                    type, eventsInHour(type, hour), wakeupsInHour(type, hour)));
+        }
+        return sb.toString();
+    }
+}
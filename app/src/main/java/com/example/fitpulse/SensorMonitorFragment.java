@@ -0,0 +1,400 @@
+package com.example.fitpulse;
+
+import android.Manifest;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences; // ← added
+import android.content.pm.PackageManager;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.ActivityCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+import androidx.fragment.app.Fragment;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.textfield.TextInputEditText;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import android.graphics.Typeface;
+import android.text.Editable;
+import android.text.TextWatcher;
+
+/**
+ * Monitor tab: shows live accel/gyro, today's steps, heart rate, BMI calculator, and posts a
+ * notification when the step goal is reached.
+ * - Accel/gyro are registered only while the tab is visible (RESUMED), at the
+ *   SamplingPolicy rate (slower while the user is still).
+ * - Step broadcasts are received while STARTED, so returning to the tab needs no DB read.
+ */
+public class SensorMonitorFragment extends Fragment implements SensorEventListener, SamplingPolicy.Listener {
+
+    private SensorManager sensorManager;
+    private Sensor accelSensor, gyroSensor; // step counter is handled by StepCounterManager
+    private SamplingPolicy samplingPolicy;
+    @Nullable private SamplingPolicy.Rate registeredRate;
+    private SensorPipeline<float[]> accelPipeline, gyroPipeline;
+
+    private TextView stepDataText, accelDataText, gyroDataText;
+    private TextView heartRateText, heartRateTodayText;
+
+    // BMI UI
+    private TextInputEditText etWeight, etHeight;
+    private TextView bmiValueText, bmiStatusText;
+    private MaterialButton btnCalcBmi;
+
+    // Workout recording
+    private MaterialButton btnWorkoutToggle;
+
+    private static final String CHANNEL_ID = "step_goal_channel";
+    private static final int STEP_GOAL = 10000; // default (actual goal read from prefs)
+
+    /** Receives today's step updates and refreshes UI / checks goal. */
+    private final BroadcastReceiver stepReceiver = new BroadcastReceiver() {
+        @Override public void onReceive(Context context, Intent intent) {
+            if (!"STEP_UPDATE".equals(intent.getAction())) return;
+            int todaySteps = intent.getIntExtra("steps_today", 0);
+
+            if (stepDataText != null) {
+                stepDataText.setText(String.format(Locale.getDefault(), "%d", todaySteps));
+            }
+
+            // Use goal from Settings; fire when steps >= goal (only while this tab is shown)
+            if (isHidden()) return;
+            int goal = getStepGoalFromPrefs();
+            if (todaySteps >= goal) {
+                sendStepGoalNotification(todaySteps);
+            }
+        }
+    };
+
+    /** Live heart-rate readings from HeartRateManager. */
+    private final BroadcastReceiver heartRateReceiver = new BroadcastReceiver() {
+        @Override public void onReceive(Context context, Intent intent) {
+            if (heartRateText == null) return;
+            heartRateText.setText(String.valueOf(intent.getIntExtra(HeartRateManager.EXTRA_BPM, 0)));
+        }
+    };
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_monitor, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        // Bind views
+        stepDataText  = view.findViewById(R.id.step_data);
+        //accelDataText = view.findViewById(R.id.accel_data); // bind only if present in XML
+        gyroDataText  = view.findViewById(R.id.gyro_data);
+        heartRateText = view.findViewById(R.id.heart_rate_data);
+        heartRateTodayText = view.findViewById(R.id.heart_rate_today);
+
+        // BMI views
+        etWeight      = view.findViewById(R.id.et_weight);
+        etHeight      = view.findViewById(R.id.et_height);
+        bmiValueText  = view.findViewById(R.id.bmi_value_text);
+        bmiStatusText = view.findViewById(R.id.bmi_status_text);
+        btnCalcBmi    = view.findViewById(R.id.btn_calc_bmi);
+
+        // Workout start/stop + history
+        btnWorkoutToggle = view.findViewById(R.id.btn_workout_toggle);
+        btnWorkoutToggle.setOnClickListener(v -> toggleWorkout());
+        view.findViewById(R.id.btn_workouts).setOnClickListener(v ->
+                startActivity(new Intent(requireContext(), WorkoutListActivity.class)));
+
+        // Bold input when text is present
+        attachBoldOnInput(etWeight);
+        attachBoldOnInput(etHeight);
+
+        if (btnCalcBmi != null) {
+            btnCalcBmi.setOnClickListener(v -> {
+                String ws = (etWeight != null && etWeight.getText() != null) ? etWeight.getText().toString() : "";
+                String hs = (etHeight != null && etHeight.getText() != null) ? etHeight.getText().toString() : "";
+
+                ws = ws.trim().replace(',', '.');
+                hs = hs.trim().replace(',', '.');
+
+                if (ws.isEmpty() || hs.isEmpty()) {
+                    setBmiResult("—", "Enter weight & height");
+                    return;
+                }
+                try {
+                    float w = Float.parseFloat(ws);     // kg
+                    float hcm = Float.parseFloat(hs);   // cm
+                    float hm = hcm / 100f;              // m
+                    if (w <= 0 || hm <= 0) {
+                        setBmiResult("—", "Invalid values");
+                        return;
+                    }
+                    float bmi = w / (hm * hm);
+                    setBmiResult(String.format(Locale.getDefault(), "%.1f", bmi), bmiCategory(bmi));
+                } catch (NumberFormatException e) {
+                    setBmiResult("—", "Invalid number");
+                }
+            });
+        }
+
+        // Sensors used on this screen
+        sensorManager = (SensorManager) requireContext().getSystemService(Context.SENSOR_SERVICE);
+        accelSensor   = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        gyroSensor    = sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
+        samplingPolicy = SamplingPolicy.get(requireContext());
+        accelPipeline = readoutPipeline("accel", () -> accelDataText);
+        gyroPipeline = readoutPipeline("gyro", () -> gyroDataText);
+
+        // Activity recognition (Android 10+) and, if there is a heart-rate sensor, body sensors.
+        // Asked together: a second request while the first dialog is up would be dropped.
+        List<String> missing = new ArrayList<>();
+        if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.ACTIVITY_RECOGNITION)
+                != PackageManager.PERMISSION_GRANTED) {
+            missing.add(Manifest.permission.ACTIVITY_RECOGNITION);
+        }
+        if (HeartRateManager.get(requireContext()).isAvailable() && !HeartRateManager.hasPermission(requireContext())) {
+            missing.add(Manifest.permission.BODY_SENSORS);
+        }
+        if (!missing.isEmpty()) {
+            ActivityCompat.requestPermissions(requireActivity(), missing.toArray(new String[0]), 1001);
+        }
+
+        // Notification permission (Android 13+)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU &&
+                ActivityCompat.checkSelfPermission(requireContext(), Manifest.permission.POST_NOTIFICATIONS)
+                        != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(
+                    requireActivity(),
+                    new String[]{Manifest.permission.POST_NOTIFICATIONS},
+                    2001
+            );
+        }
+
+        createNotificationChannel();
+
+        // Show today's steps from DB once; live broadcasts keep it current afterwards
+        Context appCtx = requireContext().getApplicationContext();
+        new Thread(() -> {
+            String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+            AppDatabase db = AppDatabase.getInstance(appCtx);
+            StepEntry todayEntry = db.stepDao().getStepsByDate(today);
+            int steps = (todayEntry != null) ? todayEntry.steps : 0;
+            long midnight = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            HeartRateSeries hr = HeartRateSeries.read(db.heartRateDao(), midnight, System.currentTimeMillis() + 60_000L);
+            view.post(() -> {
+                if (getView() == null) return;
+                if (heartRateTodayText != null) {
+                    heartRateTodayText.setText(hr.size == 0 ? "No readings today"
+                            : String.format(Locale.getDefault(), "Today %d–%d bpm, avg %d",
+                                    hr.overallMin(), hr.overallMax(), hr.overallAvg()));
+                }
+                if (stepDataText != null) {
+                    stepDataText.setText(String.format(Locale.getDefault(), "%d", steps));
+                }
+                // Also check goal in case it was reached while the app was closed
+                int goal = getStepGoalFromPrefs();
+                if (steps >= goal) {
+                    sendStepGoalNotification(steps);
+                }
+            });
+        }).start();
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        // Listen for live step broadcasts (kept while the tab is hidden)
+        LocalBroadcastManager.getInstance(requireContext())
+                .registerReceiver(stepReceiver, new IntentFilter("STEP_UPDATE"));
+        LocalBroadcastManager.getInstance(requireContext())
+                .registerReceiver(heartRateReceiver, new IntentFilter(HeartRateManager.ACTION_UPDATE));
+    }
+
+    @Override
+    public void onStop() {
+        LocalBroadcastManager.getInstance(requireContext()).unregisterReceiver(stepReceiver);
+        LocalBroadcastManager.getInstance(requireContext()).unregisterReceiver(heartRateReceiver);
+        super.onStop();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        updateWorkoutButton();
+
+        // Register sensors for live accel/gyro values (visible tab only)
+        samplingPolicy.addListener(this);
+        registerMotionSensors(samplingPolicy.liveMotionRate());
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        samplingPolicy.removeListener(this);
+        sensorManager.unregisterListener(this);
+        registeredRate = null;
+    }
+
+    /** Motion started/stopped while the tab is up: switch the readout rate. */
+    @Override
+    public void onSamplingChanged(SamplingPolicy policy) {
+        SamplingPolicy.Rate rate = policy.liveMotionRate();
+        if (registeredRate == null || rate.equals(registeredRate)) return;
+        sensorManager.unregisterListener(this);
+        registerMotionSensors(rate);
+    }
+
+    private void registerMotionSensors(SamplingPolicy.Rate rate) {
+        if (accelSensor != null)
+            sensorManager.registerListener(this, accelSensor, rate.samplingUs, rate.maxLatencyUs);
+        if (gyroSensor != null)
+            sensorManager.registerListener(this, gyroSensor, rate.samplingUs, rate.maxLatencyUs);
+        registeredRate = rate;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        int sensorType = event.sensor.getType();
+        samplingPolicy.counters().record(sensorType);
+
+        // Copy: the framework reuses the event (and its values array) after we return
+        if (sensorType == Sensor.TYPE_ACCELEROMETER) {
+            accelPipeline.offer(event.values.clone());
+        } else if (sensorType == Sensor.TYPE_GYROSCOPE) {
+            gyroPipeline.offer(event.values.clone());
+        }
+    }
+
+    /**
+     * xyz reading -> "format" -> "ui". The ui sink conflates and runs on the main executor, so
+     * however fast the sensor delivers there is at most one pending text update per readout.
+     */
+    private SensorPipeline<float[]> readoutPipeline(String name, Supplier<TextView> target) {
+        return SensorPipeline.<float[]>builder(name, Runnable::run)
+                .then("format", (float[] v, SensorPipeline.Emitter<String> out) ->
+                        out.emit(String.format(Locale.getDefault(), "X: %.2f\nY: %.2f\nZ: %.2f", v[0], v[1], v[2])),
+                        SensorPipeline.Backpressure.CONFLATE, 1)
+                .on(requireContext().getMainExecutor())
+                .sink("ui", text -> {
+                    TextView tv = target.get();
+                    if (tv != null) tv.setText(text);
+                }, SensorPipeline.Backpressure.CONFLATE, 1)
+                .build();
+    }
+
+    @Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+
+    /** Start or stop the foreground workout recording. */
+    private void toggleWorkout() {
+        Context ctx = requireContext();
+        if (WorkoutRecorder.get(ctx).isRecording()) {
+            WorkoutService.stop(ctx);
+        } else {
+            // The health foreground service type needs activity recognition
+            if (ContextCompat.checkSelfPermission(ctx, Manifest.permission.ACTIVITY_RECOGNITION)
+                    != PackageManager.PERMISSION_GRANTED) {
+                ActivityCompat.requestPermissions(requireActivity(),
+                        new String[]{Manifest.permission.ACTIVITY_RECOGNITION}, 1001);
+                return;
+            }
+            WorkoutService.start(ctx);
+        }
+        // The service flips the recorder state on its own thread shortly after
+        btnWorkoutToggle.postDelayed(this::updateWorkoutButton, 300);
+    }
+
+    private void updateWorkoutButton() {
+        if (btnWorkoutToggle == null || getContext() == null) return;
+        btnWorkoutToggle.setText(WorkoutRecorder.get(requireContext()).isRecording()
+                ? "Stop workout" : "Start workout");
+    }
+
+    /** Current step goal from Settings (FitPulsePrefs/step_goal). */
+    private int getStepGoalFromPrefs() {
+        SharedPreferences p = UserSession.prefs(requireContext(), SettingsFragment.PREFS_NAME);
+        return p.getInt("step_goal", STEP_GOAL);
+    }
+
+    /** Create notification channel (Android O+). */
+    private void createNotificationChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            CharSequence name = "Step Goal Channel";
+            String description = "Notifications for reaching step goal";
+            int importance = NotificationManager.IMPORTANCE_DEFAULT;
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, name, importance);
+            channel.setDescription(description);
+            NotificationManager notificationManager = requireContext().getSystemService(NotificationManager.class);
+            notificationManager.createNotificationChannel(channel);
+        }
+    }
+
+    /** Post a "goal reached" notification. */
+    private void sendStepGoalNotification(int steps) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(requireContext(), CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle("🎉 Step Goal Reached!")
+                .setContentText("You walked " + steps + " steps today. Great job!")
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setAutoCancel(true);
+
+        NotificationManagerCompat notificationManager = NotificationManagerCompat.from(requireContext());
+        if (ActivityCompat.checkSelfPermission(requireContext(), Manifest.permission.POST_NOTIFICATIONS)
+                == PackageManager.PERMISSION_GRANTED || Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU) {
+            notificationManager.notify(1001, builder.build());
+        }
+    }
+
+    // ----- BMI helpers -----
+    private void setBmiResult(String value, String status) {
+        if (bmiValueText != null)  bmiValueText.setText(value);
+        if (bmiStatusText != null) bmiStatusText.setText(status);
+    }
+
+    private String bmiCategory(float bmi) {
+        if (bmi < 18.5f) return "Underweight";
+        if (bmi < 25f)   return "Normal";
+        if (bmi < 30f)   return "Overweight";
+        return "Obese";
+    }
+
+    /** Makes the input bold when it contains text (keeps hint normal). */
+    private void attachBoldOnInput(TextInputEditText et) {
+        if (et == null) return;
+        et.setTypeface(et.getTypeface(),
+                (et.getText() != null && et.getText().length() > 0) ? Typeface.BOLD : Typeface.NORMAL);
+        et.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {
+                et.setTypeface(et.getTypeface(), s.length() > 0 ? Typeface.BOLD : Typeface.NORMAL);
+            }
+            @Override public void afterTextChanged(Editable s) {}
+        });
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.fitpulse;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Small declarative pipeline for sensor processing:
+ * <pre>
+ *   SensorPipeline.&lt;Reading&gt;builder("steps", executor)
+ *       .then("baseline", baselineStage, Backpressure.CONFLATE, 1)
+ *       .then("throttle", throttleStage, Backpressure.CONFLATE, 1)
+ *       .sink("persist", persistSink, Backpressure.DROP_NEWEST, 64)
+ *       .sink("broadcast", broadcastSink, Backpressure.CONFLATE, 1)
+ *       .build();
+ * </pre>
+ * - Every stage/sink owns a bounded inbox with one producer (its upstream) and one consumer
+ *   (itself): an SpscQueue, or a single latest-value slot for CONFLATE.
+ * - A stage's drain runs on its executor and is never run concurrently with itself, so stage
+ *   state needs no locking. A direct executor (Runnable::run) makes the whole path synchronous.
+ * - Per-stage metrics: items in/out, dropped, conflated, queue depth (current/max) and time spent
+ *   in the stage, from which throughput is derived.
+ * - Each item a stage processes is a FitTrace section named "pipeline.stage" (e.g. "steps.persist").
+ * - offer() is the single source entry point and must be called from one thread at a time.
+ */
+public final class SensorPipeline<S> {
+
+    /** What a full inbox does with a new item. */
+    public enum Backpressure {
+        /** Reject the incoming item (bounded FIFO; nothing already queued is lost). */
+        DROP_NEWEST,
+        /** Keep only the latest item; an unconsumed older one is replaced. */
+        CONFLATE
+    }
+
+    /** Downstream handle given to a stage; emit zero or more outputs per input. */
+    public interface Emitter<O> {
+        void emit(O value);
+    }
+
+    /** A processing step (filter, detector, aggregator...). Only ever called from one thread at a time. */
+    public interface Stage<I, O> {
+        void process(I in, Emitter<O> out);
+    }
+
+    /** Terminal step. */
+    public interface Sink<I> {
+        void accept(I in);
+    }
+
+    /** Point-in-time counters for one stage. */
+    public static final class StageMetrics {
+        public final String name;
+        public final long in, out, dropped, conflated;
+        public final int depth, maxDepth, capacity;
+        public final long busyNanos;
+
+        StageMetrics(String name, long in, long out, long dropped, long conflated,
+                     int depth, int maxDepth, int capacity, long busyNanos) {
+            this.name = name;
+            this.in = in;
+            this.out = out;
+            this.dropped = dropped;
+            this.conflated = conflated;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.capacity = capacity;
+            this.busyNanos = busyNanos;
+        }
+
+        /** Items processed, i.e. accepted and not dropped or conflated away. */
+        public long processed() {
+            return in - dropped - conflated;
+        }
+
+        /** Items per second of stage time (its capacity if it never waited), 0 if idle. */
+        public double throughputPerSec() {
+            return busyNanos == 0 ? 0 : processed() * 1e9 / busyNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: in=%d out=%d dropped=%d conflated=%d depth=%d/%d max=%d %.0f/s",
+                    name, in, out, dropped, conflated, depth, capacity, maxDepth, throughputPerSec());
+        }
+    }
+
+    /** One stage or sink plus its inbox. */
+    private static final class Node<I> {
+        final String name;
+        /** FitTrace section: "pipeline.stage". */
+        final String section;
+        final Backpressure backpressure;
+        final Executor executor;
+        final Stage<I, Object> stage;
+        final List<Node<Object>> downstream = new ArrayList<>();
+
+        final SpscQueue<I> queue;                       // DROP_NEWEST
+        final AtomicReference<I> latest = new AtomicReference<>(); // CONFLATE
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        final AtomicLong in = new AtomicLong(), out = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong(), conflated = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+        volatile int maxDepth;
+
+        private final Emitter<Object> emitter = value -> {
+            out.incrementAndGet();
+            for (Node<Object> d : downstream) d.offer(value);
+        };
+        private final Runnable drain = this::drain;
+
+        @SuppressWarnings("unchecked")
+        Node(String pipeline, String name, Stage<I, ?> stage, Backpressure backpressure, int capacity,
+             Executor executor) {
+            this.name = name;
+            this.section = pipeline + "." + name;
+            this.stage = (Stage<I, Object>) stage;
+            this.backpressure = backpressure;
+            this.executor = executor;
+            this.queue = backpressure == Backpressure.DROP_NEWEST ? new SpscQueue<>(capacity) : null;
+        }
+
+        void offer(I item) {
+            in.incrementAndGet();
+            if (backpressure == Backpressure.CONFLATE) {
+                if (latest.getAndSet(item) != null) conflated.incrementAndGet();
+            } else if (!queue.offer(item)) {
+                dropped.incrementAndGet();
+                return;
+            }
+            int d = depth();
+            if (d > maxDepth) maxDepth = d;
+            if (scheduled.compareAndSet(false, true)) executor.execute(drain);
+        }
+
+        int depth() {
+            return queue != null ? queue.size() : (latest.get() != null ? 1 : 0);
+        }
+
+        int capacity() {
+            return queue != null ? queue.capacity() : 1;
+        }
+
+        private I next() {
+            return queue != null ? queue.poll() : latest.getAndSet(null);
+        }
+
+        private void drain() {
+            do {
+                I item;
+                while ((item = next()) != null) {
+                    long t0 = System.nanoTime();
+                    long trace = FitTrace.begin(section);
+                    try {
+                        stage.process(item, emitter);
+                    } finally {
+                        FitTrace.end(section, trace);
+                        busyNanos.addAndGet(System.nanoTime() - t0);
+                    }
+                }
+                scheduled.set(false);
+                // An offer that raced with the flag reset re-schedules here or in offer(), not both
+            } while (depth() > 0 && scheduled.compareAndSet(false, true));
+        }
+
+        StageMetrics metrics() {
+            return new StageMetrics(name, in.get(), out.get(), dropped.get(), conflated.get(),
+                    depth(), maxDepth, capacity(), busyNanos.get());
+        }
+    }
+
+    private final String name;
+    private final Node<S> head;
+    private final List<Node<?>> nodes;
+    private final AtomicLong offered = new AtomicLong();
+
+    private SensorPipeline(String name, Node<S> head, List<Node<?>> nodes) {
+        this.name = name;
+        this.head = head;
+        this.nodes = Collections.unmodifiableList(nodes);
+    }
+
+    public static <S> Builder<S, S> builder(String name, Executor executor) {
+        return new Builder<>(name, executor);
+    }
+
+    /** Nothing queued or running in any stage (a later offer makes it busy again). */
+    public boolean isIdle() {
+        for (Node<?> n : nodes) if (n.scheduled.get() || n.depth() > 0) return false;
+        return true;
+    }
+
+    /** Source entry point (one producer thread at a time, e.g. the sensor callback). */
+    public void offer(S item) {
+        offered.incrementAndGet();
+        head.offer(item);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long offered() {
+        return offered.get();
+    }
+
+    /** Metrics for every stage and sink, in declaration order. */
+    public List<StageMetrics> metrics() {
+        List<StageMetrics> out = new ArrayList<>(nodes.size());
+        for (Node<?> n : nodes) out.add(n.metrics());
+        return out;
+    }
+
+    public StageMetrics metrics(String stageName) {
+        for (Node<?> n : nodes) if (n.name.equals(stageName)) return n.metrics();
+        throw new IllegalArgumentException("No stage " + stageName + " in " + name);
+    }
+
+    /** Multi-line metrics dump for logs and debug screens. */
+    public String describe() {
+        StringBuilder sb = new StringBuilder(name).append(": offered=").append(offered.get());
+        for (StageMetrics m : metrics()) sb.append("\n  ").append(m);
+        return sb.toString();
+    }
+
+    /**
+     * Declares the pipeline front to back. {@code T} is the type flowing out of the last stage;
+     * sinks attach to that point and the chain can continue after them.
+     */
+    public static final class Builder<S, T> {
+        private final String name;
+        private Executor executor;
+        private final List<Node<?>> nodes;
+        private Node<S> head;
+        private Node<?> tail;
+
+        private Builder(String name, Executor executor) {
+            this.name = name;
+            this.executor = executor;
+            this.nodes = new ArrayList<>();
+        }
+
+        /** Run the stages and sinks declared after this on another executor. */
+        public Builder<S, T> on(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <O> Builder<S, O> then(String stageName, Stage<? super T, O> stage,
+                                      Backpressure backpressure, int capacity) {
+            Node<T> node = new Node<>(name, stageName, (Stage<T, O>) stage, backpressure, capacity, executor);
+            attach(node);
+            tail = node;
+            return (Builder<S, O>) this;
+        }
+
+        /** Attach a sink at the current point; several sinks on one point each get every item. */
+        public Builder<S, T> sink(String sinkName, Sink<? super T> sink, Backpressure backpressure, int capacity) {
+            if (tail == null) throw new IllegalStateException("Declare a stage before the sinks of " + name);
+            attach(new Node<T>(name, sinkName, (in, out) -> sink.accept(in), backpressure, capacity, executor));
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void attach(Node<?> node) {
+            if (head == null) head = (Node<S>) node;
+            else tail.downstream.add((Node<Object>) node);
+            nodes.add(node);
+        }
+
+        public SensorPipeline<S> build() {
+            if (head == null) throw new IllegalStateException("Empty pipeline " + name);
+            return new SensorPipeline<>(name, head, nodes);
+        }
+    }
+}
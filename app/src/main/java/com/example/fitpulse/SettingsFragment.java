@@ -0,0 +1,219 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Bundle;
+import android.security.NetworkSecurityPolicy;
+import android.text.InputType;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.ImageView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.Fragment;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * SettingsFragment (Settings tab)
+ * - Lets the user view/update the Daily Step Goal (stored in SharedPreferences "FitPulsePrefs").
+ * - Provides "View Profile" and "Logout" actions.
+ * - "Sync Server" sets (or clears) the step history sync server and syncs once right away;
+ *   SyncJobService keeps it in sync after that.
+ * - "Group Challenge" opens the challenge leaderboard (ChallengeActivity).
+ * - "Restore Backup" puts the latest StepBackup snapshot back, on a background thread with
+ *   progress in the button.
+ * - Debug builds also get a "Jank Report" entry (JankReportActivity).
+ */
+public class SettingsFragment extends Fragment {
+
+    // UI references
+    EditText editGoal;
+    Button btnSaveGoal, btnLogout, btnViewProfile, btnSyncServer, btnGroupChallenge, btnRestoreBackup, btnJankReport;
+    ImageView btnBack;
+
+    // SharedPreferences file and key for the step goal (used across the app)
+    public static final String PREFS_NAME = "FitPulsePrefs";
+    public static final String STEP_GOAL_KEY = "step_goal";
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_settings, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        // Bind views
+        editGoal       = view.findViewById(R.id.edit_goal);
+        btnSaveGoal    = view.findViewById(R.id.btn_save_goal);
+        btnBack        = view.findViewById(R.id.btn_back_home);
+        btnLogout      = view.findViewById(R.id.btn_logout);
+        btnViewProfile = view.findViewById(R.id.btn_view_profile);
+        btnSyncServer  = view.findViewById(R.id.btn_sync_server);
+        btnGroupChallenge = view.findViewById(R.id.btn_group_challenge);
+        btnRestoreBackup = view.findViewById(R.id.btn_restore_backup);
+        btnJankReport  = view.findViewById(R.id.btn_jank_report);
+
+        // Load saved goal into the input (default 10,000 if none saved yet)
+        SharedPreferences prefs = UserSession.prefs(requireContext(), PREFS_NAME);
+        int savedGoal = prefs.getInt(STEP_GOAL_KEY, 10000);
+        editGoal.setText(String.valueOf(savedGoal));
+
+        // Save goal button: validate number, persist to FitPulsePrefs, show toast
+        btnSaveGoal.setOnClickListener(v -> {
+            try {
+                int goal = Integer.parseInt(editGoal.getText().toString());
+                prefs.edit().putInt(STEP_GOAL_KEY, goal).apply();
+                StepWidgetUpdater.get(requireContext()).goalChanged(goal);
+                Toast.makeText(requireContext(), "Goal Saved!", Toast.LENGTH_SHORT).show();
+            } catch (NumberFormatException e) {
+                Toast.makeText(requireContext(), "Invalid number", Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        // Back button: return to Home tab
+        if (btnBack != null) {
+            btnBack.setOnClickListener(v -> MainActivity.navigate(this, R.id.nav_home));
+        }
+
+        // Logout: clear login state and navigate to Login (clear back stack), where another
+        // account can log in. A running workout belongs to this account, so finish it first.
+        btnLogout.setOnClickListener(v -> {
+            if (WorkoutRecorder.get(requireContext()).isRecording()) {
+                Toast.makeText(requireContext(), "Stop the workout before logging out", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            LocalAccounts.logout(requireContext());
+
+            Intent intent = new Intent(requireContext(), LoginActivity.class);
+            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            startActivity(intent);
+        });
+
+        // View Profile screen
+        btnViewProfile.setOnClickListener(v -> {
+            Intent intent = new Intent(requireContext(), UserProfileActivity.class);
+            startActivity(intent);
+        });
+
+        // Sync server: URL dialog, then a first sync in the background
+        btnSyncServer.setOnClickListener(v -> showSyncServerDialog(view));
+
+        // Group challenge: join or view the leaderboard
+        btnGroupChallenge.setOnClickListener(v ->
+                startActivity(new Intent(requireContext(), ChallengeActivity.class)));
+
+        // Restore: replaces this account's steps, so confirm first
+        btnRestoreBackup.setOnClickListener(v -> {
+            if (WorkoutRecorder.get(requireContext()).isRecording()) {
+                Toast.makeText(requireContext(), "Stop the workout before restoring", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            new AlertDialog.Builder(requireContext())
+                    .setTitle("Restore Backup")
+                    .setMessage("Replace your step history with the latest backup?")
+                    .setPositiveButton("Restore", (d, w) -> restoreLatestBackup(view))
+                    .setNegativeButton("Cancel", null)
+                    .show();
+        });
+
+        // Jank report: debug builds only (the watchdog isn't installed otherwise)
+        if (JankWatchdog.isDebuggable(requireContext())) {
+            btnJankReport.setVisibility(View.VISIBLE);
+            btnJankReport.setOnClickListener(v ->
+                    startActivity(new Intent(requireContext(), JankReportActivity.class)));
+        }
+    }
+
+    private void showSyncServerDialog(View view) {
+        EditText input = new EditText(requireContext());
+        input.setHint("https://sync.example.com");
+        input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_URI);
+        input.setText(SyncEngine.serverUrl(requireContext()));
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Sync Server")
+                .setView(input)
+                .setPositiveButton("Save", (d, w) -> {
+                    String url = input.getText().toString().trim();
+                    if (!url.startsWith("http://") && !url.startsWith("https://")) {
+                        Toast.makeText(requireContext(), "Enter an http(s):// address", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    // network_security_config.xml: plain http only to local-network names
+                    Uri server = Uri.parse(url);
+                    if (url.startsWith("http://") && server.getHost() != null
+                            && !NetworkSecurityPolicy.getInstance().isCleartextTrafficPermitted(server.getHost())) {
+                        Toast.makeText(requireContext(), "Use https:// for " + server.getHost(), Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    SyncEngine.setServer(requireContext(), url);
+                    syncNow(view);
+                })
+                .setNeutralButton("Turn Off", (d, w) -> SyncEngine.setServer(requireContext(), null))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /** One sync on a worker thread; the outcome goes to a toast. */
+    private void syncNow(View view) {
+        Context appCtx = requireContext().getApplicationContext();
+        btnSyncServer.setEnabled(false);
+        new Thread(() -> {
+            String message;
+            try {
+                SyncEngine engine = SyncEngine.forConfiguredServer(appCtx);
+                message = engine == null ? "Sync is off" : "Synced: " + engine.sync();
+            } catch (IOException e) {
+                message = "Sync failed: " + e.getMessage() + " (will retry)";
+            }
+            String result = message;
+            view.post(() -> {
+                Toast.makeText(appCtx, result, Toast.LENGTH_SHORT).show();
+                if (getView() != null) btnSyncServer.setEnabled(true);
+            });
+        }, "step-sync-now").start();
+    }
+
+    /** Restore on a worker thread; progress and the outcome go to the button and a toast. */
+    private void restoreLatestBackup(View view) {
+        Context appCtx = requireContext().getApplicationContext();
+        btnRestoreBackup.setEnabled(false);
+        new Thread(() -> {
+            String message;
+            try {
+                StepBackup backup = StepBackup.get(appCtx);
+                List<String> snapshots = backup.snapshots();
+                if (snapshots.isEmpty()) {
+                    message = "No backup yet";
+                } else {
+                    backup.restore(snapshots.get(0), (done, total) -> view.post(() -> {
+                        if (getView() != null) btnRestoreBackup.setText("Restoring… " + (100 * done / Math.max(1, total)) + "%");
+                    }));
+                    message = "Backup restored";
+                }
+            } catch (IOException e) {
+                message = "Restore failed: " + e.getMessage();
+            }
+            String result = message;
+            view.post(() -> {
+                Toast.makeText(appCtx, result, Toast.LENGTH_SHORT).show();
+                if (getView() == null) return;
+                btnRestoreBackup.setText("Restore Backup");
+                btnRestoreBackup.setEnabled(true);
+            });
+        }, "backup-restore").start();
+    }
+}
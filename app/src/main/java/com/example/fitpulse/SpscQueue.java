@@ -0,0 +1,53 @@
+package com.example.fitpulse;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for exactly one producer thread and one consumer
+ * thread (each side may hop threads as long as hand-offs are ordered, e.g. through
+ * SensorPipeline's scheduling flag). Capacity is rounded up to a power of two.
+ */
+final class SpscQueue<T> {
+
+    private final AtomicReferenceArray<T> ring;
+    private final int mask;
+    // head: next slot to read (consumer-owned); tail: next slot to write (producer-owned)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    SpscQueue(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        ring = new AtomicReferenceArray<>(cap);
+        mask = cap - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /** Producer side: false (and nothing stored) when full. */
+    boolean offer(T item) {
+        long t = tail.get();
+        if (t - head.get() > mask) return false;
+        ring.lazySet((int) t & mask, item);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Consumer side: next item, or null when empty. */
+    T poll() {
+        long h = head.get();
+        if (h >= tail.get()) return null;
+        int i = (int) h & mask;
+        T item = ring.get(i);
+        ring.lazySet(i, null);
+        head.lazySet(h + 1);
+        return item;
+    }
+
+    /** Approximate when read from a third thread. */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+}
@@ -0,0 +1,545 @@
+package com.example.fitpulse;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.LruCache;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.Spinner;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+
+import com.github.mikephil.charting.charts.BarChart;
+import com.github.mikephil.charting.components.Description;
+import com.github.mikephil.charting.components.Legend;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.data.BarData;
+import com.github.mikephil.charting.data.BarDataSet;
+import com.github.mikephil.charting.data.BarEntry;
+import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
+import com.github.mikephil.charting.formatter.ValueFormatter;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
+
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StatsFragment (Stats tab)
+ * - Renders one Monday-based week of steps as a bar chart; swipe the chart or use the
+ *   spinner to page back through earlier weeks.
+ * - Week pages are built off the main thread (range query + ready BarData) and kept in a
+ *   small LRU cache; the neighbours of the shown week are prefetched, so revisits are instant.
+ * - Writes are observed per day range (StepChanges): a write evicts only the weeks whose days
+ *   it touched, so an import or sync that rewrites an old day refreshes that week, while live
+ *   steps never re-query a past week. The cards re-query only when the last 3 days change.
+ * - Live steps (STEP_UPDATE) move today's bar in place: the entry's value is set on the
+ *   shown page's existing BarEntry and only the chart is invalidated, at most every
+ *   LIVE_BAR_INTERVAL_MS; no new data set, no axis setup, no animation. The axis is only
+ *   recomputed when the bar outgrows it. Today's own persist writes therefore don't evict
+ *   the current week; writes that touch other days still do.
+ * - Shows quick “Today / Yesterday / 2 days ago” cards.
+ * - The first frame paints this week's bars and the cards as last rendered (UiSnapshot) when
+ *   they still apply; the loaded page and the observed cards replace them without animation.
+ * - "Year view" opens YearHeatmapActivity for a year-at-a-glance calendar.
+ * - Retained by MainActivity, so the chart is built once per view, not per tab switch.
+ * - Chart setup, page builds and renders, and both range queries are FitTrace sections.
+ */
+public class StatsFragment extends Fragment {
+
+    /** How many built week pages to keep. */
+    private static final int CACHE_WEEKS = 8;
+    /** How far back the pager goes (spinner entries). */
+    private static final int MAX_WEEKS_BACK = 52;
+    /** Coalesce writes to past days into one refresh of the shown week. */
+    private static final long REFRESH_DEBOUNCE_MS = 1000;
+    /** Live today-bar redraws at most this often. */
+    private static final long LIVE_BAR_INTERVAL_MS = 500;
+
+    private BarChart barChart;
+    private LinearLayout stepHistoryContainer;
+    private Spinner spinnerWeek;
+    private ImageView btnBackHome;
+
+    /** Room + archived history; old weeks transparently come from the archive file. */
+    private StepHistory history;
+    private StepChanges changes;
+    private UiSnapshot ui;
+    @Nullable private StepChanges.Subscription weeksSubscription, cardsSubscription;
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+
+    /** Ready-to-render pages keyed by the week's Monday (epoch day). LruCache is thread-safe. */
+    private final LruCache<Long, WeekPage> weekCache = new LruCache<>(CACHE_WEEKS);
+    /** Weeks currently being loaded in the background (avoids duplicate prefetches). */
+    private final Set<Long> loading = ConcurrentHashMap.newKeySet();
+    /** Reused by the io thread for every range read (StepColumns is not thread-safe). */
+    private final StepColumns ioColumns = new StepColumns();
+    /** Bumped on every invalidation so a load racing with new steps isn't cached stale. */
+    private final AtomicInteger invalidations = new AtomicInteger();
+
+    /** 0 = this week, 1 = last week, ... */
+    private int weekOffset = 0;
+    private boolean chartShown = false;
+    @Nullable private WeekPage shownPage;
+
+    /** Latest live count for today, not yet drawn (-1: nothing pending). Main thread only. */
+    private int liveSteps = -1;
+    private long lastLiveDrawMs;
+
+    // Resolved once so pages can be built on the io thread
+    private int barColor;
+    private int textColor;
+    private final ValueFormatter barLabelFormatter = new ValueFormatter() {
+        // Hide value labels for zero bars
+        @Override
+        public String getBarLabel(BarEntry barEntry) {
+            float v = barEntry.getY();
+            return (v <= 0f) ? "" : String.format(Locale.getDefault(), "%,.0f", v);
+        }
+    };
+
+    /** One week's chart data, built once and reused on every visit. */
+    private static final class WeekPage {
+        final long weekKey;
+        final BarData data;
+        /** Mon..Sun, the same objects as in data (live updates write through them). */
+        final BarEntry[] bars;
+
+        WeekPage(long weekKey, BarData data, BarEntry[] bars) {
+            this.weekKey = weekKey;
+            this.data = data;
+            this.bars = bars;
+        }
+    }
+
+    /** Live count for today: remember it and draw at the bounded rate (main thread). */
+    private final BroadcastReceiver stepReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (!"STEP_UPDATE".equals(intent.getAction()) || barChart == null) return;
+            boolean scheduled = liveSteps >= 0;
+            liveSteps = intent.getIntExtra("steps_today", 0);
+            if (scheduled) return; // the pending draw will pick up this value
+            long wait = lastLiveDrawMs + LIVE_BAR_INTERVAL_MS - SystemClock.uptimeMillis();
+            barChart.postDelayed(drawLiveBar, Math.max(0, wait));
+        }
+    };
+
+    private final Runnable drawLiveBar = this::drawLiveBar;
+
+    private final Runnable refreshShownWeek = () -> {
+        if (getView() != null) showWeek(weekOffset, false);
+    };
+
+    /**
+     * Committed writes to pageable weeks (step-changes thread): drop the pages of the weeks
+     * they touched, then refresh the shown week if it is one of them.
+     */
+    private final StepChanges.Listener weekInvalidator = days -> {
+        // Today's own persist writes: the live bar already shows them
+        if (days.length == 1 && days[0] == StepColumns.dayKey(LocalDate.now())) return;
+        invalidations.incrementAndGet();
+        Set<Long> touched = new HashSet<>();
+        for (int day : days) touched.add(StepStats.weekStart(StepColumns.toDate(day)).toEpochDay());
+        for (long key : touched) weekCache.remove(key);
+        barChart.post(() -> {
+            if (getView() == null || isHidden() || !touched.contains(weekKey(weekOffset))) return;
+            barChart.removeCallbacks(refreshShownWeek);
+            barChart.postDelayed(refreshShownWeek, REFRESH_DEBOUNCE_MS);
+        });
+    };
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_stats, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        // Bind views
+        barChart = view.findViewById(R.id.bar_chart);
+        stepHistoryContainer = view.findViewById(R.id.step_history_container);
+        spinnerWeek = view.findViewById(R.id.spinner_week);
+        btnBackHome = view.findViewById(R.id.btn_back_home);
+
+        history = StepHistory.get(requireContext());
+        changes = AppDatabase.getInstance(requireContext()).stepChanges();
+        barColor = getResources().getColor(R.color.purple_500, requireContext().getTheme());
+        textColor = getResources().getColor(android.R.color.black, requireContext().getTheme());
+
+        long trace = FitTrace.begin(FitTrace.CHART_SETUP);
+        try {
+            configureChart();
+        } finally {
+            FitTrace.end(FitTrace.CHART_SETUP, trace);
+        }
+
+        // Week selector: 0 = current, 1 = previous, n = n weeks ago
+        spinnerWeek.setAdapter(new ArrayAdapter<>(requireContext(),
+                android.R.layout.simple_spinner_dropdown_item, weekLabels()));
+        spinnerWeek.setOnItemSelectedListener(new android.widget.AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(android.widget.AdapterView<?> parent, View view, int position, long id) {
+                if (position == weekOffset && chartShown) return; // already shown
+                showWeek(position, true);
+            }
+            @Override public void onNothingSelected(android.widget.AdapterView<?> parent) {}
+        });
+
+        // Swipe the chart: right = older week, left = newer week
+        barChart.setOnChartGestureListener(new OnChartGestureListener() {
+            @Override
+            public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) {
+                if (Math.abs(velocityX) < Math.abs(velocityY)) return;
+                int target = weekOffset + (velocityX > 0 ? 1 : -1);
+                if (target >= 0 && target < MAX_WEEKS_BACK) spinnerWeek.setSelection(target);
+            }
+            @Override public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture g) {}
+            @Override public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture g) {}
+            @Override public void onChartLongPressed(MotionEvent me) {}
+            @Override public void onChartDoubleTapped(MotionEvent me) {}
+            @Override public void onChartSingleTapped(MotionEvent me) {}
+            @Override public void onChartScale(MotionEvent me, float scaleX, float scaleY) {}
+            @Override public void onChartTranslate(MotionEvent me, float dX, float dY) {}
+        });
+
+        // Back to home tab
+        btnBackHome.setOnClickListener(v -> MainActivity.navigate(this, R.id.nav_home));
+
+        // Whole-year heatmap(s)
+        view.findViewById(R.id.btn_year_view).setOnClickListener(v ->
+                startActivity(new Intent(requireContext(), YearHeatmapActivity.class)));
+
+        // Initial load: current week (the cards load when onStart subscribes them)
+        paintSnapshot();
+        showWeek(0, true);
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        LocalBroadcastManager.getInstance(requireContext())
+                .registerReceiver(stepReceiver, new IntentFilter("STEP_UPDATE"));
+        // Today's writes while stopped weren't seen live: reload the current week once
+        weekCache.remove(weekKey(0));
+        if (chartShown && weekOffset == 0) showWeek(0, false);
+
+        // Subscribed per start, so "today" follows the date after the app was in the background
+        LocalDate today = LocalDate.now();
+        weeksSubscription = changes.addListener(LocalDate.ofEpochDay(weekKey(MAX_WEEKS_BACK - 1)),
+                today.plusYears(1), weekInvalidator);
+        LocalDate from = today.minusDays(2);
+        cardsSubscription = changes.observe(from, today,
+                db -> {
+                    long trace = FitTrace.begin(FitTrace.DB_RECENT);
+                    try {
+                        return StepStats.recentDays(history.read(from, today, new StepColumns(3)), today);
+                    } finally {
+                        FitTrace.end(FitTrace.DB_RECENT, trace);
+                    }
+                },
+                recent -> {
+                    if (getView() == null) return;
+                    populateCardsTodayYesterday(recent);
+                    ui.putCards(today, recent);
+                });
+    }
+
+    @Override
+    public void onStop() {
+        LocalBroadcastManager.getInstance(requireContext()).unregisterReceiver(stepReceiver);
+        barChart.removeCallbacks(drawLiveBar);
+        liveSteps = -1;
+        if (weeksSubscription != null) weeksSubscription.cancel();
+        if (cardsSubscription != null) cardsSubscription.cancel();
+        weeksSubscription = cardsSubscription = null;
+        ui.flush();
+        super.onStop();
+    }
+
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        // Its days were written while hidden: the shown week's page was evicted, rebuild it quietly
+        if (!hidden && weekCache.get(weekKey(weekOffset)) == null) refreshShownWeek.run();
+    }
+
+    @Override
+    public void onDestroyView() {
+        barChart.removeCallbacks(refreshShownWeek);
+        barChart.removeCallbacks(drawLiveBar);
+        chartShown = false;
+        shownPage = null;
+        super.onDestroyView();
+    }
+
+    @Override
+    public void onDestroy() {
+        io.shutdown();
+        super.onDestroy();
+    }
+
+    /**
+     * First frame from the last rendered state, so the tab isn't blank until the io thread
+     * answers. The snapshot page is never cached: showWeek(0) still loads the real one.
+     */
+    private void paintSnapshot() {
+        ui = UserSession.current(requireContext()).ui;
+        UiSnapshot.State last = ui.read();
+        long key = weekKey(0);
+        int[] week = last.weekOf(key);
+        if (week != null) {
+            BarEntry[] bars = new BarEntry[7];
+            renderPage(new WeekPage(key, buildBarData(week, bars), bars), false);
+        }
+        int[] cards = last.cardsOn(LocalDate.now());
+        if (cards != null) populateCardsTodayYesterday(cards);
+    }
+
+    /**
+     * Show the week weekOffset weeks back: from cache if present, otherwise loaded on the
+     * io thread. Either way the neighbouring weeks are prefetched afterwards.
+     */
+    private void showWeek(int offset, boolean animateOnMiss) {
+        weekOffset = offset;
+        long key = weekKey(offset);
+        WeekPage page = weekCache.get(key);
+        if (page != null) {
+            renderPage(page, false);
+            prefetchAround(offset);
+            return;
+        }
+        io.execute(() -> {
+            WeekPage loaded = loadPage(key);
+            barChart.post(() -> {
+                if (getView() == null) return; // view destroyed while loading
+                if (weekOffset == offset) renderPage(loaded, animateOnMiss);
+                prefetchAround(offset);
+            });
+        });
+    }
+
+    /** Queue background loads for the weeks either side of offset that aren't cached yet. */
+    private void prefetchAround(int offset) {
+        for (int n : new int[]{offset - 1, offset + 1}) {
+            if (n < 0 || n >= MAX_WEEKS_BACK) continue;
+            long key = weekKey(n);
+            if (weekCache.get(key) != null || !loading.add(key)) continue;
+            io.execute(() -> {
+                try {
+                    loadPage(key);
+                } finally {
+                    loading.remove(key);
+                }
+            });
+        }
+    }
+
+    /** Range-query one week and build its chart data (io thread). */
+    private WeekPage loadPage(long weekKey) {
+        WeekPage cached = weekCache.get(weekKey);
+        if (cached != null) return cached;
+
+        int generation = invalidations.get();
+        LocalDate weekStart = LocalDate.ofEpochDay(weekKey);
+        long trace = FitTrace.begin(FitTrace.DB_WEEK);
+        try {
+            history.read(weekStart, weekStart.plusDays(6), ioColumns);
+        } finally {
+            FitTrace.end(FitTrace.DB_WEEK, trace);
+        }
+        int[] totals = StepStats.weekTotals(ioColumns, weekStart, new int[7]);
+
+        BarEntry[] bars = new BarEntry[7];
+        WeekPage page = new WeekPage(weekKey, buildBarData(totals, bars), bars);
+        if (generation == invalidations.get()) weekCache.put(weekKey, page);
+        return page;
+    }
+
+    /** Monday (epoch day) of the week offset weeks before the current one. */
+    private static long weekKey(int offset) {
+        return StepStats.weekStart(LocalDate.now()).minusWeeks(offset).toEpochDay();
+    }
+
+    /** Labels for the week spinner: This week, Last week, 2 weeks ago, ... */
+    private List<String> weekLabels() {
+        List<String> labels = new ArrayList<>(MAX_WEEKS_BACK);
+        labels.addAll(Arrays.asList(getResources().getStringArray(R.array.time_filters)));
+        for (int i = labels.size(); i < MAX_WEEKS_BACK; i++) {
+            labels.add(String.format(Locale.getDefault(), "%d weeks ago", i));
+        }
+        return labels;
+    }
+
+    /** Build a ready-to-render data set for Mon..Sun totals. Safe off the main thread. */
+    private BarData buildBarData(int[] totals, BarEntry[] bars) {
+        long trace = FitTrace.begin(FitTrace.CHART_DATA);
+        try {
+            return newBarData(totals, bars);
+        } finally {
+            FitTrace.end(FitTrace.CHART_DATA, trace);
+        }
+    }
+
+    private BarData newBarData(int[] totals, BarEntry[] bars) {
+        List<BarEntry> entries = new ArrayList<>(7);
+        for (int x = 0; x < 7; x++) {
+            bars[x] = new BarEntry(x, totals[x]);
+            entries.add(bars[x]);
+        }
+
+        BarDataSet dataSet = new BarDataSet(entries, "Steps");
+        dataSet.setValueTextSize(10f);
+        dataSet.setColor(barColor);
+        dataSet.setValueTextColor(textColor);
+        dataSet.setValueFormatter(barLabelFormatter);
+
+        BarData data = new BarData(dataSet);
+        data.setBarWidth(0.6f);
+        return data;
+    }
+
+    /** One-time MPAndroidChart setup: axes, labels, legend. Pages only swap the data. */
+    private void configureChart() {
+        // X axis labels (Mon..Sun) are the same for every week
+        List<String> xLabels = new ArrayList<>(7);
+        LocalDate monday = StepStats.weekStart(LocalDate.now());
+        for (int x = 0; x < 7; x++) {
+            xLabels.add(monday.plusDays(x).getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.getDefault()));
+        }
+
+        XAxis xAxis = barChart.getXAxis();
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setGranularity(1f);
+        xAxis.setValueFormatter(new IndexAxisValueFormatter(xLabels));
+        xAxis.setDrawGridLines(false);
+        xAxis.setTextColor(textColor);
+
+        // Y axes & legend
+        barChart.getAxisRight().setEnabled(false);
+        barChart.getAxisLeft().setGranularity(1f);
+        barChart.getAxisLeft().setDrawGridLines(false);
+        barChart.getAxisLeft().setTextColor(textColor);
+
+        Legend legend = barChart.getLegend();
+        legend.setEnabled(true);
+        legend.setTextColor(textColor);
+
+        // No description text
+        Description desc = new Description();
+        desc.setText("");
+        barChart.setDescription(desc);
+
+        // Horizontal drags are week swipes, not chart panning
+        barChart.setDragEnabled(false);
+        barChart.setScaleEnabled(false);
+        barChart.setFitBars(true);
+    }
+
+    /** Swap in a page's data; animate only for freshly loaded pages. */
+    private void renderPage(WeekPage page, boolean animate) {
+        long trace = FitTrace.begin(FitTrace.CHART_RENDER);
+        try {
+            showPage(page, animate);
+        } finally {
+            FitTrace.end(FitTrace.CHART_RENDER, trace);
+        }
+    }
+
+    private void showPage(WeekPage page, boolean animate) {
+        shownPage = page;
+        if (page.weekKey == weekKey(0)) ui.putWeek(page.weekKey, totals(page));
+        barChart.setData(page.data);
+        barChart.setFitBars(true);
+        if (animate && !chartShown) {
+            barChart.animateY(800);
+        } else {
+            barChart.invalidate();
+        }
+        chartShown = true;
+        if (spinnerWeek.getSelectedItemPosition() != weekOffset) spinnerWeek.setSelection(weekOffset);
+    }
+
+    /**
+     * Write the pending live count into today's bar of the cached current week and, if that
+     * page is on screen, redraw the chart. The axis (and so the whole layout) is only
+     * recomputed when the bar grows past it.
+     */
+    private void drawLiveBar() {
+        int steps = liveSteps;
+        liveSteps = -1;
+        lastLiveDrawMs = SystemClock.uptimeMillis();
+        WeekPage page = weekCache.get(weekKey(0));
+        if (steps < 0 || page == null || getView() == null) return;
+
+        BarEntry bar = page.bars[LocalDate.now().getDayOfWeek().getValue() - 1];
+        if (bar.getY() == steps) return;
+        bar.setY(steps);
+        ui.putWeek(page.weekKey, totals(page));
+        if (page != shownPage) return; // picked up when the week is shown again
+        if (steps > barChart.getAxisLeft().getAxisMaximum()) {
+            page.data.notifyDataChanged();
+            barChart.notifyDataSetChanged();
+        }
+        barChart.invalidate();
+    }
+
+    /** A page's current Mon..Sun values (including live updates to today). */
+    private static int[] totals(WeekPage page) {
+        int[] out = new int[7];
+        for (int x = 0; x < 7; x++) out[x] = (int) page.bars[x].getY();
+        return out;
+    }
+
+    /** Fill the small cards for Today / Yesterday / Two days ago. */
+    private void populateCardsTodayYesterday(int[] recent) {
+        stepHistoryContainer.removeAllViews();
+
+        LocalDate twoDaysAgo = LocalDate.now().minusDays(2);
+
+        addStepRow(stepHistoryContainer, "Today", recent[0]);
+        addStepRow(stepHistoryContainer, "Yesterday", recent[1]);
+        addStepRow(stepHistoryContainer,
+                twoDaysAgo.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.getDefault()),
+                recent[2]);
+    }
+
+    /** Inflate a row layout and append it to the history container. */
+    private void addStepRow(LinearLayout container, String label, int steps) {
+        View row = getLayoutInflater().inflate(R.layout.item_step_row, container, false);
+        TextView dayLabel  = row.findViewById(R.id.label_text);
+        TextView stepsText = row.findViewById(R.id.steps_text);
+
+        dayLabel.setText(label);
+        stepsText.setText(String.format(Locale.getDefault(), "%,d steps", steps));
+
+        container.addView(row);
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.fitpulse;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Compact read-only file format for cold daily step totals.
+ *
+ * Layout (all multi-byte ints big-endian):
+ * - header: magic "FPAR", version byte
+ * - one block per calendar month, rows ascending:
+ *     varint count, varint firstDayKey, varint firstSteps,
+ *     then per further row: varint dayKey delta, zig-zag varint steps delta
+ * - index: per block int firstDayKey, int lastDayKey, int offset, int length
+ * - trailer: int blockCount, int indexOffset, magic "FPAR"
+ *
+ * Consecutive days cost 1 byte for the key and usually 2 for the steps, versus
+ * tens of bytes per row in SQLite. Reader binary-searches the index and decodes
+ * only the blocks a range touches.
+ */
+final class StepArchive {
+
+    static final int MAGIC = 0x46504152; // "FPAR"
+    static final int VERSION = 1;
+    private static final int TRAILER_BYTES = 12;
+
+    private StepArchive() {}
+
+    /**
+     * Write rows (ascending dayKeys) to file, replacing it atomically via a temp file.
+     * @return bytes written
+     */
+    static long write(File file, StepColumns rows) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        ByteArrayOutputStream block = new ByteArrayOutputStream(256);
+        int blocks = 0;
+        int[] index = new int[16 * 4];
+        long offset;
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             OutputStream out = new BufferedOutputStream(fos, 16 * 1024)) {
+            writeInt(out, MAGIC);
+            out.write(VERSION);
+            offset = 5;
+
+            int i = 0;
+            while (i < rows.size) {
+                int month = rows.dayKeys[i] / 100;
+                int end = i;
+                while (end < rows.size && rows.dayKeys[end] / 100 == month) end++;
+
+                block.reset();
+                writeVarint(block, end - i);
+                writeVarint(block, rows.dayKeys[i]);
+                writeVarint(block, rows.steps[i]);
+                for (int r = i + 1; r < end; r++) {
+                    writeVarint(block, rows.dayKeys[r] - rows.dayKeys[r - 1]);
+                    writeVarint(block, zigZag(rows.steps[r] - rows.steps[r - 1]));
+                }
+
+                if ((blocks + 1) * 4 > index.length) index = Arrays.copyOf(index, index.length * 2);
+                index[blocks * 4] = rows.dayKeys[i];
+                index[blocks * 4 + 1] = rows.dayKeys[end - 1];
+                index[blocks * 4 + 2] = (int) offset;
+                index[blocks * 4 + 3] = block.size();
+                blocks++;
+
+                block.writeTo(out);
+                offset += block.size();
+                i = end;
+            }
+
+            for (int b = 0; b < blocks * 4; b++) writeInt(out, index[b]);
+            writeInt(out, blocks);
+            writeInt(out, (int) offset);
+            writeInt(out, MAGIC);
+            out.flush();
+            fos.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        return file.length();
+    }
+
+    /** Random-access reader; open once and reuse. Not thread-safe. */
+    static final class Reader implements Closeable {
+
+        private final RandomAccessFile raf;
+        private final int blockCount;
+        private final int[] firstKeys;
+        private final int[] lastKeys;
+        private final int[] offsets;
+        private final int[] lengths;
+        private byte[] buf = new byte[512];
+
+        private Reader(RandomAccessFile raf) throws IOException {
+            this.raf = raf;
+            long len = raf.length();
+            if (len < 5 + TRAILER_BYTES) throw new IOException("Archive too short");
+            raf.seek(0);
+            if (raf.readInt() != MAGIC || raf.read() != VERSION) throw new IOException("Not a step archive");
+
+            raf.seek(len - TRAILER_BYTES);
+            blockCount = raf.readInt();
+            int indexOffset = raf.readInt();
+            if (raf.readInt() != MAGIC) throw new IOException("Archive trailer missing");
+
+            byte[] index = new byte[blockCount * 16];
+            raf.seek(indexOffset);
+            raf.readFully(index);
+            firstKeys = new int[blockCount];
+            lastKeys = new int[blockCount];
+            offsets = new int[blockCount];
+            lengths = new int[blockCount];
+            for (int b = 0, p = 0; b < blockCount; b++, p += 16) {
+                firstKeys[b] = readInt(index, p);
+                lastKeys[b] = readInt(index, p + 4);
+                offsets[b] = readInt(index, p + 8);
+                lengths[b] = readInt(index, p + 12);
+            }
+        }
+
+        static Reader open(File file) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                return new Reader(raf);
+            } catch (IOException e) {
+                raf.close();
+                throw e;
+            }
+        }
+
+        boolean isEmpty() {
+            return blockCount == 0;
+        }
+
+        /** First archived dayKey (only valid when not empty). */
+        int firstDayKey() {
+            return firstKeys[0];
+        }
+
+        /** Last archived dayKey (only valid when not empty). */
+        int lastDayKey() {
+            return lastKeys[blockCount - 1];
+        }
+
+        /** Replace out's contents with archived rows whose dayKey is in [fromKey, toKey]. */
+        StepColumns read(int fromKey, int toKey, StepColumns out) throws IOException {
+            out.clear();
+            // First block whose last day is >= fromKey
+            int lo = 0, hi = blockCount;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (lastKeys[mid] < fromKey) lo = mid + 1; else hi = mid;
+            }
+            for (int b = lo; b < blockCount && firstKeys[b] <= toKey; b++) {
+                decodeBlock(b, fromKey, toKey, out);
+            }
+            return out;
+        }
+
+        private void decodeBlock(int b, int fromKey, int toKey, StepColumns out) throws IOException {
+            int len = lengths[b];
+            if (buf.length < len) buf = new byte[Math.max(len, buf.length * 2)];
+            raf.seek(offsets[b]);
+            raf.readFully(buf, 0, len);
+
+            int[] pos = {0};
+            int count = readVarint(buf, pos);
+            int key = readVarint(buf, pos);
+            int steps = readVarint(buf, pos);
+            out.ensureCapacity(out.size + count);
+            for (int r = 0; ; ) {
+                if (key > toKey) return;
+                if (key >= fromKey) out.add(key, steps);
+                if (++r == count) return;
+                key += readVarint(buf, pos);
+                steps += unZigZag(readVarint(buf, pos));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            raf.close();
+        }
+    }
+
+    // ---- encoding helpers ----
+
+    static int zigZag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    static int unZigZag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static void writeVarint(OutputStream out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    /** Decode an unsigned varint at pos[0] and advance it. */
+    static int readVarint(byte[] b, int[] pos) {
+        int p = pos[0];
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int x = b[p++];
+            v |= (x & 0x7F) << shift;
+            if (x >= 0) break;
+        }
+        pos[0] = p;
+        return v;
+    }
+
+    private static void writeInt(OutputStream out, int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static int readInt(byte[] b, int p) {
+        return (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16 | (b[p + 2] & 0xFF) << 8 | (b[p + 3] & 0xFF);
+    }
+}
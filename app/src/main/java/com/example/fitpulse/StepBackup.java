@@ -0,0 +1,423 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Incremental online backup of one account's step database and archive to a BackupTarget.
+ * - Snapshot: VACUUM INTO from a separate read-only connection. It is a read transaction, so
+ *   under WAL the step writer keeps committing while the copy runs; the copy is consistent
+ *   as of the moment it started. The database is copied before the archive, so a roll-up in
+ *   between leaves duplicate days (Room wins), never missing ones.
+ * - Dedup: files are cut into BLOCK_SIZE blocks (the SQLite page size) stored deflated under
+ *   their SHA-256. Unchanged pages hash the same, so a daily backup uploads only the pages
+ *   that changed plus a manifest listing every block.
+ * - The newest KEEP_SNAPSHOTS per account are kept; blocks no manifest references are removed.
+ * - Restore rebuilds the files next to the live ones, checking every block hash and the
+ *   database (quick_check, schema not newer than this build), then swaps them in through
+ *   UserSession. Nothing live is touched until the whole snapshot has checked out; then the
+ *   step and heart-rate writers are paused around the swap, and a recording workout refuses it.
+ * Backups and restores are serialized on StepBackup.class; call from a background thread.
+ */
+public final class StepBackup {
+
+    private static final String TAG = "StepBackup";
+
+    static final String DIR = "backup";
+    static final int BLOCK_SIZE = 4096;
+    static final int KEEP_SNAPSHOTS = 7;
+    static final int MAGIC = 0x46504231; // "FPB1"
+    static final String FILE_DB = "db";
+    static final String FILE_ARCHIVE = "archive";
+    /** Progress is reported every this many blocks (and at the end). */
+    private static final int PROGRESS_EVERY = 64;
+    private static final int HASH_BYTES = 32;
+
+    /** Restore progress, called on the restoring thread. */
+    public interface Progress {
+        void onProgress(int blocksDone, int blocksTotal);
+    }
+
+    /** What one backup() did. */
+    public static final class Result {
+        public String snapshot;
+        public int blocks;
+        public int newBlocks;
+        public long bytes;
+        /** Stored (deflated) size of the new blocks. */
+        public long newBytes;
+        public int snapshotsPruned;
+        public int blocksPruned;
+        public long durationMs;
+
+        @Override
+        public String toString() {
+            return snapshot + ": " + newBlocks + "/" + blocks + " blocks new (" + newBytes + " of "
+                    + bytes + " bytes), pruned " + snapshotsPruned + " snapshots / " + blocksPruned
+                    + " blocks in " + durationMs + " ms";
+        }
+    }
+
+    /** One file of a snapshot: its length and block hashes in order. */
+    static final class FileEntry {
+        final String name;
+        final long length;
+        final List<String> hashes;
+
+        FileEntry(String name, long length, List<String> hashes) {
+            this.name = name;
+            this.length = length;
+            this.hashes = hashes;
+        }
+    }
+
+    private final Context appCtx;
+    private final UserSession session;
+    private final BackupTarget target;
+    private final Clock clock;
+
+    StepBackup(Context ctx, UserSession session, BackupTarget target, Clock clock) {
+        this.appCtx = ctx.getApplicationContext();
+        this.session = session;
+        this.target = target;
+        this.clock = clock;
+    }
+
+    /** The current account, backed up to files/backup. */
+    public static StepBackup get(Context ctx) {
+        return new StepBackup(ctx, UserSession.current(ctx),
+                new FileBackupTarget(new File(ctx.getFilesDir(), DIR)), Clock.systemDefaultZone());
+    }
+
+    /** This account's snapshots, newest first. */
+    public List<String> snapshots() throws IOException {
+        List<String> out = new ArrayList<>();
+        String prefix = session.accountId + "-";
+        for (String name : target.manifests()) {
+            if (name.startsWith(prefix)) out.add(name);
+        }
+        out.sort((a, b) -> Long.compare(createdMs(b), createdMs(a)));
+        return out;
+    }
+
+    private static long createdMs(String snapshot) {
+        return Long.parseLong(snapshot.substring(snapshot.lastIndexOf('-') + 1));
+    }
+
+    /** Take a snapshot, upload its new blocks, then prune old snapshots. */
+    @WorkerThread
+    public Result backup() throws IOException {
+        synchronized (StepBackup.class) {
+            long t0 = SystemClock.elapsedRealtime();
+            long now = clock.millis();
+            Result result = new Result();
+            result.snapshot = session.accountId + "-" + now;
+
+            File copy = new File(appCtx.getCacheDir(), "backup_" + session.accountId + ".db");
+            try {
+                snapshotDatabase(copy);
+                List<FileEntry> files = new ArrayList<>();
+                files.add(storeFile(FILE_DB, copy, result));
+                File archive = session.history.archiveFile();
+                if (archive.isFile()) files.add(storeFile(FILE_ARCHIVE, archive, result));
+                // Written last: a snapshot only exists once all its blocks do
+                target.putManifest(result.snapshot, encode(now, files));
+            } finally {
+                copy.delete();
+            }
+
+            prune(result);
+            result.durationMs = SystemClock.elapsedRealtime() - t0;
+            Log.i(TAG, result.toString());
+            return result;
+        }
+    }
+
+    /** Consistent copy of the live database without holding up its writer. */
+    private void snapshotDatabase(File copy) throws IOException {
+        // Makes sure the file exists and is migrated before the read-only open
+        String path = session.db.getOpenHelper().getWritableDatabase().getPath();
+        if (path == null) throw new IOException("In-memory databases can't be backed up");
+        if (copy.exists() && !copy.delete()) throw new IOException("Could not delete " + copy);
+        try (SQLiteDatabase ro = SQLiteDatabase.openDatabase(path, null,
+                SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS)) {
+            ro.execSQL("VACUUM INTO ?", new Object[]{copy.getPath()});
+        }
+    }
+
+    private FileEntry storeFile(String name, File file, Result result) throws IOException {
+        MessageDigest sha = sha256();
+        List<String> hashes = new ArrayList<>();
+        byte[] buf = new byte[BLOCK_SIZE];
+        long length;
+        // One open stream: a concurrent rename (archive roll-up) can't mix two versions
+        try (FileInputStream in = new FileInputStream(file)) {
+            length = in.getChannel().size();
+            long left = length;
+            while (left > 0) {
+                int n = readBlock(in, buf, (int) Math.min(BLOCK_SIZE, left));
+                sha.update(buf, 0, n);
+                String hash = hex(sha.digest());
+                if (!target.hasBlock(hash)) {
+                    byte[] stored = deflate(buf, n);
+                    target.putBlock(hash, stored);
+                    result.newBlocks++;
+                    result.newBytes += stored.length;
+                }
+                hashes.add(hash);
+                left -= n;
+            }
+        }
+        result.blocks += hashes.size();
+        result.bytes += length;
+        return new FileEntry(name, length, hashes);
+    }
+
+    /** Drop this account's snapshots past KEEP_SNAPSHOTS, then blocks nothing references. */
+    private void prune(Result result) throws IOException {
+        List<String> mine = snapshots();
+        for (int i = KEEP_SNAPSHOTS; i < mine.size(); i++) {
+            target.deleteManifest(mine.get(i));
+            result.snapshotsPruned++;
+        }
+        if (result.snapshotsPruned == 0) return;
+
+        Set<String> live = new HashSet<>();
+        for (String name : target.manifests()) {
+            for (FileEntry f : decode(target.getManifest(name))) live.addAll(f.hashes);
+        }
+        for (String hash : target.blocks()) {
+            if (!live.contains(hash)) {
+                target.deleteBlock(hash);
+                result.blocksPruned++;
+            }
+        }
+    }
+
+    /**
+     * Replace this account's database and archive with a snapshot.
+     * @return the account's new session (also made current if it was)
+     * @throws IOException if the snapshot is missing, damaged or from a newer schema;
+     *         the live files are untouched then
+     */
+    @WorkerThread
+    public UserSession restore(String snapshot, @Nullable Progress progress) throws IOException {
+        synchronized (StepBackup.class) {
+            List<FileEntry> files = decode(target.getManifest(snapshot));
+            int total = 0;
+            for (FileEntry f : files) total += f.hashes.size();
+
+            String id = session.accountId;
+            File dbStaged = appCtx.getDatabasePath(LocalAccounts.scoped(AppDatabase.DB_NAME, id) + ".restore");
+            File archiveStaged = new File(appCtx.getFilesDir(), LocalAccounts.scoped(StepHistory.ARCHIVE_FILE, id) + ".restore");
+            boolean hasArchive = false;
+            try {
+                int done = 0;
+                for (FileEntry f : files) {
+                    boolean isDb = FILE_DB.equals(f.name);
+                    hasArchive |= !isDb;
+                    done = rebuild(f, isDb ? dbStaged : archiveStaged, done, total, progress);
+                }
+                if (!dbStaged.isFile()) throw new IOException("Snapshot " + snapshot + " has no database");
+                checkDatabase(dbStaged);
+                if (progress != null) progress.onProgress(total, total);
+                return swapIn(id, dbStaged, hasArchive ? archiveStaged : null);
+            } finally {
+                // Only left behind if something failed before the swap
+                dbStaged.delete();
+                archiveStaged.delete();
+            }
+        }
+    }
+
+    /**
+     * Quiesce the live writers, then replace the files. A recording workout holds the old
+     * database until it stops, so it is refused (SettingsFragment checks first; a workout
+     * may still have started since).
+     */
+    private UserSession swapIn(String id, File db, @Nullable File archive) throws IOException {
+        if (WorkoutRecorder.get(appCtx).isRecording()) throw new IOException("A workout is recording");
+        StepCounterManager steps = StepCounterManager.get(appCtx);
+        HeartRateManager heartRate = HeartRateManager.get(appCtx);
+        try {
+            steps.pause();
+            heartRate.pause();
+            return UserSession.replaceFiles(appCtx, id, db, archive);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Restore interrupted before the swap");
+        } finally {
+            heartRate.resume();
+            steps.resume();
+        }
+    }
+
+    private int rebuild(FileEntry f, File out, int done, int total, @Nullable Progress progress) throws IOException {
+        MessageDigest sha = sha256();
+        byte[] buf = new byte[BLOCK_SIZE];
+        long written = 0;
+        try (FileOutputStream os = new FileOutputStream(out)) {
+            for (String hash : f.hashes) {
+                int n = inflate(target.getBlock(hash), buf);
+                sha.update(buf, 0, n);
+                if (!hash.equals(hex(sha.digest()))) throw new IOException("Block " + hash + " is damaged");
+                os.write(buf, 0, n);
+                written += n;
+                if (++done % PROGRESS_EVERY == 0 && progress != null) progress.onProgress(done, total);
+            }
+            os.getFD().sync();
+        }
+        if (written != f.length) throw new IOException(f.name + ": " + written + " of " + f.length + " bytes");
+        return done;
+    }
+
+    /** Refuse a damaged file, and a newer schema (Room would wipe it as a downgrade). */
+    private static void checkDatabase(File file) throws IOException {
+        try (SQLiteDatabase db = SQLiteDatabase.openDatabase(file.getPath(), null,
+                SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS)) {
+            String check = DatabaseUtils.stringForQuery(db, "PRAGMA quick_check", null);
+            if (!"ok".equals(check)) throw new IOException("Restored database failed quick_check: " + check);
+            if (db.getVersion() > AppDatabase.VERSION) {
+                throw new IOException("Snapshot schema " + db.getVersion() + " is newer than " + AppDatabase.VERSION);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Restored database can't be opened", e);
+        }
+    }
+
+    // Manifest: MAGIC, createdMs, file count, then per file: name, length, block count, hashes
+
+    static byte[] encode(long createdMs, List<FileEntry> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeLong(createdMs);
+        out.writeInt(files.size());
+        for (FileEntry f : files) {
+            out.writeUTF(f.name);
+            out.writeLong(f.length);
+            out.writeInt(f.hashes.size());
+            for (String h : f.hashes) out.write(unhex(h));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static List<FileEntry> decode(byte[] manifest) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(manifest));
+        if (in.readInt() != MAGIC) throw new IOException("Not a backup manifest");
+        in.readLong();
+        int count = in.readInt();
+        List<FileEntry> files = new ArrayList<>(count);
+        byte[] hash = new byte[HASH_BYTES];
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            long length = in.readLong();
+            int blocks = in.readInt();
+            List<String> hashes = new ArrayList<>(blocks);
+            for (int b = 0; b < blocks; b++) {
+                in.readFully(hash);
+                hashes.add(hex(hash));
+            }
+            files.add(new FileEntry(name, length, hashes));
+        }
+        return files;
+    }
+
+    private static int readBlock(InputStream in, byte[] buf, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int r = in.read(buf, n, len - n);
+            if (r < 0) throw new EOFException("File shrank while it was copied");
+            n += r;
+        }
+        return n;
+    }
+
+    private static byte[] deflate(byte[] buf, int len) {
+        Deflater d = new Deflater(Deflater.BEST_SPEED);
+        try {
+            d.setInput(buf, 0, len);
+            d.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(len / 2);
+            byte[] chunk = new byte[BLOCK_SIZE];
+            while (!d.finished()) out.write(chunk, 0, d.deflate(chunk));
+            return out.toByteArray();
+        } finally {
+            d.end();
+        }
+    }
+
+    private static int inflate(byte[] stored, byte[] buf) throws IOException {
+        Inflater inf = new Inflater();
+        try {
+            inf.setInput(stored);
+            int n = inf.inflate(buf);
+            // A full buffer can stop just short of the end marker; one more call reaches it
+            if (!inf.finished() && (inf.inflate(new byte[1]) != 0 || !inf.finished())) {
+                throw new IOException("Block larger than " + BLOCK_SIZE + " bytes");
+            }
+            return n;
+        } catch (DataFormatException e) {
+            throw new IOException("Block is not deflate data", e);
+        } finally {
+            inf.end();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static String hex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            out[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(out);
+    }
+
+    private static byte[] unhex(String s) {
+        byte[] out = new byte[s.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) Integer.parseInt(s.substring(2 * i, 2 * i + 2), 16);
+        }
+        return out;
+    }
+}
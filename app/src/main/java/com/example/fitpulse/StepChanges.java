@@ -0,0 +1,202 @@
+package com.example.fitpulse;
+
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.room.InvalidationTracker;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Day-scoped change notifications for the steps table, and queries that re-run on them.
+ * - TEMP triggers on steps record the day (yyyyMMdd) of every inserted, updated or deleted
+ *   row in a TEMP table; the same technique Room's InvalidationTracker uses per table.
+ * - Room's tracker calls back once per committed transaction that touched steps. That
+ *   callback drains the day table and tells only the listeners whose range holds one of the
+ *   days, so a batch (insertAll, applyRemote, an archive pass) is one notification carrying
+ *   all its days, and a live write to today leaves last week's listeners alone.
+ * - observe() runs a query once at subscribe time and again only when its range changes;
+ *   results are delivered on the main thread.
+ * Draining, listeners and observed queries all run on one "step-changes" thread.
+ */
+public final class StepChanges {
+
+    private static final String TAG = "StepChanges";
+
+    /** Told about a committed write that touched its range. */
+    public interface Listener {
+        /** @param days every day the transaction touched (ascending yyyyMMdd), not only those in range */
+        void onDaysChanged(int[] days);
+    }
+
+    /** A query re-run on the step-changes thread. */
+    public interface Query<T> {
+        T run(AppDatabase db);
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /** Stops notifications; safe to call more than once. */
+    public interface Subscription {
+        void cancel();
+    }
+
+    private static final class Entry implements Subscription {
+        final int fromKey, toKey;
+        final Listener listener;
+        final List<Entry> owner;
+
+        Entry(int fromKey, int toKey, Listener listener, List<Entry> owner) {
+            this.fromKey = fromKey;
+            this.toKey = toKey;
+            this.listener = listener;
+            this.owner = owner;
+        }
+
+        @Override
+        public void cancel() {
+            owner.remove(this);
+        }
+    }
+
+    private final AppDatabase db;
+    private final Executor deliver;
+    private final ExecutorService worker =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "step-changes"));
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+    /** Written only on the worker. */
+    private boolean installed;
+
+    /** Written only on the worker. */
+    private volatile long notifications;
+
+    StepChanges(AppDatabase db) {
+        this(db, new Handler(Looper.getMainLooper())::post);
+    }
+
+    @VisibleForTesting
+    StepChanges(AppDatabase db, Executor deliver) {
+        this.db = db;
+        this.deliver = deliver;
+        worker.execute(this::install);
+    }
+
+    /** Triggers plus a Room observer; runs once, on the worker, before anything else there. */
+    private void install() {
+        SupportSQLiteDatabase sql = db.getOpenHelper().getWritableDatabase();
+        sql.execSQL("CREATE TEMP TABLE IF NOT EXISTS step_changed_days (day INTEGER PRIMARY KEY)");
+        String day = "CAST(REPLACE(substr(%s.date, 1, 10), '-', '') AS INTEGER)";
+        sql.execSQL("CREATE TEMP TRIGGER IF NOT EXISTS step_changes_insert AFTER INSERT ON steps BEGIN "
+                + "INSERT OR IGNORE INTO step_changed_days VALUES (" + String.format(day, "NEW") + "); END");
+        sql.execSQL("CREATE TEMP TRIGGER IF NOT EXISTS step_changes_update AFTER UPDATE ON steps BEGIN "
+                + "INSERT OR IGNORE INTO step_changed_days VALUES (" + String.format(day, "OLD") + "); "
+                + "INSERT OR IGNORE INTO step_changed_days VALUES (" + String.format(day, "NEW") + "); END");
+        sql.execSQL("CREATE TEMP TRIGGER IF NOT EXISTS step_changes_delete AFTER DELETE ON steps BEGIN "
+                + "INSERT OR IGNORE INTO step_changed_days VALUES (" + String.format(day, "OLD") + "); END");
+        db.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("steps") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                worker.execute(StepChanges.this::drain);
+            }
+        });
+        installed = true;
+    }
+
+    /** Listen for committed writes touching [from, to]. */
+    public Subscription addListener(LocalDate from, LocalDate to, Listener listener) {
+        Entry e = new Entry(StepColumns.dayKey(from), StepColumns.dayKey(to), listener, entries);
+        entries.add(e);
+        return e;
+    }
+
+    /**
+     * Run query now and again after every committed write that touches [from, to]; each
+     * result goes to callback on the main thread. Runs queued behind a pending one are merged.
+     */
+    public <T> Subscription observe(LocalDate from, LocalDate to, Query<T> query, Callback<T> callback) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean queued = new AtomicBoolean();
+        Runnable run = () -> {
+            queued.set(false);
+            if (cancelled.get()) return;
+            T result = query.run(db);
+            deliver.execute(() -> {
+                if (!cancelled.get()) callback.onResult(result);
+            });
+        };
+        Runnable schedule = () -> {
+            if (queued.compareAndSet(false, true)) worker.execute(run);
+        };
+        Subscription listening = addListener(from, to, days -> schedule.run());
+        schedule.run();
+        return () -> {
+            cancelled.set(true);
+            listening.cancel();
+        };
+    }
+
+    /** Collect the days written since the last drain and notify the listeners they concern. */
+    private void drain() {
+        if (!installed) return;
+        int[] days = db.runInTransaction(() -> {
+            int[] out;
+            try (Cursor c = db.query("SELECT day FROM temp.step_changed_days ORDER BY day", null)) {
+                out = new int[c.getCount()];
+                for (int i = 0; c.moveToNext(); i++) out[i] = c.getInt(0);
+            }
+            db.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM temp.step_changed_days");
+            return out;
+        });
+        if (days.length == 0) return;
+        notifications++;
+        for (Entry e : entries) {
+            if (touches(days, e.fromKey, e.toKey)) {
+                try {
+                    e.listener.onDaysChanged(days);
+                } catch (RuntimeException ex) {
+                    Log.w(TAG, "Listener failed", ex);
+                }
+            }
+        }
+    }
+
+    /** Whether sorted days has one in [fromKey, toKey]. */
+    static boolean touches(int[] days, int fromKey, int toKey) {
+        int i = Arrays.binarySearch(days, fromKey);
+        if (i >= 0) return true;
+        int next = -i - 1;
+        return next < days.length && days[next] <= toKey;
+    }
+
+    /** Transactions that wrote steps since this tracker started (worker thread's view). */
+    @VisibleForTesting
+    long notifications() {
+        return notifications;
+    }
+
+    /** Wait until everything queued on the worker so far has run. */
+    @VisibleForTesting
+    void awaitIdle() throws Exception {
+        worker.submit(() -> {}).get();
+    }
+
+    /** Stop the worker (the database is closing). */
+    void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.fitpulse;
+
+import android.database.Cursor;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Reusable primitive columns for a range of daily step rows.
+ * - dayKeys[i] is the day as yyyyMMdd (e.g. 20250630), steps[i] its total; rows are ascending.
+ * - Filled straight from a cursor: no StepEntry objects, no boxed Integers.
+ * - Arrays only grow, so one instance per worker thread can be reused for every query.
+ * Not thread-safe.
+ */
+final class StepColumns {
+
+    int[] dayKeys;
+    int[] steps;
+    int size;
+
+    StepColumns() {
+        this(64);
+    }
+
+    StepColumns(int initialCapacity) {
+        dayKeys = new int[Math.max(1, initialCapacity)];
+        steps = new int[dayKeys.length];
+    }
+
+    /** yyyyMMdd key for a date, matching what the DAO cursor returns. */
+    static int dayKey(LocalDate d) {
+        return d.getYear() * 10000 + d.getMonthValue() * 100 + d.getDayOfMonth();
+    }
+
+    /** Inverse of dayKey. */
+    static LocalDate toDate(int dayKey) {
+        return LocalDate.of(dayKey / 10000, (dayKey / 100) % 100, dayKey % 100);
+    }
+
+    /** Replace contents with rows in [from, to] (inclusive). */
+    StepColumns read(StepDao dao, LocalDate from, LocalDate to) {
+        try (Cursor c = dao.queryRangeColumns(from.format(StepStats.DB_FMT), to.format(StepStats.DB_FMT))) {
+            return readFrom(c);
+        }
+    }
+
+    /** Replace contents with (dayKey, steps) rows from the cursor (does not close it). */
+    StepColumns readFrom(Cursor c) {
+        size = 0;
+        ensureCapacity(c.getCount());
+        while (c.moveToNext()) {
+            dayKeys[size] = c.getInt(0);
+            steps[size] = c.getInt(1);
+            size++;
+        }
+        return this;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /** Append one row; keys must stay ascending. */
+    void add(int dayKey, int stepCount) {
+        ensureCapacity(size + 1);
+        dayKeys[size] = dayKey;
+        steps[size] = stepCount;
+        size++;
+    }
+
+    void ensureCapacity(int n) {
+        if (n <= dayKeys.length) return;
+        int cap = Math.max(n, dayKeys.length * 2);
+        dayKeys = Arrays.copyOf(dayKeys, cap);
+        steps = Arrays.copyOf(steps, cap);
+    }
+
+    /** Row index of dayKey, or a negative insertion point (see Arrays.binarySearch). */
+    int indexOf(int dayKey) {
+        return Arrays.binarySearch(dayKeys, 0, size, dayKey);
+    }
+
+    /** Steps recorded for the day, 0 if there is no row. */
+    int stepsOn(int dayKey) {
+        int i = indexOf(dayKey);
+        return i >= 0 ? steps[i] : 0;
+    }
+
+    /** Sum of all loaded rows. */
+    long total() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) sum += steps[i];
+        return sum;
+    }
+}
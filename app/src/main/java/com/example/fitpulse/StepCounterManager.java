@@ -7,21 +7,54 @@ import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Central manager for step counting using the hardware TYPE_STEP_COUNTER sensor.
  * - Maintains a per-day baseline to compute "today's steps".
  * - Persists latest count to Room.
  * - Broadcasts STEP_UPDATE (local) with "steps_today" for UI screens.
- * - Uses a ref-counted start/stop so multiple screens can safely share it.
+ * - Uses a ref-counted start/stop so multiple screens can safely share it. Once a screen has
+ *   been up (onUiStarted), keepRunning() holds a reference for the rest of the process, so
+ *   the counter stays registered in the background at SamplingPolicy's batched hidden rates.
+ * - Sampling rate and batching latency come from SamplingPolicy (motion + visibility);
+ *   step advances are reported back to it as motion.
+ * - Processing runs as a SensorPipeline (filter -> baseline -> throttle -> sources -> persist + broadcast)
+ *   on one background thread; the sensor callback only copies the reading in. The filter
+ *   (StepGlitchFilter) quarantines implausible counter jumps before they are counted.
+ * - A "widget" sink turns updates into StepSnapshots for the home-screen widget; StepWidgetUpdater
+ *   decides which of them are worth a RemoteViews push.
+ * - The sources stage records per-minute phone intervals for StepSourceMerger (steps that
+ *   arrive after a gap are spread over it); on days another source (a watch) has data for,
+ *   the merged total from Room replaces the raw count for every sink: it is what Room holds,
+ *   so Home, Stats and the widget show it too.
+ * - Baselines, rows and projections are per account: each reading is tagged with the current
+ *   UserSession, and an account switch rebases so steps walked before it stay with the old account.
+ * - pause()/resume() bracket a backup restore: no readings, and nothing left in the pipeline
+ *   holding the session whose files are being replaced.
+ * - Traced with FitTrace: the sensor callback, every pipeline stage, the Room write and the
+ *   broadcast (plus a steps_today counter track).
+ * - Clock, sensor manager, DB and pipeline executor are injectable so the pipeline
+ *   can be driven deterministically from JVM replay tests.
  */
-public class StepCounterManager implements SensorEventListener {
+public class StepCounterManager implements SensorEventListener, SamplingPolicy.Listener {
 
     /** Singleton instance (one per process). */
     private static StepCounterManager INSTANCE;
@@ -31,22 +64,95 @@ public class StepCounterManager implements SensorEventListener {
     private final SensorManager sensorManager;
     private final Sensor stepCounter;
 
+    /** Source of "now" for day boundaries and throttling. */
+    private final Clock clock;
+
+    /** Baseline, throttle, persist and broadcast stages; run off the sensor thread. */
+    private final SensorPipeline<StepReading> pipeline;
+    private final Executor executor;
+
+    /** Database override for tests; null means AppDatabase.getInstance(appCtx). */
+    @Nullable private final AppDatabase dbOverride;
+
+    /** Merger bound to dbOverride; null means StepSourceMerger.get(appCtx). */
+    @Nullable private final StepSourceMerger mergerOverride;
+
+    /** Phone steps in the current wall-clock minute, flushed as a StepInterval when it ends. */
+    private long phoneMinuteMs = -1;
+    @Nullable private UserSession phoneSession;
+    private int phoneMinuteBase;
+    private int phoneLastSteps;
+    private long phoneLastAtMs;
+    @Nullable private String phoneDate;
+    private static final long MINUTE_MS = 60_000L;
+
+    /** Plausibility check on raw counter readings (first pipeline stage). */
+    private final StepGlitchFilter glitchFilter;
+
+    /** Decides the counter's rate/latency; fed with step advances. */
+    private final SamplingPolicy policy;
+    @Nullable private SamplingPolicy.Rate registeredRate;
+    private int lastMotionSteps = -1;
+    /** Account the baseline stage last counted for; a change rebases (see applyBaseline). */
+    @Nullable private String baselineAccount;
+
     /** Reference count for start()/stop() calls. */
     private int startCount = 0;
+    /** Whether keepRunning() holds its process-lifetime reference. */
+    private boolean keptRunning = false;
+    /** Unregistered by pause() regardless of startCount. */
+    private boolean paused = false;
 
     /** Private SharedPreferences for daily baseline bookkeeping. */
-    private static final String PREF_NAME = "step_prefs";
+    static final String PREF_NAME = "step_prefs";
+
+    private static final DateTimeFormatter DB_FMT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.getDefault());
 
-    // Throttle + de-dupe for broadcasts (prevents UI spam)
-    private int lastSentSteps = -1;
+    // Throttle for writes and broadcasts (prevents UI spam)
     private long lastSentAtMs = 0L;
     private static final long MIN_BROADCAST_INTERVAL_MS = 200; // ~5 Hz max
 
+    /** Throttled updates the persist sink may have queued (~50 s at the throttle rate). */
+    static final int PERSIST_QUEUE = 256;
+
     /** Private constructor; use get(Context) to obtain the singleton. */
     private StepCounterManager(Context ctx) {
+        this(ctx,
+                (SensorManager) ctx.getApplicationContext().getSystemService(Context.SENSOR_SERVICE),
+                null,
+                Clock.systemDefaultZone(),
+                Executors.newSingleThreadExecutor(r -> new Thread(r, "step-pipeline")),
+                SamplingPolicy.get(ctx));
+    }
+
+    /**
+     * Wiring constructor used by replay tests.
+     * @param db database to persist into, or null for the app singleton
+     * @param executor executor for the pipeline stages (a direct executor makes processing synchronous)
+     */
+    @VisibleForTesting
+    StepCounterManager(Context ctx, @Nullable SensorManager sensorManager, @Nullable AppDatabase db,
+                       Clock clock, Executor executor) {
+        this(ctx, sensorManager, db, clock, executor,
+                new SamplingPolicy(sensorManager, clock, new Handler(Looper.getMainLooper())));
+    }
+
+    /** Wiring constructor with an explicit sampling policy. */
+    @VisibleForTesting
+    StepCounterManager(Context ctx, @Nullable SensorManager sensorManager, @Nullable AppDatabase db,
+                       Clock clock, Executor executor, SamplingPolicy policy) {
         appCtx = ctx.getApplicationContext();
-        sensorManager = (SensorManager) appCtx.getSystemService(Context.SENSOR_SERVICE);
-        stepCounter = (sensorManager != null) ? sensorManager.getDefaultSensor(Sensor.TYPE_STEP_COUNTER) : null;
+        this.sensorManager = sensorManager;
+        this.stepCounter = (sensorManager != null) ? sensorManager.getDefaultSensor(Sensor.TYPE_STEP_COUNTER) : null;
+        this.dbOverride = db;
+        this.mergerOverride = (db != null) ? new StepSourceMerger(db, clock.getZone()) : null;
+        this.clock = clock;
+        this.policy = policy;
+        this.glitchFilter = new StepGlitchFilter(appCtx.getSharedPreferences(StepGlitchFilter.PREFS, Context.MODE_PRIVATE),
+                Settings.Global.getInt(appCtx.getContentResolver(), Settings.Global.BOOT_COUNT, -1));
+        this.executor = executor;
+        this.pipeline = buildPipeline(executor);
     }
 
     /**
@@ -64,7 +170,9 @@ public class StepCounterManager implements SensorEventListener {
     public synchronized void start() {
         if (sensorManager == null || stepCounter == null) return;
         if (startCount++ > 0) return; // already active
-        sensorManager.registerListener(this, stepCounter, SensorManager.SENSOR_DELAY_UI);
+        policy.addListener(this);
+        policy.start();
+        if (!paused) register(policy.stepCounterRate());
     }
 
     /**
@@ -76,55 +184,334 @@ public class StepCounterManager implements SensorEventListener {
         if (startCount == 0) return;
         if (--startCount == 0) {
             sensorManager.unregisterListener(this);
+            registeredRate = null;
+            policy.removeListener(this);
+            policy.stop();
+        }
+    }
+
+    /**
+     * Take one reference that is never released, so the counter keeps running (batched while
+     * no screen is up) until the process ends. Idempotent.
+     */
+    public void keepRunning() {
+        synchronized (this) {
+            if (keptRunning) return;
+            keptRunning = true;
+        }
+        start();
+    }
+
+    /**
+     * Stop taking readings and wait until the pipeline has finished the ones it already had
+     * (StepBackup.restore, before the session's files are replaced). start()/stop() keep
+     * counting meanwhile; resume() registers again if anyone still wants readings.
+     */
+    public void pause() throws InterruptedException {
+        synchronized (this) {
+            paused = true;
+            if (registeredRate != null) {
+                sensorManager.unregisterListener(this);
+                registeredRate = null;
+            }
+        }
+        // A stage's output is drained by a task queued after it ran, so one barrier may not be enough
+        while (!pipeline.isIdle()) {
+            CountDownLatch barrier = new CountDownLatch(1);
+            executor.execute(barrier::countDown);
+            barrier.await();
+        }
+    }
+
+    public synchronized void resume() {
+        if (!paused) return;
+        paused = false;
+        if (startCount > 0) register(policy.stepCounterRate());
+    }
+
+    /** Deliver readings waiting in the sensor's batching FIFO now (StepWidgetJobService). */
+    public synchronized void flush() {
+        if (startCount == 0) return;
+        sensorManager.flush(this);
+    }
+
+    /** MainActivity onStart: live rates while a screen is up, and the counter kept running. */
+    public void onUiStarted() {
+        policy.setUiVisible(true);
+        keepRunning();
+    }
+
+    /**
+     * MainActivity onStop: the counter stays registered, re-registered by the policy with a
+     * max report latency so steps are delivered in batches instead of waking the CPU.
+     */
+    public void onUiStopped() {
+        policy.setUiVisible(false);
+    }
+
+    /** Re-register when motion or visibility changes the wanted rate. */
+    @Override
+    public synchronized void onSamplingChanged(SamplingPolicy p) {
+        if (startCount == 0 || paused) return;
+        SamplingPolicy.Rate rate = p.stepCounterRate();
+        if (rate.equals(registeredRate)) return;
+        // Batched events dropped by re-registering lose nothing: the counter is cumulative
+        sensorManager.unregisterListener(this);
+        register(rate);
+    }
+
+    private void register(SamplingPolicy.Rate rate) {
+        sensorManager.registerListener(this, stepCounter, rate.samplingUs, rate.maxLatencyUs);
+        registeredRate = rate;
+    }
+
+    /** Copied out of the SensorEvent, which the framework reuses after the callback returns. */
+    static final class StepReading {
+        final int totalSteps;
+        final long atMs;
+        /** SensorEvent.timestamp: when the latest step happened, which for batched events is before atMs. */
+        final long eventNanos;
+
+        StepReading(int totalSteps, long atMs, long eventNanos) {
+            this.totalSteps = totalSteps;
+            this.atMs = atMs;
+            this.eventNanos = eventNanos;
+        }
+    }
+
+    /** Today's step count as of atMs, for the account that was current when it was read. */
+    static final class DaySteps {
+        final String date;
+        final int steps;
+        final long atMs;
+        final UserSession session;
+        /** steps is the merged total of all sources, already in Room (not the phone's count). */
+        final boolean merged;
+
+        DaySteps(String date, int steps, long atMs, UserSession session) {
+            this(date, steps, atMs, session, false);
+        }
+
+        DaySteps(String date, int steps, long atMs, UserSession session, boolean merged) {
+            this.date = date;
+            this.steps = steps;
+            this.atMs = atMs;
+            this.session = session;
+            this.merged = merged;
         }
     }
 
     /**
-     * Sensor callback: compute today's steps using a per-day baseline and notify listeners.
+     * Sensor callback: only copies the reading into the pipeline; processing happens in the stages.
      */
     @Override
     public void onSensorChanged(android.hardware.SensorEvent event) {
         if (event.sensor.getType() != Sensor.TYPE_STEP_COUNTER) return;
+        long trace = FitTrace.begin(FitTrace.SENSOR_CALLBACK);
+        try {
+            policy.counters().record(Sensor.TYPE_STEP_COUNTER);
+            // Cumulative steps since boot
+            pipeline.offer(new StepReading((int) event.values[0], clock.millis(), event.timestamp));
+        } finally {
+            FitTrace.end(FitTrace.SENSOR_CALLBACK, trace);
+        }
+    }
 
-        // Cumulative steps since boot
-        int totalSteps = (int) event.values[0];
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+    /** Per-stage throughput/queue-depth metrics of the step pipeline. */
+    public SensorPipeline<StepReading> pipeline() {
+        return pipeline;
+    }
+
+    /**
+     * counter reading -> filter -> baseline -> throttle -> sources -> persist + broadcast + projection + widget.
+     * - filter keeps a FIFO so it judges every reading against its predecessor's event time.
+     * - baseline/throttle/broadcast conflate: the counter is cumulative, so the latest value
+     *   supersedes any older one still waiting.
+     * - sources and persist keep a FIFO (every throttled update reaches the phone intervals and
+     *   the row, so a day change is never conflated away) and drop when they back up that far.
+     */
+    private SensorPipeline<StepReading> buildPipeline(Executor executor) {
+        return SensorPipeline.<StepReading>builder("steps", executor)
+                .then("filter", this::filterGlitches, SensorPipeline.Backpressure.DROP_NEWEST, PERSIST_QUEUE)
+                .then("baseline", this::applyBaseline, SensorPipeline.Backpressure.CONFLATE, 1)
+                .then("throttle", this::throttle, SensorPipeline.Backpressure.CONFLATE, 1)
+                .then("sources", this::applySources, SensorPipeline.Backpressure.DROP_NEWEST, PERSIST_QUEUE)
+                .sink("persist", this::persist, SensorPipeline.Backpressure.DROP_NEWEST, PERSIST_QUEUE)
+                .sink("broadcast", this::broadcast, SensorPipeline.Backpressure.CONFLATE, 1)
+                .sink("projection", this::recordProgress, SensorPipeline.Backpressure.CONFLATE, 1)
+                .sink("widget", this::publishSnapshot, SensorPipeline.Backpressure.CONFLATE, 1)
+                .build();
+    }
+
+    /** Drop the implausible part of counter jumps (StepGlitchFilter) before anything is counted. */
+    private void filterGlitches(StepReading r, SensorPipeline.Emitter<StepReading> out) {
+        int filtered = glitchFilter.filter(r.totalSteps, r.eventNanos, r.atMs);
+        if (filtered == StepGlitchFilter.SKIP) return;
+        out.emit(filtered == r.totalSteps ? r : new StepReading(filtered, r.atMs, r.eventNanos));
+    }
+
+    /** Plausibility filter and its decision counters. */
+    StepGlitchFilter glitchFilter() {
+        return glitchFilter;
+    }
+
+    /** Today's steps from the per-day baseline; step advances are reported as motion. */
+    private void applyBaseline(StepReading r, SensorPipeline.Emitter<DaySteps> out) {
+        int totalSteps = r.totalSteps;
+        String today = Instant.ofEpochMilli(r.atMs).atZone(clock.getZone()).toLocalDate().format(DB_FMT);
 
         // Load/initialize today's baseline so: todaySteps = totalSinceBoot - baseline
-        SharedPreferences prefs = appCtx.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        // (per account: each one has its own step_prefs)
+        UserSession session = UserSession.current(appCtx);
+        SharedPreferences prefs = session.prefs(PREF_NAME);
         String lastSavedDate = prefs.getString("last_date", null);
+        boolean switched = baselineAccount != null && !baselineAccount.equals(session.accountId);
+        baselineAccount = session.accountId;
 
         if (lastSavedDate == null || !lastSavedDate.equals(today)) {
             prefs.edit()
                     .putString("last_date", today)
                     .putInt("base_steps_" + today, totalSteps)
+                    .putInt("last_today_steps", 0)
                     .apply();
         }
 
         int baseSteps = prefs.getInt("base_steps_" + today, totalSteps);
+
+        // Counter went backwards: the device rebooted and the sensor restarted from zero.
+        // Rebase so the steps already counted today are carried over instead of lost.
+        // Same after an account switch: the steps walked meanwhile belong to the other account.
+        if (totalSteps < baseSteps || (switched && today.equals(lastSavedDate))) {
+            baseSteps = totalSteps - prefs.getInt("last_today_steps", 0);
+            prefs.edit().putInt("base_steps_" + today, baseSteps).apply();
+        }
         int todaySteps = Math.max(0, totalSteps - baseSteps);
 
-        // Throttle: skip duplicates and too-frequent updates
-        long now = System.currentTimeMillis();
-        if (todaySteps == lastSentSteps && (now - lastSentAtMs) < MIN_BROADCAST_INTERVAL_MS) {
+        // Steps since the previous reading mean the user is moving (the first reading is just a baseline)
+        if (lastMotionSteps >= 0 && todaySteps > lastMotionSteps && !switched) policy.noteMotion(r.atMs);
+        lastMotionSteps = todaySteps;
+
+        out.emit(new DaySteps(today, todaySteps, r.atMs, session));
+    }
+
+    /** Throttle: skip duplicates and too-frequent updates. */
+    private void throttle(DaySteps d, SensorPipeline.Emitter<DaySteps> out) {
+        if ((d.atMs - lastSentAtMs) < MIN_BROADCAST_INTERVAL_MS) {
+            return; // too soon since last send
+        }
+        lastSentAtMs = d.atMs;
+        d.session.prefs(PREF_NAME).edit().putInt("last_today_steps", d.steps).apply();
+        out.emit(d);
+    }
+
+    /**
+     * Hand the phone's steps to the merger; if another source has data for today, continue
+     * with the merged total Room holds instead of the phone's count.
+     */
+    private void applySources(DaySteps d, SensorPipeline.Emitter<DaySteps> out) {
+        AppDatabase db = (dbOverride != null) ? dbOverride : d.session.db;
+        StepSourceMerger merger = (mergerOverride != null) ? mergerOverride : d.session.merger;
+        recordPhoneInterval(d, merger);
+        if (!merger.hasOtherSource(d.date)) {
+            out.emit(d);
             return;
         }
-        if ((now - lastSentAtMs) < MIN_BROADCAST_INTERVAL_MS) {
-            return; // too soon since last send
+        StepEntry row = db.stepDao().getStepsByDate(d.date);
+        // No row yet: the watch data has not been merged into one
+        out.emit(row != null ? new DaySteps(d.date, row.steps, d.atMs, d.session, true) : d);
+    }
+
+    /**
+     * Persist latest value for today to Room (marked dirty for sync), unless another source
+     * has data for today: then the row holds StepSourceMerger's merged total instead.
+     */
+    private void persist(DaySteps d) {
+        if (d.merged) return;
+        AppDatabase db = (dbOverride != null) ? dbOverride : d.session.db;
+        long trace = FitTrace.begin(FitTrace.DB_UPSERT);
+        try {
+            db.stepDao().upsertLocal(new StepEntry(d.date, d.steps), d.atMs);
+        } finally {
+            FitTrace.end(FitTrace.DB_UPSERT, trace);
         }
-        lastSentSteps = todaySteps;
-        lastSentAtMs = now;
+    }
 
-        // Persist latest value for today to Room on a background thread
-        new Thread(() -> {
-            AppDatabase db = AppDatabase.getInstance(appCtx);
-            db.stepDao().insert(new StepEntry(today, todaySteps));
-        }).start();
+    /**
+     * Accumulate step advances per wall-clock minute; when a reading lands in a new minute,
+     * the previous one is handed to the merger as a phone interval. Steps since the previous
+     * reading are spread evenly over the time between the two: after a long gap (batched
+     * delivery, the counter off) the minutes in between get one interval instead of all of
+     * them landing in the current minute.
+     */
+    private void recordPhoneInterval(DaySteps d, StepSourceMerger merger) {
+        long minute = d.atMs - Math.floorMod(d.atMs, MINUTE_MS);
+        if (phoneMinuteMs < 0 || d.session != phoneSession) {
+            // First reading, or a new account: its minute starts here
+            phoneSession = d.session;
+            phoneMinuteMs = minute;
+            phoneMinuteBase = d.steps;
+        } else if (!d.date.equals(phoneDate)) {
+            flushPhoneMinute(merger, phoneLastSteps - phoneMinuteBase, d.atMs);
+            // A new day restarts today's count from zero
+            phoneMinuteMs = minute;
+            phoneMinuteBase = 0;
+        } else if (minute != phoneMinuteMs) {
+            long prevEnd = phoneMinuteMs + MINUTE_MS;
+            long span = d.atMs - phoneLastAtMs;
+            int walked = Math.max(0, d.steps - phoneLastSteps);
+            int toPrev = 0, toGap = 0;
+            if (span > 0 && walked > 0) {
+                toPrev = (int) (walked * Math.max(0, prevEnd - phoneLastAtMs) / span);
+                toGap = (int) (walked * Math.max(0, minute - prevEnd) / span);
+            }
+            flushPhoneMinute(merger, phoneLastSteps - phoneMinuteBase + toPrev, d.atMs);
+            if (toGap > 0) {
+                merger.ingest(StepSources.PHONE, Collections.singletonList(new StepInterval(
+                        StepSources.PHONE, prevEnd, minute, toGap)), d.atMs);
+            }
+            phoneMinuteMs = minute;
+            phoneMinuteBase = phoneLastSteps + toPrev + toGap;
+        }
+        phoneDate = d.date;
+        phoneLastSteps = d.steps;
+        phoneLastAtMs = d.atMs;
+    }
+
+    private void flushPhoneMinute(StepSourceMerger merger, int steps, long now) {
+        if (steps <= 0) return;
+        merger.ingest(StepSources.PHONE, Collections.singletonList(new StepInterval(
+                StepSources.PHONE, phoneMinuteMs, phoneMinuteMs + MINUTE_MS, steps)), now);
+    }
 
-        // Broadcast the update to interested screens (local within app)
+    /** Feed the end-of-day projection with today's progress. */
+    private void recordProgress(DaySteps d) {
+        LocalTime t = Instant.ofEpochMilli(d.atMs).atZone(clock.getZone()).toLocalTime();
+        d.session.projection.onProgress(d.date, t.getHour() * 60 + t.getMinute(), d.steps);
+    }
+
+    /** Snapshot for the widget: steps, goal and projected total, without touching Room. */
+    private void publishSnapshot(DaySteps d) {
+        // A reading from before an account switch must not land on the new account's widget
+        if (d.session != UserSession.current(appCtx)) return;
+        LocalTime t = Instant.ofEpochMilli(d.atMs).atZone(clock.getZone()).toLocalTime();
+        int goal = d.session.prefs(SettingsFragment.PREFS_NAME).getInt(SettingsFragment.STEP_GOAL_KEY, 10000);
+        StepProjection.Projection p = d.session.projection
+                .project(LocalDate.parse(d.date, DB_FMT), t.getHour() * 60 + t.getMinute(), d.steps);
+        StepWidgetUpdater.get(appCtx).offer(new StepSnapshot(d.date, d.steps, goal, p.expectedTotal, d.atMs));
+    }
+
+    /** Broadcast the update to interested screens (local within app). */
+    private void broadcast(DaySteps d) {
+        if (d.session != UserSession.current(appCtx)) return; // stale: taken for the previous account
+        FitTrace.counter(FitTrace.STEPS_COUNTER, d.steps);
         Intent stepIntent = new Intent("STEP_UPDATE");
-        stepIntent.putExtra("steps_today", todaySteps);
-        LocalBroadcastManager.getInstance(appCtx).sendBroadcast(stepIntent);
+        stepIntent.putExtra("steps_today", d.steps);
+        long trace = FitTrace.begin(FitTrace.BROADCAST);
+        try {
+            LocalBroadcastManager.getInstance(appCtx).sendBroadcast(stepIntent);
+        } finally {
+            FitTrace.end(FitTrace.BROADCAST, trace);
+        }
     }
 
     @Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
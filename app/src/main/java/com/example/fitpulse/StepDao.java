@@ -1,9 +1,12 @@
 package com.example.fitpulse;
 
+import android.database.Cursor;
+
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import java.util.List;
 
@@ -13,6 +16,10 @@ public interface StepDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(StepEntry stepEntry);
 
+    // Bulk insert (imports, synthetic history)
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<StepEntry> entries);
+
     // Last 7 days steps
     @Query("SELECT * FROM steps ORDER BY date DESC LIMIT 7")
     List<StepEntry> getLast7Days();
@@ -25,7 +32,89 @@ public interface StepDao {
     @Query("SELECT * FROM steps WHERE date = :date LIMIT 1")
     StepEntry getStepsByDate(String date);
 
+    // Inclusive date range (yyyy-MM-dd keys sort chronologically)
+    @Query("SELECT * FROM steps WHERE date BETWEEN :fromDate AND :toDate ORDER BY date ASC")
+    List<StepEntry> getRange(String fromDate, String toDate);
+
+    // Columnar range read: (dayKey yyyyMMdd as INTEGER, steps) without entity objects.
+    // Use StepColumns.read(...) rather than calling this directly; the caller must close the cursor.
+    @Query("SELECT CAST(REPLACE(date, '-', '') AS INTEGER) AS dayKey, steps FROM steps "
+            + "WHERE date BETWEEN :fromDate AND :toDate ORDER BY date ASC")
+    Cursor queryRangeColumns(String fromDate, String toDate);
+
+    // Daily rows before a day (ArchiveManager moves these to the archive file)
+    @Query("SELECT COUNT(*) FROM steps WHERE date < :beforeDate AND length(date) = 10")
+    int countBefore(String beforeDate);
+
+    @Query("SELECT MIN(date) FROM steps WHERE length(date) = 10")
+    String getOldestDate();
+
+    // Oldest daily row not yet uploaded; ArchiveManager keeps its month and later ones in Room
+    @Query("SELECT MIN(date) FROM steps WHERE changeSeq > 0 AND length(date) = 10")
+    String getOldestPendingDate();
+
+    // Changes whenever a daily row before the day is written, added or removed
+    @Query("SELECT COUNT(*) || ':' || TOTAL(steps) || ':' || TOTAL(updatedAt) || ':' || IFNULL(MAX(changeSeq), 0) "
+            + "FROM steps WHERE date < :beforeDate AND length(date) = 10")
+    String fingerprintBefore(String beforeDate);
+
+    // Synced rows only: a pending one must reach the server from Room first
+    @Query("DELETE FROM steps WHERE date < :beforeDate AND length(date) = 10 AND changeSeq = 0")
+    int deleteBefore(String beforeDate);
+
     // All steps (no limit)
     @Query("SELECT * FROM steps ORDER BY date DESC")
     List<StepEntry> getAllSteps();
+
+    // ---- Sync bookkeeping (see SyncEngine) ----
+    // changeSeq > 0 marks a day changed locally and not yet acknowledged by the server.
+
+    @Query("SELECT IFNULL(MAX(changeSeq), 0) FROM steps")
+    long maxChangeSeq();
+
+    // Pending rows, oldest change first
+    @Query("SELECT * FROM steps WHERE changeSeq > 0 ORDER BY changeSeq ASC LIMIT :limit")
+    List<StepEntry> getPendingChanges(int limit);
+
+    // After an acknowledged upload. Rows rewritten meanwhile got a higher changeSeq and stay pending.
+    @Query("UPDATE steps SET changeSeq = 0 WHERE changeSeq > 0 AND changeSeq <= :upToSeq")
+    int markSynced(long upToSeq);
+
+    @Query("SELECT COUNT(*) FROM steps WHERE changeSeq > 0")
+    int countPendingChanges();
+
+    @Query("SELECT updatedAt FROM steps WHERE date = :date")
+    Long getUpdatedAt(String date);
+
+    // Queue every row for upload again (initial sync of an existing history).
+    // rowid keeps the new sequence numbers unique; rows never stamped get "now" as their write time.
+    @Query("UPDATE steps SET changeSeq = rowid + (SELECT IFNULL(MAX(changeSeq), 0) FROM steps), "
+            + "updatedAt = CASE WHEN updatedAt = 0 THEN :now ELSE updatedAt END")
+    int requeueAll(long now);
+
+    /** Local write: stamps the row with a fresh change sequence so the next sync uploads it. */
+    @Transaction
+    default void upsertLocal(StepEntry entry, long now) {
+        entry.updatedAt = now;
+        entry.changeSeq = maxChangeSeq() + 1;
+        insert(entry);
+    }
+
+    /**
+     * Merge rows pulled from the server, last writer wins per day.
+     * Applied rows are stored as synced (changeSeq 0) so they are not echoed back.
+     * @return number of rows that replaced (or created) a local day
+     */
+    @Transaction
+    default int applyRemote(List<StepEntry> rows) {
+        int applied = 0;
+        for (StepEntry remote : rows) {
+            Long localUpdatedAt = getUpdatedAt(remote.date);
+            if (localUpdatedAt != null && localUpdatedAt >= remote.updatedAt) continue;
+            remote.changeSeq = 0;
+            insert(remote);
+            applied++;
+        }
+        return applied;
+    }
 }
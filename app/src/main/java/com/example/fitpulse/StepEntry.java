@@ -1,11 +1,13 @@
 package com.example.fitpulse;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import org.jetbrains.annotations.NotNull;
 
-@Entity(tableName = "steps")
+@Entity(tableName = "steps", indices = {@Index("changeSeq")})
 public class StepEntry {
 
     @PrimaryKey
@@ -14,6 +16,14 @@ public class StepEntry {
 
     public int steps;
 
+    // Wall-clock millis of the last write; the newest write wins when merging with the server
+    @ColumnInfo(defaultValue = "0")
+    public long updatedAt;
+
+    // Local change sequence; > 0 means not yet uploaded, 0 means in sync with the server
+    @ColumnInfo(defaultValue = "0")
+    public long changeSeq;
+
     public StepEntry(@NotNull String date, int steps) {
         this.date = date;
         this.steps = steps;
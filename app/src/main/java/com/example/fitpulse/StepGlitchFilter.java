@@ -0,0 +1,195 @@
+package com.example.fitpulse;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Streaming plausibility filter for cumulative step counter readings.
+ * - Each advance is checked against what a person can walk in the time between the two
+ *   readings' event timestamps (MAX_STEPS_PER_SEC plus SLACK_STEPS). Event time, not arrival
+ *   time: a FIFO batch arrives within milliseconds but its timestamps span the minutes the
+ *   steps were taken, so a backlog passes while a real jump does not.
+ * - The implausible part of an advance is quarantined: kept out of the output through an
+ *   offset, counted, logged and remembered in a small ring, and the offset is saved so a
+ *   process restart doesn't let the jump back in. It is saved with the boot it was taken on
+ *   (Settings.Global.BOOT_COUNT, else the event clock) and dropped on any other boot, even
+ *   once the restarted counter has walked past the old raw value. If the counter then falls back (a spike
+ *   that reverts) the offset follows, so the output never goes backwards; a fall below the
+ *   pre-spike value is a reboot and passes through for the baseline stage to handle.
+ * - O(1) per reading on primitive state; accepted readings allocate nothing (only a
+ *   quarantine logs and writes prefs).
+ * Not thread-safe; it runs on the step pipeline's thread.
+ */
+final class StepGlitchFilter {
+
+    private static final String TAG = "StepGlitchFilter";
+
+    static final String PREFS = "step_filter";
+
+    /** ~300 steps/min: above sprinting cadence. */
+    static final int MAX_STEPS_PER_SEC = 5;
+    /** Allowance for drivers that report a few steps at once after a pause. */
+    static final int SLACK_STEPS = 10;
+    /** Quarantined advances remembered for diagnostics. */
+    static final int QUARANTINE_KEPT = 16;
+
+    /** Returned by filter() when the reading adds nothing to emit. */
+    static final int SKIP = -1;
+
+    @Nullable private final SharedPreferences prefs;
+    /** Settings.Global.BOOT_COUNT of this boot, or -1 if unknown. */
+    private final int bootCount;
+
+    private int lastRaw = -1;
+    private long lastEventNanos;
+    private long lastAtMs;
+    /** Quarantined steps subtracted from raw readings (since the last reboot). */
+    private int offset;
+    /** Raw value before the latest quarantine, or -1; separates a reverting spike from a reboot. */
+    private int spikeFloor = -1;
+    private int lastOut = -1;
+
+    // Decision counters
+    private long accepted, backlog, quarantined, reverted, reboots;
+    private long quarantinedSteps;
+
+    // Ring of recent quarantines
+    private final long[] quarantineAtMs = new long[QUARANTINE_KEPT];
+    private final int[] quarantineSteps = new int[QUARANTINE_KEPT];
+    private int quarantineNext;
+
+    /**
+     * @param prefs where the offset survives process restarts, or null to keep it in memory
+     */
+    @VisibleForTesting
+    StepGlitchFilter(@Nullable SharedPreferences prefs) {
+        this(prefs, -1);
+    }
+
+    /**
+     * @param bootCount identifies this boot for the saved offset (-1: unknown, the event clock decides)
+     */
+    StepGlitchFilter(@Nullable SharedPreferences prefs, int bootCount) {
+        this.prefs = prefs;
+        this.bootCount = bootCount;
+        if (prefs != null) quarantinedSteps = prefs.getLong("quarantined_steps", 0);
+    }
+
+    /**
+     * Filtered cumulative count for one raw reading, or SKIP.
+     * @param eventNanos the SensorEvent's timestamp (when the latest step happened)
+     * @param atMs arrival wall time
+     */
+    int filter(int raw, long eventNanos, long atMs) {
+        if (lastRaw < 0) {
+            restoreOffset(raw, eventNanos);
+            return emitRaw(raw, eventNanos, atMs);
+        }
+
+        int delta = raw - lastRaw;
+        if (delta < 0) {
+            if (spikeFloor >= 0 && raw >= spikeFloor) {
+                // The glitch is undone: keep the output where it was
+                reverted++;
+                offset = raw - lastOut;
+                saveOffset(raw, eventNanos);
+                remember(raw, eventNanos, atMs);
+                return SKIP;
+            }
+            // Counter restarted (reboot): the baseline stage rebases on the raw value
+            reboots++;
+            offset = 0;
+            spikeFloor = -1;
+            saveOffset(raw, eventNanos);
+            return emitRaw(raw, eventNanos, atMs);
+        }
+
+        long eventGap = eventNanos - lastEventNanos;
+        long allowed = SLACK_STEPS + Math.max(0, eventGap) * MAX_STEPS_PER_SEC / 1_000_000_000L;
+        if (delta > allowed) {
+            int excess = (int) (delta - allowed);
+            quarantined++;
+            quarantinedSteps += excess;
+            quarantineAtMs[quarantineNext] = atMs;
+            quarantineSteps[quarantineNext] = excess;
+            quarantineNext = (quarantineNext + 1) % QUARANTINE_KEPT;
+            spikeFloor = lastRaw;
+            offset += excess;
+            saveOffset(raw, eventNanos);
+            Log.w(TAG, "Quarantined " + excess + " of " + delta + " steps over " + eventGap / 1_000_000 + " ms");
+        } else {
+            accepted++;
+            // Delivered much faster than the steps happened: a FIFO flush, not a burst
+            if (eventGap > 2 * Math.max(0, atMs - lastAtMs) * 1_000_000L) backlog++;
+        }
+        return emitRaw(raw, eventNanos, atMs);
+    }
+
+    private int emitRaw(int raw, long eventNanos, long atMs) {
+        remember(raw, eventNanos, atMs);
+        int out = raw - offset;
+        lastOut = out;
+        return out;
+    }
+
+    private void remember(int raw, long eventNanos, long atMs) {
+        lastRaw = raw;
+        lastEventNanos = eventNanos;
+        lastAtMs = atMs;
+    }
+
+    /**
+     * Re-apply a saved offset if it was saved on this boot: same boot count, or when either is
+     * unknown, an event clock (elapsed time since boot) that has not gone back. The counter must
+     * not have fallen below the saved raw value either.
+     */
+    private void restoreOffset(int raw, long eventNanos) {
+        if (prefs == null) return;
+        int savedAtRaw = prefs.getInt("offset_raw", -1);
+        if (savedAtRaw < 0 || raw < savedAtRaw) return;
+        int savedBoot = prefs.getInt("offset_boot", -1);
+        boolean sameBoot = (bootCount >= 0 && savedBoot >= 0)
+                ? savedBoot == bootCount
+                : eventNanos >= prefs.getLong("offset_event_nanos", Long.MAX_VALUE);
+        if (sameBoot) {
+            offset = prefs.getInt("offset", 0);
+            spikeFloor = prefs.getInt("spike_floor", -1);
+        }
+    }
+
+    /** Only on quarantine, revert and reboot, which are rare. */
+    private void saveOffset(int raw, long eventNanos) {
+        if (prefs == null) return;
+        prefs.edit()
+                .putInt("offset", offset)
+                .putInt("offset_raw", raw)
+                .putInt("offset_boot", bootCount)
+                .putLong("offset_event_nanos", eventNanos)
+                .putInt("spike_floor", spikeFloor)
+                .putLong("quarantined_steps", quarantinedSteps)
+                .apply();
+    }
+
+    long accepted() { return accepted; }
+    long backlog() { return backlog; }
+    long quarantined() { return quarantined; }
+    long reverted() { return reverted; }
+    long reboots() { return reboots; }
+    /** Steps kept out of the count, including earlier processes. */
+    long quarantinedSteps() { return quarantinedSteps; }
+
+    /** Excess steps of the i-th most recent quarantine (0 = latest), or 0. */
+    int recentQuarantine(int i) {
+        if (i < 0 || i >= QUARANTINE_KEPT || i >= quarantined) return 0;
+        return quarantineSteps[Math.floorMod(quarantineNext - 1 - i, QUARANTINE_KEPT)];
+    }
+
+    /** Arrival time of the i-th most recent quarantine, or 0. */
+    long recentQuarantineAtMs(int i) {
+        if (i < 0 || i >= QUARANTINE_KEPT || i >= quarantined) return 0;
+        return quarantineAtMs[Math.floorMod(quarantineNext - 1 - i, QUARANTINE_KEPT)];
+    }
+}
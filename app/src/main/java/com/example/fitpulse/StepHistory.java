@@ -0,0 +1,136 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Read path for daily step totals across both storage tiers.
+ * - Hot: the Room steps table.
+ * - Cold: the StepArchive file written by ArchiveManager.
+ * Ranges that end after the archive are served by Room alone; older ranges are read
+ * from the archive and overlaid with any Room rows for the same days (Room wins).
+ * Reads are serialized; call from a background thread.
+ */
+public final class StepHistory {
+
+    private static final String TAG = "StepHistory";
+    static final String ARCHIVE_FILE = "step_archive.bin";
+
+    private final StepDao dao;
+    private final File archiveFile;
+    @Nullable private StepArchive.Reader archive;
+    private boolean archiveLoaded;
+
+    /** Scratch for the Room half of a merged read. */
+    private final StepColumns hot = new StepColumns();
+    private final StepColumns merged = new StepColumns();
+
+    StepHistory(StepDao dao, File archiveFile) {
+        this.dao = dao;
+        this.archiveFile = archiveFile;
+    }
+
+    /** The current account's history (UserSession). */
+    public static StepHistory get(Context ctx) {
+        return UserSession.current(ctx).history;
+    }
+
+    File archiveFile() {
+        return archiveFile;
+    }
+
+    /** Replace out's contents with every stored day in [from, to], ascending. */
+    @WorkerThread
+    public synchronized StepColumns read(LocalDate from, LocalDate to, StepColumns out) {
+        StepArchive.Reader a = archive();
+        int fromKey = StepColumns.dayKey(from);
+        int toKey = StepColumns.dayKey(to);
+        if (a == null || a.isEmpty() || fromKey > a.lastDayKey() || toKey < a.firstDayKey()) {
+            return out.read(dao, from, to);
+        }
+        try {
+            a.read(fromKey, toKey, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Archive read failed, using Room only", e);
+            return out.read(dao, from, to);
+        }
+        hot.read(dao, from, to);
+        if (hot.size > 0) overlay(out, hot);
+        return out;
+    }
+
+    /** Earliest stored day (archive or Room), or null when there is no history. */
+    @WorkerThread
+    @Nullable
+    public synchronized LocalDate firstDay() {
+        StepArchive.Reader a = archive();
+        if (a != null && !a.isEmpty()) return StepColumns.toDate(a.firstDayKey());
+        String oldest = dao.getOldestDate();
+        return oldest != null ? LocalDate.parse(oldest, StepStats.DB_FMT) : null;
+    }
+
+    /** Last day held in the archive file, or null when nothing has been archived. */
+    @WorkerThread
+    @Nullable
+    public synchronized LocalDate archiveLastDay() {
+        StepArchive.Reader a = archive();
+        return a != null && !a.isEmpty() ? StepColumns.toDate(a.lastDayKey()) : null;
+    }
+
+    /** Drop the open reader so the next read picks up a rewritten archive. */
+    synchronized void reloadArchive() {
+        closeArchive();
+        archiveLoaded = false;
+    }
+
+    @Nullable
+    private StepArchive.Reader archive() {
+        if (!archiveLoaded) {
+            archiveLoaded = true;
+            if (archiveFile.isFile()) {
+                try {
+                    archive = StepArchive.Reader.open(archiveFile);
+                } catch (IOException e) {
+                    Log.w(TAG, "Ignoring unreadable archive " + archiveFile, e);
+                }
+            }
+        }
+        return archive;
+    }
+
+    private void closeArchive() {
+        if (archive == null) return;
+        try {
+            archive.close();
+        } catch (IOException ignored) {
+        }
+        archive = null;
+    }
+
+    /** Merge two ascending column sets into base; rows in top replace same-day rows in base. */
+    private void overlay(StepColumns base, StepColumns top) {
+        merged.clear();
+        merged.ensureCapacity(base.size + top.size);
+        int i = 0, j = 0;
+        while (i < base.size || j < top.size) {
+            if (j == top.size || (i < base.size && base.dayKeys[i] < top.dayKeys[j])) {
+                merged.add(base.dayKeys[i], base.steps[i++]);
+            } else {
+                if (i < base.size && base.dayKeys[i] == top.dayKeys[j]) i++;
+                merged.add(top.dayKeys[j], top.steps[j++]);
+            }
+        }
+        base.clear();
+        base.ensureCapacity(merged.size);
+        System.arraycopy(merged.dayKeys, 0, base.dayKeys, 0, merged.size);
+        System.arraycopy(merged.steps, 0, base.steps, 0, merged.size);
+        base.size = merged.size;
+    }
+}
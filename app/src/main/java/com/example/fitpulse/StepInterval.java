@@ -0,0 +1,36 @@
+package com.example.fitpulse;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Steps counted by one source over [startMs, endMs).
+ * - Sources overlap (phone in a pocket, watch on the wrist); StepMerge picks one per instant.
+ * - Intervals are at most MAX_MS long (longer input is split on ingest), so overlap queries
+ *   can use the startMs index.
+ */
+@Entity(tableName = "step_intervals", indices = {@Index("startMs")})
+public class StepInterval {
+
+    static final long MAX_MS = 3_600_000L;
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    // StepSources.PHONE, StepSources.WATCH, ...
+    @NonNull
+    public String source;
+
+    public long startMs;
+    public long endMs;
+    public int steps;
+
+    public StepInterval(@NonNull String source, long startMs, long endMs, int steps) {
+        this.source = source;
+        this.startMs = startMs;
+        this.endMs = endMs;
+        this.steps = steps;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.fitpulse;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface StepIntervalDao {
+
+    @Insert
+    void insertAll(List<StepInterval> intervals);
+
+    // Intervals overlapping [fromMs, toMs), by start. The startMs bound lets SQLite use the
+    // index; it holds because no interval is longer than StepInterval.MAX_MS.
+    @Query("SELECT * FROM step_intervals WHERE startMs >= :fromMs - " + StepInterval.MAX_MS
+            + " AND startMs < :toMs AND endMs > :fromMs ORDER BY startMs ASC, id ASC")
+    List<StepInterval> getOverlapping(long fromMs, long toMs);
+
+    // Whether any source other than :source reported steps in [fromMs, toMs)
+    @Query("SELECT EXISTS(SELECT 1 FROM step_intervals WHERE startMs >= :fromMs - " + StepInterval.MAX_MS
+            + " AND startMs < :toMs AND endMs > :fromMs AND source != :source)")
+    boolean hasOtherSource(long fromMs, long toMs, String source);
+
+    @Query("DELETE FROM step_intervals WHERE endMs <= :beforeMs")
+    int deleteBefore(long beforeMs);
+}
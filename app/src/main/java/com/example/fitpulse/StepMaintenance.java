@@ -0,0 +1,231 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One bounded pass of step_db housekeeping (run by StepMaintenanceJobService).
+ * Steps, each checking for cancellation before doing more work:
+ * 1. Roll-up: move at most MAX_MONTHS_PER_RUN of the oldest months past the
+ *    archive horizon from Room into the compact archive (ArchiveManager).
+ * 2. Drop base_steps_<date> keys in step_prefs for days other than today, and source
+ *    step intervals older than INTERVAL_DAYS_KEPT (their days keep the merged totals).
+ * 3. ANALYZE so the query planner has fresh statistics.
+ * 4. Reclaim free pages: a one-time switch to auto_vacuum=INCREMENTAL (full VACUUM),
+ *    then at most MAX_VACUUM_PAGES_PER_RUN pages per run, plus a WAL truncate.
+ * Anything left over is picked up by the next run.
+ */
+public final class StepMaintenance {
+
+    private static final String TAG = "StepMaintenance";
+
+    static final String PREFS = "maintenance_prefs";
+
+    static final int MAX_MONTHS_PER_RUN = 6;
+    static final int MAX_BASELINE_KEYS_PER_RUN = 500;
+    static final int MAX_VACUUM_PAGES_PER_RUN = 2048;
+    /** Late watch syncs older than this no longer re-merge their days. */
+    static final int INTERVAL_DAYS_KEPT = 35;
+    /** incremental_vacuum chunk; cancellation is checked between chunks. */
+    private static final int VACUUM_CHUNK_PAGES = 256;
+    /** auto_vacuum = INCREMENTAL */
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final Context appCtx;
+    private final AppDatabase db;
+    private final ArchiveManager archiveManager;
+    private final Clock clock;
+    private final int horizonMonths;
+
+    /** What one run did. */
+    public static final class Report {
+        public int monthsArchived;
+        public int rowsArchived;
+        public int baselineKeysRemoved;
+        public int intervalsRemoved;
+        public boolean analyzed;
+        public long pagesFreed;
+        public long bytesReclaimed;
+        public long durationMs;
+        /** False if the run was stopped or hit a limit with work left over. */
+        public boolean complete = true;
+
+        @Override
+        public String toString() {
+            return "archived " + rowsArchived + " rows (" + monthsArchived + " months), removed "
+                    + baselineKeysRemoved + " baseline keys, " + intervalsRemoved + " intervals, analyzed="
+                    + analyzed + ", freed "
+                    + pagesFreed + " pages / " + bytesReclaimed + " bytes in " + durationMs
+                    + " ms, complete=" + complete;
+        }
+    }
+
+    StepMaintenance(Context ctx, AppDatabase db, ArchiveManager archiveManager, Clock clock, int horizonMonths) {
+        this.appCtx = ctx.getApplicationContext();
+        this.db = db;
+        this.archiveManager = archiveManager;
+        this.clock = clock;
+        this.horizonMonths = horizonMonths;
+    }
+
+    public static StepMaintenance get(Context ctx) {
+        return new StepMaintenance(ctx, AppDatabase.getInstance(ctx), ArchiveManager.get(ctx),
+                Clock.systemDefaultZone(), ArchiveManager.horizonMonths(ctx));
+    }
+
+    /**
+     * Run every step unless stop turns true; the outcome is also saved to
+     * maintenance_prefs (last_* keys) for diagnostics.
+     */
+    @WorkerThread
+    public Report run(BooleanSupplier stop) {
+        long t0 = SystemClock.elapsedRealtime();
+        Report report = new Report();
+        SupportSQLiteDatabase sql = db.getOpenHelper().getWritableDatabase();
+        long sizeBefore = storageBytes(sql);
+
+        try {
+            if (!stop.getAsBoolean()) rollUp(report);
+        } catch (IOException e) {
+            Log.w(TAG, "Archive roll-up failed", e);
+            report.complete = false;
+        }
+        if (!stop.getAsBoolean()) pruneBaselines(report);
+        if (!stop.getAsBoolean()) {
+            long cutoff = LocalDate.now(clock).minusDays(INTERVAL_DAYS_KEPT)
+                    .atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            report.intervalsRemoved = db.stepIntervalDao().deleteBefore(cutoff);
+        }
+        if (!stop.getAsBoolean()) {
+            sql.execSQL("ANALYZE");
+            report.analyzed = true;
+        }
+        if (!stop.getAsBoolean()) reclaim(sql, report, stop);
+
+        if (stop.getAsBoolean()) report.complete = false;
+        report.bytesReclaimed = Math.max(0, sizeBefore - storageBytes(sql));
+        report.durationMs = SystemClock.elapsedRealtime() - t0;
+        save(report);
+        Log.i(TAG, report.toString());
+        return report;
+    }
+
+    /** Archive the oldest uploaded months past the horizon, a few months per run. */
+    private void rollUp(Report report) throws IOException {
+        StepDao dao = db.stepDao();
+        String oldest = dao.getOldestDate();
+        if (oldest == null) return;
+        LocalDate horizonCutoff = ArchiveManager.cutoff(LocalDate.now(clock), horizonMonths);
+        LocalDate oldestMonth = LocalDate.parse(oldest, StepStats.DB_FMT).withDayOfMonth(1);
+        if (!oldestMonth.isBefore(horizonCutoff)) return;
+
+        LocalDate cutoff = oldestMonth.plusMonths(MAX_MONTHS_PER_RUN);
+        if (cutoff.isBefore(horizonCutoff)) {
+            report.complete = false; // more months left for the next run
+        } else {
+            cutoff = horizonCutoff;
+        }
+        // Rows SyncEngine hasn't uploaded yet keep their month (and later ones) in Room
+        String pending = dao.getOldestPendingDate();
+        if (pending != null) {
+            LocalDate pendingMonth = LocalDate.parse(pending, StepStats.DB_FMT).withDayOfMonth(1);
+            if (pendingMonth.isBefore(cutoff)) {
+                cutoff = pendingMonth;
+                report.complete = false;
+            }
+        }
+        if (!oldestMonth.isBefore(cutoff)) return;
+
+        ArchiveManager.Result r = archiveManager.archiveBefore(cutoff);
+        if (r.heldBack) report.complete = false;
+        report.rowsArchived = r.rowsMoved;
+        report.monthsArchived = r.rowsMoved > 0 ? (int) ChronoUnit.MONTHS.between(oldestMonth, r.cutoff) : 0;
+    }
+
+    /** Only today's baseline is ever read; older base_steps_ keys are dead weight. */
+    private void pruneBaselines(Report report) {
+        SharedPreferences prefs = UserSession.prefs(appCtx, StepCounterManager.PREF_NAME);
+        String keep = "base_steps_" + prefs.getString("last_date", LocalDate.now(clock).format(StepStats.DB_FMT));
+        SharedPreferences.Editor edit = prefs.edit();
+        int removed = 0;
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            String key = e.getKey();
+            if (!key.startsWith("base_steps_") || key.equals(keep)) continue;
+            if (removed == MAX_BASELINE_KEYS_PER_RUN) {
+                report.complete = false;
+                break;
+            }
+            edit.remove(key);
+            removed++;
+        }
+        if (removed > 0) edit.apply();
+        report.baselineKeysRemoved = removed;
+    }
+
+    /** Return free pages to the file system without rewriting the whole database each run. */
+    private void reclaim(SupportSQLiteDatabase sql, Report report, BooleanSupplier stop) {
+        long pagesBefore = pragmaLong(sql, "PRAGMA page_count");
+        if (pragmaLong(sql, "PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) {
+            // The mode only takes effect after one full VACUUM; later runs stay incremental
+            sql.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            sql.execSQL("VACUUM");
+        } else {
+            long budget = MAX_VACUUM_PAGES_PER_RUN;
+            while (budget > 0 && !stop.getAsBoolean()) {
+                long free = pragmaLong(sql, "PRAGMA freelist_count");
+                if (free == 0) break;
+                long chunk = Math.min(Math.min(free, budget), VACUUM_CHUNK_PAGES);
+                // Must be stepped to completion; execSQL would free a single page
+                try (Cursor c = sql.query("PRAGMA incremental_vacuum(" + chunk + ")")) {
+                    c.getCount();
+                }
+                budget -= chunk;
+            }
+            if (pragmaLong(sql, "PRAGMA freelist_count") > 0) report.complete = false;
+        }
+        try (Cursor c = sql.query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+            c.getCount();
+        }
+        report.pagesFreed = Math.max(0, pagesBefore - pragmaLong(sql, "PRAGMA page_count"));
+    }
+
+    /** Database file plus WAL, or page_count × page_size for in-memory databases. */
+    private static long storageBytes(SupportSQLiteDatabase sql) {
+        String path = sql.getPath();
+        if (path != null && new File(path).isFile()) {
+            return new File(path).length() + new File(path + "-wal").length();
+        }
+        return pragmaLong(sql, "PRAGMA page_count") * pragmaLong(sql, "PRAGMA page_size");
+    }
+
+    private static long pragmaLong(SupportSQLiteDatabase sql, String pragma) {
+        try (Cursor c = sql.query(pragma)) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    private void save(Report r) {
+        appCtx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit()
+                .putLong("last_run_at", clock.millis())
+                .putLong("last_duration_ms", r.durationMs)
+                .putLong("last_bytes_reclaimed", r.bytesReclaimed)
+                .putInt("last_rows_archived", r.rowsArchived)
+                .putInt("last_baseline_keys_removed", r.baselineKeysRemoved)
+                .putBoolean("last_complete", r.complete)
+                .apply();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.fitpulse;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs StepMaintenance once a day while the device is idle and charging, followed by an
+ * incremental StepBackup of the current account.
+ * - Work happens on a background thread; onStopJob (idle/charging lost) flags it to
+ *   stop at the next step boundary and asks for a reschedule.
+ * - schedule() is idempotent; MainActivity calls it on every launch.
+ */
+public class StepMaintenanceJobService extends JobService {
+
+    private static final String TAG = "StepMaintenanceJob";
+
+    static final int JOB_ID = 1033;
+
+    private volatile boolean stopRequested;
+
+    /** Register the periodic job unless it is already pending. */
+    public static void schedule(Context ctx) {
+        JobScheduler scheduler = ctx.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(ctx, StepMaintenanceJobService.class))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .setPeriodic(TimeUnit.DAYS.toMillis(1))
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        stopRequested = false;
+        new Thread(() -> {
+            StepMaintenance.get(this).run(() -> stopRequested);
+            if (!stopRequested) {
+                try {
+                    StepBackup.get(this).backup();
+                } catch (IOException e) {
+                    Log.w(TAG, "Backup failed", e);
+                }
+            }
+            // Leftover work (limits hit) simply waits for the next periodic run
+            if (!stopRequested) jobFinished(params, false);
+        }, "step-maintenance").start();
+        return true; // still running on the worker thread
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stopRequested = true;
+        return true; // reschedule; the next run continues where this one stopped
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.fitpulse;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Merges overlapping step intervals from several sources into daily totals.
+ * - A sweep over the sorted interval boundaries keeps the set of intervals covering the
+ *   current instant; between two boundaries only the highest-priority one counts
+ *   (StepSources.priority, then the newest row for duplicates from one source).
+ * - The winner contributes steps pro rata to the covered time, split at local midnights.
+ * Kept free of Android types; StepSourceMerger does the Room side.
+ */
+final class StepMerge {
+
+    // Boundary event key: time << 21 | isStart << 20 | interval index
+    private static final int INDEX_BITS = 20;
+    static final int MAX_INTERVALS = 1 << INDEX_BITS;
+
+    private StepMerge() {}
+
+    /**
+     * Merged totals for the days [firstDay, firstDay + days) in zone.
+     * @param intervals every interval overlapping that window, any order
+     */
+    static int[] dailyTotals(List<StepInterval> intervals, LocalDate firstDay, int days, ZoneId zone) {
+        int n = intervals.size();
+        if (n > MAX_INTERVALS) throw new IllegalArgumentException("Too many intervals: " + n);
+
+        long[] dayBounds = new long[days + 1];
+        for (int d = 0; d <= days; d++) {
+            dayBounds[d] = firstDay.plusDays(d).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        int[] prio = new int[n];
+        long[] events = new long[2 * n];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            StepInterval iv = intervals.get(i);
+            prio[i] = StepSources.priority(iv.source);
+            if (iv.endMs <= iv.startMs || iv.steps <= 0) continue;
+            // Ends sort before starts at the same instant, so back-to-back intervals don't overlap
+            events[e++] = (iv.startMs << (INDEX_BITS + 1)) | (1L << INDEX_BITS) | i;
+            events[e++] = (iv.endMs << (INDEX_BITS + 1)) | i;
+        }
+        Arrays.sort(events, 0, e);
+
+        // Covering intervals, best first: priority, then newest row, then latest in the list
+        TreeSet<Integer> active = new TreeSet<>((a, b) -> {
+            if (prio[a] != prio[b]) return Integer.compare(prio[b], prio[a]);
+            int byId = Long.compare(intervals.get(b).id, intervals.get(a).id);
+            return byId != 0 ? byId : Integer.compare(b, a);
+        });
+
+        double[] sums = new double[days];
+        long prevT = Long.MIN_VALUE;
+        int day = 0;
+        for (int k = 0; k < e; k++) {
+            long key = events[k];
+            long t = key >>> (INDEX_BITS + 1);
+            if (!active.isEmpty() && t > prevT) {
+                StepInterval w = intervals.get(active.first());
+                double rate = w.steps / (double) (w.endMs - w.startMs);
+                // Spread [prevT, t) over the days it touches
+                long a = Math.max(prevT, dayBounds[0]);
+                while (day < days && dayBounds[day + 1] <= a) day++;
+                while (a < t && day < days) {
+                    long b = Math.min(t, dayBounds[day + 1]);
+                    if (b > a) sums[day] += rate * (b - a);
+                    a = b;
+                    if (a == dayBounds[day + 1]) day++;
+                }
+            }
+            int i = (int) (key & (MAX_INTERVALS - 1));
+            if ((key & (1L << INDEX_BITS)) != 0) active.add(i);
+            else active.remove(i);
+            prevT = t;
+        }
+
+        int[] out = new int[days];
+        for (int d = 0; d < days; d++) out[d] = (int) Math.round(sums[d]);
+        return out;
+    }
+}
@@ -117,10 +117,19 @@ public class StepProgressView extends View {
         textPaint.setTextSize(Math.max(42f, radius * 0.38f));
     }
 
-    /** Draw track circle, progress arc, and percentage label. */
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        long trace = FitTrace.begin(FitTrace.RING_DRAW);
+        try {
+            drawRing(canvas);
+        } finally {
+            FitTrace.end(FitTrace.RING_DRAW, trace);
+        }
+    }
+
+    /** Draw track circle, progress arc, and percentage label. */
+    private void drawRing(Canvas canvas) {
 
         // Inset so stroke is fully inside the bounds
         drawBounds.set(rawBounds);
@@ -0,0 +1,314 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Projects today's end-of-day step total from progress so far.
+ * - The day is split into BUCKETS half-hour buckets. For each bucket the model keeps
+ *   exponentially weighted sums for a regression of "day total" on "steps by the end of this
+ *   bucket", so learning a finished day is O(1) per bucket and a projection is O(1).
+ * - Weekdays and weekends are learned separately; their curves rarely look alike.
+ * - Progress comes from the step pipeline (onProgress); a day is learned when the next one starts,
+ *   and only if Room has a row for it: that row is the day's total. Buckets after the last
+ *   observed one are only learned if the curve reached that total (the app may have been
+ *   killed early in the evening).
+ * - Until MIN_WEIGHT days are learned for a bucket, projection falls back to pace over an
+ *   07:00-22:00 active window.
+ * - Model, today's progress and the last DAYS_KEPT day curves live in SharedPreferences
+ *   "step_projection"; the curves are the recorded histories the backtest accepts. A stored
+ *   entry that does not parse is dropped (and overwritten by the next save). They are read on
+ *   first use, not in the constructor: UserSession builds one on the account-switch path and
+ *   preloads it on its warm-up thread.
+ */
+public final class StepProjection {
+
+    static final int BUCKET_MIN = 30;
+    static final int BUCKETS = 24 * 60 / BUCKET_MIN;
+    /** Weight kept by older days each time a day is learned (~12-day memory). */
+    static final double DECAY = 0.92;
+    /** Effective days a bucket needs before its regression is trusted. */
+    static final double MIN_WEIGHT = 2.5;
+    /** Shrinks the slope toward "typical total" when past days barely differ (steps²). */
+    private static final double RIDGE = 50_000;
+    static final int DAYS_KEPT = 28;
+
+    private static final int ACTIVE_FROM_MIN = 7 * 60;
+    private static final int ACTIVE_TO_MIN = 22 * 60;
+
+    static final String PREFS = "step_projection";
+
+    /** An end-of-day estimate. */
+    public static final class Projection {
+        public final int expectedTotal;
+        /** False while the estimate is plain pace (not enough history yet). */
+        public final boolean learned;
+
+        Projection(int expectedTotal, boolean learned) {
+            this.expectedTotal = expectedTotal;
+            this.learned = learned;
+        }
+    }
+
+    /** A finished day's total from Room, or null if there is no row for it. */
+    interface DayTotals {
+        @Nullable Integer totalOn(String date);
+    }
+
+    @Nullable private final SharedPreferences prefs;
+    /** Null: learn finished days from their curve alone (backtests, in-memory models). */
+    @Nullable private final DayTotals totals;
+
+    // Per day type and bucket weighted sums: weight, x, y, x², xy
+    // (x = steps by bucket end, y = day total); index [0] weekdays, [1] weekends
+    private final double[][] w = new double[2][BUCKETS];
+    private final double[][] sx = new double[2][BUCKETS];
+    private final double[][] sy = new double[2][BUCKETS];
+    private final double[][] sxx = new double[2][BUCKETS];
+    private final double[][] sxy = new double[2][BUCKETS];
+
+    /** Day being observed and its steps-by-bucket-end (-1 = not observed). */
+    @Nullable private String day;
+    private final int[] progress = new int[BUCKETS];
+    private int lastBucket = -1;
+    private boolean loaded;
+
+    /** Recent finished days as "yyyy-MM-dd,c0,...,c47", oldest first. */
+    private final ArrayDeque<String> recent = new ArrayDeque<>();
+
+    /**
+     * @param prefs storage for model and progress, or null to keep everything in memory
+     */
+    StepProjection(@Nullable SharedPreferences prefs) {
+        this(prefs, null);
+    }
+
+    /**
+     * @param totals where finished days' totals are looked up (on the onProgress thread)
+     */
+    StepProjection(@Nullable SharedPreferences prefs, @Nullable DayTotals totals) {
+        this.prefs = prefs;
+        this.totals = totals;
+        Arrays.fill(progress, -1);
+    }
+
+    /** Read the stored model now (off the UI thread), instead of on first use. */
+    public synchronized void preload() {
+        ensureLoaded();
+    }
+
+    /** The current account's model (UserSession). */
+    public static StepProjection get(Context ctx) {
+        return UserSession.current(ctx).projection;
+    }
+
+    /**
+     * Today's steps at minuteOfDay (local time) on date. Starting a new date learns the previous one.
+     */
+    public synchronized void onProgress(String date, int minuteOfDay, int steps) {
+        ensureLoaded();
+        if (!date.equals(day)) {
+            if (day != null) finishDay();
+            day = date;
+            Arrays.fill(progress, -1);
+            lastBucket = -1;
+        }
+        int b = bucketOf(minuteOfDay);
+        progress[b] = steps;
+        // Stored once per bucket; at most the current bucket's latest value is lost with the process
+        if (b != lastBucket) {
+            lastBucket = b;
+            save(false);
+        }
+    }
+
+    /** End-of-day estimate for stepsNow at minuteOfDay on date; O(1), fine for every UI update. */
+    public synchronized Projection project(LocalDate date, int minuteOfDay, int stepsNow) {
+        ensureLoaded();
+        int t = dayType(date);
+        int b = bucketOf(minuteOfDay);
+        // "Now" lies inside bucket b: blend the models for its start (end of b-1) and its end
+        double frac = (minuteOfDay % BUCKET_MIN) / (double) BUCKET_MIN;
+        int prev = Math.max(0, b - 1);
+        if (w[t][prev] < MIN_WEIGHT || w[t][b] < MIN_WEIGHT) {
+            return new Projection(paceProjection(minuteOfDay, stepsNow), false);
+        }
+        double y = (1 - frac) * predict(t, prev, stepsNow) + frac * predict(t, b, stepsNow);
+        return new Projection((int) Math.round(Math.max(stepsNow, y)), true);
+    }
+
+    /**
+     * Learn one finished day from its steps-by-bucket-end. The total is the last observed value;
+     * buckets before the first observation are skipped, later unobserved ones carry the last value.
+     */
+    synchronized void learnDay(LocalDate date, int[] stepsByBucketEnd) {
+        learnDay(date, stepsByBucketEnd, lastObserved(stepsByBucketEnd));
+    }
+
+    /**
+     * Learn one finished day whose total is known separately. Unobserved buckets after the
+     * last observation carry it only if it equals total; otherwise when the rest of the
+     * steps happened is unknown, and those buckets are skipped.
+     */
+    synchronized void learnDay(LocalDate date, int[] stepsByBucketEnd, int total) {
+        ensureLoaded();
+        if (total <= 0) return;
+        int last = -1;
+        for (int b = 0; b < BUCKETS; b++) if (stepsByBucketEnd[b] >= 0) last = b;
+        int t = dayType(date);
+        int carried = -1;
+        for (int b = 0; b < BUCKETS; b++) {
+            w[t][b] *= DECAY;
+            sx[t][b] *= DECAY;
+            sy[t][b] *= DECAY;
+            sxx[t][b] *= DECAY;
+            sxy[t][b] *= DECAY;
+            if (stepsByBucketEnd[b] >= 0) carried = stepsByBucketEnd[b];
+            if (carried < 0 || (b > last && carried != total)) continue;
+            double x = carried;
+            w[t][b] += 1;
+            sx[t][b] += x;
+            sy[t][b] += total;
+            sxx[t][b] += x * x;
+            sxy[t][b] += x * total;
+        }
+    }
+
+    /** The last observed value of a steps-by-bucket-end curve, -1 if none. */
+    static int lastObserved(int[] stepsByBucketEnd) {
+        int total = -1;
+        for (int v : stepsByBucketEnd) if (v >= 0) total = v;
+        return total;
+    }
+
+    static int dayType(LocalDate date) {
+        return date.getDayOfWeek().getValue() >= 6 ? 1 : 0;
+    }
+
+    /** Recorded day curves, oldest first, in the "date,c0,...,c47" line format. */
+    public synchronized List<String> recentDays() {
+        ensureLoaded();
+        return new ArrayList<>(recent);
+    }
+
+    /** Date of one recentDays() line. */
+    static LocalDate dateOf(String line) {
+        return LocalDate.parse(line.substring(0, line.indexOf(',')));
+    }
+
+    /** Parses one recentDays() line into steps-by-bucket-end. */
+    static int[] parseDay(String line) {
+        String[] parts = line.split(",");
+        if (parts.length != BUCKETS + 1) throw new IllegalArgumentException("Expected " + BUCKETS + " buckets: " + line);
+        int[] out = new int[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) out[b] = Integer.parseInt(parts[b + 1].trim());
+        return out;
+    }
+
+    static int bucketOf(int minuteOfDay) {
+        return Math.max(0, Math.min(BUCKETS - 1, minuteOfDay / BUCKET_MIN));
+    }
+
+    /** Pace over the active window, so early-morning counts aren't blown up. */
+    static int paceProjection(int minuteOfDay, int stepsNow) {
+        double elapsed = (minuteOfDay - ACTIVE_FROM_MIN) / (double) (ACTIVE_TO_MIN - ACTIVE_FROM_MIN);
+        return (int) Math.round(stepsNow / Math.max(0.2, Math.min(1, elapsed)));
+    }
+
+    private double predict(int t, int b, int x) {
+        double xbar = sx[t][b] / w[t][b], ybar = sy[t][b] / w[t][b];
+        double var = sxx[t][b] / w[t][b] - xbar * xbar;
+        double cov = sxy[t][b] / w[t][b] - xbar * ybar;
+        double slope = cov / (Math.max(0, var) + RIDGE);
+        return ybar + slope * (x - xbar);
+    }
+
+    private void finishDay() {
+        int observed = lastObserved(progress);
+        Integer total = totals != null ? totals.totalOn(day) : Integer.valueOf(observed);
+        try {
+            // No row: nothing was kept for that day, so there is no total to learn from
+            if (total != null) learnDay(LocalDate.parse(day), progress, Math.max(total, observed));
+        } catch (DateTimeParseException e) {
+            // Not an ISO date (locale digits): keep the curve, skip learning it
+        }
+        StringBuilder sb = new StringBuilder(day);
+        for (int v : progress) sb.append(',').append(v);
+        recent.addLast(sb.toString());
+        while (recent.size() > DAYS_KEPT) recent.removeFirst();
+        save(true);
+    }
+
+    // ----- persistence -----
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        load();
+    }
+
+    private void load() {
+        if (prefs == null) return;
+        String model = prefs.getString("model", null);
+        if (model != null) {
+            String[] rows = model.split(";");
+            for (int i = 0; i < Math.min(2 * BUCKETS, rows.length); i++) {
+                int t = i / BUCKETS, b = i % BUCKETS;
+                String[] v = rows[i].split(",");
+                if (v.length != 5) continue;
+                try {
+                    double[] parsed = new double[5];
+                    for (int k = 0; k < 5; k++) parsed[k] = Double.parseDouble(v[k]);
+                    w[t][b] = parsed[0];
+                    sx[t][b] = parsed[1];
+                    sy[t][b] = parsed[2];
+                    sxx[t][b] = parsed[3];
+                    sxy[t][b] = parsed[4];
+                } catch (NumberFormatException e) {
+                    // Dropped: this bucket starts over
+                }
+            }
+        }
+        String today = prefs.getString("progress", null);
+        if (today != null) {
+            try {
+                int[] p = parseDay(today);
+                day = today.substring(0, today.indexOf(','));
+                System.arraycopy(p, 0, progress, 0, BUCKETS);
+            } catch (IllegalArgumentException e) {
+                // Dropped: today's curve starts with the next reading
+            }
+        }
+        String days = prefs.getString("recent", "");
+        for (String line : days.split("\n")) if (!line.isEmpty()) recent.addLast(line);
+    }
+
+    private void save(boolean withModel) {
+        if (prefs == null) return;
+        StringBuilder p = new StringBuilder(day);
+        for (int v : progress) p.append(',').append(v);
+        SharedPreferences.Editor e = prefs.edit().putString("progress", p.toString());
+        if (withModel) {
+            StringBuilder m = new StringBuilder();
+            for (int t = 0; t < 2; t++) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    if (m.length() > 0) m.append(';');
+                    m.append(String.format(Locale.ROOT, "%s,%s,%s,%s,%s",
+                            w[t][b], sx[t][b], sy[t][b], sxx[t][b], sxy[t][b]));
+                }
+            }
+            e.putString("model", m.toString()).putString("recent", String.join("\n", recent));
+        }
+        e.apply();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+/**
+ * What the home-screen widget shows, precomputed so a refresh never touches Room.
+ * - Built by StepCounterManager from each throttled update (steps, goal, projection).
+ * - Persisted to the current account's "step_snapshot" prefs only when StepWidgetUpdater pushes it, so the
+ *   provider can redraw after the process died without a DB query.
+ * - projected is rounded to PROJECTION_STEP: the widget shows it as "~12,300", so
+ *   smaller moves don't count as a change.
+ */
+public final class StepSnapshot {
+
+    static final String PREFS = "step_snapshot";
+    static final int PROJECTION_STEP = 100;
+
+    /** yyyy-MM-dd */
+    public final String date;
+    public final int steps;
+    public final int goal;
+    public final int projected;
+    public final long atMs;
+
+    public StepSnapshot(String date, int steps, int goal, int projected, long atMs) {
+        this.date = date;
+        this.steps = steps;
+        this.goal = Math.max(1, goal);
+        this.projected = Math.round(projected / (float) PROJECTION_STEP) * PROJECTION_STEP;
+        this.atMs = atMs;
+    }
+
+    /** Goal progress in whole percent, capped at 100. */
+    public int percent() {
+        return (int) Math.min(100, steps * 100L / goal);
+    }
+
+    /** Same text and progress on the widget. */
+    boolean sameDisplay(@Nullable StepSnapshot o) {
+        return o != null && date.equals(o.date) && steps == o.steps && goal == o.goal && projected == o.projected;
+    }
+
+    void save(Context ctx) {
+        UserSession.prefs(ctx, PREFS).edit()
+                .putString("date", date)
+                .putInt("steps", steps)
+                .putInt("goal", goal)
+                .putInt("projected", projected)
+                .putLong("at_ms", atMs)
+                .apply();
+    }
+
+    /** Last pushed snapshot, or null before the first one. */
+    @Nullable
+    static StepSnapshot load(Context ctx) {
+        SharedPreferences p = UserSession.prefs(ctx, PREFS);
+        String date = p.getString("date", null);
+        if (date == null) return null;
+        return new StepSnapshot(date, p.getInt("steps", 0), p.getInt("goal", 10000),
+                p.getInt("projected", 0), p.getLong("at_ms", 0));
+    }
+}
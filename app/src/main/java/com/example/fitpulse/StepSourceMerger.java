@@ -0,0 +1,149 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+
+import androidx.annotation.WorkerThread;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns source-tagged step intervals into the per-day rows of the steps table.
+ * - ingest() stores a batch, then recomputes only the days the batch touches (StepMerge over
+ *   the intervals overlapping those days), so a late watch sync never rescans history.
+ * - A day with phone intervals only is left alone: StepCounterManager writes the live counter
+ *   there, which is ahead of the last flushed minute. Once another source has data for a day,
+ *   its row holds the merged total and the raw phone write is skipped (hasOtherSource).
+ * - Changed days go through upsertLocal, so SyncEngine uploads the merged value.
+ */
+public final class StepSourceMerger {
+
+    private final AppDatabase db;
+    private final ZoneId zone;
+
+    /** Day (yyyy-MM-dd) -> whether a non-phone source has data for it; only ever flips to true. */
+    private final Map<String, Boolean> otherSourceDays = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_DAYS = 8;
+
+    StepSourceMerger(AppDatabase db, ZoneId zone) {
+        this.db = db;
+        this.zone = zone;
+    }
+
+    /** The current account's merger (UserSession). */
+    public static StepSourceMerger get(Context ctx) {
+        return UserSession.current(ctx).merger;
+    }
+
+    /**
+     * Store intervals counted by source and refresh the daily totals they affect.
+     * Intervals longer than StepInterval.MAX_MS are split evenly.
+     * @return number of day rows rewritten
+     */
+    @WorkerThread
+    public int ingest(String source, List<StepInterval> intervals, long now) {
+        if (intervals.isEmpty()) return 0;
+        List<StepInterval> rows = new ArrayList<>(intervals.size());
+        long from = Long.MAX_VALUE, to = Long.MIN_VALUE;
+        for (StepInterval iv : intervals) {
+            if (iv.endMs <= iv.startMs || iv.steps < 0) continue;
+            split(source, iv, rows);
+            from = Math.min(from, iv.startMs);
+            to = Math.max(to, iv.endMs);
+        }
+        if (rows.isEmpty()) return 0;
+        db.runInTransaction(() -> db.stepIntervalDao().insertAll(rows));
+
+        LocalDate first = dayOf(from);
+        LocalDate last = dayOf(to - 1);
+        if (StepSources.PHONE.equals(source)) {
+            // Phone-only days are written live by StepCounterManager; nothing to merge there
+            boolean any = false;
+            for (LocalDate d = first; !d.isAfter(last) && !any; d = d.plusDays(1)) {
+                any = hasOtherSource(d.format(StepStats.DB_FMT));
+            }
+            if (!any) return 0;
+        } else {
+            for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) markOtherSource(d);
+        }
+        return recomputeDays(first, (int) (last.toEpochDay() - first.toEpochDay()) + 1, now);
+    }
+
+    /**
+     * Re-merge [firstDay, firstDay + days) from the stored intervals and write the days that
+     * have a non-phone source and whose total changed.
+     * @return number of day rows rewritten
+     */
+    @WorkerThread
+    public int recomputeDays(LocalDate firstDay, int days, long now) {
+        long fromMs = startOf(firstDay);
+        long toMs = startOf(firstDay.plusDays(days));
+        List<StepInterval> intervals = db.stepIntervalDao().getOverlapping(fromMs, toMs);
+        int[] totals = StepMerge.dailyTotals(intervals, firstDay, days, zone);
+
+        boolean[] merged = new boolean[days];
+        for (StepInterval iv : intervals) {
+            if (StepSources.PHONE.equals(iv.source)) continue;
+            int a = (int) Math.max(0, dayOf(iv.startMs).toEpochDay() - firstDay.toEpochDay());
+            int b = (int) Math.min(days - 1, dayOf(iv.endMs - 1).toEpochDay() - firstDay.toEpochDay());
+            for (int d = a; d <= b; d++) merged[d] = true;
+        }
+
+        int written = 0;
+        StepDao stepDao = db.stepDao();
+        for (int d = 0; d < days; d++) {
+            if (!merged[d]) continue;
+            String date = firstDay.plusDays(d).format(StepStats.DB_FMT);
+            StepEntry current = stepDao.getStepsByDate(date);
+            if (current != null && current.steps == totals[d]) continue;
+            stepDao.upsertLocal(new StepEntry(date, totals[d]), now);
+            written++;
+        }
+        return written;
+    }
+
+    /** Whether a source other than the phone has reported steps for date (yyyy-MM-dd). */
+    @WorkerThread
+    public boolean hasOtherSource(String date) {
+        Boolean cached = otherSourceDays.get(date);
+        if (cached != null) return cached;
+        LocalDate day = LocalDate.parse(date, StepStats.DB_FMT);
+        boolean other = db.stepIntervalDao()
+                .hasOtherSource(startOf(day), startOf(day.plusDays(1)), StepSources.PHONE);
+        if (otherSourceDays.size() >= MAX_CACHED_DAYS) otherSourceDays.clear();
+        otherSourceDays.put(date, other);
+        return other;
+    }
+
+    private void markOtherSource(LocalDate day) {
+        if (otherSourceDays.size() >= MAX_CACHED_DAYS) otherSourceDays.clear();
+        otherSourceDays.put(day.format(StepStats.DB_FMT), true);
+    }
+
+    /** Copy iv into out as source-tagged rows of at most MAX_MS, steps spread evenly. */
+    static void split(String source, StepInterval iv, List<StepInterval> out) {
+        long len = iv.endMs - iv.startMs;
+        int pieces = (int) ((len + StepInterval.MAX_MS - 1) / StepInterval.MAX_MS);
+        int given = 0;
+        for (int p = 0; p < pieces; p++) {
+            long s = iv.startMs + len * p / pieces;
+            long e = iv.startMs + len * (p + 1) / pieces;
+            int steps = (int) ((long) iv.steps * (p + 1) / pieces) - given;
+            given += steps;
+            out.add(new StepInterval(source, s, e, steps));
+        }
+    }
+
+    private LocalDate dayOf(long ms) {
+        return Instant.ofEpochMilli(ms).atZone(zone).toLocalDate();
+    }
+
+    private long startOf(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
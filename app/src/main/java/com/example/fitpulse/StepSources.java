@@ -0,0 +1,24 @@
+package com.example.fitpulse;
+
+/**
+ * Names of the devices that report step intervals, and which one wins where they overlap.
+ * - A wrist-worn watch counts steps the phone misses (phone left on a desk) and is more
+ *   accurate when both are carried, so it outranks the phone.
+ * - Unknown sources rank below both.
+ */
+final class StepSources {
+
+    static final String PHONE = "phone";
+    static final String WATCH = "watch";
+
+    private StepSources() {}
+
+    /** Higher wins when intervals from two sources overlap. */
+    static int priority(String source) {
+        switch (source) {
+            case WATCH: return 2;
+            case PHONE: return 1;
+            default: return 0;
+        }
+    }
+}
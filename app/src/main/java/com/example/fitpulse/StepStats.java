@@ -0,0 +1,75 @@
+package com.example.fitpulse;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pure aggregation helpers behind the Stats screen.
+ * - Kept free of Android types so the same code path can be timed in JVM benchmarks.
+ * - StepColumns overloads are the allocation-free path used by the UI; the Map-based
+ *   ones remain for callers holding entity lists.
+ */
+final class StepStats {
+
+    static final DateTimeFormatter DB_FMT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.getDefault());
+
+    private StepStats() {}
+
+    /** Map each row's date key to its step total for quick lookup. */
+    static Map<String, Integer> indexByDate(List<StepEntry> entries) {
+        Map<String, Integer> byDate = new HashMap<>();
+        for (StepEntry e : entries) byDate.put(e.date, e.steps);
+        return byDate;
+    }
+
+    /** Monday-based week containing the given date. */
+    static LocalDate weekStart(LocalDate anyDateInWeek) {
+        return anyDateInWeek.with(DayOfWeek.MONDAY);
+    }
+
+    /** Step totals for Mon..Sun of the week starting at weekStart (missing days = 0). */
+    static int[] weekTotals(Map<String, Integer> byDate, LocalDate weekStart) {
+        int[] totals = new int[7];
+        for (int i = 0; i < 7; i++) {
+            totals[i] = byDate.getOrDefault(weekStart.plusDays(i).format(DB_FMT), 0);
+        }
+        return totals;
+    }
+
+    /** Totals for today, yesterday and two days ago (the Stats cards). */
+    static int[] recentDays(Map<String, Integer> byDate, LocalDate today) {
+        return new int[]{
+                byDate.getOrDefault(today.format(DB_FMT), 0),
+                byDate.getOrDefault(today.minusDays(1).format(DB_FMT), 0),
+                byDate.getOrDefault(today.minusDays(2).format(DB_FMT), 0)
+        };
+    }
+
+    /** Mon..Sun totals from primitive columns (missing days = 0), written into out[0..6]. */
+    static int[] weekTotals(StepColumns cols, LocalDate weekStart, int[] out) {
+        int i = 0;
+        LocalDate d = weekStart;
+        for (int x = 0; x < 7; x++, d = d.plusDays(1)) {
+            int key = StepColumns.dayKey(d);
+            // Rows are ascending, so walk forward instead of searching per day
+            while (i < cols.size && cols.dayKeys[i] < key) i++;
+            out[x] = (i < cols.size && cols.dayKeys[i] == key) ? cols.steps[i] : 0;
+        }
+        return out;
+    }
+
+    /** Today / yesterday / two days ago from primitive columns. */
+    static int[] recentDays(StepColumns cols, LocalDate today) {
+        return new int[]{
+                cols.stepsOn(StepColumns.dayKey(today)),
+                cols.stepsOn(StepColumns.dayKey(today.minusDays(1))),
+                cols.stepsOn(StepColumns.dayKey(today.minusDays(2)))
+        };
+    }
+}
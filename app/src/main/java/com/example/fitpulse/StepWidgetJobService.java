@@ -0,0 +1,68 @@
+package com.example.fitpulse;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the home-screen widget current while the app is closed. The pipeline's widget sink only
+ * runs while the process is alive, so this job brings it back every PERIOD_MS.
+ * - StepCounterManager.keepRunning() registers the counter (batched, no screen is up). On-change
+ *   sensors report their current value on activation, and flush() delivers anything still in
+ *   the FIFO. The readings go through the pipeline: saved baseline, Room row, and a snapshot
+ *   that StepWidgetUpdater pushes.
+ * - After READING_WAIT_MS the widgets are redrawn from the latest snapshot, so a new day shows
+ *   0 even when no step was reported.
+ * - Scheduled while a widget is placed (StepWidgetProvider), cancelled with the last one.
+ */
+public class StepWidgetJobService extends JobService {
+
+    static final int JOB_ID = 1036;
+    static final long PERIOD_MS = TimeUnit.MINUTES.toMillis(30);
+    /** How long a run waits for the counter's first reading. */
+    static final long READING_WAIT_MS = 5_000L;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /** Register the periodic job unless it is already pending. */
+    public static void schedule(Context ctx) {
+        JobScheduler scheduler = ctx.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(ctx, StepWidgetJobService.class))
+                .setPeriodic(PERIOD_MS)
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    /** The last widget was removed. */
+    public static void cancel(Context ctx) {
+        JobScheduler scheduler = ctx.getSystemService(JobScheduler.class);
+        if (scheduler != null) scheduler.cancel(JOB_ID);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        StepCounterManager counter = StepCounterManager.get(this);
+        counter.keepRunning();
+        counter.flush();
+        handler.postDelayed(() -> {
+            StepWidgetProvider.refresh(this);
+            jobFinished(params, false);
+        }, READING_WAIT_MS);
+        return true; // finishes once the reading had time to arrive
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        handler.removeCallbacksAndMessages(null);
+        return false; // the next periodic run catches up
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.fitpulse;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.widget.RemoteViews;
+
+import androidx.annotation.Nullable;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Home-screen widget: today's steps, goal progress and the projected end-of-day total.
+ * - Drawn from a StepSnapshot only (in-process latest, else the saved one), never from Room.
+ * - Live updates come from StepWidgetUpdater; onUpdate covers placement and the host's
+ *   periodic refresh.
+ * - While a widget is placed, StepWidgetJobService brings the step counter back every 30
+ *   minutes, so the widget moves on while the app is closed too.
+ * - A snapshot from an earlier day shows as 0 steps until the counter reports today.
+ */
+public class StepWidgetProvider extends AppWidgetProvider {
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        appWidgetManager.updateAppWidget(appWidgetIds, views(context, latest(context)));
+        // Also re-registers the job after an app update or data restore dropped it
+        StepWidgetJobService.schedule(context);
+    }
+
+    @Override
+    public void onEnabled(Context context) {
+        StepWidgetJobService.schedule(context);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        StepWidgetJobService.cancel(context);
+    }
+
+    /** Redraw every placed widget from the latest snapshot. */
+    static void refresh(Context ctx) {
+        AppWidgetManager awm = AppWidgetManager.getInstance(ctx);
+        int[] ids = awm.getAppWidgetIds(new ComponentName(ctx, StepWidgetProvider.class));
+        if (ids.length > 0) awm.updateAppWidget(ids, views(ctx, latest(ctx)));
+    }
+
+    /** In-process latest, else the saved one. */
+    @Nullable
+    private static StepSnapshot latest(Context ctx) {
+        StepSnapshot s = StepWidgetUpdater.get(ctx).latest();
+        return (s != null) ? s : StepSnapshot.load(ctx);
+    }
+
+    static RemoteViews views(Context ctx, @Nullable StepSnapshot s) {
+        String today = LocalDate.now().format(StepStats.DB_FMT);
+        int goal = (s != null) ? s.goal
+                : UserSession.prefs(ctx, SettingsFragment.PREFS_NAME).getInt(SettingsFragment.STEP_GOAL_KEY, 10000);
+        if (s == null || !today.equals(s.date)) s = new StepSnapshot(today, 0, goal, 0, 0);
+
+        RemoteViews rv = new RemoteViews(ctx.getPackageName(), R.layout.widget_steps);
+        rv.setTextViewText(R.id.widget_steps, String.format(Locale.getDefault(), "%,d", s.steps));
+        rv.setTextViewText(R.id.widget_goal, String.format(Locale.getDefault(), "%d%% of %,d", s.percent(), s.goal));
+        rv.setProgressBar(R.id.widget_progress, 100, s.percent(), false);
+        String projection;
+        if (s.steps >= s.goal) projection = "Goal reached";
+        else if (s.projected > 0) projection = String.format(Locale.getDefault(), "~%,d by tonight", s.projected);
+        else projection = "";
+        rv.setTextViewText(R.id.widget_projection, projection);
+
+        Intent open = new Intent(ctx, LoginActivity.class).addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        rv.setOnClickPendingIntent(R.id.widget_root, PendingIntent.getActivity(ctx, 0, open,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT));
+        return rv;
+    }
+}
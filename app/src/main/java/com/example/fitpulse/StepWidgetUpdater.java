@@ -0,0 +1,140 @@
+package com.example.fitpulse;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.time.Clock;
+
+/**
+ * Rate limiter between the step pipeline and the home-screen widget.
+ * - offer() is called on every throttled step update (~5 Hz while walking). A snapshot that
+ *   looks the same on the widget as the last pushed one is dropped outright.
+ * - At most one push per MIN_INTERVAL_MS; a changed value arriving sooner is held as
+ *   pending (newer ones replace it) and pushed by one delayed flush at the end of the
+ *   interval, so the widget always ends on the latest value.
+ * - Each push is one RemoteViews IPC plus a widget-host redraw; it also saves the snapshot.
+ */
+public final class StepWidgetUpdater {
+
+    /** Pushes to the widget host; AppWidgetManager in the app, a recorder in tests. */
+    interface Pusher {
+        /** @param snapshot what to show; null after an account switch to one without a snapshot */
+        void push(@Nullable StepSnapshot snapshot);
+    }
+
+    /** Minimum gap between two widget pushes. */
+    static final long MIN_INTERVAL_MS = 30_000L;
+
+    private static StepWidgetUpdater INSTANCE;
+
+    private final Clock clock;
+    private final Handler handler;
+    private final Pusher pusher;
+    private final long minIntervalMs;
+    private final Runnable flushTask = this::onFlushDue;
+
+    @Nullable private StepSnapshot shown;
+    @Nullable private StepSnapshot pending;
+    private long lastPushMs = Long.MIN_VALUE;
+    private boolean flushScheduled;
+
+    // Diagnostics
+    private int offered, pushes, unchanged;
+
+    @VisibleForTesting
+    StepWidgetUpdater(Clock clock, Handler handler, Pusher pusher, long minIntervalMs) {
+        this.clock = clock;
+        this.handler = handler;
+        this.pusher = pusher;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    public static synchronized StepWidgetUpdater get(Context ctx) {
+        if (INSTANCE == null) {
+            Context app = ctx.getApplicationContext();
+            INSTANCE = new StepWidgetUpdater(Clock.systemDefaultZone(), new Handler(Looper.getMainLooper()),
+                    s -> pushToWidgets(app, s), MIN_INTERVAL_MS);
+            INSTANCE.shown = StepSnapshot.load(app);
+            StepWidgetUpdater u = INSTANCE;
+            UserSession.addListener(session -> u.reset(StepSnapshot.load(app)));
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Another account became current: show its last snapshot right away (null = nothing yet),
+     * dropping whatever was pending for the previous one.
+     */
+    synchronized void reset(@Nullable StepSnapshot s) {
+        handler.removeCallbacks(flushTask);
+        flushScheduled = false;
+        pending = null;
+        shown = s;
+        lastPushMs = clock.millis();
+        pushes++;
+        pusher.push(s);
+    }
+
+    /** Latest snapshot known in this process (pending or shown), for the provider's own refreshes. */
+    @Nullable
+    synchronized StepSnapshot latest() {
+        return pending != null ? pending : shown;
+    }
+
+    /** A new value for the widget; pushed now, later, or not at all (see class doc). */
+    public synchronized void offer(StepSnapshot s) {
+        offered++;
+        if (s.sameDisplay(shown)) {
+            pending = null;
+            unchanged++;
+            return;
+        }
+        pending = s;
+        long wait = (lastPushMs == Long.MIN_VALUE) ? 0 : lastPushMs + minIntervalMs - clock.millis();
+        if (wait <= 0) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(flushTask, wait);
+        }
+    }
+
+    /** Re-offer the latest value against a new goal (progress and text change). */
+    public synchronized void goalChanged(int goal) {
+        StepSnapshot s = latest();
+        if (s != null) offer(new StepSnapshot(s.date, s.steps, goal, s.projected, clock.millis()));
+    }
+
+    private synchronized void onFlushDue() {
+        flushScheduled = false;
+        flush();
+    }
+
+    private void flush() {
+        StepSnapshot s = pending;
+        pending = null;
+        if (s == null || s.sameDisplay(shown)) return;
+        shown = s;
+        lastPushMs = clock.millis();
+        pushes++;
+        pusher.push(s);
+    }
+
+    synchronized int pushes() { return pushes; }
+    synchronized int offered() { return offered; }
+    synchronized int unchanged() { return unchanged; }
+
+    /** Redraw every placed widget from s; no-op when none are placed. */
+    private static void pushToWidgets(Context ctx, @Nullable StepSnapshot s) {
+        if (s != null) s.save(ctx);
+        AppWidgetManager awm = AppWidgetManager.getInstance(ctx);
+        int[] ids = awm.getAppWidgetIds(new ComponentName(ctx, StepWidgetProvider.class));
+        if (ids.length > 0) awm.updateAppWidget(ids, StepWidgetProvider.views(ctx, s));
+    }
+}
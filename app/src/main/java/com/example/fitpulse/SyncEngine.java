@@ -0,0 +1,266 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Delta sync of step history with a remote server.
+ * - Dirty tracking: every local write gets a fresh StepEntry.changeSeq (StepDao.upsertLocal);
+ *   any row with changeSeq > 0 is pending.
+ * - Push: pending rows go up in batches ordered by changeSeq. Only the rows the server
+ *   accepted (a prefix of the batch, see SyncTransport.upload) are marked synced, so an
+ *   interrupted or partly refused sync resumes at the first row it didn't take.
+ * - Archived months (ArchiveManager) are no longer in Room; a requeue also walks them through
+ *   StepHistory and uploads them in day order, keeping its place in the prefs across runs.
+ * - Pull: server changes are paged from a server cursor and merged last-writer-wins
+ *   per day (StepDao.applyRemote); the cursor is saved after each applied page.
+ * - The pull cursor lives in the account's SharedPreferences "sync_prefs" and is written synchronously.
+ * - The server URL is set in Settings (setServer) and kept in the same prefs; SyncJobService
+ *   then syncs every account that has one hourly whenever the network is up.
+ * - Uploads carry deviceId(), one per install and kept out of backups, so a phone restored
+ *   from another one's backup doesn't send under the old phone's id.
+ * Blocking; call from a background thread.
+ */
+public final class SyncEngine {
+
+    static final String PREFS = "sync_prefs";
+    /** Install-wide, not per account; excluded from backup (backup_rules.xml). */
+    static final String INSTALL_PREFS = "sync_install";
+    static final String KEY_DOWNLOAD_CURSOR = "download_cursor";
+    static final String KEY_DEVICE_ID = "device_id";
+    static final String KEY_SERVER_URL = "server_url";
+    /** Set when a server is configured: history from before then still has to go up once. */
+    static final String KEY_REQUEUE = "requeue_pending";
+    /** Next archived day (epoch day) still to upload after a requeue; absent when done. */
+    static final String KEY_ARCHIVE_FROM = "archive_upload_from";
+    /** updatedAt sent for archived days: the requeue time, as requeueAll stamps unstamped rows. */
+    static final String KEY_ARCHIVE_AT = "archive_upload_at";
+
+    static final int DEFAULT_BATCH_SIZE = 2000;
+
+    private final AppDatabase db;
+    @Nullable
+    private final StepHistory history;
+    private final SyncTransport transport;
+    private final SharedPreferences prefs;
+    private final Clock clock;
+    private final int batchSize;
+
+    /** Outcome of one sync() pass. */
+    public static final class Result {
+        public int uploaded;
+        public int uploadBatches;
+        public int downloaded;
+        public int applied;
+        public long durationMs;
+
+        @Override
+        public String toString() {
+            return "uploaded=" + uploaded + " (" + uploadBatches + " batches), downloaded=" + downloaded
+                    + ", applied=" + applied + ", " + durationMs + " ms";
+        }
+    }
+
+    /** Engine for the current account's sync state. */
+    SyncEngine(Context ctx, AppDatabase db, SyncTransport transport, Clock clock, int batchSize) {
+        this(UserSession.prefs(ctx, PREFS), db, null, transport, clock, batchSize);
+    }
+
+    /** history: source of archived days to upload on requeue; null if nothing is archived. */
+    SyncEngine(SharedPreferences prefs, AppDatabase db, @Nullable StepHistory history,
+               SyncTransport transport, Clock clock, int batchSize) {
+        this.db = db;
+        this.history = history;
+        this.transport = transport;
+        this.prefs = prefs;
+        this.clock = clock;
+        this.batchSize = batchSize;
+    }
+
+    /** Engine for the current account's database talking to an HTTP sync server. */
+    public static SyncEngine forServer(Context ctx, String baseUrl) {
+        return forServer(ctx, UserSession.current(ctx), baseUrl);
+    }
+
+    private static SyncEngine forServer(Context ctx, UserSession session, String baseUrl) {
+        return new SyncEngine(session.prefs(PREFS), session.db, session.history,
+                new HttpSyncTransport(baseUrl, deviceId(ctx)), Clock.systemDefaultZone(), DEFAULT_BATCH_SIZE);
+    }
+
+    /** The current account's sync server, or null if sync is off. */
+    @Nullable
+    public static String serverUrl(Context ctx) {
+        return UserSession.prefs(ctx, PREFS).getString(KEY_SERVER_URL, null);
+    }
+
+    /** Ids of the local accounts with a sync server, read from prefs without opening sessions. */
+    public static List<String> accountsWithServer(Context ctx) {
+        Set<String> ids = new LinkedHashSet<>();
+        ids.add(LocalAccounts.currentId(ctx)); // also the legacy account before any registration
+        for (LocalAccounts.Account a : LocalAccounts.all(ctx)) ids.add(a.id);
+        List<String> out = new ArrayList<>();
+        for (String id : ids) {
+            SharedPreferences p = ctx.getSharedPreferences(LocalAccounts.scoped(PREFS, id), Context.MODE_PRIVATE);
+            if (p.contains(KEY_SERVER_URL)) out.add(id);
+        }
+        return out;
+    }
+
+    /**
+     * Turn sync on for the current account (url) or off (null). A new server starts from an
+     * empty pull cursor, and the next run first queues the whole local history.
+     */
+    public static void setServer(Context ctx, @Nullable String url) {
+        SharedPreferences p = UserSession.prefs(ctx, PREFS);
+        if (url == null) {
+            p.edit().remove(KEY_SERVER_URL).remove(KEY_REQUEUE)
+                    .remove(KEY_ARCHIVE_FROM).remove(KEY_ARCHIVE_AT).commit();
+            return;
+        }
+        if (url.equals(p.getString(KEY_SERVER_URL, null))) return;
+        p.edit()
+                .putString(KEY_SERVER_URL, url)
+                .putLong(KEY_DOWNLOAD_CURSOR, 0)
+                .putBoolean(KEY_REQUEUE, true)
+                .commit();
+        SyncJobService.schedule(ctx);
+    }
+
+    /** Engine for the current account's configured server, or null if sync is off. */
+    @Nullable
+    public static SyncEngine forConfiguredServer(Context ctx) {
+        return forConfiguredServer(ctx, UserSession.current(ctx));
+    }
+
+    /** Engine for session's configured server, or null if sync is off for that account. */
+    @Nullable
+    public static SyncEngine forConfiguredServer(Context ctx, UserSession session) {
+        String url = session.prefs(PREFS).getString(KEY_SERVER_URL, null);
+        return url != null ? forServer(ctx, session, url) : null;
+    }
+
+    /** Stable random id for this install (all accounts), sent with every upload. */
+    public static synchronized String deviceId(Context ctx) {
+        SharedPreferences p = ctx.getApplicationContext().getSharedPreferences(INSTALL_PREFS, Context.MODE_PRIVATE);
+        String id = p.getString(KEY_DEVICE_ID, null);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            p.edit().putString(KEY_DEVICE_ID, id).apply();
+        }
+        return id;
+    }
+
+    /**
+     * Push pending local changes, then pull and merge server changes.
+     * On IOException all progress up to the last completed batch/page is kept.
+     */
+    @WorkerThread
+    public synchronized Result sync() throws IOException {
+        long t0 = clock.millis();
+        Result result = new Result();
+        if (prefs.getBoolean(KEY_REQUEUE, false)) {
+            requeueAll();
+            prefs.edit().remove(KEY_REQUEUE).commit();
+        }
+        push(result);
+        pushArchive(result);
+        pull(result);
+        result.durationMs = clock.millis() - t0;
+        return result;
+    }
+
+    /**
+     * Queue the whole local history for upload (e.g. first sign-in on a device that
+     * already has data), archived days included. Server-side merge keeps whichever copy
+     * of a day is newer.
+     */
+    @WorkerThread
+    public synchronized void requeueAll() {
+        long now = clock.millis();
+        db.stepDao().requeueAll(now);
+        if (history != null) {
+            prefs.edit().putLong(KEY_ARCHIVE_FROM, Long.MIN_VALUE).putLong(KEY_ARCHIVE_AT, now).commit();
+        }
+    }
+
+    private void push(Result result) throws IOException {
+        StepDao dao = db.stepDao();
+        while (true) {
+            List<StepEntry> batch = dao.getPendingChanges(batchSize);
+            if (batch.isEmpty()) return;
+            int accepted = Math.min(transport.upload(batch), batch.size());
+            if (accepted > 0) {
+                dao.markSynced(batch.get(accepted - 1).changeSeq);
+                result.uploaded += accepted;
+                result.uploadBatches++;
+            }
+            // The server stopped taking rows (e.g. shedding load): the rest go next time
+            if (accepted < batch.size() || batch.size() < batchSize) return;
+        }
+    }
+
+    /** Upload the archive's days after a requeue, batchSize days per request. */
+    private void pushArchive(Result result) throws IOException {
+        if (history == null || !prefs.contains(KEY_ARCHIVE_FROM)) return;
+        long updatedAt = prefs.getLong(KEY_ARCHIVE_AT, 0);
+        LocalDate first = history.firstDay();
+        LocalDate last = history.archiveLastDay();
+        long from = prefs.getLong(KEY_ARCHIVE_FROM, Long.MIN_VALUE);
+        if (first != null) from = Math.max(from, first.toEpochDay());
+        StepColumns cols = new StepColumns(batchSize);
+        while (last != null && from <= last.toEpochDay()) {
+            LocalDate to = LocalDate.ofEpochDay(Math.min(from + batchSize - 1, last.toEpochDay()));
+            history.read(LocalDate.ofEpochDay(from), to, cols);
+            List<StepEntry> batch = new ArrayList<>(cols.size);
+            for (int i = 0; i < cols.size; i++) {
+                StepEntry e = new StepEntry(StepColumns.toDate(cols.dayKeys[i]).format(StepStats.DB_FMT), cols.steps[i]);
+                e.updatedAt = updatedAt;
+                batch.add(e);
+            }
+            int accepted = batch.isEmpty() ? 0 : Math.min(transport.upload(batch), batch.size());
+            if (accepted > 0) {
+                result.uploaded += accepted;
+                result.uploadBatches++;
+            }
+            if (accepted < batch.size()) {
+                // The server stopped taking rows: resume after the last day it took
+                if (accepted > 0) {
+                    long next = StepColumns.toDate(cols.dayKeys[accepted - 1]).toEpochDay() + 1;
+                    prefs.edit().putLong(KEY_ARCHIVE_FROM, next).commit();
+                }
+                return;
+            }
+            from = to.toEpochDay() + 1;
+            prefs.edit().putLong(KEY_ARCHIVE_FROM, from).commit();
+        }
+        prefs.edit().remove(KEY_ARCHIVE_FROM).remove(KEY_ARCHIVE_AT).commit();
+    }
+
+    private void pull(Result result) throws IOException {
+        StepDao dao = db.stepDao();
+        long cursor = prefs.getLong(KEY_DOWNLOAD_CURSOR, 0);
+        while (true) {
+            SyncTransport.ChangePage page = transport.fetchChanges(cursor, batchSize);
+            if (!page.rows.isEmpty()) {
+                result.applied += dao.applyRemote(page.rows);
+                result.downloaded += page.rows.size();
+            }
+            cursor = page.nextCursor;
+            // commit(): the cursor must be durable before the next page is requested
+            prefs.edit().putLong(KEY_DOWNLOAD_CURSOR, cursor).commit();
+            if (!page.hasMore || page.rows.isEmpty()) return;
+        }
+    }
+}
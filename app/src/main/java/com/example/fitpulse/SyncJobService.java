@@ -0,0 +1,62 @@
+package com.example.fitpulse;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syncs the step history (SyncEngine) of every local account with a sync server once an hour
+ * while the network is up, not just the one logged in.
+ * - A failed sync keeps its checkpoints and asks JobScheduler for a retry with backoff; the
+ *   other accounts still sync in that run.
+ * - Without any sync server it finishes immediately; schedule() is idempotent and runs when
+ *   a server is set and on launches while one is configured.
+ */
+public class SyncJobService extends JobService {
+
+    private static final String TAG = "SyncJob";
+
+    static final int JOB_ID = 1035;
+
+    /** Register the periodic job unless it is already pending. */
+    public static void schedule(Context ctx) {
+        JobScheduler scheduler = ctx.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(ctx, SyncJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPeriodic(TimeUnit.HOURS.toMillis(1))
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        new Thread(() -> {
+            boolean retry = false;
+            for (String accountId : SyncEngine.accountsWithServer(this)) {
+                try {
+                    SyncEngine engine = SyncEngine.forConfiguredServer(this, UserSession.of(this, accountId));
+                    if (engine != null) engine.sync();
+                } catch (IOException e) {
+                    Log.w(TAG, "Sync failed for " + accountId, e);
+                    retry = true;
+                }
+            }
+            jobFinished(params, retry);
+        }, "step-sync").start();
+        return true; // still running on the worker thread
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        return true; // network lost mid-sync: resume from the last checkpoint later
+    }
+}
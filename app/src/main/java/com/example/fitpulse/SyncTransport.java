@@ -0,0 +1,40 @@
+package com.example.fitpulse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Wire contract between SyncEngine and the step-history server.
+ * - upload() must be idempotent per (date, updatedAt): a batch resent after an
+ *   interrupted sync must not double-apply.
+ * - The server keeps its own change cursor; fetchChanges() pages through every row
+ *   written after that cursor (including rows this device uploaded).
+ * - Implementations throw IOException on any transport or server failure; the
+ *   engine keeps its last checkpoint and retries from there next time.
+ */
+interface SyncTransport {
+
+    /**
+     * Upload one batch of changed days. Returns how many rows, from the start of the batch,
+     * the server took (stored, or dropped for a newer copy it already had); the rest are
+     * offered again on the next sync.
+     */
+    int upload(List<StepEntry> rows) throws IOException;
+
+    /** Fetch up to limit rows the server saw after cursor (0 = from the beginning). */
+    ChangePage fetchChanges(long cursor, int limit) throws IOException;
+
+    /** One page of server-side changes. */
+    final class ChangePage {
+        final List<StepEntry> rows;
+        /** Cursor to pass to the next fetchChanges() call. */
+        final long nextCursor;
+        final boolean hasMore;
+
+        ChangePage(List<StepEntry> rows, long nextCursor, boolean hasMore) {
+            this.rows = rows;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+    }
+}
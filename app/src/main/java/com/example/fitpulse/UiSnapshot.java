@@ -0,0 +1,232 @@
+package com.example.fitpulse;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the main screens showed last, so a cold start can paint it in the first frame.
+ * - Home (today's steps and goal) and Stats (this week's bars, the recent-day cards) put
+ *   their rendered values here; read() returns them from one SIZE-byte file per account.
+ * - Nothing here is authoritative: each screen paints the snapshot only if it still applies
+ *   (same day / same week) and then replaces it with the real query result as usual.
+ * - Writes are asynchronous and coalesced: a change schedules one write WRITE_DELAY_MS later
+ *   on the "ui-snapshot" thread, and flush() (from onStop) writes right away. A lost or
+ *   damaged file just means one cold start without it.
+ */
+public final class UiSnapshot {
+
+    static final String FILE = "ui_snapshot.bin";
+    static final long WRITE_DELAY_MS = 1000;
+    private static final String TAG = "UiSnapshot";
+    /** "FPU1" */
+    private static final int MAGIC = 0x46505531;
+    /** Encoded length: magic, three days/keys, 2 + 7 + 3 ints. */
+    private static final int SIZE = 4 + 3 * 8 + 12 * 4;
+
+    private static final ScheduledExecutorService WRITER =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "ui-snapshot"));
+
+    /** One copy of the saved values; NONE marks a part that was never rendered. */
+    public static final class State {
+        static final long NONE = Long.MIN_VALUE;
+
+        long stepsDay = NONE;
+        int steps;
+        int goal;
+        long weekKey = NONE;
+        final int[] week = new int[7];
+        long cardsDay = NONE;
+        final int[] cards = new int[3];
+
+        State copy() {
+            State s = new State();
+            s.stepsDay = stepsDay;
+            s.steps = steps;
+            s.goal = goal;
+            s.weekKey = weekKey;
+            System.arraycopy(week, 0, s.week, 0, 7);
+            s.cardsDay = cardsDay;
+            System.arraycopy(cards, 0, s.cards, 0, 3);
+            return s;
+        }
+
+        /** Today's steps as last shown on day, or -1 if they were shown on another day. */
+        public int stepsOn(LocalDate day) {
+            return stepsDay == day.toEpochDay() ? steps : -1;
+        }
+
+        /** Goal last shown with the steps, or 0 if none was. */
+        public int goal() {
+            return stepsDay == NONE ? 0 : goal;
+        }
+
+        /** Mon..Sun totals of the week starting weekKey (epoch day), or null if another week was saved. */
+        @Nullable
+        public int[] weekOf(long weekKey) {
+            return this.weekKey == weekKey ? week.clone() : null;
+        }
+
+        /**
+         * Today / yesterday / 2 days ago as of day. Cards saved a day or two earlier shift
+         * along; days they don't cover are today's steps if known, else 0. Null if too old.
+         */
+        @Nullable
+        public int[] cardsOn(LocalDate day) {
+            if (cardsDay == NONE) return null;
+            long gap = day.toEpochDay() - cardsDay;
+            if (gap < 0 || gap > 2) return null;
+            int[] out = new int[3];
+            for (int i = (int) gap; i < 3; i++) out[i] = cards[i - (int) gap];
+            if (gap > 0) out[0] = Math.max(0, stepsOn(day));
+            return out;
+        }
+    }
+
+    private final File file;
+    /** Guarded by this; null until the first read(). */
+    @Nullable private State state;
+    private boolean dirty;
+    private boolean scheduled;
+    /** Set by close(): the file is about to be replaced or deleted. */
+    private boolean closed;
+
+    UiSnapshot(File file) {
+        this.file = file;
+    }
+
+    /** The saved values; reads the file on the first call only (meant for onViewCreated). */
+    public synchronized State read() {
+        return loaded().copy();
+    }
+
+    public synchronized void putToday(LocalDate day, int steps, int goal) {
+        State s = loaded();
+        if (s.stepsDay == day.toEpochDay() && s.steps == steps && s.goal == goal) return;
+        s.stepsDay = day.toEpochDay();
+        s.steps = steps;
+        s.goal = goal;
+        changed();
+    }
+
+    /** @param totals Mon..Sun */
+    public synchronized void putWeek(long weekKey, int[] totals) {
+        State s = loaded();
+        if (s.weekKey == weekKey && Arrays.equals(s.week, totals)) return;
+        s.weekKey = weekKey;
+        System.arraycopy(totals, 0, s.week, 0, 7);
+        changed();
+    }
+
+    /** @param recent today, yesterday, 2 days ago as of day */
+    public synchronized void putCards(LocalDate day, int[] recent) {
+        State s = loaded();
+        if (s.cardsDay == day.toEpochDay() && Arrays.equals(s.cards, recent)) return;
+        s.cardsDay = day.toEpochDay();
+        System.arraycopy(recent, 0, s.cards, 0, 3);
+        changed();
+    }
+
+    /** Write pending changes now instead of after the delay (the screen is going away). */
+    public void flush() {
+        WRITER.execute(this::write);
+    }
+
+    /**
+     * Drop unsaved changes and wait out a write already running, so nothing recreates the
+     * file after this returns (UserSession.replaceFiles). Later puts are kept in memory only.
+     */
+    void close() throws InterruptedException {
+        synchronized (this) {
+            closed = true;
+            dirty = false;
+        }
+        try {
+            WRITER.submit(() -> {}).get();
+        } catch (ExecutionException e) {
+            throw new AssertionError(e); // an empty task can't fail
+        }
+    }
+
+    /** Wait for writes queued so far (not ones still waiting out their delay). */
+    @VisibleForTesting
+    void awaitWritten() throws Exception {
+        WRITER.submit(() -> {}).get();
+    }
+
+    private void changed() {
+        if (closed) return;
+        dirty = true;
+        if (scheduled) return;
+        scheduled = true;
+        WRITER.schedule(this::write, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private State loaded() {
+        if (state == null) state = load(file);
+        return state;
+    }
+
+    /** Writer thread: save the latest values, if they changed since the last write. */
+    private void write() {
+        State s;
+        synchronized (this) {
+            scheduled = false;
+            if (!dirty) return;
+            dirty = false;
+            s = state.copy();
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeLong(s.stepsDay);
+            out.writeInt(s.steps);
+            out.writeInt(s.goal);
+            out.writeLong(s.weekKey);
+            for (int v : s.week) out.writeInt(v);
+            out.writeLong(s.cardsDay);
+            for (int v : s.cards) out.writeInt(v);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write " + tmp, e);
+            return;
+        }
+        if (!tmp.renameTo(file)) Log.w(TAG, "Could not move " + tmp + " to " + file);
+    }
+
+    private static State load(File file) {
+        State s = new State();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), SIZE))) {
+            if (in.readInt() != MAGIC) throw new IOException("bad magic");
+            s.stepsDay = in.readLong();
+            s.steps = in.readInt();
+            s.goal = in.readInt();
+            s.weekKey = in.readLong();
+            for (int i = 0; i < 7; i++) s.week[i] = in.readInt();
+            s.cardsDay = in.readLong();
+            for (int i = 0; i < 3; i++) s.cards[i] = in.readInt();
+            return s;
+        } catch (FileNotFoundException e) {
+            return s; // first start
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable " + file, e);
+            return new State();
+        }
+    }
+}
@@ -19,7 +19,7 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 /**
  * UserProfileActivity
- * - Shows user name/email from "user_data" prefs.
+ * - Shows the logged-in account's name/email (LocalAccounts).
  * - Shows daily goal and today's steps with a progress bar.
  * - Updates live when STEP_UPDATE broadcasts arrive.
  * - Bottom nav is visible but no item is selected on this screen.
@@ -33,9 +33,7 @@ public class UserProfileActivity extends AppCompatActivity {
     private BottomNavigationView bottomNav;
 
     // Preferences:
-    // - user_data: name/email
-    // - FitPulsePrefs: step_goal, today_steps
-    private SharedPreferences userPrefs;
+    // - FitPulsePrefs (this account's): step_goal, today_steps
     private SharedPreferences fitPulsePrefs;
 
     /** Receives step updates and refreshes the goal section. */
@@ -66,23 +64,23 @@ public class UserProfileActivity extends AppCompatActivity {
         backButton.setOnClickListener(v -> finish());
 
         // Open prefs
-        userPrefs     = getSharedPreferences("user_data", MODE_PRIVATE);
-        fitPulsePrefs = getSharedPreferences(SettingsActivity.PREFS_NAME, MODE_PRIVATE);
+        fitPulsePrefs = UserSession.prefs(this, SettingsFragment.PREFS_NAME);
 
         // Static user info
-        setOrHide(nameText,  userPrefs.getString("name",  null));
-        setOrHide(emailText, userPrefs.getString("email", null));
+        LocalAccounts.Account account = LocalAccounts.current(this);
+        setOrHide(nameText,  account != null ? account.name : null);
+        setOrHide(emailText, account != null ? account.email : null);
 
         // First render of goal/steps
         updateGoalUi();
 
-        // Bottom navigation
+        // Bottom navigation: return to the existing tab host instead of stacking a new screen
         bottomNav.setOnItemSelectedListener(item -> {
             int id = item.getItemId();
-            if (id == R.id.nav_home)    { startActivity(new Intent(this, MainActivity.class));           finish(); return true; }
-            if (id == R.id.nav_stats)   { startActivity(new Intent(this, StatsActivity.class));         finish(); return true; }
-            if (id == R.id.nav_monitor) { startActivity(new Intent(this, SensorMonitorActivity.class)); finish(); return true; }
-            if (id == R.id.nav_settings){ startActivity(new Intent(this, SettingsActivity.class));      finish(); return true; }
+            if (id == R.id.nav_home || id == R.id.nav_stats || id == R.id.nav_monitor || id == R.id.nav_settings) {
+                openTab(id);
+                return true;
+            }
             return false;
         });
 
@@ -109,7 +107,7 @@ public class UserProfileActivity extends AppCompatActivity {
 
     /** Read goal/steps from prefs and update labels + progress bar. */
     private void updateGoalUi() {
-        int dailyGoal    = safeGetInt(fitPulsePrefs, SettingsActivity.STEP_GOAL_KEY, 10000);
+        int dailyGoal    = safeGetInt(fitPulsePrefs, SettingsFragment.STEP_GOAL_KEY, 10000);
         int reachedToday = safeGetInt(fitPulsePrefs, "today_steps", 0);
 
         if (dailyGoal < 0) dailyGoal = 0;
@@ -126,6 +124,15 @@ public class UserProfileActivity extends AppCompatActivity {
         goalHelperTv.setText(pct + "% of daily goal");
     }
 
+    /** Bring MainActivity (tab host) to front on the given tab and close this screen. */
+    private void openTab(int tabId) {
+        Intent intent = new Intent(this, MainActivity.class)
+                .putExtra(MainActivity.EXTRA_TAB, tabId)
+                .addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        startActivity(intent);
+        finish();
+    }
+
     /** Uncheck all items in the bottom nav for this screen. */
     private void clearBottomSelection() {
         if (bottomNav == null) return;
@@ -0,0 +1,196 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Everything that belongs to one local account, swapped as a unit when the account changes.
+ * - Each account has its own database file, archive file and prefs (LocalAccounts.scoped), so
+ *   its queries see only its own rows and run exactly as fast as with a single user.
+ * - A session is built once per account and process and then kept: building is cheap (Room opens
+ *   lazily), and the file is opened and migrated (and the projection model read) on the
+ *   warm-up thread, never on the UI path.
+ *   Switching back to an account used earlier reuses its open database and warm caches.
+ * - current() is one atomic read. The step pipeline captures the session with each reading,
+ *   so a count is always written to the account it was taken for.
+ * - Listeners tell long-lived state to reload.
+ */
+public final class UserSession {
+
+    /** Told (on the switching thread) after the current session changed. */
+    public interface Listener {
+        void onSessionChanged(UserSession session);
+    }
+
+    private static final AtomicReference<UserSession> CURRENT = new AtomicReference<>();
+    /** Sessions built in this process, by account id; guarded by UserSession.class. */
+    private static final Map<String, UserSession> OPEN = new HashMap<>();
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final ExecutorService WARMUP =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "session-warmup"));
+
+    public final String accountId;
+    public final AppDatabase db;
+    public final StepHistory history;
+    public final StepProjection projection;
+    public final StepSourceMerger merger;
+    /** Last rendered Home/Stats values for the first frame; read lazily. */
+    public final UiSnapshot ui;
+    private final Context appCtx;
+
+    private UserSession(Context ctx, String accountId) {
+        this.appCtx = ctx.getApplicationContext();
+        this.accountId = accountId;
+        this.db = AppDatabase.open(appCtx, LocalAccounts.scoped(AppDatabase.DB_NAME, accountId));
+        this.history = new StepHistory(db.stepDao(),
+                new File(appCtx.getFilesDir(), LocalAccounts.scoped(StepHistory.ARCHIVE_FILE, accountId)));
+        this.projection = new StepProjection(prefs(StepProjection.PREFS), date -> {
+            StepEntry e = db.stepDao().getStepsByDate(date);
+            return e != null ? e.steps : null;
+        });
+        this.merger = new StepSourceMerger(db, ZoneId.systemDefault());
+        this.ui = new UiSnapshot(new File(appCtx.getFilesDir(), LocalAccounts.scoped(UiSnapshot.FILE, accountId)));
+    }
+
+    /** The current account's session (the last logged-in account, or the legacy one). */
+    public static UserSession current(Context ctx) {
+        UserSession s = CURRENT.get();
+        if (s != null) return s;
+        synchronized (UserSession.class) {
+            if (CURRENT.get() == null) CURRENT.set(open(ctx, LocalAccounts.currentId(ctx)));
+            return CURRENT.get();
+        }
+    }
+
+    /** Prefs file base, scoped to the current account. */
+    public static SharedPreferences prefs(Context ctx, String base) {
+        return current(ctx).prefs(base);
+    }
+
+    /** Prefs file base, scoped to this session's account. */
+    public SharedPreferences prefs(String base) {
+        return appCtx.getSharedPreferences(LocalAccounts.scoped(base, accountId), Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Make accountId current. No I/O here beyond what an unopened session queues on the
+     * warm-up thread; safe to call from the UI thread.
+     */
+    public static UserSession switchTo(Context ctx, String accountId) {
+        UserSession s;
+        synchronized (UserSession.class) {
+            s = open(ctx, accountId);
+        }
+        UserSession old = CURRENT.getAndSet(s);
+        if (old != s) changed(s);
+        return s;
+    }
+
+    private static void changed(UserSession s) {
+        for (Listener l : LISTENERS) l.onSessionChanged(s);
+    }
+
+    /**
+     * Put restored files in place of accountId's database and archive (null: no archive) and
+     * rebuild its session; if it was current, the new one becomes current and listeners hear
+     * about it like a switch. The old session's UI snapshot is closed here; its other writers
+     * (step pipeline, heart rate) must be paused by the caller (StepBackup.restore).
+     */
+    @WorkerThread
+    static synchronized UserSession replaceFiles(Context ctx, String accountId, File db, @Nullable File archive)
+            throws IOException {
+        Context app = ctx.getApplicationContext();
+        UserSession old = OPEN.remove(accountId);
+        if (old != null) {
+            // A pending snapshot write would otherwise bring back the file deleted below
+            try {
+                old.ui.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted closing " + accountId + "'s snapshot");
+            }
+            old.db.close();
+        }
+
+        File dbFile = app.getDatabasePath(LocalAccounts.scoped(AppDatabase.DB_NAME, accountId));
+        for (String suffix : new String[]{"-wal", "-shm", "-journal"}) new File(dbFile.getPath() + suffix).delete();
+        if (!db.renameTo(dbFile)) throw new IOException("Could not move " + db + " to " + dbFile);
+        File archiveFile = new File(app.getFilesDir(), LocalAccounts.scoped(StepHistory.ARCHIVE_FILE, accountId));
+        if (archive == null) {
+            archiveFile.delete();
+        } else if (!archive.renameTo(archiveFile)) {
+            throw new IOException("Could not move " + archive + " to " + archiveFile);
+        }
+        // Painted from the replaced data; the restored one must not start with it
+        new File(app.getFilesDir(), LocalAccounts.scoped(UiSnapshot.FILE, accountId)).delete();
+
+        UserSession s = open(app, accountId);
+        if (old != null && CURRENT.compareAndSet(old, s)) changed(s);
+        return s;
+    }
+
+    /** accountId's session without making it current (background work such as SyncJobService). */
+    public static UserSession of(Context ctx, String accountId) {
+        synchronized (UserSession.class) {
+            return open(ctx, accountId);
+        }
+    }
+
+    /** Build accountId's session ahead of a switch (LoginActivity, once the email is entered). */
+    public static void prewarm(Context ctx, String accountId) {
+        synchronized (UserSession.class) {
+            open(ctx, accountId);
+        }
+    }
+
+    public static void addListener(Listener l) {
+        LISTENERS.add(l);
+    }
+
+    public static void removeListener(Listener l) {
+        LISTENERS.remove(l);
+    }
+
+    private static UserSession open(Context ctx, String accountId) {
+        UserSession s = OPEN.get(accountId);
+        if (s == null) {
+            s = new UserSession(ctx, accountId);
+            OPEN.put(accountId, s);
+            AppDatabase db = s.db;
+            StepProjection projection = s.projection;
+            WARMUP.execute(() -> {
+                db.getOpenHelper().getWritableDatabase();
+                projection.preload();
+            });
+        }
+        return s;
+    }
+
+    /** Close every session and forget the current one (tests share one process). */
+    @VisibleForTesting
+    static synchronized void resetForTests() {
+        try {
+            WARMUP.submit(() -> {}).get(); // let pending opens finish first
+        } catch (Exception ignored) {
+        }
+        for (UserSession s : OPEN.values()) s.db.close();
+        OPEN.clear();
+        CURRENT.set(null);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.fitpulse;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+/**
+ * A fixed time slice of a workout's sensor streams, stored as one compressed blob
+ * (see WorkoutChunkCodec) instead of one row per sample.
+ */
+@Entity(tableName = "workout_chunks",
+        primaryKeys = {"sessionId", "seq"},
+        foreignKeys = @ForeignKey(entity = WorkoutSession.class,
+                parentColumns = "id",
+                childColumns = "sessionId",
+                onDelete = ForeignKey.CASCADE))
+public class WorkoutChunk {
+
+    public long sessionId;
+
+    // 0-based position in the session timeline
+    public int seq;
+
+    // Offsets from WorkoutSession.startedAt covered by this chunk
+    public int startMs;
+    public int endMs;
+
+    public int sampleCount;
+
+    @NonNull
+    public byte[] data;
+
+    public WorkoutChunk(long sessionId, int seq, int startMs, int endMs, int sampleCount, @NonNull byte[] data) {
+        this.sessionId = sessionId;
+        this.seq = seq;
+        this.startMs = startMs;
+        this.endMs = endMs;
+        this.sampleCount = sampleCount;
+        this.data = data;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.fitpulse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Blob format for WorkoutChunk.data: a deflated stream of
+ * - version byte
+ * - per stream (WorkoutSamples order; version 1 chunks stop before HEART_RATE):
+ *   varint count, then column by column:
+ *     times as varint deltas (first one absolute), each value dimension as
+ *     zig-zag varint deltas (first one absolute).
+ * Smooth sensor signals give small deltas, so most values take one byte before
+ * deflate squeezes the repeats. Not thread-safe; keep one codec per thread.
+ */
+final class WorkoutChunkCodec {
+
+    static final int VERSION = 2;
+
+    /** Streams present in each format version (index = version). */
+    private static final int[] STREAMS_IN_VERSION = {0, 4, WorkoutSamples.STREAMS};
+
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream(32 * 1024);
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final Inflater inflater = new Inflater();
+    private byte[] buf = new byte[32 * 1024];
+
+    byte[] encode(WorkoutSamples s) {
+        raw.reset();
+        try {
+            raw.write(VERSION);
+            for (int st = 0; st < WorkoutSamples.STREAMS; st++) {
+                int n = s.count[st];
+                StepArchive.writeVarint(raw, n);
+                int[] t = s.times[st];
+                int prev = 0;
+                for (int i = 0; i < n; i++) {
+                    StepArchive.writeVarint(raw, t[i] - prev);
+                    prev = t[i];
+                }
+                int dims = WorkoutSamples.DIMS[st];
+                int[] v = s.values[st];
+                for (int d = 0; d < dims; d++) {
+                    int last = 0;
+                    for (int i = 0; i < n; i++) {
+                        int x = v[i * dims + d];
+                        StepArchive.writeVarint(raw, StepArchive.zigZag(x - last));
+                        last = x;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream does not throw
+        }
+
+        deflater.reset();
+        deflater.setInput(raw.toByteArray());
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.size() / 2 + 64);
+        while (!deflater.finished()) {
+            int len = deflater.deflate(buf);
+            out.write(buf, 0, len);
+        }
+        return out.toByteArray();
+    }
+
+    /** Decode a blob into out (cleared first). */
+    WorkoutSamples decode(byte[] blob, WorkoutSamples out) throws IOException {
+        int len = inflate(blob);
+        int[] pos = {0};
+        int version = len == 0 ? 0 : buf[pos[0]++];
+        if (version < 1 || version > VERSION) throw new IOException("Unknown workout chunk version " + version);
+        out.clear();
+        for (int st = 0; st < STREAMS_IN_VERSION[version]; st++) {
+            int n = StepArchive.readVarint(buf, pos);
+            out.ensureCapacity(st, n);
+            int[] t = out.times[st];
+            int prev = 0;
+            for (int i = 0; i < n; i++) {
+                prev += StepArchive.readVarint(buf, pos);
+                t[i] = prev;
+            }
+            int dims = WorkoutSamples.DIMS[st];
+            int[] v = out.values[st];
+            for (int d = 0; d < dims; d++) {
+                int last = 0;
+                for (int i = 0; i < n; i++) {
+                    last += StepArchive.unZigZag(StepArchive.readVarint(buf, pos));
+                    v[i * dims + d] = last;
+                }
+            }
+            out.count[st] = n;
+        }
+        return out;
+    }
+
+    /** Inflate into buf (grown as needed); returns the decoded length. */
+    private int inflate(byte[] blob) throws IOException {
+        inflater.reset();
+        inflater.setInput(blob);
+        int len = 0;
+        try {
+            while (!inflater.finished()) {
+                if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                int n = inflater.inflate(buf, len, buf.length - len);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated workout chunk");
+                }
+                len += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt workout chunk", e);
+        }
+        return len;
+    }
+}
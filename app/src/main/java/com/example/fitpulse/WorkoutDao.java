@@ -0,0 +1,39 @@
+package com.example.fitpulse;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface WorkoutDao {
+
+    @Insert
+    long insertSession(WorkoutSession session);
+
+    @Update
+    void updateSession(WorkoutSession session);
+
+    // Newest first for the session list
+    @Query("SELECT * FROM workouts ORDER BY startedAt DESC")
+    List<WorkoutSession> getSessions();
+
+    @Query("SELECT * FROM workouts WHERE id = :id")
+    WorkoutSession getSession(long id);
+
+    @Insert
+    void insertChunk(WorkoutChunk chunk);
+
+    // Whole session timeline in one read; blobs stay compressed until decoded
+    @Query("SELECT * FROM workout_chunks WHERE sessionId = :sessionId ORDER BY seq ASC")
+    List<WorkoutChunk> getChunks(long sessionId);
+
+    @Query("SELECT IFNULL(SUM(LENGTH(data)), 0) FROM workout_chunks WHERE sessionId = :sessionId")
+    long getStoredBytes(long sessionId);
+
+    // Chunks cascade with the session
+    @Query("DELETE FROM workouts WHERE id = :id")
+    void deleteSession(long id);
+}
@@ -0,0 +1,149 @@
+package com.example.fitpulse;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * WorkoutDetailActivity
+ * - Loads a session and all its compressed chunks in one query.
+ * - Shows the timeline as one row per chunk; a chunk is decoded only when its row
+ *   scrolls into view, on a background thread, and kept in a small LRU cache.
+ */
+public class WorkoutDetailActivity extends AppCompatActivity {
+
+    public static final String EXTRA_SESSION_ID = "session_id";
+
+    private static final String TAG = "WorkoutDetail";
+    /** Decoded chunks kept around while scrolling (~30 s of 50 Hz accel+gyro each). */
+    private static final int DECODED_CACHE = 12;
+    private static final DateTimeFormatter TITLE_FMT =
+            DateTimeFormatter.ofPattern("EEE d MMM, HH:mm", Locale.getDefault());
+
+    private final List<WorkoutChunk> chunks = new ArrayList<>();
+    private final LruCache<Integer, WorkoutSamples> decoded = new LruCache<>(DECODED_CACHE);
+    private final Set<Integer> decoding = new HashSet<>();
+    private final ExecutorService decoder = Executors.newSingleThreadExecutor();
+    /** Only touched on the decoder thread. */
+    private final WorkoutChunkCodec codec = new WorkoutChunkCodec();
+
+    private ChunkAdapter adapter;
+    private TextView titleText, summaryText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_workout_detail);
+
+        findViewById(R.id.btn_back_workout_detail).setOnClickListener(v -> finish());
+        titleText = findViewById(R.id.workout_detail_title);
+        summaryText = findViewById(R.id.workout_detail_summary);
+
+        ListView list = findViewById(R.id.list_chunks);
+        adapter = new ChunkAdapter();
+        list.setAdapter(adapter);
+
+        long sessionId = getIntent().getLongExtra(EXTRA_SESSION_ID, -1);
+        AppDatabase db = AppDatabase.getInstance(getApplicationContext());
+        decoder.execute(() -> {
+            WorkoutSession s = db.workoutDao().getSession(sessionId);
+            List<WorkoutChunk> loaded = db.workoutDao().getChunks(sessionId);
+            runOnUiThread(() -> {
+                if (isDestroyed() || s == null) return;
+                titleText.setText(TITLE_FMT.format(Instant.ofEpochMilli(s.startedAt).atZone(ZoneId.systemDefault())));
+                summaryText.setText(String.format(Locale.getDefault(), "%s · %,d steps · %d spm · %,d samples in %d chunks",
+                        WorkoutListActivity.formatDuration(s.durationMs()), s.steps, s.avgCadence(),
+                        s.sampleCount, loaded.size()));
+                chunks.clear();
+                chunks.addAll(loaded);
+                adapter.notifyDataSetChanged();
+            });
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        decoder.shutdownNow();
+        super.onDestroy();
+    }
+
+    /** Decode chunk position in the background unless cached or already queued (main thread). */
+    private void requestDecode(int position) {
+        if (decoded.get(position) != null || !decoding.add(position)) return;
+        WorkoutChunk chunk = chunks.get(position);
+        decoder.execute(() -> {
+            WorkoutSamples samples = null;
+            try {
+                samples = codec.decode(chunk.data, new WorkoutSamples());
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot decode chunk " + chunk.seq, e);
+            }
+            WorkoutSamples result = samples;
+            runOnUiThread(() -> {
+                decoding.remove(position);
+                if (result == null || isDestroyed()) return;
+                decoded.put(position, result);
+                adapter.notifyDataSetChanged(); // rebinds visible rows only
+            });
+        });
+    }
+
+    private class ChunkAdapter extends BaseAdapter {
+        @Override public int getCount() { return chunks.size(); }
+        @Override public WorkoutChunk getItem(int position) { return chunks.get(position); }
+        @Override public long getItemId(int position) { return chunks.get(position).seq; }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View row = convertView != null ? convertView
+                    : LayoutInflater.from(parent.getContext()).inflate(R.layout.item_workout_chunk, parent, false);
+            WorkoutChunk c = getItem(position);
+
+            TextView label = row.findViewById(R.id.chunk_label);
+            TextView stats = row.findViewById(R.id.chunk_stats);
+            WorkoutTraceView trace = row.findViewById(R.id.chunk_trace);
+            label.setText(WorkoutListActivity.formatDuration(c.startMs) + " – "
+                    + WorkoutListActivity.formatDuration(c.endMs));
+
+            WorkoutSamples s = decoded.get(position);
+            if (s == null) {
+                stats.setText("…");
+                trace.setSamples(null, c.startMs, c.endMs);
+                requestDecode(position);
+            } else {
+                stats.setText(chunkStats(s));
+                trace.setSamples(s, c.startMs, c.endMs);
+            }
+            return row;
+        }
+    }
+
+    /** "+N steps · M spm" for one decoded chunk. */
+    private static String chunkStats(WorkoutSamples s) {
+        int n = s.count[WorkoutSamples.STEPS];
+        int steps = n > 1 ? s.values[WorkoutSamples.STEPS][n - 1] - s.values[WorkoutSamples.STEPS][0] : 0;
+        int cadenceCount = s.count[WorkoutSamples.CADENCE];
+        int spm = cadenceCount > 0 ? s.values[WorkoutSamples.CADENCE][cadenceCount - 1] : 0;
+        return String.format(Locale.getDefault(), "+%d steps · %d spm", steps, spm);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.fitpulse;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.text.format.Formatter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * WorkoutListActivity
+ * - Lists recorded workout sessions, newest first (summary rows only, no chunk blobs).
+ * - Tapping a session opens WorkoutDetailActivity.
+ */
+public class WorkoutListActivity extends AppCompatActivity {
+
+    private static final DateTimeFormatter TITLE_FMT =
+            DateTimeFormatter.ofPattern("EEE d MMM, HH:mm", Locale.getDefault());
+
+    private final List<WorkoutSession> sessions = new ArrayList<>();
+    private final List<Long> storedBytes = new ArrayList<>();
+    private SessionAdapter adapter;
+    private TextView emptyText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_workout_list);
+
+        findViewById(R.id.btn_back_workouts).setOnClickListener(v -> finish());
+        emptyText = findViewById(R.id.workouts_empty);
+
+        ListView list = findViewById(R.id.list_workouts);
+        adapter = new SessionAdapter();
+        list.setAdapter(adapter);
+        list.setOnItemClickListener((parent, view, position, id) ->
+                startActivity(new Intent(this, WorkoutDetailActivity.class)
+                        .putExtra(WorkoutDetailActivity.EXTRA_SESSION_ID, id)));
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Reload each time so a session finished meanwhile shows up
+        AppDatabase db = AppDatabase.getInstance(getApplicationContext());
+        new Thread(() -> {
+            WorkoutDao dao = db.workoutDao();
+            List<WorkoutSession> loaded = dao.getSessions();
+            List<Long> bytes = new ArrayList<>(loaded.size());
+            for (WorkoutSession s : loaded) bytes.add(dao.getStoredBytes(s.id));
+            runOnUiThread(() -> {
+                if (isDestroyed()) return;
+                sessions.clear();
+                sessions.addAll(loaded);
+                storedBytes.clear();
+                storedBytes.addAll(bytes);
+                adapter.notifyDataSetChanged();
+                emptyText.setVisibility(sessions.isEmpty() ? View.VISIBLE : View.GONE);
+            });
+        }).start();
+    }
+
+    /** "mm:ss" or "h:mm:ss". */
+    static String formatDuration(long ms) {
+        long s = ms / 1000;
+        return s >= 3600
+                ? String.format(Locale.getDefault(), "%d:%02d:%02d", s / 3600, (s / 60) % 60, s % 60)
+                : String.format(Locale.getDefault(), "%d:%02d", s / 60, s % 60);
+    }
+
+    private class SessionAdapter extends BaseAdapter {
+        @Override public int getCount() { return sessions.size(); }
+        @Override public WorkoutSession getItem(int position) { return sessions.get(position); }
+        @Override public long getItemId(int position) { return sessions.get(position).id; }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View row = convertView != null ? convertView
+                    : LayoutInflater.from(parent.getContext()).inflate(R.layout.item_workout, parent, false);
+            WorkoutSession s = getItem(position);
+
+            TextView title = row.findViewById(R.id.workout_title);
+            TextView summary = row.findViewById(R.id.workout_summary);
+            title.setText(TITLE_FMT.format(Instant.ofEpochMilli(s.startedAt).atZone(ZoneId.systemDefault())));
+            String size = Formatter.formatShortFileSize(parent.getContext(), storedBytes.get(position));
+            if (s.endedAt == 0) {
+                summary.setText(String.format(Locale.getDefault(), "In progress or interrupted · %s", size));
+            } else {
+                summary.setText(String.format(Locale.getDefault(), "%s · %,d steps · %d spm · %s",
+                        formatDuration(s.durationMs()), s.steps, s.avgCadence(), size));
+            }
+            return row;
+        }
+    }
+}
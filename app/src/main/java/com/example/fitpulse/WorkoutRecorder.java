@@ -0,0 +1,243 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.time.Clock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Records a workout session: step deltas, cadence, raw accel/gyro at game rate (~50 Hz)
+ * and raw heart-rate readings when the sensor and BODY_SENSORS permission are available.
+ * - Samples accumulate in a WorkoutSamples buffer on a sensor HandlerThread; every
+ *   CHUNK_MS the buffer is encoded into one compressed WorkoutChunk and written on the
+ *   DB executor (so an hour is ~120 rows, not ~360k).
+ * - Sample times are ms from the session start, taken from SensorEvent timestamps so
+ *   batched deliveries keep their real spacing.
+ * - One session at a time; WorkoutService keeps the process in the foreground while recording.
+ */
+public class WorkoutRecorder implements SensorEventListener {
+
+    private static final String TAG = "WorkoutRecorder";
+
+    /** Timeline slice per chunk. */
+    static final int CHUNK_MS = 30_000;
+    /** Raw motion sampling period (SENSOR_DELAY_GAME). */
+    static final int SAMPLING_PERIOD_US = 20_000;
+    /** Cadence is re-estimated at most this often from the step stream. */
+    static final int CADENCE_WINDOW_MS = 5_000;
+
+    private static WorkoutRecorder INSTANCE;
+
+    private final SensorManager sensorManager;
+    /** Where new sessions go: the current account's database in the app, fixed in tests. */
+    private final Supplier<AppDatabase> dbSource;
+    /** Database of the running session, taken at start() so an account switch can't split it. */
+    private AppDatabase db;
+    private final Clock clock;
+    private final Executor dbExecutor;
+    @Nullable private final Handler sensorHandler;
+
+    private final WorkoutSamples samples = new WorkoutSamples();
+    private final WorkoutChunkCodec codec = new WorkoutChunkCodec();
+
+    // Session state (sensor thread once recording)
+    @Nullable private WorkoutSession session;
+    private long firstEventNs = -1;
+    private int firstEventOffsetMs;
+    private int chunkSeq;
+    private int chunkStartMs;
+    private int baseCounter = -1;
+    private int sessionSteps;
+    private int cadenceT = 0, cadenceSteps = 0;
+    private int totalSamples;
+
+    private WorkoutRecorder(Context ctx) {
+        this((SensorManager) ctx.getApplicationContext().getSystemService(Context.SENSOR_SERVICE),
+                () -> AppDatabase.getInstance(ctx),
+                Clock.systemDefaultZone(),
+                Executors.newSingleThreadExecutor(),
+                newSensorHandler());
+    }
+
+    /**
+     * Wiring constructor for tests.
+     * @param dbExecutor must run tasks in submission order (session insert before its chunks)
+     * @param sensorHandler thread for sensor callbacks, or null for the caller's looper
+     */
+    @VisibleForTesting
+    WorkoutRecorder(SensorManager sensorManager, AppDatabase db, Clock clock, Executor dbExecutor,
+                    @Nullable Handler sensorHandler) {
+        this(sensorManager, () -> db, clock, dbExecutor, sensorHandler);
+    }
+
+    private WorkoutRecorder(SensorManager sensorManager, Supplier<AppDatabase> dbSource, Clock clock,
+                            Executor dbExecutor, @Nullable Handler sensorHandler) {
+        this.sensorManager = sensorManager;
+        this.dbSource = dbSource;
+        this.clock = clock;
+        this.dbExecutor = dbExecutor;
+        this.sensorHandler = sensorHandler;
+    }
+
+    public static synchronized WorkoutRecorder get(Context ctx) {
+        if (INSTANCE == null) INSTANCE = new WorkoutRecorder(ctx.getApplicationContext());
+        return INSTANCE;
+    }
+
+    private static Handler newSensorHandler() {
+        HandlerThread t = new HandlerThread("workout-sensors");
+        t.start();
+        return new Handler(t.getLooper());
+    }
+
+    public synchronized boolean isRecording() {
+        return session != null;
+    }
+
+    /** Start a new session; no-op if one is already running. */
+    public synchronized void start() {
+        if (session != null) return;
+        WorkoutSession s = new WorkoutSession(clock.millis());
+        session = s;
+        db = dbSource.get();
+        firstEventNs = -1;
+        chunkSeq = 0;
+        chunkStartMs = 0;
+        baseCounter = -1;
+        sessionSteps = 0;
+        cadenceT = 0;
+        cadenceSteps = 0;
+        totalSamples = 0;
+        samples.clear();
+        AppDatabase sdb = db;
+        dbExecutor.execute(() -> s.id = sdb.workoutDao().insertSession(s));
+
+        register(Sensor.TYPE_ACCELEROMETER, SAMPLING_PERIOD_US);
+        register(Sensor.TYPE_GYROSCOPE, SAMPLING_PERIOD_US);
+        register(Sensor.TYPE_STEP_COUNTER, SensorManager.SENSOR_DELAY_UI);
+        register(Sensor.TYPE_HEART_RATE, SensorManager.SENSOR_DELAY_NORMAL); // on-change sensor
+    }
+
+    /** Stop recording, flush the last chunk and close the session row. */
+    public synchronized void stop() {
+        if (session == null) return;
+        sensorManager.unregisterListener(this);
+        sealChunk(Math.max(chunkStartMs, samples.lastTime() + 1));
+
+        WorkoutSession s = session;
+        s.endedAt = clock.millis();
+        s.steps = sessionSteps;
+        s.sampleCount = totalSamples;
+        s.chunkCount = chunkSeq;
+        session = null;
+        AppDatabase sdb = db;
+        dbExecutor.execute(() -> sdb.workoutDao().updateSession(s));
+    }
+
+    private void register(int type, int periodUs) {
+        Sensor sensor = sensorManager.getDefaultSensor(type);
+        if (sensor == null) return;
+        try {
+            if (sensorHandler != null) {
+                sensorManager.registerListener(this, sensor, periodUs, sensorHandler);
+            } else {
+                sensorManager.registerListener(this, sensor, periodUs);
+            }
+        } catch (SecurityException e) {
+            // Heart rate without BODY_SENSORS: record the other streams anyway
+            Log.w(TAG, "No permission for sensor type " + type);
+        }
+    }
+
+    @Override
+    public synchronized void onSensorChanged(SensorEvent event) {
+        if (session == null) return;
+        int t = offsetMs(event.timestamp);
+
+        // Close the current slice first so every chunk covers exactly [start, start + CHUNK_MS)
+        while (t >= chunkStartMs + CHUNK_MS) {
+            sealChunk(chunkStartMs + CHUNK_MS);
+        }
+
+        switch (event.sensor.getType()) {
+            case Sensor.TYPE_ACCELEROMETER:
+                samples.add(WorkoutSamples.ACCEL, t, event.values[0], event.values[1], event.values[2]);
+                break;
+            case Sensor.TYPE_GYROSCOPE:
+                samples.add(WorkoutSamples.GYRO, t, event.values[0], event.values[1], event.values[2]);
+                break;
+            case Sensor.TYPE_STEP_COUNTER:
+                onStepCounter(t, (int) event.values[0]);
+                break;
+            case Sensor.TYPE_HEART_RATE:
+                int bpm = Math.round(event.values[0]);
+                if (event.accuracy == SensorManager.SENSOR_STATUS_NO_CONTACT
+                        || bpm < HeartRateManager.MIN_BPM || bpm > HeartRateManager.MAX_BPM) return;
+                samples.add(WorkoutSamples.HEART_RATE, t, bpm);
+                break;
+            default:
+                return;
+        }
+        totalSamples++;
+    }
+
+    private void onStepCounter(int t, int counter) {
+        if (baseCounter < 0 || counter < baseCounter) {
+            // First reading of the session (or counter reset): later readings are deltas from here
+            baseCounter = counter - sessionSteps;
+        }
+        sessionSteps = counter - baseCounter;
+        samples.add(WorkoutSamples.STEPS, t, sessionSteps);
+
+        if (t - cadenceT >= CADENCE_WINDOW_MS) {
+            int spm = (int) ((sessionSteps - cadenceSteps) * 60_000L / (t - cadenceT));
+            samples.add(WorkoutSamples.CADENCE, t, spm);
+            totalSamples++;
+            cadenceT = t;
+            cadenceSteps = sessionSteps;
+        }
+    }
+
+    /** Session-relative ms for a sensor timestamp (elapsed-realtime nanos). */
+    private int offsetMs(long timestampNs) {
+        if (firstEventNs < 0) {
+            firstEventNs = timestampNs;
+            firstEventOffsetMs = (int) Math.max(0, clock.millis() - session.startedAt);
+        }
+        return firstEventOffsetMs + (int) ((timestampNs - firstEventNs) / 1_000_000L);
+    }
+
+    /** Encode the buffered samples as chunk chunkSeq ending at endMs and queue the insert. */
+    private void sealChunk(int endMs) {
+        int n = samples.total();
+        if (n > 0) {
+            WorkoutSession s = session;
+            WorkoutChunk chunk = new WorkoutChunk(0, chunkSeq++, chunkStartMs, endMs, n, codec.encode(samples));
+            AppDatabase sdb = db;
+            dbExecutor.execute(() -> {
+                chunk.sessionId = s.id;
+                try {
+                    sdb.workoutDao().insertChunk(chunk);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Dropping workout chunk " + chunk.seq, e);
+                }
+            });
+            samples.clear();
+        }
+        chunkStartMs = endMs;
+    }
+
+    @Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+}
@@ -0,0 +1,85 @@
+package com.example.fitpulse;
+
+import java.util.Arrays;
+
+/**
+ * Columnar, growable buffer of workout sensor samples, one column set per stream.
+ * - Times are ms offsets from the session start.
+ * - Values are stored quantized as ints (value × SCALE[stream]), which is also what
+ *   WorkoutChunkCodec writes, so encode/decode round-trips exactly.
+ * Reused across chunks; not thread-safe.
+ */
+final class WorkoutSamples {
+
+    static final int ACCEL = 0;     // m/s², 0.01 resolution
+    static final int GYRO = 1;      // rad/s, 0.001 resolution
+    static final int STEPS = 2;     // steps since session start
+    static final int CADENCE = 3;   // steps per minute
+    static final int HEART_RATE = 4; // bpm, raw readings (empty without a sensor/permission)
+    static final int STREAMS = 5;
+
+    static final int[] DIMS = {3, 3, 1, 1, 1};
+    static final float[] SCALE = {100f, 1000f, 1f, 1f, 1f};
+
+    final int[] count = new int[STREAMS];
+    final int[][] times = new int[STREAMS][];
+    /** Interleaved quantized values: DIMS[stream] ints per sample. */
+    final int[][] values = new int[STREAMS][];
+
+    WorkoutSamples() {
+        for (int s = 0; s < STREAMS; s++) {
+            times[s] = new int[256];
+            values[s] = new int[256 * DIMS[s]];
+        }
+    }
+
+    void clear() {
+        Arrays.fill(count, 0);
+    }
+
+    int total() {
+        int n = 0;
+        for (int c : count) n += c;
+        return n;
+    }
+
+    void add(int stream, int tMs, float a, float b, float c) {
+        int n = count[stream];
+        ensureCapacity(stream, n + 1);
+        times[stream][n] = tMs;
+        int dims = DIMS[stream];
+        float scale = SCALE[stream];
+        int[] v = values[stream];
+        v[n * dims] = Math.round(a * scale);
+        if (dims > 1) {
+            v[n * dims + 1] = Math.round(b * scale);
+            v[n * dims + 2] = Math.round(c * scale);
+        }
+        count[stream] = n + 1;
+    }
+
+    void add(int stream, int tMs, float value) {
+        add(stream, tMs, value, 0f, 0f);
+    }
+
+    /** Dequantized value of sample i, dimension dim. */
+    float value(int stream, int i, int dim) {
+        return values[stream][i * DIMS[stream] + dim] / SCALE[stream];
+    }
+
+    /** Last sample time across all streams (0 when empty). */
+    int lastTime() {
+        int t = 0;
+        for (int s = 0; s < STREAMS; s++) {
+            if (count[s] > 0) t = Math.max(t, times[s][count[s] - 1]);
+        }
+        return t;
+    }
+
+    void ensureCapacity(int stream, int n) {
+        if (n <= times[stream].length) return;
+        int cap = Math.max(n, times[stream].length * 2);
+        times[stream] = Arrays.copyOf(times[stream], cap);
+        values[stream] = Arrays.copyOf(values[stream], cap * DIMS[stream]);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.fitpulse;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.IBinder;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Foreground service that owns a running WorkoutRecorder session, so sensors keep
+ * delivering at full rate while the screen is off or another app is in front.
+ * Start/stop through start(Context) / stop(Context).
+ */
+public class WorkoutService extends Service {
+
+    static final String ACTION_STOP = "com.example.fitpulse.action.STOP_WORKOUT";
+    private static final String CHANNEL_ID = "workout_channel";
+    private static final int NOTIFICATION_ID = 1034;
+
+    public static void start(Context ctx) {
+        ContextCompat.startForegroundService(ctx, new Intent(ctx, WorkoutService.class));
+    }
+
+    public static void stop(Context ctx) {
+        ctx.startService(new Intent(ctx, WorkoutService.class).setAction(ACTION_STOP));
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        WorkoutRecorder recorder = WorkoutRecorder.get(this);
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            recorder.stop();
+            stopForeground(STOP_FOREGROUND_REMOVE);
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+
+        Notification n = buildNotification();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            startForeground(NOTIFICATION_ID, n, ServiceInfo.FOREGROUND_SERVICE_TYPE_HEALTH);
+        } else {
+            startForeground(NOTIFICATION_ID, n);
+        }
+        recorder.start();
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        WorkoutRecorder.get(this).stop();
+        super.onDestroy();
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private Notification buildNotification() {
+        NotificationManager nm = getSystemService(NotificationManager.class);
+        nm.createNotificationChannel(new NotificationChannel(CHANNEL_ID, "Workout recording",
+                NotificationManager.IMPORTANCE_LOW));
+
+        PendingIntent open = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class)
+                        .putExtra(MainActivity.EXTRA_TAB, R.id.nav_monitor)
+                        .addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP),
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle("Workout in progress")
+                .setContentText("Recording steps and motion sensors")
+                .setOngoing(true)
+                .setContentIntent(open)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .build();
+    }
+}
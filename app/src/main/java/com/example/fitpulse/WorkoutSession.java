@@ -0,0 +1,40 @@
+package com.example.fitpulse;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * One recorded workout. Sensor samples live in WorkoutChunk rows; this row only
+ * carries the summary shown in the session list.
+ */
+@Entity(tableName = "workouts")
+public class WorkoutSession {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    // Wall-clock millis; endedAt stays 0 while recording (or if the app died mid-session)
+    public long startedAt;
+    public long endedAt;
+
+    // Steps taken during the session
+    public int steps;
+
+    // Totals across all chunks
+    public int sampleCount;
+    public int chunkCount;
+
+    public WorkoutSession(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long durationMs() {
+        return endedAt > startedAt ? endedAt - startedAt : 0;
+    }
+
+    /** Average steps per minute over the whole session. */
+    public int avgCadence() {
+        long ms = durationMs();
+        return ms > 0 ? (int) (steps * 60_000L / ms) : 0;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Small timeline strip for one workout chunk: accelerometer magnitude as a min/max
+ * envelope per pixel column, with a tick for every recorded step reading.
+ * The envelope is computed in setSamples()/onSizeChanged, so onDraw only draws
+ * preallocated arrays.
+ */
+public class WorkoutTraceView extends View {
+
+    private static final float G = 9.81f;
+
+    private final Paint tracePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint stepPaint = new Paint();
+
+    @Nullable private WorkoutSamples samples;
+    private int startMs, endMs;
+
+    /** drawLines() input: one vertical segment per column (x, yMin, x, yMax). */
+    private float[] envelope = new float[0];
+    private int envelopeFloats;
+    private float[] stepTicks = new float[0];
+    private int stepTickFloats;
+
+    public WorkoutTraceView(Context context) {
+        this(context, null);
+    }
+
+    public WorkoutTraceView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        tracePaint.setColor(Color.parseColor("#3F51B5"));
+        tracePaint.setStrokeWidth(2f);
+        stepPaint.setColor(Color.parseColor("#2ECC71"));
+        stepPaint.setStrokeWidth(2f);
+    }
+
+    /** Show samples covering [startMs, endMs); null clears the strip. */
+    public void setSamples(@Nullable WorkoutSamples samples, int startMs, int endMs) {
+        this.samples = samples;
+        this.startMs = startMs;
+        this.endMs = Math.max(startMs + 1, endMs);
+        rebuild();
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        rebuild();
+    }
+
+    private void rebuild() {
+        envelopeFloats = 0;
+        stepTickFloats = 0;
+        int w = getWidth(), h = getHeight();
+        if (samples == null || w == 0 || h == 0) return;
+
+        if (envelope.length < w * 4) envelope = new float[w * 4];
+        float span = endMs - startMs;
+        float scaleY = h / (2f * G); // 0..2g fills the height
+
+        int n = samples.count[WorkoutSamples.ACCEL];
+        int[] t = samples.times[WorkoutSamples.ACCEL];
+        int col = -1;
+        float lo = 0, hi = 0;
+        for (int i = 0; i < n; i++) {
+            float x = samples.value(WorkoutSamples.ACCEL, i, 0);
+            float y = samples.value(WorkoutSamples.ACCEL, i, 1);
+            float z = samples.value(WorkoutSamples.ACCEL, i, 2);
+            float mag = (float) Math.sqrt(x * x + y * y + z * z);
+            int c = Math.min(w - 1, (int) ((t[i] - startMs) / span * w));
+            if (c != col) {
+                if (col >= 0) putColumn(col, lo, hi, h, scaleY);
+                col = c;
+                lo = hi = mag;
+            } else {
+                lo = Math.min(lo, mag);
+                hi = Math.max(hi, mag);
+            }
+        }
+        if (col >= 0) putColumn(col, lo, hi, h, scaleY);
+
+        int steps = samples.count[WorkoutSamples.STEPS];
+        if (stepTicks.length < steps * 4) stepTicks = new float[steps * 4];
+        int[] st = samples.times[WorkoutSamples.STEPS];
+        for (int i = 0; i < steps; i++) {
+            float x = (st[i] - startMs) / span * w;
+            stepTicks[stepTickFloats++] = x;
+            stepTicks[stepTickFloats++] = h - h / 6f;
+            stepTicks[stepTickFloats++] = x;
+            stepTicks[stepTickFloats++] = h;
+        }
+    }
+
+    private void putColumn(int col, float lo, float hi, int h, float scaleY) {
+        envelope[envelopeFloats++] = col;
+        envelope[envelopeFloats++] = Math.max(0, h - lo * scaleY);
+        envelope[envelopeFloats++] = col;
+        envelope[envelopeFloats++] = Math.max(0, h - hi * scaleY - 1);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (envelopeFloats > 0) canvas.drawLines(envelope, 0, envelopeFloats, tracePaint);
+        if (stepTickFloats > 0) canvas.drawLines(stepTicks, 0, stepTickFloats, stepPaint);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.fitpulse;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.LruCache;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * YearHeatmapActivity
+ * - One CalendarHeatmapView row per 53-week slice, newest first; scrolling down goes back in
+ *   time as far as the oldest stored day (Room or archive).
+ * - Slices are loaded lazily on one io thread (range read into reused StepColumns) and kept
+ *   in a small LRU cache; the next older slice is prefetched, so scrolling never waits on a query.
+ * - Tapping a day shows its total in the header.
+ */
+public class YearHeatmapActivity extends AppCompatActivity {
+
+    /** Built slices kept (each is one int[371]). */
+    private static final int CACHE_SLICES = 6;
+    /** Upper bound on slices when the history is very old. */
+    private static final int MAX_SLICES = 20;
+
+    private static final DateTimeFormatter RANGE_FMT = DateTimeFormatter.ofPattern("MMM yyyy", Locale.getDefault());
+    private static final DateTimeFormatter DAY_FMT = DateTimeFormatter.ofPattern("EEE d MMM yyyy", Locale.getDefault());
+
+    private final LruCache<Integer, CalendarHeatmapView.YearSlice> cache = new LruCache<>(CACHE_SLICES);
+    private final Set<Integer> loading = ConcurrentHashMap.newKeySet();
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    /** Reused for every range read on the io thread. */
+    private final StepColumns ioColumns = new StepColumns(CalendarHeatmapView.DAYS);
+
+    private StepHistory history;
+    private LocalDate today;
+    private int goal;
+    private int sliceCount = 1;
+
+    private SliceAdapter adapter;
+    private ListView list;
+    private TextView dayText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_year_heatmap);
+
+        findViewById(R.id.btn_back_heatmap).setOnClickListener(v -> finish());
+        dayText = findViewById(R.id.heatmap_day);
+        list = findViewById(R.id.list_heatmap);
+
+        history = StepHistory.get(this);
+        today = LocalDate.now();
+        goal = UserSession.prefs(this, SettingsFragment.PREFS_NAME).getInt(SettingsFragment.STEP_GOAL_KEY, 10000);
+
+        adapter = new SliceAdapter();
+        list.setAdapter(adapter);
+
+        // How far back there is anything to show
+        io.execute(() -> {
+            LocalDate first = history.firstDay();
+            int slices = 1;
+            if (first != null) {
+                long weeks = (StepStats.weekStart(today).toEpochDay() - StepStats.weekStart(first).toEpochDay()) / 7 + 1;
+                slices = (int) Math.min(MAX_SLICES, (weeks + CalendarHeatmapView.WEEKS - 1) / CalendarHeatmapView.WEEKS);
+            }
+            int count = Math.max(1, slices);
+            runOnUiThread(() -> {
+                if (isDestroyed()) return;
+                sliceCount = count;
+                adapter.notifyDataSetChanged();
+            });
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        io.shutdownNow();
+        super.onDestroy();
+    }
+
+    /** Queue a background load of slice index unless it is cached or already loading. */
+    private void load(int index) {
+        if (index < 0 || index >= sliceCount || cache.get(index) != null || !loading.add(index)) return;
+        io.execute(() -> {
+            try {
+                LocalDate first = StepStats.weekStart(today)
+                        .minusWeeks((long) CalendarHeatmapView.WEEKS * (index + 1) - 1);
+                history.read(first, first.plusDays(CalendarHeatmapView.DAYS - 1), ioColumns);
+                CalendarHeatmapView.YearSlice slice = CalendarHeatmapView.YearSlice.build(today, index, ioColumns);
+                cache.put(index, slice);
+                list.post(() -> bindVisible(index, slice));
+            } finally {
+                loading.remove(index);
+            }
+        });
+    }
+
+    /** Hand a freshly loaded slice to its row if that row is on screen. */
+    private void bindVisible(int index, CalendarHeatmapView.YearSlice slice) {
+        if (isDestroyed()) return;
+        int pos = index - list.getFirstVisiblePosition();
+        if (pos < 0 || pos >= list.getChildCount()) return;
+        CalendarHeatmapView heatmap = list.getChildAt(pos).findViewById(R.id.heatmap);
+        heatmap.setData(slice, goal);
+    }
+
+    private class SliceAdapter extends BaseAdapter {
+        @Override public int getCount() { return sliceCount; }
+        @Override public Integer getItem(int position) { return position; }
+        @Override public long getItemId(int position) { return position; }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View row = convertView;
+            if (row == null) {
+                row = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_heatmap_year, parent, false);
+                CalendarHeatmapView heatmap = row.findViewById(R.id.heatmap);
+                heatmap.setOnDayTappedListener((day, steps) -> dayText.setText(
+                        String.format(Locale.getDefault(), "%s: %,d steps", DAY_FMT.format(day), steps)));
+            }
+            LocalDate first = StepStats.weekStart(today).minusWeeks((long) CalendarHeatmapView.WEEKS * (position + 1) - 1);
+            LocalDate last = first.plusDays(CalendarHeatmapView.DAYS - 1);
+            TextView title = row.findViewById(R.id.heatmap_title);
+            title.setText(position == 0 ? "Last 12 months"
+                    : RANGE_FMT.format(first) + " – " + RANGE_FMT.format(last));
+
+            // Cached: bind now. Otherwise show an empty grid until the load lands
+            CalendarHeatmapView heatmap = row.findViewById(R.id.heatmap);
+            CalendarHeatmapView.YearSlice slice = cache.get(position);
+            heatmap.setData(slice, goal);
+            if (slice == null) load(position);
+            load(position + 1);
+            return row;
+        }
+    }
+}
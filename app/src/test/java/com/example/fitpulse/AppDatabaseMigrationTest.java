@@ -0,0 +1,53 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.List;
+
+/** A version-1 step_db must open on the current schema with its history intact. */
+@RunWith(RobolectricTestRunner.class)
+public class AppDatabaseMigrationTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void migrate1To2_keepsHistoryAndQueuesItForSync() throws Exception {
+        File file = new File(tmp.getRoot(), "step_db");
+        // Schema exactly as Room created it for version 1
+        try (SQLiteDatabase v1 = SQLiteDatabase.openOrCreateDatabase(file, null)) {
+            v1.execSQL("CREATE TABLE IF NOT EXISTS `steps` (`date` TEXT NOT NULL, `steps` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`date`))");
+            v1.execSQL("INSERT INTO steps VALUES ('2025-06-01', 4000), ('2025-06-02', 6500), ('2025-06-03', 9100)");
+            v1.setVersion(1);
+        }
+
+        Context ctx = ApplicationProvider.getApplicationContext();
+        AppDatabase db = Room.databaseBuilder(ctx, AppDatabase.class, file.getAbsolutePath())
+                .addMigrations(AppDatabase.MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+        try {
+            List<StepEntry> all = db.stepDao().getAll();
+            assertEquals(3, all.size());
+            assertEquals(6500, all.get(1).steps);
+            assertEquals(3, db.stepDao().countPendingChanges());
+            for (StepEntry e : all) assertTrue(e.updatedAt > 0);
+        } finally {
+            db.close();
+        }
+    }
+}
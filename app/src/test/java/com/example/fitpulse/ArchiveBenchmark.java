@@ -0,0 +1,114 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk size and range-scan speed: everything in the Room steps table vs. the same
+ * days in a StepArchive file.
+ * - Size compares the SQLite file (+WAL) with the archive file.
+ * - Scans read 1 week / 1 month / 1 year / everything into a reused StepColumns.
+ * - Writes build/reports/benchmarks/archive.json.
+ * Quick tier: 1, 10 and 50 years of daily rows; full tier adds 200 years.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ArchiveBenchmark {
+
+    private static final LocalDate END = LocalDate.of(2025, 6, 30);
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+    @Rule public final BenchmarkReport report = new BenchmarkReport("archive");
+
+    @Test
+    public void archiveVsRoom() throws Exception {
+        List<Integer> years = new ArrayList<>(List.of(1, 10, 50));
+        if (Bench.FULL) years.add(200);
+        for (int y : years) run(y, report);
+    }
+
+    private void run(int years, BenchmarkReport report) throws Exception {
+        Context ctx = ApplicationProvider.getApplicationContext();
+        SyntheticHistory.Dataset ds = new SyntheticHistory.Dataset(years + "y",
+                SyntheticHistory.Granularity.DAILY, (int) (years * 365.25));
+        File dbFile = new File(tmp.getRoot(), ds.name + ".db");
+        AppDatabase db = Room.databaseBuilder(ctx, AppDatabase.class, dbFile.getAbsolutePath())
+                .allowMainThreadQueries()
+                .build();
+        try {
+            long rows = SyntheticHistory.fill(db, ds, END, 42);
+            StepDao dao = db.stepDao();
+            LocalDate first = END.minusDays(ds.days - 1);
+            long dbBytes = dbFile.length() + new File(dbFile.getPath() + "-wal").length();
+
+            StepColumns all = new StepColumns().read(dao, first, END);
+            File archiveFile = new File(tmp.getRoot(), ds.name + ".bin");
+            long archiveBytes = StepArchive.write(archiveFile, all);
+
+            Map<String, Object> size = report.row();
+            size.put("dataset", ds.name);
+            size.put("case", "size");
+            size.put("rows", rows);
+            size.put("roomBytes", dbBytes);
+            size.put("archiveBytes", archiveBytes);
+            size.put("roomBytesPerRow", (double) dbBytes / rows);
+            size.put("archiveBytesPerRow", (double) archiveBytes / rows);
+
+            int runs = rows > 10_000 ? 20 : 50;
+            StepColumns out = new StepColumns();
+            try (StepArchive.Reader reader = StepArchive.Reader.open(archiveFile)) {
+                scan(report, ds, "week", runs, dao, reader, out, END.minusDays(6), END);
+                scan(report, ds, "month", runs, dao, reader, out, END.minusMonths(1).plusDays(1), END);
+                scan(report, ds, "year", runs, dao, reader, out, END.minusYears(1).plusDays(1), END);
+                scan(report, ds, "all", Math.max(3, runs / 4), dao, reader, out, first, END);
+                // Same week deep in the past: archive seeks straight to one block
+                LocalDate old = first.plusDays(ds.days / 4);
+                scan(report, ds, "old_week", runs, dao, reader, out, old, old.plusDays(6));
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    private static void scan(BenchmarkReport report, SyntheticHistory.Dataset ds, String range, int runs,
+                             StepDao dao, StepArchive.Reader reader, StepColumns out,
+                             LocalDate from, LocalDate to) {
+        int fromKey = StepColumns.dayKey(from), toKey = StepColumns.dayKey(to);
+        long[] room = Bench.time(2, runs, () -> out.read(dao, from, to));
+        int roomRows = out.size;
+        long[] archive = Bench.time(2, runs, () -> {
+            try {
+                reader.read(fromKey, toKey, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertEquals(roomRows, out.size);
+
+        for (String source : new String[]{"room", "archive"}) {
+            Map<String, Object> row = report.row();
+            row.put("dataset", ds.name);
+            row.put("case", "scan_" + range);
+            row.put("source", source);
+            row.put("rowsRead", roomRows);
+            BenchmarkReport.putTimings(row, "room".equals(source) ? room : archive);
+        }
+    }
+}
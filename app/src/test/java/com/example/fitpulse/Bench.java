@@ -0,0 +1,35 @@
+package com.example.fitpulse;
+
+import java.util.Arrays;
+
+/**
+ * Minimal timing helpers for JVM benchmarks (warm-up, repeated runs, percentiles).
+ * Not a replacement for a device microbenchmark, but stable enough to spot scaling trends.
+ */
+final class Bench {
+
+    /** Benchmark tier selected with -Pfitpulse.bench=quick|full. */
+    static final boolean FULL = "full".equals(System.getProperty("fitpulse.bench", "quick"));
+
+    private Bench() {}
+
+    /** Run op warmup times untimed, then runs times; returns per-run nanos. */
+    static long[] time(int warmup, int runs, Runnable op) {
+        for (int i = 0; i < warmup; i++) op.run();
+        long[] samples = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long t0 = System.nanoTime();
+            op.run();
+            samples[i] = System.nanoTime() - t0;
+        }
+        return samples;
+    }
+
+    /** Percentile (0..100) of the samples, in milliseconds. */
+    static double percentileMs(long[] samples, double p) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))] / 1e6;
+    }
+}
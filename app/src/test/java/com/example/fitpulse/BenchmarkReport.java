@@ -0,0 +1,89 @@
+package com.example.fitpulse;
+
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Machine-readable benchmark output: a JSON array of flat rows written to
+ * build/reports/benchmarks/<name>.json (one object per measurement).
+ * - Used as a rule: {@code @Rule public final BenchmarkReport report = new BenchmarkReport("x");}
+ *   Tests only add rows; the file is written when the test finishes, also when a later
+ *   assertion failed, so the numbers that tripped it are kept. No rows, no file.
+ * - Nothing goes to the console; the file is the output.
+ */
+final class BenchmarkReport extends TestWatcher {
+
+    static final File DIR = new File("build/reports/benchmarks");
+
+    private final String name;
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+
+    BenchmarkReport(String name) {
+        this.name = name;
+    }
+
+    /** Start a new row; values are emitted in insertion order. */
+    Map<String, Object> row() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        rows.add(row);
+        return row;
+    }
+
+    /** Common timing columns for a set of samples. */
+    static void putTimings(Map<String, Object> row, long[] samples) {
+        row.put("runs", samples.length);
+        row.put("medianMs", Bench.percentileMs(samples, 50));
+        row.put("p90Ms", Bench.percentileMs(samples, 90));
+    }
+
+    String toJson() {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < rows.size(); i++) {
+            sb.append("  {");
+            boolean first = true;
+            for (Map.Entry<String, Object> e : rows.get(i).entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                sb.append('"').append(e.getKey()).append("\":");
+                Object v = e.getValue();
+                if (v instanceof Double || v instanceof Float) {
+                    sb.append(String.format(Locale.ROOT, "%.3f", ((Number) v).doubleValue()));
+                } else if (v instanceof Number || v instanceof Boolean) {
+                    sb.append(v);
+                } else {
+                    sb.append('"').append(String.valueOf(v).replace("\"", "\\\"")).append('"');
+                }
+            }
+            sb.append(i < rows.size() - 1 ? "},\n" : "}\n");
+        }
+        return sb.append("]\n").toString();
+    }
+
+    @Override
+    protected void finished(Description description) {
+        if (rows.isEmpty()) return;
+        try {
+            write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write() throws IOException {
+        if (!DIR.isDirectory() && !DIR.mkdirs()) throw new IOException("Cannot create " + DIR);
+        try (Writer w = new FileWriter(new File(DIR, name + ".json"))) {
+            w.write(toJson());
+        }
+    }
+}
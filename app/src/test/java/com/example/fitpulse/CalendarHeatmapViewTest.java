@@ -0,0 +1,97 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/** Year slices, color buckets and tap hit-testing of CalendarHeatmapView. */
+@RunWith(RobolectricTestRunner.class)
+public class CalendarHeatmapViewTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 7, 2); // a Wednesday
+
+    @Test
+    public void slice_coversFiftyThreeWeeksEndingThisWeek() {
+        StepColumns cols = new StepColumns();
+        cols.add(StepColumns.dayKey(TODAY.minusDays(400)), 1);   // before the slice
+        cols.add(StepColumns.dayKey(TODAY.minusDays(364)), 4_000);
+        cols.add(StepColumns.dayKey(TODAY), 12_000);
+
+        CalendarHeatmapView.YearSlice s = CalendarHeatmapView.YearSlice.build(TODAY, 0, cols);
+
+        assertEquals(DayOfWeek.MONDAY, s.firstDate().getDayOfWeek());
+        assertEquals(DayOfWeek.SUNDAY, s.lastDate().getDayOfWeek());
+        assertTrue(!TODAY.isBefore(s.lastDate().minusDays(6)) && !TODAY.isAfter(s.lastDate()));
+        assertEquals(4_000, s.totals[(int) (TODAY.minusDays(364).toEpochDay() - s.firstDay)]);
+        assertEquals(12_000, s.totals[(int) (TODAY.toEpochDay() - s.firstDay)]);
+        assertEquals(-1, s.totals[(int) (TODAY.plusDays(1).toEpochDay() - s.firstDay)]);
+        long sum = 0;
+        for (int v : s.totals) if (v > 0) sum += v;
+        assertEquals(16_000, sum);
+
+        // The next slice back ends the day before this one starts
+        CalendarHeatmapView.YearSlice older = CalendarHeatmapView.YearSlice.build(TODAY, 1, cols);
+        assertEquals(s.firstDay - CalendarHeatmapView.DAYS, older.firstDay);
+        assertEquals(1, older.totals[(int) (TODAY.minusDays(400).toEpochDay() - older.firstDay)]);
+    }
+
+    @Test
+    public void levels_followGoalFractions() {
+        assertEquals(0, CalendarHeatmapView.level(0, 10_000));
+        assertEquals(1, CalendarHeatmapView.level(2_000, 10_000));
+        assertEquals(2, CalendarHeatmapView.level(4_000, 10_000));
+        assertEquals(3, CalendarHeatmapView.level(9_999, 10_000));
+        assertEquals(4, CalendarHeatmapView.level(10_000, 10_000));
+    }
+
+    @Test
+    public void tap_hitsTheCellUnderTheFinger() {
+        CalendarHeatmapView view = new CalendarHeatmapView(ApplicationProvider.getApplicationContext());
+        StepColumns cols = new StepColumns();
+        cols.add(StepColumns.dayKey(TODAY.minusDays(10)), 7_777);
+        CalendarHeatmapView.YearSlice slice = CalendarHeatmapView.YearSlice.build(TODAY, 0, cols);
+        view.setData(slice, 10_000);
+        view.measure(View.MeasureSpec.makeMeasureSpec(1060, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+
+        float pitch = 1060f / CalendarHeatmapView.WEEKS;
+        float gridTop = view.getMeasuredHeight() - 7 * pitch;
+        int n = (int) (TODAY.minusDays(10).toEpochDay() - slice.firstDay);
+        float x = (n / 7 + 0.5f) * pitch, y = gridTop + (n % 7 + 0.5f) * pitch;
+
+        LocalDate[] tapped = {null};
+        int[] steps = {-1};
+        view.setOnDayTappedListener((day, s) -> {
+            tapped[0] = day;
+            steps[0] = s;
+        });
+        assertEquals(n, view.cellAt(x, y));
+        view.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0));
+        view.onTouchEvent(MotionEvent.obtain(0, 1, MotionEvent.ACTION_UP, x, y, 0));
+        assertEquals(TODAY.minusDays(10), tapped[0]);
+        assertEquals(7_777, steps[0]);
+
+        // Outside the grid and future days are not cells
+        assertEquals(-1, view.cellAt(x, gridTop - pitch));
+        int future = (int) (TODAY.plusDays(1).toEpochDay() - slice.firstDay);
+        assertEquals(-1, view.cellAt((future / 7 + 0.5f) * pitch, gridTop + (future % 7 + 0.5f) * pitch));
+
+        // Drawing works on a plain canvas
+        Bitmap bmp = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bmp));
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.fitpulse.server.ChallengeBoard;
+import com.example.fitpulse.server.ChallengeServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Group challenge with 100k participants: ChallengeClient pushes to an embedded ChallengeServer
+ * over loopback HTTP from several threads while a watcher keeps a Leaderboard current from
+ * board deltas. Push/board latency and in-process ranking cost go to
+ * build/reports/benchmarks/challenge.json. The full tier adds two more rounds of pushes.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ChallengeLoadTest {
+
+    private static final String CHALLENGE = "load";
+    private static final LocalDate START = LocalDate.of(2025, 6, 1);
+    private static final int DAYS = 7;
+    private static final int PARTICIPANTS = 100_000;
+    /** Within the JDK client's keep-alive cache (5 per host), so pushes reuse their sockets. */
+    private static final int THREADS = 4;
+    private static final int TOP = 50;
+
+    private static final String[] IDS = new String[PARTICIPANTS];
+
+    static {
+        for (int p = 0; p < PARTICIPANTS; p++) IDS[p] = String.format("p%06d", p);
+    }
+
+    @Rule public final BenchmarkReport report = new BenchmarkReport("challenge");
+
+    private ChallengeServer server;
+    private ChallengeClient client;
+    /** What each participant last sent per challenge day: the reference ranking. */
+    private final int[][] sent = new int[PARTICIPANTS][DAYS];
+
+    @Before
+    public void setUp() throws Exception {
+        server = ChallengeServer.local().start();
+        server.create(CHALLENGE, START, START.plusDays(DAYS - 1));
+        client = new ChallengeClient(server.baseUrl());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private static String id(int p) {
+        return IDS[p];
+    }
+
+    /** Push days [from, to) for participants p ≡ t (mod THREADS); returns per-request nanos. */
+    private long[] pushRound(int t, int from, int to, long seed) throws Exception {
+        SplittableRandom random = new SplittableRandom(seed + t);
+        long[] nanos = new long[(PARTICIPANTS - t + THREADS - 1) / THREADS];
+        int n = 0;
+        for (int p = t; p < PARTICIPANTS; p += THREADS) {
+            List<StepEntry> days = new ArrayList<>(to - from);
+            for (int d = from; d < to; d++) {
+                int steps = random.nextInt(2_000, 15_000);
+                sent[p][d] = steps;
+                days.add(new StepEntry(START.plusDays(d).format(StepStats.DB_FMT), steps));
+            }
+            long t0 = System.nanoTime();
+            ChallengeClient.Posted posted = client.push(CHALLENGE, id(p), "Walker " + p, days);
+            nanos[n++] = System.nanoTime() - t0;
+            assertTrue(posted.rank >= 1);
+        }
+        return nanos;
+    }
+
+    private long[] pushAll(int from, int to, long seed) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> parts = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                parts.add(pool.submit(() -> pushRound(thread, from, to, seed)));
+            }
+            List<long[]> all = new ArrayList<>();
+            int total = 0;
+            for (Future<long[]> f : parts) {
+                long[] part = f.get();
+                all.add(part);
+                total += part.length;
+            }
+            long[] merged = new long[total];
+            int at = 0;
+            for (long[] part : all) {
+                System.arraycopy(part, 0, merged, at, part.length);
+                at += part.length;
+            }
+            return merged;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long score(int p) {
+        long s = 0;
+        for (int steps : sent[p]) s += steps;
+        return s;
+    }
+
+    /** Participants in server order: steps descending, then id. */
+    private List<Integer> referenceOrder() {
+        List<Integer> order = new ArrayList<>(PARTICIPANTS);
+        for (int p = 0; p < PARTICIPANTS; p++) order.add(p);
+        Collections.sort(order, (a, b) -> {
+            long sa = score(a), sb = score(b);
+            return sa != sb ? Long.compare(sb, sa) : id(a).compareTo(id(b));
+        });
+        return order;
+    }
+
+    private static void assertSameBoard(List<ChallengeClient.Standing> expected, List<ChallengeClient.Standing> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).id, actual.get(i).id);
+            assertEquals(expected.get(i).score, actual.get(i).score);
+            assertEquals(i + 1, actual.get(i).rank);
+        }
+    }
+
+    @Test
+    public void hundredThousandParticipants_rankAndDeltasStayExact() throws Exception {
+        int watcher = 4242;
+
+        // Everyone joins with their first three days
+        long t0 = System.nanoTime();
+        long[] joins = pushAll(0, 3, 1);
+        double joinSec = (System.nanoTime() - t0) / 1e9;
+        Map<String, Object> row = report.row();
+        row.put("op", "join");
+        row.put("requests", joins.length);
+        row.put("requestsPerSec", joins.length / joinSec);
+        row.put("p50Ms", Bench.percentileMs(joins, 50));
+        row.put("p99Ms", Bench.percentileMs(joins, 99));
+        assertEquals(PARTICIPANTS, server.board(CHALLENGE).participants());
+
+        if (Bench.FULL) {
+            for (int round = 1; round <= 2; round++) {
+                long[] updates = pushAll(2 + round, 3 + round, 100 + round);
+                row = report.row();
+                row.put("op", "update_round_" + round);
+                row.put("requests", updates.length);
+                row.put("p50Ms", Bench.percentileMs(updates, 50));
+                row.put("p99Ms", Bench.percentileMs(updates, 99));
+            }
+        }
+
+        // The full board and the watcher's own rank match the reference ranking
+        List<Integer> order = referenceOrder();
+        Leaderboard board = new Leaderboard(TOP);
+        board.apply(client.board(CHALLENGE, id(watcher), TOP, 0));
+        assertEquals(PARTICIPANTS, board.participants());
+        for (int i = 0; i < TOP; i++) {
+            assertEquals(id(order.get(i)), board.rows().get(i).id);
+            assertEquals(score(order.get(i)), board.rows().get(i).score);
+        }
+        assertNotNull(board.me());
+        assertEquals(order.indexOf(watcher) + 1, board.me().rank);
+
+        // Trickle of increases: each refresh is a small delta and rebuilds the same top as a full fetch
+        SplittableRandom random = new SplittableRandom(7);
+        int incremental = 0, refreshes = 0;
+        List<Long> refreshNanos = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // Mostly the leaders (so the top keeps moving), sometimes anyone
+            int p = random.nextInt(4) == 0 ? random.nextInt(PARTICIPANTS) : order.get(random.nextInt(TOP * 2));
+            int day = DAYS - 1;
+            sent[p][day] += random.nextInt(100, 3_000);
+            client.push(CHALLENGE, id(p), "Walker " + p, Collections.singletonList(
+                    new StepEntry(START.plusDays(day).format(StepStats.DB_FMT), sent[p][day])));
+            if (i % 4 == 3) {
+                long r0 = System.nanoTime();
+                ChallengeClient.Delta d = client.board(CHALLENGE, id(watcher), TOP, board.since());
+                refreshNanos.add(System.nanoTime() - r0);
+                if (!d.full) incremental++;
+                refreshes++;
+                assertTrue("only the 4 pushes since the last refresh can be in it", d.entries.size() <= 4);
+                board.apply(d);
+                assertSameBoard(client.board(CHALLENGE, id(watcher), TOP, 0).entries, board.rows());
+            }
+        }
+        assertEquals("scores only grew, so every refresh should be a delta", refreshes, incremental);
+        order = referenceOrder();
+        for (int i = 0; i < TOP; i++) assertEquals(id(order.get(i)), board.rows().get(i).id);
+        assertEquals(order.indexOf(watcher) + 1, board.me().rank);
+
+        long[] deltas = new long[refreshNanos.size()];
+        for (int i = 0; i < deltas.length; i++) deltas[i] = refreshNanos.get(i);
+        row = report.row();
+        row.put("op", "board_delta");
+        row.put("requests", deltas.length);
+        row.put("p50Ms", Bench.percentileMs(deltas, 50));
+        row.put("p99Ms", Bench.percentileMs(deltas, 99));
+
+        // A corrected (lower) day can reorder unchanged rows, so the next answer is the full board
+        int leader = order.get(0);
+        sent[leader][0] = 0;
+        client.push(CHALLENGE, id(leader), "Walker " + leader, Collections.singletonList(
+                new StepEntry(START.format(StepStats.DB_FMT), 0)));
+        ChallengeClient.Delta afterDrop = client.board(CHALLENGE, id(watcher), TOP, board.since());
+        assertTrue(afterDrop.full);
+        board.apply(afterDrop);
+        order = referenceOrder();
+        for (int i = 0; i < TOP; i++) assertEquals(id(order.get(i)), board.rows().get(i).id);
+
+        inProcessRanking(report);
+    }
+
+    /** Ranking cost without HTTP: score moves and top-k reads on the 100k board. */
+    private void inProcessRanking(BenchmarkReport report) {
+        ChallengeBoard b = server.board(CHALLENGE);
+        SplittableRandom random = new SplittableRandom(11);
+        LocalDate day = START.plusDays(DAYS - 1);
+        int moves = 100_000;
+        long[] postSamples = Bench.time(1, 3, () -> {
+            for (int i = 0; i < moves; i++) {
+                int p = random.nextInt(PARTICIPANTS);
+                sent[p][DAYS - 1] += 10;
+                Map<LocalDate, Integer> days = new HashMap<>();
+                days.put(day, sent[p][DAYS - 1]);
+                b.post(id(p), "Walker " + p, days);
+            }
+        });
+        int reads = 10_000;
+        long[] topSamples = Bench.time(1, 3, () -> {
+            for (int i = 0; i < reads; i++) b.delta(id(i), 10, 0);
+        });
+        double usPerPost = Bench.percentileMs(postSamples, 50) * 1000 / moves;
+        double usPerTop = Bench.percentileMs(topSamples, 50) * 1000 / reads;
+
+        Map<String, Object> row = report.row();
+        row.put("op", "in_process");
+        row.put("participants", b.participants());
+        row.put("usPerScoreMove", usPerPost);
+        row.put("usPerTop10WithRank", usPerTop);
+        // O(log n): far below anything a linear re-sort of 100k would take (milliseconds)
+        assertTrue(usPerPost + " us per score move", usPerPost < 50);
+        assertTrue(usPerTop + " us per top-10 read", usPerTop < 50);
+        assertEquals(PARTICIPANTS, b.participants());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entity-list reads vs StepColumns for "a range of history → per-week totals".
+ * - Entity path: getRange() → List<StepEntry> → HashMap<String,Integer> → per-day lookups.
+ * - Columnar path: queryRangeColumns() → reused int[] columns → forward walk.
+ * Reports latency and bytes allocated per run to build/reports/benchmarks/columnar_read.json.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ColumnarReadBenchmark {
+
+    private static final LocalDate END = LocalDate.of(2025, 6, 29); // a Sunday
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+    @Rule public final BenchmarkReport report = new BenchmarkReport("columnar_read");
+
+    @Test
+    public void columnarVsEntityList() throws Exception {
+        Context ctx = ApplicationProvider.getApplicationContext();
+        File dbFile = new File(tmp.getRoot(), "columnar.db");
+        AppDatabase db = Room.databaseBuilder(ctx, AppDatabase.class, dbFile.getAbsolutePath())
+                .allowMainThreadQueries()
+                .build();
+        try {
+            SyntheticHistory.fill(db, new SyntheticHistory.Dataset("daily_10y",
+                    SyntheticHistory.Granularity.DAILY, 10 * 365), END, 7);
+            StepDao dao = db.stepDao();
+            StepColumns cols = new StepColumns();
+
+            for (int years : Bench.FULL ? new int[]{1, 5, 10} : new int[]{1, 10}) {
+                int weeks = years * 52;
+                LocalDate from = StepStats.weekStart(END).minusWeeks(weeks - 1);
+                int runs = 20;
+
+                // Same answer from both paths
+                assertEquals(weeklyViaEntities(dao, from, weeks), weeklyViaColumns(dao, cols, from, weeks));
+
+                long[] entityNanos = Bench.time(3, runs, () -> weeklyViaEntities(dao, from, weeks));
+                long[] columnNanos = Bench.time(3, runs, () -> weeklyViaColumns(dao, cols, from, weeks));
+                long entityBytes = allocatedPerRun(runs, () -> weeklyViaEntities(dao, from, weeks));
+                long columnBytes = allocatedPerRun(runs, () -> weeklyViaColumns(dao, cols, from, weeks));
+
+                record(report, years, "entityList", entityNanos, entityBytes);
+                record(report, years, "columnar", columnNanos, columnBytes);
+
+                assertTrue("columnar path allocated " + columnBytes + " B vs " + entityBytes + " B",
+                        columnBytes < entityBytes);
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    /** Sum of all weekly totals, computed the way the Stats tab used to. */
+    private static long weeklyViaEntities(StepDao dao, LocalDate from, int weeks) {
+        LocalDate to = from.plusWeeks(weeks).minusDays(1);
+        List<StepEntry> rows = dao.getRange(from.format(StepStats.DB_FMT), to.format(StepStats.DB_FMT));
+        Map<String, Integer> byDate = StepStats.indexByDate(rows);
+        long sum = 0;
+        for (int w = 0; w < weeks; w++) {
+            for (int t : StepStats.weekTotals(byDate, from.plusWeeks(w))) sum += t;
+        }
+        return sum;
+    }
+
+    /** Same result from primitive columns, reusing the arrays across calls. */
+    private static long weeklyViaColumns(StepDao dao, StepColumns cols, LocalDate from, int weeks) {
+        cols.read(dao, from, from.plusWeeks(weeks).minusDays(1));
+        int[] week = new int[7];
+        long sum = 0;
+        for (int w = 0; w < weeks; w++) {
+            for (int t : StepStats.weekTotals(cols, from.plusWeeks(w), week)) sum += t;
+        }
+        return sum;
+    }
+
+    /** Average bytes allocated by the current thread per run of op. */
+    private static long allocatedPerRun(int runs, Runnable op) {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        op.run(); // warm
+        long before = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < runs; i++) op.run();
+        return (mx.getThreadAllocatedBytes(tid) - before) / runs;
+    }
+
+    private static void record(BenchmarkReport report, int years, String path, long[] nanos, long bytes) {
+        Map<String, Object> row = report.row();
+        row.put("years", years);
+        row.put("rows", years * 364);
+        row.put("path", path);
+        BenchmarkReport.putTimings(row, nanos);
+        row.put("allocBytesPerRun", bytes);
+    }
+}
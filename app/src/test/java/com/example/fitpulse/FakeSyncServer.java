@@ -0,0 +1,192 @@
+package com.example.fitpulse;
+
+import android.util.JsonReader;
+import android.util.JsonWriter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process sync server speaking HttpSyncTransport's protocol on 127.0.0.1.
+ * - Keeps one row per day, last writer (highest updatedAt) wins.
+ * - Every accepted write gets a server sequence; /steps/changes pages by it.
+ * - failUploadsAfter(n) answers 503 once n batches were accepted, to simulate a dropped sync.
+ * - acceptRowsPerBatch(n) takes only the first n rows of each batch, like a server shedding load.
+ */
+final class FakeSyncServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final Map<String, StepEntry> rows = new HashMap<>();
+    private final Map<String, Long> seqByDate = new HashMap<>();
+    private final TreeMap<Long, String> dateBySeq = new TreeMap<>();
+    private long serverSeq = 0;
+
+    private int acceptedBatches = 0;
+    private long rowsReceived = 0;
+    private int failAfterBatches = Integer.MAX_VALUE;
+    private int rowsPerBatch = Integer.MAX_VALUE;
+
+    FakeSyncServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/steps/batch", this::handleBatch);
+        server.createContext("/steps/changes", this::handleChanges);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    synchronized void failUploadsAfter(int batches) {
+        failAfterBatches = batches;
+    }
+
+    synchronized void acceptRowsPerBatch(int rows) {
+        rowsPerBatch = rows;
+    }
+
+    synchronized int acceptedBatches() {
+        return acceptedBatches;
+    }
+
+    /** Rows taken across all accepted batches (duplicates included). */
+    synchronized long rowsReceived() {
+        return rowsReceived;
+    }
+
+    synchronized int size() {
+        return rows.size();
+    }
+
+    synchronized StepEntry get(String date) {
+        return rows.get(date);
+    }
+
+    /** Simulate a write made by another device. */
+    synchronized void put(String date, int steps, long updatedAt) {
+        StepEntry e = new StepEntry(date, steps);
+        e.updatedAt = updatedAt;
+        merge(e);
+    }
+
+    private boolean merge(StepEntry incoming) {
+        StepEntry current = rows.get(incoming.date);
+        if (current != null && current.updatedAt >= incoming.updatedAt) return false;
+        rows.put(incoming.date, incoming);
+        Long old = seqByDate.put(incoming.date, ++serverSeq);
+        if (old != null) dateBySeq.remove(old);
+        dateBySeq.put(serverSeq, incoming.date);
+        return true;
+    }
+
+    private void handleBatch(HttpExchange ex) throws IOException {
+        synchronized (this) {
+            if (acceptedBatches >= failAfterBatches) {
+                ex.getRequestBody().close();
+                ex.sendResponseHeaders(503, -1);
+                ex.close();
+                return;
+            }
+        }
+        List<StepEntry> batch = new ArrayList<>();
+        InputStream in = new BufferedInputStream(ex.getRequestBody());
+        if ("gzip".equalsIgnoreCase(ex.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in, 8192);
+        }
+        try (JsonReader r = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            r.beginObject();
+            while (r.hasNext()) {
+                if ("rows".equals(r.nextName())) {
+                    r.beginArray();
+                    while (r.hasNext()) batch.add(HttpSyncTransport.readRow(r));
+                    r.endArray();
+                } else {
+                    r.skipValue();
+                }
+            }
+            r.endObject();
+        }
+        int accepted;
+        synchronized (this) {
+            // Rows older than the server's copy count as taken: they are done, not to be resent
+            accepted = Math.min(batch.size(), rowsPerBatch);
+            for (StepEntry e : batch.subList(0, accepted)) merge(e);
+            acceptedBatches++;
+            rowsReceived += accepted;
+        }
+        int acceptedRows = accepted;
+        respond(ex, w -> w.name("accepted").value(acceptedRows));
+    }
+
+    private void handleChanges(HttpExchange ex) throws IOException {
+        Map<String, String> q = new HashMap<>();
+        String query = ex.getRequestURI().getQuery();
+        if (query != null) {
+            for (String kv : query.split("&")) {
+                int i = kv.indexOf('=');
+                q.put(kv.substring(0, i), kv.substring(i + 1));
+            }
+        }
+        long since = Long.parseLong(q.getOrDefault("since", "0"));
+        int limit = Integer.parseInt(q.getOrDefault("limit", "1000"));
+
+        List<StepEntry> page = new ArrayList<>();
+        long cursor = since;
+        boolean more;
+        synchronized (this) {
+            for (Map.Entry<Long, String> e : dateBySeq.tailMap(since, false).entrySet()) {
+                if (page.size() == limit) break;
+                page.add(rows.get(e.getValue()));
+                cursor = e.getKey();
+            }
+            more = dateBySeq.higherKey(cursor) != null;
+        }
+        long next = cursor;
+        respond(ex, w -> {
+            w.name("rows").beginArray();
+            for (StepEntry e : page) HttpSyncTransport.writeRow(w, e);
+            w.endArray();
+            w.name("cursor").value(next);
+            w.name("more").value(more);
+        });
+    }
+
+    private interface Body {
+        void write(JsonWriter w) throws IOException;
+    }
+
+    private static void respond(HttpExchange ex, Body body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.getResponseHeaders().set("Content-Encoding", "gzip");
+        ex.sendResponseHeaders(200, 0);
+        try (JsonWriter w = new JsonWriter(new OutputStreamWriter(
+                new GZIPOutputStream(ex.getResponseBody()), StandardCharsets.UTF_8))) {
+            w.beginObject();
+            body.write(w);
+            w.endObject();
+        }
+        ex.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
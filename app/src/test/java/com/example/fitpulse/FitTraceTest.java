@@ -0,0 +1,134 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowTrace;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FitTrace sections on a replayed walk, exported as a trace the Perfetto UI opens
+ * (build/reports/traces/trace-*.json); plus the ring's wrap and the cost of disabled sections.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FitTraceTest {
+
+    private static final File TRACE_DIR = new File("build/reports/traces");
+
+    @Rule public final BenchmarkReport report = new BenchmarkReport("fit_trace");
+
+    @After
+    public void tearDown() {
+        FitTrace.stop();
+        ShadowTrace.reset();
+    }
+
+    @Test
+    public void replayedWalk_exportsNestedSectionsPerThread() throws Exception {
+        FitTrace.start(FitTrace.DEFAULT_CAPACITY);
+        SensorTrace walk = SensorTrace.builder("trace_walk", LocalDateTime.parse("2025-06-03T12:00:00"))
+                .counterAt(1000)
+                .walk(0, 60_000, 1000, 2)
+                .build();
+        try (TraceReplayer replayer = new TraceReplayer(Double.POSITIVE_INFINITY)) {
+            replayer.replay(walk);
+        }
+        File file = FitTrace.exportTo(TRACE_DIR);
+        JSONArray events = new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                .getJSONArray("traceEvents");
+
+        Set<String> names = new HashSet<>();
+        List<JSONObject> persists = new ArrayList<>(), upserts = new ArrayList<>();
+        int threadNames = 0;
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject e = events.getJSONObject(i);
+            String ph = e.getString("ph");
+            if (ph.equals("M")) {
+                threadNames++;
+                continue;
+            }
+            names.add(e.getString("name"));
+            if (ph.equals("X")) assertTrue(e.getDouble("dur") >= 0);
+            if (e.getString("name").equals("steps.persist")) persists.add(e);
+            if (e.getString("name").equals(FitTrace.DB_UPSERT)) upserts.add(e);
+        }
+        assertTrue(threadNames >= 1);
+        for (String expected : new String[]{FitTrace.SENSOR_CALLBACK, "steps.filter", "steps.baseline",
+                "steps.persist", "steps.broadcast", FitTrace.DB_UPSERT, FitTrace.BROADCAST, FitTrace.STEPS_COUNTER}) {
+            assertTrue("missing " + expected + " in " + names, names.contains(expected));
+        }
+        // Each Room write sits inside a persist stage slice on the same thread
+        assertFalse(upserts.isEmpty());
+        for (JSONObject u : upserts) {
+            boolean nested = false;
+            for (JSONObject p : persists) {
+                double start = p.getDouble("ts"), end = start + p.getDouble("dur");
+                nested |= p.getLong("tid") == u.getLong("tid")
+                        && u.getDouble("ts") >= start && u.getDouble("ts") + u.getDouble("dur") <= end;
+            }
+            assertTrue("unnested " + u, nested);
+        }
+        // The same sections went to android.os.Trace
+        assertTrue(ShadowTrace.getPreviousSections().contains(FitTrace.DB_UPSERT));
+    }
+
+    @Test
+    public void fullRing_keepsTheNewestEvents() throws Exception {
+        FitTrace.start(4);
+        for (int i = 0; i < 10; i++) {
+            long t = FitTrace.begin("s" + i);
+            FitTrace.end("s" + i, t);
+        }
+        assertEquals(4, FitTrace.size());
+        assertEquals(6, FitTrace.dropped());
+
+        StringWriter out = new StringWriter();
+        FitTrace.export(out);
+        JSONArray events = new JSONObject(out.toString()).getJSONArray("traceEvents");
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject e = events.getJSONObject(i);
+            if (!e.getString("ph").equals("M")) kept.add(e.getString("name"));
+        }
+        assertEquals(List.of("s6", "s7", "s8", "s9"), kept);
+    }
+
+    @Test
+    public void notRecording_sectionsCostNanoseconds() throws Exception {
+        FitTrace.stop();
+        ShadowTrace.setEnabled(false);
+        int pairs = 1_000_000;
+        long[] samples = Bench.time(3, 5, () -> {
+            for (int i = 0; i < pairs; i++) {
+                long t = FitTrace.begin(FitTrace.DB_UPSERT);
+                FitTrace.end(FitTrace.DB_UPSERT, t);
+            }
+        });
+        double nsPerPair = Bench.percentileMs(samples, 50) * 1_000_000 / pairs;
+
+        Map<String, Object> row = report.row();
+        row.put("op", "disabledBeginEnd");
+        row.put("nsPerPair", nsPerPair);
+        // Includes Robolectric's shadow dispatch for Trace; on a device this is a flag check
+        assertTrue(nsPerPair + " ns per begin/end", nsPerPair < 500);
+        assertEquals(0, FitTrace.size());
+    }
+}
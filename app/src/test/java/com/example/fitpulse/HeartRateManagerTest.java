@@ -0,0 +1,152 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.Manifest;
+import android.app.Application;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.SensorEventBuilder;
+import org.robolectric.shadows.ShadowSensor;
+import org.robolectric.shadows.ShadowSensorManager;
+
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Heart-rate ingestion through a fake TYPE_HEART_RATE sensor: hours of 1 Hz readings
+ * become per-minute summaries packed one row per hour. Stored size goes to
+ * build/reports/benchmarks/heart_rate_storage.json.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HeartRateManagerTest {
+
+    // Hour-aligned so the six hours land in exactly six rows
+    private static final long T0 = 486_112L * HeartRateHour.HOUR_MS;
+
+    @Rule public final BenchmarkReport report = new BenchmarkReport("heart_rate_storage");
+
+    private Application app;
+    private AppDatabase db;
+    private MutableClock clock;
+    private ShadowSensorManager sensors;
+    private Sensor hrSensor;
+    private HeartRateManager manager;
+
+    @Before
+    public void setUp() {
+        app = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(app, AppDatabase.class).allowMainThreadQueries().build();
+        SensorManager sm = (SensorManager) app.getSystemService(Application.SENSOR_SERVICE);
+        sensors = shadowOf(sm);
+        hrSensor = ShadowSensor.newInstance(Sensor.TYPE_HEART_RATE);
+        sensors.addSensor(hrSensor);
+        clock = new MutableClock(T0, ZoneId.of("UTC"));
+        manager = new HeartRateManager(app, sm, db, clock, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /** Resting ~65 bpm with a slow swing and jitter; deterministic per second. */
+    private static int bpmAt(int second) {
+        double swing = 15 * Math.sin(2 * Math.PI * second / 2400.0);
+        int jitter = (int) (((second * 2654435761L) >>> 8) % 7) - 3;
+        return (int) Math.round(65 + swing) + jitter;
+    }
+
+    private SensorEvent reading(int bpm, int accuracy) {
+        return SensorEventBuilder.newBuilder().setSensor(hrSensor).setTimestamp(clock.millis() * 1_000_000L)
+                .setAccuracy(accuracy).setValues(new float[]{bpm}).build();
+    }
+
+    @Test
+    public void registersOnlyOncePermissionIsGranted() {
+        manager.start();
+        assertFalse(sensors.hasListener(manager));
+
+        shadowOf(app).grantPermissions(Manifest.permission.BODY_SENSORS);
+        manager.refresh();
+        assertTrue(sensors.hasListener(manager));
+
+        manager.stop();
+        assertFalse(sensors.hasListener(manager));
+    }
+
+    @Test
+    public void sixHoursAt1Hz_stayCompactAndQueryByRange() {
+        shadowOf(app).grantPermissions(Manifest.permission.BODY_SENSORS);
+        manager.start();
+        int seconds = 6 * 3600;
+        for (int s = 0; s < seconds; s++) {
+            clock.setMillis(T0 + s * 1000L);
+            manager.onSensorChanged(reading(bpmAt(s), SensorManager.SENSOR_STATUS_ACCURACY_HIGH));
+        }
+        // Lost contact and implausible values are dropped
+        manager.onSensorChanged(reading(0, SensorManager.SENSOR_STATUS_NO_CONTACT));
+        manager.onSensorChanged(reading(400, SensorManager.SENSOR_STATUS_ACCURACY_HIGH));
+        manager.stop();
+
+        HeartRateDao dao = db.heartRateDao();
+        assertEquals(6, dao.getHours(0, Long.MAX_VALUE).size());
+        long bytes = dao.getStoredBytes();
+        assertEquals(6 * 60 * HeartRateHour.BYTES_PER_MINUTE, bytes);
+        long perDay = bytes * 24 / 6;
+        Map<String, Object> row = report.row();
+        row.put("case", "sixHoursWorn");
+        row.put("bytes", bytes);
+        row.put("bytesPerDay", perDay);
+        assertTrue("too large per day: " + perDay, perDay < 8 * 1024);
+
+        // Minute 95 (second 5700..5759) summary matches the raw readings
+        int min = Integer.MAX_VALUE, max = 0;
+        long sum = 0;
+        for (int s = 5700; s < 5760; s++) {
+            min = Math.min(min, bpmAt(s));
+            max = Math.max(max, bpmAt(s));
+            sum += bpmAt(s);
+        }
+        HeartRateSeries one = HeartRateSeries.read(dao, T0 + 5700_000L, T0 + 5760_000L);
+        assertEquals(1, one.size);
+        assertEquals(T0 + 5700_000L, one.minuteMs[0]);
+        assertEquals(min, one.min[0]);
+        assertEquals(max, one.max[0]);
+        assertEquals((int) ((sum + 30) / 60), one.avg[0]);
+
+        // Range across an hour boundary
+        HeartRateSeries span = HeartRateSeries.read(dao, T0 + 50 * 60_000L, T0 + 130 * 60_000L);
+        assertEquals(80, span.size);
+        for (int i = 1; i < span.size; i++) assertEquals(60_000L, span.minuteMs[i] - span.minuteMs[i - 1]);
+    }
+
+    @Test
+    public void minuteFlushedBeforeRestart_mergesWithTheRest() {
+        manager.onReading(T0, 60);
+        manager.onReading(T0 + 10_000, 80);
+        manager.flushMinute();
+        manager.onReading(T0 + 20_000, 100);
+        manager.onReading(T0 + 70_000, 70); // next minute closes the first
+
+        HeartRateSeries s = HeartRateSeries.read(db.heartRateDao(), T0, T0 + 60_000);
+        assertEquals(1, s.size);
+        assertEquals(60, s.min[0]);
+        assertEquals(100, s.max[0]);
+        assertEquals(80, s.avg[0]);
+    }
+}
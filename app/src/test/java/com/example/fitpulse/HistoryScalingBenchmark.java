@@ -0,0 +1,112 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How StepDao queries and the Stats screen aggregation scale with history size.
+ * - Each dataset is generated into a temp-file Room database (real page cache behaviour).
+ * - Times every DAO query plus the Stats tab's week/card aggregation over getAllSteps().
+ * - Writes build/reports/benchmarks/history_scaling.json.
+ *
+ * The quick tier (default) covers 1–10 years of daily rows and a month of minute rows.
+ * Run with -Pfitpulse.bench=full for up to 10 years of minute-level data (~5.3M rows).
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryScalingBenchmark {
+
+    private static final LocalDate END = LocalDate.of(2025, 6, 30);
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+    @Rule public final BenchmarkReport report = new BenchmarkReport("history_scaling");
+
+    @Test
+    public void historyScaling() throws Exception {
+        for (SyntheticHistory.Dataset ds : datasets()) {
+            run(ds, report);
+        }
+    }
+
+    private static List<SyntheticHistory.Dataset> datasets() {
+        List<SyntheticHistory.Dataset> list = new ArrayList<>();
+        list.add(new SyntheticHistory.Dataset("daily_1y", SyntheticHistory.Granularity.DAILY, 365));
+        list.add(new SyntheticHistory.Dataset("daily_5y", SyntheticHistory.Granularity.DAILY, 5 * 365));
+        list.add(new SyntheticHistory.Dataset("daily_10y", SyntheticHistory.Granularity.DAILY, 10 * 365));
+        list.add(new SyntheticHistory.Dataset("minute_30d", SyntheticHistory.Granularity.MINUTE, 30));
+        if (Bench.FULL) {
+            list.add(new SyntheticHistory.Dataset("minute_1y", SyntheticHistory.Granularity.MINUTE, 365));
+            list.add(new SyntheticHistory.Dataset("minute_5y", SyntheticHistory.Granularity.MINUTE, 5 * 365));
+            list.add(new SyntheticHistory.Dataset("minute_10y", SyntheticHistory.Granularity.MINUTE, 10 * 365));
+        }
+        return list;
+    }
+
+    private void run(SyntheticHistory.Dataset ds, BenchmarkReport report) throws Exception {
+        Context ctx = ApplicationProvider.getApplicationContext();
+        File dbFile = new File(tmp.getRoot(), ds.name + ".db");
+        AppDatabase db = Room.databaseBuilder(ctx, AppDatabase.class, dbFile.getAbsolutePath())
+                .allowMainThreadQueries()
+                .build();
+        try {
+            long rows = SyntheticHistory.fill(db, ds, END, 42);
+            assertEquals(ds.rows(), rows);
+            long dbBytes = dbFile.length() + new File(dbFile.getPath() + "-wal").length();
+
+            // Big sets get fewer runs so the full tier finishes in minutes, not hours
+            int runs = rows > 1_000_000 ? 3 : rows > 100_000 ? 5 : 20;
+            StepDao dao = db.stepDao();
+            String lastDay = END.format(StepStats.DB_FMT);
+
+            record(report, ds, rows, dbBytes, "getAllSteps", Bench.time(1, runs, dao::getAllSteps));
+            record(report, ds, rows, dbBytes, "getAll", Bench.time(1, runs, dao::getAll));
+            record(report, ds, rows, dbBytes, "getLast7Days", Bench.time(3, runs * 5, dao::getLast7Days));
+            record(report, ds, rows, dbBytes, "getStepsByDate", Bench.time(3, runs * 5, () -> dao.getStepsByDate(lastDay)));
+
+            // Exactly what StatsFragment.loadAndRenderWeek does off the main thread
+            record(report, ds, rows, dbBytes, "statsWeekLoad", Bench.time(1, runs, () -> {
+                Map<String, Integer> byDate = StepStats.indexByDate(dao.getAllSteps());
+                StepStats.weekTotals(byDate, StepStats.weekStart(END));
+                StepStats.recentDays(byDate, END);
+            }));
+
+            // Aggregation alone, on an already loaded list
+            List<StepEntry> loaded = dao.getAllSteps();
+            record(report, ds, rows, dbBytes, "statsAggregateOnly", Bench.time(1, runs, () -> {
+                Map<String, Integer> byDate = StepStats.indexByDate(loaded);
+                StepStats.weekTotals(byDate, StepStats.weekStart(END));
+                StepStats.recentDays(byDate, END);
+            }));
+            assertTrue(dao.getLast7Days().size() <= 7);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static void record(BenchmarkReport report, SyntheticHistory.Dataset ds,
+                               long rows, long dbBytes, String op, long[] samples) {
+        Map<String, Object> row = report.row();
+        row.put("dataset", ds.name);
+        row.put("granularity", ds.granularity.name().toLowerCase());
+        row.put("rows", rows);
+        row.put("dbBytes", dbBytes);
+        row.put("op", op);
+        BenchmarkReport.putTimings(row, samples);
+    }
+}
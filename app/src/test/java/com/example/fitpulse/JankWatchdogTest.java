@@ -0,0 +1,104 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZoneId;
+import java.util.List;
+
+/** Stall aggregation and violation capture, driven without a Looper. */
+public class JankWatchdogTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final MutableClock clock = new MutableClock(1_750_000_000_000L, ZoneId.of("UTC"));
+    private final JankWatchdog watchdog = new JankWatchdog(100, clock);
+
+    private static StackTraceElement[] prefsReadStack(int line) {
+        return new StackTraceElement[] {
+                new StackTraceElement("libcore.io.Linux", "read", "Linux.java", -2),
+                new StackTraceElement("android.app.SharedPreferencesImpl", "awaitLoadedLocked", "SharedPreferencesImpl.java", 280),
+                new StackTraceElement("com.example.fitpulse.StepCounterManager", "onSensorChanged", "StepCounterManager.java", line),
+                new StackTraceElement("android.hardware.SystemSensorManager$SensorEventQueue", "dispatchSensorEvent", "SystemSensorManager.java", 900),
+        };
+    }
+
+    private void stall(long startMs, long durationMs, StackTraceElement[]... samples) {
+        watchdog.onDispatchStart(startMs * MS, ">>>>> Dispatching to Handler (android.os.Handler) {1a2b3c} null: 0");
+        for (StackTraceElement[] s : samples) watchdog.onSample(watchdog.currentDispatch(), s);
+        watchdog.onDispatchEnd((startMs + durationMs) * MS);
+    }
+
+    @Test
+    public void stallsWithSameAppFrame_aggregateIntoOneRow() {
+        stall(0, 150, prefsReadStack(130), prefsReadStack(130), prefsReadStack(130));
+        stall(1_000, 320, prefsReadStack(130));
+
+        List<JankWatchdog.Entry> rows = watchdog.snapshot();
+        assertEquals(1, rows.size());
+        JankWatchdog.Entry e = rows.get(0);
+        assertTrue(e.isStall());
+        assertEquals(2, e.count);
+        assertEquals(470, e.totalMs);
+        assertEquals(320, e.maxMs);
+        assertEquals("Linux.read ... StepCounterManager.onSensorChanged:130 < SystemSensorManager$SensorEventQueue.dispatchSensorEvent:900", e.signature);
+    }
+
+    @Test
+    public void shortDispatches_andStaleSamples_areIgnored() {
+        stall(0, 99, prefsReadStack(130));
+        assertTrue(watchdog.snapshot().isEmpty());
+
+        // Sample tagged with the previous dispatch must not be attributed to this one
+        long previous = watchdog.currentDispatch();
+        watchdog.onDispatchStart(1_000 * MS, null);
+        watchdog.onSample(previous, prefsReadStack(130));
+        watchdog.onDispatchEnd(1_200 * MS);
+
+        List<JankWatchdog.Entry> rows = watchdog.snapshot();
+        assertEquals(1, rows.size());
+        assertTrue(rows.get(0).signature.startsWith("(not sampled)"));
+    }
+
+    @Test
+    public void violations_shareReport_andExportToFile() throws Exception {
+        stall(0, 200, prefsReadStack(130));
+        Throwable v = new IllegalStateException("disk read");
+        v.setStackTrace(prefsReadStack(141));
+        watchdog.onViolation(v);
+        watchdog.onViolation(v);
+
+        List<JankWatchdog.Entry> rows = watchdog.snapshot();
+        assertEquals(2, rows.size());
+        assertTrue("stalls sort first", rows.get(0).isStall());
+        assertFalse(rows.get(1).isStall());
+        assertEquals("IllegalStateException", rows.get(1).kind);
+        assertEquals(2, rows.get(1).count);
+
+        File out = watchdog.exportTo(new File(tmp.getRoot(), "reports"));
+        String text = new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8);
+        assertTrue(text.contains("[Stall] x1 total=200ms"));
+        assertTrue(text.contains("[IllegalStateException] x2"));
+        assertTrue(text.contains("StepCounterManager.onSensorChanged:141"));
+
+        watchdog.clear();
+        assertTrue(watchdog.snapshot().isEmpty());
+    }
+
+    @Test
+    public void describeDispatch_stripsHashes() {
+        assertEquals("Handler (android.view.Choreographer$FrameHandler) android.view.Choreographer$FrameDisplayEventReceiver",
+                JankWatchdog.describeDispatch(">>>>> Dispatching to Handler (android.view.Choreographer$FrameHandler) "
+                        + "{8c1e3a4} android.view.Choreographer$FrameDisplayEventReceiver@2f1: 0"));
+    }
+}
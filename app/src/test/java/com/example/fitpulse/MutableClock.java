@@ -0,0 +1,33 @@
+package com.example.fitpulse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Controllable clock for replay tests.
+ * - The replayer sets it to each trace event's wall time before dispatching.
+ * - Everything reading "now" through the injected Clock sees trace time, not host time.
+ */
+final class MutableClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long millis;
+
+    MutableClock(long startMillis, ZoneId zone) {
+        this.millis = startMillis;
+        this.zone = zone;
+    }
+
+    void setMillis(long millis) { this.millis = millis; }
+
+    void advance(long deltaMs) { this.millis += deltaMs; }
+
+    @Override public ZoneId getZone() { return zone; }
+
+    @Override public Clock withZone(ZoneId zone) { return new MutableClock(millis, zone); }
+
+    @Override public long millis() { return millis; }
+
+    @Override public Instant instant() { return Instant.ofEpochMilli(millis); }
+}
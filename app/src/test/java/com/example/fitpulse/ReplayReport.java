@@ -0,0 +1,68 @@
+package com.example.fitpulse;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Throughput/latency summary of one replay.
+ * - Latency is per event: sensor dispatch → baseline math → Room write → UI broadcast delivered.
+ * - writeTo() drops a JSON file under build/reports/replay so CI can archive and diff it.
+ */
+final class ReplayReport {
+
+    final String traceName;
+    final int events;
+    final long traceDurationMs;
+    final long wallNanos;
+    private final long[] sortedLatencies;
+
+    ReplayReport(String traceName, int events, long traceDurationMs, long wallNanos, long[] latencies) {
+        this.traceName = traceName;
+        this.events = events;
+        this.traceDurationMs = traceDurationMs;
+        this.wallNanos = wallNanos;
+        this.sortedLatencies = latencies.clone();
+        Arrays.sort(sortedLatencies);
+    }
+
+    double eventsPerSecond() {
+        return wallNanos == 0 ? 0 : events * 1e9 / wallNanos;
+    }
+
+    /** How much faster than real time the trace was replayed. */
+    double speedup() {
+        return wallNanos == 0 ? 0 : traceDurationMs * 1e6 / wallNanos;
+    }
+
+    /** Latency percentile in microseconds, p in [0, 100]. */
+    double latencyMicros(double p) {
+        if (sortedLatencies.length == 0) return 0;
+        int idx = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p / 100.0 * sortedLatencies.length) - 1);
+        return sortedLatencies[Math.max(0, idx)] / 1000.0;
+    }
+
+    String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"trace\":\"%s\",\"events\":%d,\"traceMs\":%d,\"wallMs\":%.1f,"
+                        + "\"eventsPerSec\":%.0f,\"speedup\":%.1f,"
+                        + "\"p50Us\":%.1f,\"p99Us\":%.1f,\"maxUs\":%.1f}",
+                traceName, events, traceDurationMs, wallNanos / 1e6,
+                eventsPerSecond(), speedup(),
+                latencyMicros(50), latencyMicros(99), latencyMicros(100));
+    }
+
+    /** Write {@code <dir>/<trace>.json}, creating the directory if needed. */
+    void writeTo(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        try (Writer w = new FileWriter(new File(dir, traceName + ".json"))) {
+            w.write(toJson());
+            w.write('\n');
+        }
+    }
+
+    @Override public String toString() { return toJson(); }
+}
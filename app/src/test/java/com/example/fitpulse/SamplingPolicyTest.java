@@ -0,0 +1,271 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.SensorEventBuilder;
+import org.robolectric.shadows.ShadowSensor;
+import org.robolectric.shadows.ShadowSensorManager;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SamplingPolicy transitions, and the event/wakeup reduction it buys over fixed rates on a
+ * scripted three-hour day fed through a fake sensor hub.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SamplingPolicyTest {
+
+    // Hour-aligned so each scripted hour is one counter bucket
+    private static final long T0 = 486_112L * 3_600_000L;
+
+    private Context ctx;
+    private AppDatabase db;
+    private SensorManager sm;
+    private ShadowSensorManager shadowSensors;
+    private Sensor counter, accel, gyro;
+    private MutableClock clock;
+
+    @Before
+    public void setUp() {
+        ctx = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(ctx, AppDatabase.class).allowMainThreadQueries().build();
+        sm = (SensorManager) ctx.getSystemService(Context.SENSOR_SERVICE);
+        shadowSensors = shadowOf(sm);
+        counter = ShadowSensor.newInstance(Sensor.TYPE_STEP_COUNTER);
+        accel = ShadowSensor.newInstance(Sensor.TYPE_ACCELEROMETER);
+        gyro = ShadowSensor.newInstance(Sensor.TYPE_GYROSCOPE);
+        shadowSensors.addSensor(counter);
+        shadowSensors.addSensor(accel);
+        shadowSensors.addSensor(gyro);
+        clock = new MutableClock(T0, ZoneId.of("UTC"));
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void motionAndVisibility_pickRates() {
+        SamplingPolicy policy = new SamplingPolicy(sm, clock, new Handler(Looper.getMainLooper()));
+        policy.start();
+        assertFalse(policy.isMoving());
+        assertEquals(SamplingPolicy.STEP_HIDDEN_STILL, policy.stepCounterRate());
+
+        policy.setUiVisible(true);
+        assertEquals(SamplingPolicy.STEP_VISIBLE_STILL, policy.stepCounterRate());
+
+        policy.noteMotion(clock.millis());
+        assertTrue(policy.isMoving());
+        assertEquals(SamplingPolicy.STEP_VISIBLE_MOVING, policy.stepCounterRate());
+        assertEquals(SamplingPolicy.MOTION_MOVING, policy.liveMotionRate());
+
+        // A step 40 s in keeps the user moving past the first check
+        advance(40);
+        policy.noteMotion(clock.millis());
+        advance(30);
+        assertTrue(policy.isMoving());
+        advance(40);
+        assertFalse(policy.isMoving());
+        assertEquals(SamplingPolicy.MOTION_STILL, policy.liveMotionRate());
+
+        policy.setUiVisible(false);
+        assertEquals(SamplingPolicy.STEP_HIDDEN_STILL, policy.stepCounterRate());
+        policy.stop();
+    }
+
+    @Test
+    public void scriptedDay_adaptiveRatesCutEventsAndWakeups() {
+        SamplingPolicy adaptive = new SamplingPolicy(sm, clock, new Handler(Looper.getMainLooper()));
+        Day a = runDay(adaptive);
+
+        // Same day with the old fixed rates: SENSOR_DELAY_UI, no batching, regardless of state
+        clock.setMillis(T0);
+        SamplingPolicy fixed = new SamplingPolicy(sm, clock, new Handler(Looper.getMainLooper())) {
+            @Override public synchronized Rate stepCounterRate() { return STEP_VISIBLE_MOVING; }
+            @Override public synchronized Rate liveMotionRate() { return MOTION_MOVING; }
+        };
+        Day f = runDay(fixed);
+
+        // Same steps reach the counter either way...
+        assertEquals(f.counterEvents, a.counterEvents);
+        assertTrue(a.counterWakeups < f.counterWakeups);
+        // ...but the hour with hidden walking (60-120 min) is batched into far fewer wakeups
+        long hour1 = T0 / 3_600_000L + 1;
+        long fixedWakeups = f.counters.wakeupsInHour(Sensor.TYPE_STEP_COUNTER, hour1);
+        long adaptiveWakeups = a.counters.wakeupsInHour(Sensor.TYPE_STEP_COUNTER, hour1);
+        assertTrue("hidden walking hour: " + fixedWakeups + " wakeups fixed, " + adaptiveWakeups + " adaptive",
+                adaptiveWakeups * 10 < fixedWakeups);
+        // The still hour on screen samples accel/gyro at 5 Hz instead of 15 Hz
+        assertTrue(a.motionEvents * 10 < f.motionEvents * 6);
+        // Hourly counters line up with the totals
+        long hour0 = T0 / 3_600_000L;
+        long perHour = 0;
+        for (long h = hour0; h <= hour0 + 3; h++) perHour += a.counters.eventsInHour(Sensor.TYPE_STEP_COUNTER, h);
+        assertEquals(a.counterEvents, perHour);
+    }
+
+    private static final class Day {
+        SensorEventCounters counters;
+        long counterEvents, counterWakeups, motionEvents;
+    }
+
+    /**
+     * 0-30 min walking with the Monitor tab up, 30-90 min still with it up,
+     * 90-120 min walking with no screen, 120-180 min still with no screen.
+     * The manager sees MainActivity's calls: onUiStarted at the start, onUiStopped at 90 min.
+     */
+    private Day runDay(SamplingPolicy policy) {
+        StepCounterManager manager = new StepCounterManager(ctx, sm, db, clock, Runnable::run, policy);
+        LiveReadout readout = new LiveReadout(policy);
+        FakeHub hub = new FakeHub();
+
+        manager.onUiStarted();
+        readout.resume();
+
+        int total = 1_000;
+        for (int s = 0; s < 3 * 3600; s++) {
+            if (s == 90 * 60) {
+                readout.pause();
+                manager.onUiStopped();
+                assertTrue("step counter unregistered in the background", shadowSensors.hasListener(manager));
+            }
+            boolean walking = s < 30 * 60 || (s >= 90 * 60 && s < 120 * 60);
+            long secStart = T0 + s * 1000L;
+            clock.setMillis(secStart);
+
+            // Accel/gyro at the period the readout registered
+            if (readout.rate != null) {
+                long periodMs = periodUs(readout.rate) / 1000;
+                for (long t = secStart; t < secStart + 1000; t += periodMs) {
+                    clock.setMillis(t);
+                    shadowSensors.sendSensorEventToListeners(event(accel, t, 0f, 0f, 9.81f), accel);
+                    shadowSensors.sendSensorEventToListeners(event(gyro, t, 0f, 0f, 0f), gyro);
+                }
+            }
+            // Two steps a second while walking; the counter is on-change
+            if (walking) {
+                for (int k = 0; k < 2; k++) {
+                    long t = secStart + k * 500L;
+                    hub.counterSample(policy.stepCounterRate(), t, ++total);
+                }
+            }
+            hub.flushIfDue(policy.stepCounterRate(), secStart + 1000);
+            clock.setMillis(secStart + 1000);
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+        }
+        hub.flushIfDue(new SamplingPolicy.Rate(0, 0), clock.millis());
+        readout.pause();
+        assertTrue(shadowSensors.hasListener(manager));
+        // The process would end here; the next run shares this sensor manager
+        sm.unregisterListener(manager);
+
+        Day d = new Day();
+        d.counters = policy.counters();
+        d.counterEvents = d.counters.totalEvents(Sensor.TYPE_STEP_COUNTER);
+        d.counterWakeups = d.counters.totalWakeups(Sensor.TYPE_STEP_COUNTER);
+        d.motionEvents = d.counters.totalEvents(Sensor.TYPE_ACCELEROMETER) + d.counters.totalEvents(Sensor.TYPE_GYROSCOPE);
+        return d;
+    }
+
+    /** Step-counter side of a sensor hub: holds samples in a FIFO for up to the registered latency. */
+    private final class FakeHub {
+        private final List<Float> fifo = new ArrayList<>();
+        private long fifoSince;
+
+        void counterSample(SamplingPolicy.Rate rate, long tMs, int value) {
+            if (fifo.isEmpty()) fifoSince = tMs;
+            fifo.add((float) value);
+            flushIfDue(rate, tMs);
+        }
+
+        /** Deliver the whole FIFO at once (one wakeup) when its oldest sample is due. */
+        void flushIfDue(SamplingPolicy.Rate rate, long nowMs) {
+            if (fifo.isEmpty() || nowMs - fifoSince < rate.maxLatencyUs / 1000) return;
+            clock.setMillis(nowMs);
+            List<Float> batch = new ArrayList<>(fifo);
+            fifo.clear();
+            for (float v : batch) shadowSensors.sendSensorEventToListeners(event(counter, nowMs, v), counter);
+        }
+    }
+
+    /** Stand-in for the Monitor tab's live accel/gyro readout. */
+    private final class LiveReadout implements SensorEventListener, SamplingPolicy.Listener {
+        final SamplingPolicy policy;
+        SamplingPolicy.Rate rate;
+
+        LiveReadout(SamplingPolicy policy) { this.policy = policy; }
+
+        void resume() {
+            policy.addListener(this);
+            register(policy.liveMotionRate());
+        }
+
+        void pause() {
+            policy.removeListener(this);
+            sm.unregisterListener(this);
+            rate = null;
+        }
+
+        private void register(SamplingPolicy.Rate r) {
+            sm.registerListener(this, accel, r.samplingUs, r.maxLatencyUs);
+            sm.registerListener(this, gyro, r.samplingUs, r.maxLatencyUs);
+            rate = r;
+        }
+
+        @Override public void onSamplingChanged(SamplingPolicy p) {
+            if (rate == null || rate.equals(p.liveMotionRate())) return;
+            sm.unregisterListener(this);
+            register(p.liveMotionRate());
+        }
+
+        @Override public void onSensorChanged(SensorEvent event) {
+            policy.counters().record(event.sensor.getType());
+        }
+
+        @Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+    }
+
+    /** Nominal period of a SENSOR_DELAY_* constant (or a raw µs value). */
+    private static long periodUs(SamplingPolicy.Rate rate) {
+        switch (rate.samplingUs) {
+            case SensorManager.SENSOR_DELAY_FASTEST: return 5_000;
+            case SensorManager.SENSOR_DELAY_GAME: return 20_000;
+            case SensorManager.SENSOR_DELAY_UI: return 66_667;
+            case SensorManager.SENSOR_DELAY_NORMAL: return 200_000;
+            default: return rate.samplingUs;
+        }
+    }
+
+    private static SensorEvent event(Sensor s, long tMs, float... values) {
+        return SensorEventBuilder.newBuilder().setSensor(s).setTimestamp(tMs * 1_000_000L).setValues(values).build();
+    }
+
+    /** Advance trace time and the main looper together so the policy's still-check fires on time. */
+    private void advance(int seconds) {
+        clock.advance(seconds * 1000L);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(seconds));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/** SensorPipeline ordering, backpressure policies and metrics. */
+public class SensorPipelineTest {
+
+    /** Runs queued drains only when asked, so a test can build up backlog. */
+    private static final class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override public void execute(Runnable r) { tasks.add(r); }
+
+        void runAll() {
+            Runnable r;
+            while ((r = tasks.poll()) != null) r.run();
+        }
+    }
+
+    @Test
+    public void directExecutor_deliversInOrderToEverySink() {
+        List<Integer> a = new ArrayList<>(), b = new ArrayList<>();
+        SensorPipeline<Integer> p = SensorPipeline.<Integer>builder("p", Runnable::run)
+                .then("even", (Integer i, SensorPipeline.Emitter<Integer> out) -> { if (i % 2 == 0) out.emit(i * 10); },
+                        SensorPipeline.Backpressure.DROP_NEWEST, 4)
+                .sink("a", a::add, SensorPipeline.Backpressure.DROP_NEWEST, 4)
+                .sink("b", b::add, SensorPipeline.Backpressure.CONFLATE, 1)
+                .build();
+
+        for (int i = 0; i < 6; i++) p.offer(i);
+
+        assertEquals(Arrays.asList(0, 20, 40), a);
+        assertEquals(Arrays.asList(0, 20, 40), b);
+        SensorPipeline.StageMetrics even = p.metrics("even");
+        assertEquals(6, even.in);
+        assertEquals(3, even.out);
+        assertEquals(0, even.dropped);
+        assertEquals(1, even.maxDepth);
+        assertEquals(6, p.offered());
+    }
+
+    @Test
+    public void backlog_conflatesToLatestOrDropsNewest() {
+        ManualExecutor slow = new ManualExecutor();
+        List<Integer> latest = new ArrayList<>(), fifo = new ArrayList<>();
+        SensorPipeline<Integer> p = SensorPipeline.<Integer>builder("p", Runnable::run)
+                .then("pass", (Integer i, SensorPipeline.Emitter<Integer> out) -> out.emit(i),
+                        SensorPipeline.Backpressure.CONFLATE, 1)
+                .on(slow)
+                .sink("latest", latest::add, SensorPipeline.Backpressure.CONFLATE, 1)
+                .sink("fifo", fifo::add, SensorPipeline.Backpressure.DROP_NEWEST, 4)
+                .build();
+
+        for (int i = 1; i <= 10; i++) p.offer(i);
+        assertEquals(4, p.metrics("fifo").depth);
+        slow.runAll();
+
+        assertEquals(Arrays.asList(10), latest);
+        assertEquals(Arrays.asList(1, 2, 3, 4), fifo);
+        SensorPipeline.StageMetrics l = p.metrics("latest"), f = p.metrics("fifo");
+        assertEquals(9, l.conflated);
+        assertEquals(1, l.processed());
+        assertEquals(6, f.dropped);
+        assertEquals(4, f.maxDepth);
+        assertEquals(0, f.depth);
+
+        // Drained sinks accept again
+        p.offer(11);
+        slow.runAll();
+        assertEquals(Arrays.asList(10, 11), latest);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 11), fifo);
+    }
+
+    @Test
+    public void backgroundStage_neverLosesTheLastItem() throws Exception {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        int n = 200_000;
+        CountDownLatch done = new CountDownLatch(1);
+        long[] seen = {0, -1};
+        SensorPipeline<Integer> p = SensorPipeline.<Integer>builder("p", worker)
+                .then("pass", (Integer i, SensorPipeline.Emitter<Integer> out) -> out.emit(i),
+                        SensorPipeline.Backpressure.CONFLATE, 1)
+                .sink("count", i -> {
+                    seen[0]++;
+                    assertTrue(i > seen[1]); // conflation skips, never reorders
+                    seen[1] = i;
+                    if (i == n - 1) done.countDown();
+                }, SensorPipeline.Backpressure.CONFLATE, 1)
+                .build();
+
+        for (int i = 0; i < n; i++) p.offer(i);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        worker.shutdown();
+        assertTrue(worker.awaitTermination(5, TimeUnit.SECONDS));
+
+        SensorPipeline.StageMetrics pass = p.metrics("pass"), count = p.metrics("count");
+        assertEquals(n, pass.in);
+        assertEquals(pass.processed(), count.in);
+        assertEquals(seen[0], count.processed());
+        // Drained: nothing left queued, nothing dropped, and the dump reports the same counts
+        assertEquals(0, pass.depth);
+        assertEquals(0, count.depth);
+        assertEquals(0, pass.dropped + count.dropped);
+        String[] lines = p.describe().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("p: offered=" + n, lines[0]);
+        assertTrue(lines[1], lines[1].startsWith("  pass: in=" + n + " out=" + pass.out
+                + " dropped=0 conflated=" + pass.conflated + " depth=0/1 "));
+        assertTrue(lines[2], lines[2].startsWith("  count: in=" + count.in + " out=" + count.out
+                + " dropped=0 conflated=" + count.conflated + " depth=0/1 "));
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.fitpulse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A recorded or synthetic sequence of sensor events used by {@link TraceReplayer}.
+ *
+ * Text format (one event per line, '#' starts a comment):
+ * <pre>
+ *   start 2025-03-09T23:58:00      wall time of t=0 (local to "zone")
+ *   zone  Europe/Berlin             optional, defaults to UTC
+ *   0     counter 1000              cumulative TYPE_STEP_COUNTER value
+ *   20    accel 0.12 9.81 0.40      accelerometer x y z
+ *   20    gyro  0.01 0.00 0.02      gyroscope x y z
+ *   60000 reboot                    device restart: process state is lost
+ * </pre>
+ * The first column is milliseconds since start and must be non-decreasing.
+ */
+final class SensorTrace {
+
+    static final int COUNTER = 0;
+    static final int ACCEL   = 1;
+    static final int GYRO    = 2;
+    static final int REBOOT  = 3;
+
+    /** One trace line. */
+    static final class Event {
+        final long tMs;
+        final int kind;
+        final float[] values;
+
+        Event(long tMs, int kind, float[] values) {
+            this.tMs = tMs;
+            this.kind = kind;
+            this.values = values;
+        }
+    }
+
+    final String name;
+    final LocalDateTime start;
+    final ZoneId zone;
+    final List<Event> events;
+
+    private SensorTrace(String name, LocalDateTime start, ZoneId zone, List<Event> events) {
+        this.name = name;
+        this.start = start;
+        this.zone = zone;
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    /** Epoch millis of t=0. */
+    long startMillis() {
+        return start.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /** Trace length from t=0 to the last event. */
+    long durationMs() {
+        return events.isEmpty() ? 0 : events.get(events.size() - 1).tMs;
+    }
+
+    /** Load a trace from src/test/resources/traces/. */
+    static SensorTrace load(String fileName) throws IOException {
+        InputStream in = SensorTrace.class.getClassLoader().getResourceAsStream("traces/" + fileName);
+        if (in == null) throw new IOException("Trace not found: " + fileName);
+        try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return parse(fileName, r);
+        }
+    }
+
+    /** Parse the text format described in the class comment. */
+    static SensorTrace parse(String name, Reader reader) throws IOException {
+        BufferedReader br = new BufferedReader(reader);
+        LocalDateTime start = null;
+        ZoneId zone = ZoneOffset.UTC;
+        List<Event> events = new ArrayList<>();
+        long lastT = 0;
+        String line;
+        int lineNo = 0;
+        while ((line = br.readLine()) != null) {
+            lineNo++;
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            String[] parts = line.split("\\s+");
+            if (parts[0].equals("start")) { start = LocalDateTime.parse(parts[1]); continue; }
+            if (parts[0].equals("zone"))  { zone = ZoneId.of(parts[1]); continue; }
+
+            long t = Long.parseLong(parts[0]);
+            if (t < lastT) throw new IOException(name + ":" + lineNo + ": time goes backwards");
+            lastT = t;
+
+            String kind = parts[1].toLowerCase(Locale.ROOT);
+            switch (kind) {
+                case "counter": events.add(new Event(t, COUNTER, floats(parts, 2, 1))); break;
+                case "accel":   events.add(new Event(t, ACCEL, floats(parts, 2, 3))); break;
+                case "gyro":    events.add(new Event(t, GYRO, floats(parts, 2, 3))); break;
+                case "reboot":  events.add(new Event(t, REBOOT, new float[0])); break;
+                default: throw new IOException(name + ":" + lineNo + ": unknown event '" + kind + "'");
+            }
+        }
+        if (start == null) throw new IOException(name + ": missing 'start' line");
+        return new SensorTrace(name, start, zone, events);
+    }
+
+    private static float[] floats(String[] parts, int from, int count) throws IOException {
+        if (parts.length < from + count) throw new IOException("expected " + count + " values");
+        float[] v = new float[count];
+        for (int i = 0; i < count; i++) v[i] = Float.parseFloat(parts[from + i]);
+        return v;
+    }
+
+    static Builder builder(String name, LocalDateTime start) {
+        return new Builder(name, start);
+    }
+
+    /**
+     * Synthetic trace generator. Keeps the running step-counter value so walks,
+     * idle periods and reboots compose like they would on a device.
+     */
+    static final class Builder {
+        private final String name;
+        private final LocalDateTime start;
+        private ZoneId zone = ZoneOffset.UTC;
+        private final List<Event> events = new ArrayList<>();
+        private int counter;
+
+        private Builder(String name, LocalDateTime start) {
+            this.name = name;
+            this.start = start;
+        }
+
+        Builder zone(ZoneId zone) { this.zone = zone; return this; }
+
+        /** Step counter value reported on the first event. */
+        Builder counterAt(int value) { this.counter = value; return this; }
+
+        /**
+         * Emit one counter event every intervalMs in [fromMs, fromMs + durationMs),
+         * adding stepsPerEvent before each one except the first.
+         */
+        Builder walk(long fromMs, long durationMs, long intervalMs, int stepsPerEvent) {
+            boolean first = true;
+            for (long t = fromMs; t < fromMs + durationMs; t += intervalMs) {
+                if (!first) counter += stepsPerEvent;
+                first = false;
+                events.add(new Event(t, COUNTER, new float[]{counter}));
+            }
+            return this;
+        }
+
+        /** Interleave accel and gyro samples at the given rate (deterministic waveform). */
+        Builder motion(long fromMs, long durationMs, int hz) {
+            long step = Math.max(1, 1000L / hz);
+            for (long t = fromMs; t < fromMs + durationMs; t += step) {
+                float phase = (float) (t % 1000) / 1000f * (float) (2 * Math.PI);
+                events.add(new Event(t, ACCEL, new float[]{(float) Math.sin(phase), 9.81f, (float) Math.cos(phase)}));
+                events.add(new Event(t, GYRO, new float[]{0.01f, (float) Math.sin(phase) * 0.1f, 0f}));
+            }
+            return this;
+        }
+
+        /** Device restart at atMs; the counter starts again from zero. */
+        Builder reboot(long atMs) {
+            events.add(new Event(atMs, REBOOT, new float[0]));
+            counter = 0;
+            return this;
+        }
+
+        SensorTrace build() {
+            List<Event> sorted = new ArrayList<>(events);
+            // Stable sort keeps insertion order for equal timestamps (reboot before next counter)
+            sorted.sort((a, b) -> Long.compare(a.tMs, b.tMs));
+            return new SensorTrace(name, start, zone, sorted);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Intent;
+import android.os.Looper;
+
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+
+import com.github.mikephil.charting.charts.BarChart;
+import com.github.mikephil.charting.data.BarData;
+import com.github.mikephil.charting.data.BarEntry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/** Live steps move today's bar in the existing data set instead of rebuilding the chart. */
+@RunWith(RobolectricTestRunner.class)
+public class StatsLiveBarTest {
+
+    @After
+    public void tearDown() {
+        UserSession.resetForTests();
+    }
+
+    @Test
+    public void liveSteps_updateTodaysBarInPlace() throws Exception {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+        activity.selectTab(R.id.nav_stats);
+        BarChart chart = activity.findViewById(R.id.bar_chart);
+
+        // The week page loads on the fragment's io thread
+        long deadline = System.currentTimeMillis() + 5000;
+        while (chart.getData() == null && System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(10);
+        }
+        BarData data = chart.getData();
+        assertNotNull(data);
+        int todayIndex = LocalDate.now().getDayOfWeek().getValue() - 1;
+        BarEntry today = data.getDataSetByIndex(0).getEntryForIndex(todayIndex);
+
+        // A burst of updates inside one interval is one draw with the latest value
+        LocalBroadcastManager lbm = LocalBroadcastManager.getInstance(activity);
+        for (int steps = 100; steps <= 2000; steps += 100) {
+            lbm.sendBroadcast(new Intent("STEP_UPDATE").putExtra("steps_today", steps));
+        }
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+        assertSame(data, chart.getData());
+        assertSame(today, data.getDataSetByIndex(0).getEntryForIndex(todayIndex));
+        assertEquals(2000f, today.getY(), 0f);
+        // The bar outgrew the old axis, which followed it
+        assertTrue(chart.getAxisLeft().getAxisMaximum() >= 2000f);
+
+        lbm.sendBroadcast(new Intent("STEP_UPDATE").putExtra("steps_today", 2100));
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+        assertSame(data, chart.getData());
+        assertEquals(2100f, today.getY(), 0f);
+
+        controller.pause().stop().destroy();
+    }
+}
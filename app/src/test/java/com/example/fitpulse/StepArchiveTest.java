@@ -0,0 +1,144 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Random;
+
+/** Round-trips of the archive format and the Room -> archive move behind StepHistory. */
+@RunWith(RobolectricTestRunner.class)
+public class StepArchiveTest {
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        Context ctx = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(ctx, AppDatabase.class).allowMainThreadQueries().build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void roundTrip_gapsZerosAndLargeSwings() throws Exception {
+        Random rnd = new Random(3);
+        StepColumns rows = new StepColumns();
+        LocalDate d = LocalDate.of(2019, 12, 20);
+        for (int i = 0; i < 1500; i++) {
+            d = d.plusDays(1 + (rnd.nextInt(10) == 0 ? rnd.nextInt(40) : 0));
+            int steps = rnd.nextInt(8) == 0 ? 0 : rnd.nextInt(5) == 0 ? 80_000 + rnd.nextInt(40_000) : rnd.nextInt(15_000);
+            rows.add(StepColumns.dayKey(d), steps);
+        }
+        File file = new File(tmp.getRoot(), "a.bin");
+        StepArchive.write(file, rows);
+
+        try (StepArchive.Reader r = StepArchive.Reader.open(file)) {
+            StepColumns all = r.read(0, Integer.MAX_VALUE, new StepColumns());
+            assertEquals(rows.size, all.size);
+            assertArrayEquals(Arrays.copyOf(rows.dayKeys, rows.size), Arrays.copyOf(all.dayKeys, all.size));
+            assertArrayEquals(Arrays.copyOf(rows.steps, rows.size), Arrays.copyOf(all.steps, all.size));
+
+            // Random sub-ranges match a linear filter of the source rows
+            StepColumns out = new StepColumns();
+            for (int q = 0; q < 200; q++) {
+                int a = rnd.nextInt(rows.size), b = a + rnd.nextInt(rows.size - a);
+                int fromKey = rows.dayKeys[a] - rnd.nextInt(2), toKey = rows.dayKeys[b];
+                r.read(fromKey, toKey, out);
+                int expected = 0;
+                for (int i = 0; i < rows.size; i++) {
+                    if (rows.dayKeys[i] >= fromKey && rows.dayKeys[i] <= toKey) {
+                        assertEquals(rows.dayKeys[i], out.dayKeys[expected]);
+                        assertEquals(rows.steps[i], out.steps[expected]);
+                        expected++;
+                    }
+                }
+                assertEquals(expected, out.size);
+            }
+        }
+        // ~3 bytes per day including the per-month index
+        assertTrue("archive too large: " + file.length(), file.length() < rows.size * 4L);
+    }
+
+    @Test
+    public void archiveMovesOldMonths_andHistoryReadsAcrossTiers() throws Exception {
+        LocalDate end = LocalDate.of(2025, 6, 30);
+        SyntheticHistory.fill(db, new SyntheticHistory.Dataset("3y", SyntheticHistory.Granularity.DAILY, 3 * 365), end, 11);
+        StepColumns before = new StepColumns().read(db.stepDao(), end.minusYears(4), end);
+
+        StepHistory history = new StepHistory(db.stepDao(), new File(tmp.getRoot(), StepHistory.ARCHIVE_FILE));
+        ArchiveManager manager = new ArchiveManager(db, history,
+                new MutableClock(0, ZoneId.of("UTC")));
+        LocalDate cutoff = ArchiveManager.cutoff(end, 12);
+        assertEquals(LocalDate.of(2024, 6, 1), cutoff);
+
+        ArchiveManager.Result moved = manager.archiveBefore(cutoff);
+        assertEquals(0, db.stepDao().countBefore(cutoff.format(StepStats.DB_FMT)));
+        assertTrue(moved.rowsMoved > 700);
+
+        // A late write to an archived day wins over the archived value
+        db.stepDao().insert(new StepEntry("2023-01-15", 4242));
+
+        StepColumns after = history.read(end.minusYears(4), end, new StepColumns());
+        assertEquals(before.size, after.size);
+        for (int i = 0; i < before.size; i++) {
+            assertEquals(before.dayKeys[i], after.dayKeys[i]);
+            int expected = before.dayKeys[i] == 20230115 ? 4242 : before.steps[i];
+            assertEquals(expected, after.steps[i]);
+        }
+
+        // Archiving again folds the late write in and leaves Room's recent months alone
+        manager.archiveBefore(cutoff);
+        assertEquals(4242, history.read(LocalDate.of(2023, 1, 15), LocalDate.of(2023, 1, 15), new StepColumns()).steps[0]);
+        assertEquals(0, db.stepDao().countBefore(cutoff.format(StepStats.DB_FMT)));
+    }
+
+    @Test
+    public void pendingRows_holdBackTheirMonthUntilSynced() throws Exception {
+        LocalDate end = LocalDate.of(2025, 6, 30);
+        SyntheticHistory.fill(db, new SyntheticHistory.Dataset("3y", SyntheticHistory.Granularity.DAILY, 3 * 365), end, 11);
+        StepDao dao = db.stepDao();
+        dao.upsertLocal(new StepEntry("2023-03-10", 4242), 1000); // not uploaded yet
+
+        StepHistory history = new StepHistory(dao, new File(tmp.getRoot(), StepHistory.ARCHIVE_FILE));
+        ArchiveManager manager = new ArchiveManager(db, history, new MutableClock(0, ZoneId.of("UTC")));
+        LocalDate cutoff = ArchiveManager.cutoff(end, 12);
+
+        ArchiveManager.Result r = manager.archiveBefore(cutoff);
+        assertTrue(r.heldBack);
+        assertEquals(LocalDate.of(2023, 3, 1), r.cutoff);
+        assertEquals(0, dao.countBefore("2023-03-01"));
+        assertEquals(4242, dao.getStepsByDate("2023-03-10").steps);
+        assertTrue(dao.countBefore(cutoff.format(StepStats.DB_FMT)) > 400);
+
+        // Once uploaded, the rest moves too
+        dao.markSynced(dao.maxChangeSeq());
+        r = manager.archiveBefore(cutoff);
+        assertFalse(r.heldBack);
+        assertEquals(0, dao.countBefore(cutoff.format(StepStats.DB_FMT)));
+        assertEquals(4242, history.read(LocalDate.of(2023, 3, 10), LocalDate.of(2023, 3, 10), new StepColumns()).steps[0]);
+    }
+}
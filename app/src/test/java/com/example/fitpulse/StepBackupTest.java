@@ -0,0 +1,232 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Incremental backups to a FileBackupTarget in a temp folder, and restoring them.
+ * - A second backup after one more day stores only a handful of new blocks.
+ * - Step writes keep committing while a snapshot is taken (latencies in
+ *   build/reports/benchmarks/step_backup.json).
+ * - A damaged block fails the restore before the live database is touched.
+ * - A UI snapshot write still pending at the swap doesn't bring the old screen back.
+ * The session database refuses main-thread queries, so DB work runs on io.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StepBackupTest {
+
+    private static final LocalDate END = LocalDate.of(2025, 6, 30);
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+    @Rule public final BenchmarkReport backupReport = new BenchmarkReport("step_backup");
+    @Rule public final BenchmarkReport writerReport = new BenchmarkReport("step_backup_writer");
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private Context ctx;
+    private UserSession session;
+    private FileBackupTarget target;
+    private MutableClock clock;
+
+    @Before
+    public void setUp() throws Exception {
+        ctx = ApplicationProvider.getApplicationContext();
+        UserSession.resetForTests();
+        session = UserSession.current(ctx);
+        target = new FileBackupTarget(tmp.newFolder("backup"));
+        clock = new MutableClock(1_750_000_000_000L, ZoneId.of("UTC"));
+    }
+
+    @After
+    public void tearDown() {
+        io.shutdownNow();
+        UserSession.resetForTests();
+    }
+
+    private <T> T onIo(Callable<T> work) throws Exception {
+        return io.submit(work).get();
+    }
+
+    private void runOnIo(Runnable work) throws Exception {
+        io.submit(work).get();
+    }
+
+    private StepBackup backup() {
+        return new StepBackup(ctx, session, target, clock);
+    }
+
+    private Integer stepsOn(UserSession s, String date) throws Exception {
+        StepEntry e = onIo(() -> s.db.stepDao().getStepsByDate(date));
+        return e != null ? e.steps : null;
+    }
+
+    @Test
+    public void restore_bringsBackTheSnapshot() throws Exception {
+        onIo(() -> SyntheticHistory.fill(session.db, new SyntheticHistory.Dataset("daily_2y",
+                SyntheticHistory.Granularity.DAILY, 2 * 365), END, 7));
+        int before = stepsOn(session, "2025-06-30");
+        StepBackup.Result r = onIo(() -> backup().backup());
+        assertTrue(r.newBlocks > 0);
+
+        // Lose data after the backup
+        onIo(() -> session.db.stepDao().deleteBefore("2025-07-01"));
+        assertNull(stepsOn(session, "2025-06-30"));
+
+        List<String> snapshots = backup().snapshots();
+        assertEquals(1, snapshots.size());
+        List<int[]> progress = new ArrayList<>();
+        UserSession restored = onIo(() -> backup().restore(snapshots.get(0),
+                (done, total) -> progress.add(new int[]{done, total})));
+
+        assertNotSame(session, restored);
+        assertSame(restored, UserSession.current(ctx));
+        assertEquals(before, (int) stepsOn(restored, "2025-06-30"));
+        assertEquals(2 * 365, onIo(() -> restored.db.stepDao().getAllSteps()).size());
+        int[] last = progress.get(progress.size() - 1);
+        assertEquals(last[1], last[0]);
+        assertEquals(r.blocks, last[1]);
+    }
+
+    @Test
+    public void restore_dropsAPendingUiSnapshotWrite() throws Exception {
+        onIo(() -> SyntheticHistory.fill(session.db, new SyntheticHistory.Dataset("daily_30",
+                SyntheticHistory.Granularity.DAILY, 30), END, 7));
+        String snapshot = onIo(() -> backup().backup()).snapshot;
+        File snapshotFile = new File(ctx.getFilesDir(), LocalAccounts.scoped(UiSnapshot.FILE, session.accountId));
+
+        // Scheduled WRITE_DELAY_MS out, i.e. after the swap has deleted the file
+        session.ui.putToday(END, 4321, 8000);
+        UserSession restored = onIo(() -> backup().restore(snapshot, null));
+        Thread.sleep(UiSnapshot.WRITE_DELAY_MS * 2);
+        restored.ui.awaitWritten();
+
+        assertFalse(snapshotFile.exists());
+        assertEquals(-1, restored.ui.read().stepsOn(END));
+    }
+
+    @Test
+    public void nextDaysBackup_storesOnlyChangedBlocks() throws Exception {
+        onIo(() -> SyntheticHistory.fill(session.db, new SyntheticHistory.Dataset("daily_5y",
+                SyntheticHistory.Granularity.DAILY, 5 * 365), END, 7));
+        StepBackup.Result first = onIo(() -> backup().backup());
+
+        clock.advance(86_400_000L);
+        runOnIo(() -> session.db.stepDao().upsertLocal(new StepEntry("2025-07-01", 8123), clock.millis()));
+        StepBackup.Result second = onIo(() -> backup().backup());
+
+        for (StepBackup.Result res : new StepBackup.Result[]{first, second}) {
+            Map<String, Object> row = backupReport.row();
+            row.put("op", res == first ? "fullBackup" : "nextDayBackup");
+            row.put("blocks", res.blocks);
+            row.put("newBlocks", res.newBlocks);
+            row.put("bytes", res.bytes);
+            row.put("newBytes", res.newBytes);
+            row.put("durationMs", res.durationMs);
+        }
+
+        assertTrue("new blocks " + second.newBlocks + " of " + second.blocks, second.newBlocks <= 16);
+        assertTrue(second.newBytes < first.newBytes / 4);
+        assertEquals(2, backup().snapshots().size());
+    }
+
+    @Test
+    public void backup_doesNotHoldUpTheStepWriter() throws Exception {
+        onIo(() -> SyntheticHistory.fill(session.db, new SyntheticHistory.Dataset("minute_30d",
+                SyntheticHistory.Granularity.MINUTE, 30), END, 7));
+
+        Future<StepBackup.Result> running = io.submit(() -> backup().backup());
+        List<Long> latencies = new ArrayList<>();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            writer.submit(() -> {
+                int i = 0;
+                while (!running.isDone() || i < 20) {
+                    long t0 = System.nanoTime();
+                    session.db.stepDao().upsertLocal(new StepEntry("2025-07-01", i++), clock.millis());
+                    latencies.add(System.nanoTime() - t0);
+                }
+            }).get();
+        } finally {
+            writer.shutdownNow();
+        }
+        running.get();
+
+        long[] samples = new long[latencies.size()];
+        for (int i = 0; i < samples.length; i++) samples[i] = latencies.get(i);
+        Map<String, Object> row = writerReport.row();
+        row.put("op", "upsertDuringBackup");
+        BenchmarkReport.putTimings(row, samples);
+        assertTrue("writer p99 " + Bench.percentileMs(samples, 99) + " ms", Bench.percentileMs(samples, 99) < 50);
+    }
+
+    @Test
+    public void damagedBlock_failsBeforeTouchingTheLiveDatabase() throws Exception {
+        runOnIo(() -> session.db.stepDao().upsertLocal(new StepEntry("2025-06-30", 5000), 1L));
+        onIo(() -> backup().backup());
+        runOnIo(() -> session.db.stepDao().upsertLocal(new StepEntry("2025-06-30", 6000), 2L));
+
+        String snapshot = backup().snapshots().get(0);
+        String hash = StepBackup.decode(target.getManifest(snapshot)).get(0).hashes.get(0);
+        target.putBlock(hash, new byte[]{1, 2, 3});
+        try {
+            onIo(() -> backup().restore(snapshot, null));
+            fail("restored a damaged snapshot");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertSame(session, UserSession.current(ctx));
+        assertEquals(6000, (int) stepsOn(session, "2025-06-30"));
+    }
+
+    @Test
+    public void oldSnapshots_arePrunedWithTheirBlocks() throws Exception {
+        for (int day = 0; day < StepBackup.KEEP_SNAPSHOTS + 3; day++) {
+            String date = END.plusDays(day).format(StepStats.DB_FMT);
+            int steps = 1000 + day;
+            runOnIo(() -> session.db.stepDao().upsertLocal(new StepEntry(date, steps), clock.millis()));
+            onIo(() -> backup().backup());
+            clock.advance(86_400_000L);
+        }
+        List<String> kept = backup().snapshots();
+        assertEquals(StepBackup.KEEP_SNAPSHOTS, kept.size());
+
+        // Every stored block belongs to a kept snapshot, and each kept one still restores
+        List<String> referenced = new ArrayList<>();
+        for (String s : kept) {
+            for (StepBackup.FileEntry f : StepBackup.decode(target.getManifest(s))) referenced.addAll(f.hashes);
+        }
+        assertTrue(referenced.containsAll(target.blocks()));
+        UserSession restored = onIo(() -> backup().restore(kept.get(kept.size() - 1), null));
+        assertEquals(1003, (int) stepsOn(restored, END.plusDays(3).format(StepStats.DB_FMT)));
+        assertNull(stepsOn(restored, END.plusDays(4).format(StepStats.DB_FMT)));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/** Day-range listeners fire once per committed transaction, and only for their range. */
+@RunWith(RobolectricTestRunner.class)
+public class StepChangesTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+
+    private AppDatabase db;
+    private StepChanges changes;
+
+    @Before
+    public void setUp() throws Exception {
+        db = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        // Deliver observed results on the worker so the test needn't pump the main looper
+        changes = new StepChanges(db, Runnable::run);
+        changes.awaitIdle();
+    }
+
+    @After
+    public void tearDown() {
+        changes.shutdown();
+        db.close();
+    }
+
+    private static String key(LocalDate d) {
+        return d.format(StepStats.DB_FMT);
+    }
+
+    private static int[] next(BlockingQueue<int[]> q) throws InterruptedException {
+        int[] days = q.poll(5, TimeUnit.SECONDS);
+        assertNotNull("no notification", days);
+        return days;
+    }
+
+    @Test
+    public void liveWriteToToday_leavesPastWeeksAlone() throws Exception {
+        BlockingQueue<int[]> lastWeek = new LinkedBlockingQueue<>();
+        BlockingQueue<int[]> thisWeek = new LinkedBlockingQueue<>();
+        changes.addListener(TODAY.minusDays(13), TODAY.minusDays(7), lastWeek::add);
+        changes.addListener(TODAY.minusDays(6), TODAY, thisWeek::add);
+
+        db.stepDao().upsertLocal(new StepEntry(key(TODAY), 1200), 1L);
+        assertArrayEquals(new int[]{20250630}, next(thisWeek));
+        changes.awaitIdle();
+        assertNull(lastWeek.poll());
+
+        // A sync rewriting an old day reaches last week's listener only
+        List<StepEntry> remote = new ArrayList<>();
+        StepEntry old = new StepEntry(key(TODAY.minusDays(10)), 9000);
+        old.updatedAt = 5L;
+        remote.add(old);
+        db.stepDao().applyRemote(remote);
+        assertArrayEquals(new int[]{20250620}, next(lastWeek));
+        changes.awaitIdle();
+        assertNull(thisWeek.poll());
+    }
+
+    @Test
+    public void batchWrite_isOneNotificationWithAllItsDays() throws Exception {
+        BlockingQueue<int[]> all = new LinkedBlockingQueue<>();
+        changes.addListener(TODAY.minusYears(1), TODAY, all::add);
+
+        List<StepEntry> batch = new ArrayList<>();
+        for (int d = 0; d < 30; d++) batch.add(new StepEntry(key(TODAY.minusDays(d)), 1000 + d));
+        db.stepDao().insertAll(batch);
+
+        int[] days = next(all);
+        assertEquals(30, days.length);
+        assertEquals(StepColumns.dayKey(TODAY.minusDays(29)), days[0]);
+        assertEquals(StepColumns.dayKey(TODAY), days[29]);
+
+        // The next write is its own notification with only its day
+        db.stepDao().deleteBefore(key(TODAY.minusDays(28)));
+        assertArrayEquals(new int[]{StepColumns.dayKey(TODAY.minusDays(29))}, next(all));
+        changes.awaitIdle();
+        assertNull(all.poll());
+    }
+
+    @Test
+    public void observedQuery_reRunsOnlyForItsRange() throws Exception {
+        BlockingQueue<Integer> results = new LinkedBlockingQueue<>();
+        StepChanges.Subscription sub = changes.observe(TODAY.minusDays(2), TODAY,
+                d -> d.stepDao().getRange(key(TODAY.minusDays(2)), key(TODAY)).size(),
+                results::add);
+        assertEquals(0, (int) results.poll(5, TimeUnit.SECONDS));
+
+        // Outside the range: no re-run (a listener on that day is the barrier)
+        BlockingQueue<int[]> barrier = new LinkedBlockingQueue<>();
+        changes.addListener(TODAY.minusDays(5), TODAY.minusDays(5), barrier::add);
+        db.stepDao().upsertLocal(new StepEntry(key(TODAY.minusDays(5)), 10), 1L);
+        next(barrier);
+        changes.awaitIdle();
+        assertNull(results.poll());
+
+        db.stepDao().upsertLocal(new StepEntry(key(TODAY.minusDays(1)), 10), 2L);
+        assertEquals(1, (int) results.poll(5, TimeUnit.SECONDS));
+
+        sub.cancel();
+        db.stepDao().upsertLocal(new StepEntry(key(TODAY), 10), 3L);
+        db.stepDao().upsertLocal(new StepEntry(key(TODAY.minusDays(5)), 20), 4L);
+        next(barrier);
+        changes.awaitIdle();
+        assertNull(results.poll());
+    }
+
+    @Test
+    public void touches_findsAnyDayInRange() {
+        int[] days = {20250601, 20250615, 20250630};
+        assertTrue(StepChanges.touches(days, 20250610, 20250620));
+        assertTrue(StepChanges.touches(days, 20250630, 20250630));
+        assertFalse(StepChanges.touches(days, 20250602, 20250614));
+        assertFalse(StepChanges.touches(days, 20250701, 20250731));
+        assertFalse(StepChanges.touches(new int[0], 0, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.management.ManagementFactory;
+
+/** Glitch jumps are quarantined; FIFO backlogs, spikes that revert and reboots are told apart. */
+@RunWith(RobolectricTestRunner.class)
+public class StepGlitchFilterTest {
+
+    private static final long SEC = 1_000_000_000L;
+
+    @Test
+    public void walkingAndBatchedBacklog_passUnchanged() {
+        StepGlitchFilter f = new StepGlitchFilter(null);
+        long t = 0, at = 0;
+        int raw = 1000;
+        assertEquals(1000, f.filter(raw, t, at));
+        // Two steps per second for a minute
+        for (int i = 0; i < 60; i++) {
+            raw += 2;
+            t += SEC;
+            at += 1000;
+            assertEquals(raw, f.filter(raw, t, at));
+        }
+        // Screen-off FIFO flush: 5 minutes of steps (600) arrive within 50 ms, one event per 10 s
+        for (int i = 0; i < 30; i++) {
+            raw += 20;
+            t += 10 * SEC;
+            at += i == 0 ? 300_000 : 1;
+            assertEquals(raw, f.filter(raw, t, at));
+        }
+        assertEquals(0, f.quarantined());
+        assertEquals(90, f.accepted());
+        assertTrue(f.backlog() >= 29);
+    }
+
+    @Test
+    public void glitchJump_isQuarantined_andCountingContinues() {
+        StepGlitchFilter f = new StepGlitchFilter(null);
+        assertEquals(5000, f.filter(5000, 0, 0));
+        // +4000 steps "in" one second
+        int out = f.filter(9000, SEC, 1000);
+        int allowed = StepGlitchFilter.SLACK_STEPS + StepGlitchFilter.MAX_STEPS_PER_SEC;
+        assertEquals(5000 + allowed, out);
+        assertEquals(1, f.quarantined());
+        assertEquals(4000 - allowed, f.quarantinedSteps());
+        assertEquals(4000 - allowed, f.recentQuarantine(0));
+        assertEquals(1000, f.recentQuarantineAtMs(0));
+        // The counter carries on from the glitched value: later steps still count
+        assertEquals(out + 2, f.filter(9002, 2 * SEC, 2000));
+    }
+
+    @Test
+    public void spikeThatReverts_neverMovesTheOutputBackwards() {
+        StepGlitchFilter f = new StepGlitchFilter(null);
+        f.filter(5000, 0, 0);
+        int spiked = f.filter(65_000, SEC, 1000);
+        assertEquals(StepGlitchFilter.SKIP, f.filter(5002, 2 * SEC, 2000));
+        assertEquals(1, f.reverted());
+        assertEquals(0, f.reboots());
+        assertEquals(spiked + 3, f.filter(5005, 3 * SEC, 3000));
+    }
+
+    @Test
+    public void reboot_passesTheRestartedCounterThrough() {
+        StepGlitchFilter f = new StepGlitchFilter(null);
+        f.filter(5000, 0, 0);
+        f.filter(65_000, SEC, 1000);
+        assertEquals(3, f.filter(3, 60 * SEC, 60_000));
+        assertEquals(1, f.reboots());
+        assertEquals(7, f.filter(7, 61 * SEC, 61_000));
+    }
+
+    private static SharedPreferences prefs() {
+        return ApplicationProvider.getApplicationContext()
+                .getSharedPreferences(StepGlitchFilter.PREFS, Context.MODE_PRIVATE);
+    }
+
+    @Test
+    public void offset_survivesProcessRestart_unlessTheCounterRestarted() {
+        SharedPreferences prefs = prefs();
+        StepGlitchFilter f = new StepGlitchFilter(prefs, 7);
+        f.filter(5000, 0, 0);
+        int out = f.filter(9000, SEC, 1000);
+
+        StepGlitchFilter restarted = new StepGlitchFilter(prefs, 7);
+        assertEquals(out + 10, restarted.filter(9010, 100 * SEC, 100_000));
+        assertEquals(f.quarantinedSteps(), restarted.quarantinedSteps());
+
+        StepGlitchFilter afterReboot = new StepGlitchFilter(prefs, 8);
+        assertEquals(12, afterReboot.filter(12, 5 * SEC, 200_000));
+    }
+
+    @Test
+    public void offsetFromAnEarlierBoot_isDropped_evenPastItsRawValue() {
+        SharedPreferences prefs = prefs();
+        StepGlitchFilter f = new StepGlitchFilter(prefs, 7);
+        f.filter(5000, 0, 0);
+        f.filter(9000, SEC, 1000);
+
+        // Rebooted while the process was gone, then walked past the old raw value
+        StepGlitchFilter nextBoot = new StepGlitchFilter(prefs, 8);
+        assertEquals(9500, nextBoot.filter(9500, 3600 * SEC, 3_600_000));
+    }
+
+    @Test
+    public void unknownBootCount_fallsBackToTheEventClock() {
+        SharedPreferences prefs = prefs();
+        StepGlitchFilter f = new StepGlitchFilter(prefs, -1);
+        f.filter(5000, 3600 * SEC, 0);
+        int out = f.filter(9000, 3601 * SEC, 1000);
+
+        // Same boot: the event clock kept running
+        assertEquals(out + 10, new StepGlitchFilter(prefs, -1).filter(9010, 3700 * SEC, 100_000));
+        // The event clock went back: a new boot, even though the counter is past 9000
+        assertEquals(9500, new StepGlitchFilter(prefs, -1).filter(9500, 600 * SEC, 200_000));
+    }
+
+    @Test
+    public void filter_allocatesNothingPerReading() {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        StepGlitchFilter f = new StepGlitchFilter(null);
+        int raw = 0;
+        long t = 0;
+        f.filter(raw, t, 0);
+        int n = 5_000_000;
+        long bytes0 = mx.getThreadAllocatedBytes(thread);
+        long sink = 0, t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            raw += 1 + (i & 1);
+            t += SEC / 2;
+            sink += f.filter(raw, t, t / 1_000_000);
+        }
+        double nsPer = (System.nanoTime() - t0) / (double) n;
+        long allocated = mx.getThreadAllocatedBytes(thread) - bytes0;
+        assertEquals(n, f.accepted());
+        assertTrue(nsPer + " ns/reading (" + sink % 10 + ")", nsPer < 1_000);
+        assertTrue(allocated + " bytes", allocated < 64 * 1024);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/** Bounded, resumable maintenance passes over a file-backed step_db. */
+@RunWith(RobolectricTestRunner.class)
+public class StepMaintenanceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 30);
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Context ctx;
+    private AppDatabase db;
+    private StepMaintenance maintenance;
+
+    @Before
+    public void setUp() {
+        ctx = ApplicationProvider.getApplicationContext();
+        db = Room.databaseBuilder(ctx, AppDatabase.class, new File(tmp.getRoot(), "step_db").getAbsolutePath())
+                .allowMainThreadQueries()
+                .build();
+        MutableClock clock = new MutableClock(Instant.parse("2025-06-30T12:00:00Z").toEpochMilli(), ZoneId.of("UTC"));
+        StepHistory history = new StepHistory(db.stepDao(), new File(tmp.getRoot(), StepHistory.ARCHIVE_FILE));
+        maintenance = new StepMaintenance(ctx, db, new ArchiveManager(db, history, clock), clock, 12);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void rollUp_isBoundedPerRun_andFinishesAcrossRuns() {
+        SyntheticHistory.fill(db, new SyntheticHistory.Dataset("3y", SyntheticHistory.Granularity.DAILY, 3 * 365), TODAY, 5);
+        String cutoff = ArchiveManager.cutoff(TODAY, 12).format(StepStats.DB_FMT);
+        int toArchive = db.stepDao().countBefore(cutoff);
+
+        StepMaintenance.Report first = maintenance.run(() -> false);
+        assertEquals(StepMaintenance.MAX_MONTHS_PER_RUN, first.monthsArchived);
+        assertFalse(first.complete);
+
+        int runs = 1, archived = first.rowsArchived;
+        StepMaintenance.Report r = first;
+        while (!r.complete && runs < 10) {
+            r = maintenance.run(() -> false);
+            archived += r.rowsArchived;
+            runs++;
+        }
+        assertTrue(r.complete);
+        assertEquals(toArchive, archived);
+        assertEquals(0, db.stepDao().countBefore(cutoff));
+        assertTrue(r.analyzed);
+    }
+
+    @Test
+    public void rollUp_leavesUnsyncedMonthsInRoomUntilUploaded() {
+        SyntheticHistory.fill(db, new SyntheticHistory.Dataset("3y", SyntheticHistory.Granularity.DAILY, 3 * 365), TODAY, 5);
+        StepDao dao = db.stepDao();
+        dao.requeueAll(1000); // e.g. a server was just configured: everything is pending
+        String cutoff = ArchiveManager.cutoff(TODAY, 12).format(StepStats.DB_FMT);
+        int toArchive = dao.countBefore(cutoff);
+
+        StepMaintenance.Report r = maintenance.run(() -> false);
+        assertEquals(0, r.rowsArchived);
+        assertEquals(0, r.monthsArchived);
+        assertFalse(r.complete);
+        assertEquals(toArchive, dao.countBefore(cutoff));
+
+        // Once uploaded, the old months move as usual
+        dao.markSynced(dao.maxChangeSeq());
+        int archived = 0;
+        for (int runs = 0; runs < 10 && dao.countBefore(cutoff) > 0; runs++) {
+            archived += maintenance.run(() -> false).rowsArchived;
+        }
+        assertEquals(toArchive, archived);
+    }
+
+    @Test
+    public void prunesOrphanBaselineKeys_keepsToday() {
+        SharedPreferences prefs = ctx.getSharedPreferences(StepCounterManager.PREF_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor e = prefs.edit().putString("last_date", "2025-06-30");
+        for (int d = 1; d <= 30; d++) e.putInt(String.format("base_steps_2025-06-%02d", d), 1000 * d);
+        e.commit();
+
+        StepMaintenance.Report r = maintenance.run(() -> false);
+
+        assertEquals(29, r.baselineKeysRemoved);
+        assertEquals(30_000, prefs.getInt("base_steps_2025-06-30", -1));
+        assertFalse(prefs.contains("base_steps_2025-06-29"));
+        assertEquals("2025-06-30", prefs.getString("last_date", null));
+    }
+
+    @Test
+    public void reclaimsFreedPages() {
+        SyntheticHistory.fill(db, new SyntheticHistory.Dataset("minutes", SyntheticHistory.Granularity.MINUTE, 20), TODAY, 9);
+        maintenance.run(() -> false); // one-time switch to incremental auto_vacuum
+
+        db.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM steps WHERE date < '2025-06-25'");
+        StepMaintenance.Report r = maintenance.run(() -> false);
+
+        assertTrue("no pages freed: " + r, r.pagesFreed > 0);
+        assertTrue("no bytes reclaimed: " + r, r.bytesReclaimed > 0);
+        assertTrue(r.durationMs >= 0);
+    }
+
+    @Test
+    public void stopsBeforeDoingWork_whenCancelled() {
+        SyntheticHistory.fill(db, new SyntheticHistory.Dataset("3y", SyntheticHistory.Granularity.DAILY, 3 * 365), TODAY, 5);
+        int rows = db.stepDao().getAll().size();
+
+        StepMaintenance.Report r = maintenance.run(() -> true);
+
+        assertFalse(r.complete);
+        assertEquals(0, r.rowsArchived);
+        assertFalse(r.analyzed);
+        assertEquals(rows, db.stepDao().getAll().size());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Sweep-line merge of overlapping phone and watch intervals into daily totals. */
+public class StepMergeTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 2);
+    private static final long T0 = DAY.atStartOfDay(ZONE).toInstant().toEpochMilli();
+    private static final long MIN = 60_000L;
+
+    @Rule public final BenchmarkReport report = new BenchmarkReport("step_merge");
+
+    /**
+     * Stand-in for a paired watch: 5-minute intervals while worn, counting a bit more than
+     * the phone (which misses steps when it isn't carried).
+     */
+    static final class FakeWatchSource {
+        private final Random rnd;
+
+        FakeWatchSource(long seed) {
+            rnd = new Random(seed);
+        }
+
+        /** Watch intervals for one day, worn from 07:00 to 22:00. */
+        List<StepInterval> day(long dayStartMs, int[] phonePerMinute) {
+            List<StepInterval> out = new ArrayList<>();
+            for (int m = 7 * 60; m < 22 * 60; m += 5) {
+                int steps = 0;
+                for (int k = m; k < m + 5; k++) steps += phonePerMinute[k];
+                steps = (int) (steps * 1.1) + rnd.nextInt(3);
+                out.add(new StepInterval(StepSources.WATCH, dayStartMs + m * MIN, dayStartMs + (m + 5) * MIN, steps));
+            }
+            return out;
+        }
+    }
+
+    @Test
+    public void overlap_countsOnlyTheHigherPrioritySource() {
+        List<StepInterval> in = Arrays.asList(
+                // Phone 10:00-11:00, 600 steps; the watch covers 10:30-11:00 with 500
+                new StepInterval(StepSources.PHONE, T0 + 600 * MIN, T0 + 660 * MIN, 600),
+                new StepInterval(StepSources.WATCH, T0 + 630 * MIN, T0 + 660 * MIN, 500),
+                // Back to back with the phone interval: no overlap
+                new StepInterval(StepSources.PHONE, T0 + 660 * MIN, T0 + 670 * MIN, 100));
+        int[] totals = StepMerge.dailyTotals(in, DAY, 1, ZONE);
+        assertArrayEquals(new int[]{300 + 500 + 100}, totals);
+
+        // Order of the input doesn't matter
+        List<StepInterval> reversed = new ArrayList<>(in);
+        Collections.reverse(reversed);
+        assertArrayEquals(totals, StepMerge.dailyTotals(reversed, DAY, 1, ZONE));
+    }
+
+    @Test
+    public void intervalAcrossMidnight_isSplitByTime() {
+        long midnight = DAY.plusDays(1).atStartOfDay(ZONE).toInstant().toEpochMilli();
+        List<StepInterval> in = Arrays.asList(
+                new StepInterval(StepSources.WATCH, midnight - 15 * MIN, midnight + 45 * MIN, 400),
+                new StepInterval("scale", T0 + 60 * MIN, T0 + 61 * MIN, 7),
+                // Outside the window
+                new StepInterval(StepSources.PHONE, T0 - 30 * MIN, T0, 999));
+        assertArrayEquals(new int[]{7 + 100, 300}, StepMerge.dailyTotals(in, DAY, 2, ZONE));
+    }
+
+    @Test
+    public void sameSourceDuplicates_newestRowWins() {
+        StepInterval old = new StepInterval(StepSources.WATCH, T0, T0 + 10 * MIN, 100);
+        old.id = 1;
+        StepInterval resent = new StepInterval(StepSources.WATCH, T0, T0 + 10 * MIN, 120);
+        resent.id = 2;
+        assertArrayEquals(new int[]{120}, StepMerge.dailyTotals(Arrays.asList(resent, old), DAY, 1, ZONE));
+    }
+
+    @Test
+    public void yearOfInterleavedSources_mergesWellUnderASecond() throws IOException {
+        int days = 365;
+        Random rnd = new Random(42);
+        FakeWatchSource watch = new FakeWatchSource(43);
+        List<StepInterval> all = new ArrayList<>();
+        long expected = 0;
+        for (int d = 0; d < days; d++) {
+            long dayStart = DAY.plusDays(d).atStartOfDay(ZONE).toInstant().toEpochMilli();
+            int[] perMinute = new int[1440];
+            for (int m = 0; m < 1440; m++) {
+                perMinute[m] = SyntheticHistory.minuteSteps(m, rnd);
+                if (perMinute[m] > 0) {
+                    all.add(new StepInterval(StepSources.PHONE, dayStart + m * MIN, dayStart + (m + 1) * MIN, perMinute[m]));
+                }
+            }
+            List<StepInterval> w = watch.day(dayStart, perMinute);
+            all.addAll(w);
+            // Expected: watch while worn, phone the rest of the day
+            for (StepInterval iv : w) expected += iv.steps;
+            for (int m = 0; m < 1440; m++) if (m < 7 * 60 || m >= 22 * 60) expected += perMinute[m];
+        }
+        StepMerge.dailyTotals(all, DAY, days, ZONE); // warm-up
+        long t0 = System.nanoTime();
+        int[] totals = StepMerge.dailyTotals(all, DAY, days, ZONE);
+        double ms = (System.nanoTime() - t0) / 1e6;
+
+        long sum = 0;
+        for (int t : totals) sum += t;
+        assertEquals(expected, sum, days); // per-day rounding only
+        assertTrue("took " + ms + " ms", ms < 1000);
+
+        Map<String, Object> row = report.row();
+        row.put("intervals", all.size());
+        row.put("days", days);
+        row.put("ms", ms);
+    }
+}
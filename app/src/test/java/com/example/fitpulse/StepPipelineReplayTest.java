@@ -0,0 +1,155 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * End-to-end checks of the step pipeline driven by sensor traces instead of a walk.
+ * Each test asserts on the Room rows and STEP_UPDATE values the pipeline produced.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StepPipelineReplayTest {
+
+    private static final File REPORT_DIR = new File("build/reports/replay");
+
+    private TraceReplayer replayer;
+
+    @Before
+    public void setUp() {
+        replayer = new TraceReplayer(1000);
+    }
+
+    @After
+    public void tearDown() {
+        replayer.close();
+    }
+
+    @Test
+    public void recordedTrace_midnightAndReboot() throws Exception {
+        ReplayReport report = replayer.replay(SensorTrace.load("evening_walk_reboot.trace"));
+        report.writeTo(REPORT_DIR);
+
+        // Before midnight: 4200 → 4204
+        assertEquals(4, steps("2025-03-09"));
+        // After midnight baseline 4206, +6 before reboot, +8 after the counter restarted
+        assertEquals(14, steps("2025-03-10"));
+        assertEquals(Integer.valueOf(14), last(replayer.uiUpdates()));
+    }
+
+    @Test
+    public void syntheticWalk_acrossMidnight() throws Exception {
+        SensorTrace trace = SensorTrace.builder("synthetic_midnight", LocalDateTime.parse("2025-06-01T23:58:00"))
+                .counterAt(1000)
+                .walk(0, 300_000, 1000, 2)
+                .build();
+        ReplayReport report = replayer.replay(trace);
+        report.writeTo(REPORT_DIR);
+
+        // 120 events before midnight, 180 after; each adds 2 steps
+        assertEquals(238, steps("2025-06-01"));
+        assertEquals(358, steps("2025-06-02"));
+        assertEquals(Integer.valueOf(358), last(replayer.uiUpdates()));
+    }
+
+    @Test
+    public void syntheticWalk_rebootKeepsTodaysSteps() throws Exception {
+        SensorTrace trace = SensorTrace.builder("synthetic_reboot", LocalDateTime.parse("2025-06-02T09:00:00"))
+                .counterAt(5000)
+                .walk(0, 60_000, 1000, 3)
+                .reboot(60_000)
+                .walk(60_000, 30_000, 1000, 3)
+                .build();
+        replayer.replay(trace);
+
+        assertEquals(177 + 87, steps("2025-06-02"));
+        List<Integer> ui = replayer.uiUpdates();
+        for (int i = 1; i < ui.size(); i++) {
+            assertTrue("UI went backwards at " + i, ui.get(i) >= ui.get(i - 1));
+        }
+    }
+
+    @Test
+    public void stepsAfterAGap_areSpreadOverIt() throws Exception {
+        SensorTrace trace = SensorTrace.builder("synthetic_gap", LocalDateTime.parse("2025-06-04T10:00:00"))
+                .counterAt(1000)
+                .walk(0, 60_000, 1000, 2)
+                // Nothing delivered for 9.5 minutes, then one batched reading with 150 more steps
+                .walk(59_000, 572_000, 571_000, 150)
+                .walk(630_000, 61_000, 30_000, 0)
+                .build();
+        replayer.replay(trace);
+
+        long t0 = LocalDateTime.parse("2025-06-04T10:00:00").toInstant(ZoneOffset.UTC).toEpochMilli();
+        Map<Long, Integer> phone = new TreeMap<>();
+        for (StepInterval iv : replayer.db().stepIntervalDao().getOverlapping(t0, t0 + 3_600_000L)) {
+            assertEquals(StepSources.PHONE, iv.source);
+            phone.put((iv.startMs - t0) / 60_000L, iv.steps);
+        }
+        // 10:00 walking; 10:01-10:10 gets the gap's share instead of 10:10 getting all 150
+        assertEquals(Integer.valueOf(118), phone.get(0L));
+        assertEquals(Integer.valueOf(150 * 540 / 571), phone.get(1L));
+        assertEquals(Integer.valueOf(150 - 150 * 540 / 571), phone.get(10L));
+        assertEquals(3, phone.size());
+        assertEquals(268, steps("2025-06-04"));
+    }
+
+    @Test
+    public void watchDay_broadcastsTheMergedTotal() throws Exception {
+        long t0 = LocalDateTime.parse("2025-06-04T10:00:00").toInstant(ZoneOffset.UTC).toEpochMilli();
+        new StepSourceMerger(replayer.db(), ZoneOffset.UTC).ingest(StepSources.WATCH, Collections.singletonList(
+                new StepInterval(StepSources.WATCH, t0 - 3_600_000L, t0 - 1_800_000L, 3000)), t0);
+        SensorTrace trace = SensorTrace.builder("synthetic_watch_day", LocalDateTime.parse("2025-06-04T10:00:00"))
+                .counterAt(500)
+                .walk(0, 180_000, 1000, 2)
+                .build();
+        replayer.replay(trace);
+
+        // Room holds the watch plus the two flushed phone minutes; the screens show the same,
+        // not the phone's own 358
+        int merged = steps("2025-06-04");
+        assertEquals(3000 + 2 * 120, merged);
+        assertEquals(Integer.valueOf(merged), last(replayer.uiUpdates()));
+        for (int v : replayer.uiUpdates()) assertTrue("raw phone count " + v + " broadcast", v >= 3000);
+    }
+
+    @Test
+    public void throughput_unpacedReplay() throws Exception {
+        SensorTrace trace = SensorTrace.builder("throughput_10min", LocalDateTime.parse("2025-06-03T12:00:00"))
+                .counterAt(20_000)
+                .walk(0, 600_000, 1000, 2)
+                .motion(0, 600_000, 10)
+                .build();
+        // Unpaced, so the speed-up is the pipeline's own headroom over real time (see the report)
+        ReplayReport report = replayer.replay(trace, Double.POSITIVE_INFINITY);
+        report.writeTo(REPORT_DIR);
+
+        assertEquals(2 * 599, steps("2025-06-03"));
+        // Loose floor: catches a stage turning blocking or quadratic, not CI noise
+        assertTrue("replay only reached " + report.speedup() + "x", report.speedup() > 100);
+    }
+
+    private int steps(String date) {
+        StepEntry e = replayer.db().stepDao().getStepsByDate(date);
+        assertNotNull("no row for " + date, e);
+        return e.steps;
+    }
+
+    private static <T> T last(List<T> list) {
+        return list.isEmpty() ? null : list.get(list.size() - 1);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URL;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Walk-forward backtest of StepProjection: each day is projected at fixed times from the model
+ * learned on the days before it, then learned. Compared against plain pace.
+ * - Synthetic: commuter weekdays / late weekends, and SyntheticHistory's flat minute model.
+ * - Recorded: any test resource histories/*.csv, one StepProjection.recentDays() line per day.
+ * Results go to build/reports/benchmarks/projection_backtest.json.
+ */
+public class StepProjectionBacktest {
+
+    private static final int WARMUP_DAYS = 14;
+    private static final int[] CHECK_HOURS = {10, 13, 16, 19};
+    private static final LocalDate START = LocalDate.of(2025, 1, 6); // a Monday
+
+    @Rule public final BenchmarkReport report = new BenchmarkReport("projection_backtest");
+
+    @Test
+    public void learnedCurve_beatsPace() throws IOException {
+        Result routine = backtest("routine", dates(180), routineDays(180, new Random(7)), report);
+        Result flat = backtest("flat", dates(90), flatDays(90, new Random(11)), report);
+        for (Map.Entry<String, List<String>> e : recordedHistories().entrySet()) {
+            List<LocalDate> dates = new ArrayList<>();
+            List<int[]> days = new ArrayList<>();
+            for (String line : e.getValue()) {
+                dates.add(StepProjection.dateOf(line));
+                days.add(StepProjection.parseDay(line));
+            }
+            backtest(e.getKey(), dates, days, report);
+        }
+
+        // Learning the routine pays off most in the morning, and never costs much later on;
+        // what's left by the afternoon is mostly the unpredictable evening walk
+        double model = 0, pace = 0;
+        for (int i = 0; i < CHECK_HOURS.length; i++) {
+            assertTrue("routine " + CHECK_HOURS[i] + ":00", routine.modelMape[i] < routine.paceMape[i] * 1.1);
+            model += routine.modelMape[i];
+            pace += routine.paceMape[i];
+        }
+        assertTrue(model < pace * 0.6);
+        assertTrue(routine.modelMape[0] < 0.12);
+        // No routine to learn beyond the daily total: still no worse than pace
+        for (int i = 0; i < CHECK_HOURS.length; i++) assertTrue(flat.modelMape[i] < flat.paceMape[i]);
+    }
+
+    @Test
+    public void projection_isCheapEnoughForEveryTick() {
+        StepProjection model = new StepProjection(null);
+        List<int[]> days = routineDays(30, new Random(3));
+        for (int d = 0; d < days.size(); d++) model.learnDay(START.plusDays(d), days.get(d));
+        int n = 1_000_000;
+        long sink = 0, t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) sink += model.project(START, i % 1440, i % 12_000).expectedTotal;
+        double nsPer = (System.nanoTime() - t0) / (double) n;
+        assertTrue(nsPer + " ns/call (" + sink % 10 + ")", nsPer < 20_000);
+    }
+
+    private static final class Result {
+        final double[] modelMape = new double[CHECK_HOURS.length];
+        final double[] paceMape = new double[CHECK_HOURS.length];
+    }
+
+    private static Result backtest(String name, List<LocalDate> dates, List<int[]> days, BenchmarkReport report) {
+        StepProjection model = new StepProjection(null);
+        Result r = new Result();
+        int scored = 0;
+        for (int d = 0; d < days.size(); d++) {
+            int[] day = days.get(d);
+            int total = day[StepProjection.BUCKETS - 1];
+            if (d >= WARMUP_DAYS && total > 0) {
+                scored++;
+                for (int i = 0; i < CHECK_HOURS.length; i++) {
+                    int minute = CHECK_HOURS[i] * 60;
+                    int stepsNow = day[StepProjection.bucketOf(minute) - 1]; // steps at the bucket start
+                    r.modelMape[i] += Math.abs(model.project(dates.get(d), minute, stepsNow).expectedTotal - total) / (double) total;
+                    r.paceMape[i] += Math.abs(StepProjection.paceProjection(minute, stepsNow) - total) / (double) total;
+                }
+            }
+            model.learnDay(dates.get(d), day);
+        }
+        for (int i = 0; i < CHECK_HOURS.length; i++) {
+            r.modelMape[i] /= Math.max(1, scored);
+            r.paceMape[i] /= Math.max(1, scored);
+            Map<String, Object> row = report.row();
+            row.put("history", name);
+            row.put("days", scored);
+            row.put("hour", CHECK_HOURS[i]);
+            row.put("modelMape", r.modelMape[i]);
+            row.put("paceMape", r.paceMape[i]);
+        }
+        return r;
+    }
+
+    private static List<LocalDate> dates(int n) {
+        List<LocalDate> out = new ArrayList<>();
+        for (int d = 0; d < n; d++) out.add(START.plusDays(d));
+        return out;
+    }
+
+    /** Weekdays: commute walks plus a lunch walk; weekends: late start, long afternoon walk. */
+    private static List<int[]> routineDays(int n, Random rnd) {
+        List<int[]> days = new ArrayList<>();
+        for (int d = 0; d < n; d++) {
+            boolean weekend = StepProjection.dayType(START.plusDays(d)) == 1;
+            double scale = Math.exp(rnd.nextGaussian() * 0.15);
+            double[] perMinute = new double[1440];
+            if (weekend) {
+                walk(perMinute, 10 * 60, 60, 25 * scale, rnd);
+                walk(perMinute, 15 * 60, 90, 55 * scale, rnd);
+            } else {
+                walk(perMinute, 8 * 60, 25, 90 * scale, rnd);
+                walk(perMinute, 12 * 60 + 30, 30, 60 * scale, rnd);
+                walk(perMinute, 17 * 60 + 30, 30, 90 * scale, rnd);
+            }
+            // Errands / an occasional evening walk
+            if (rnd.nextInt(3) == 0) walk(perMinute, 19 * 60 + rnd.nextInt(120), 30, 70, rnd);
+            for (int m = 7 * 60; m < 23 * 60; m++) perMinute[m] += rnd.nextInt(8);
+            days.add(toBuckets(perMinute));
+        }
+        return days;
+    }
+
+    private static List<int[]> flatDays(int n, Random rnd) {
+        List<int[]> days = new ArrayList<>();
+        for (int d = 0; d < n; d++) {
+            double[] perMinute = new double[1440];
+            for (int m = 0; m < 1440; m++) perMinute[m] = SyntheticHistory.minuteSteps(m, rnd) * 0.5;
+            days.add(toBuckets(perMinute));
+        }
+        return days;
+    }
+
+    private static void walk(double[] perMinute, int start, int minutes, double stepsPerMin, Random rnd) {
+        int jitter = (int) (rnd.nextGaussian() * 15);
+        for (int m = Math.max(0, start + jitter); m < Math.min(1440, start + jitter + minutes); m++) {
+            perMinute[m] += stepsPerMin;
+        }
+    }
+
+    private static int[] toBuckets(double[] perMinute) {
+        int[] out = new int[StepProjection.BUCKETS];
+        double cum = 0;
+        for (int m = 0; m < 1440; m++) {
+            cum += perMinute[m];
+            if ((m + 1) % StepProjection.BUCKET_MIN == 0) out[m / StepProjection.BUCKET_MIN] = (int) cum;
+        }
+        return out;
+    }
+
+    /** histories/*.csv test resources: one exported day curve per line, '#' comments. */
+    private static Map<String, List<String>> recordedHistories() throws IOException {
+        Map<String, List<String>> out = new TreeMap<>();
+        URL dir = StepProjectionBacktest.class.getClassLoader().getResource("histories");
+        if (dir == null || !"file".equals(dir.getProtocol())) return out;
+        File[] files = new File(dir.getPath()).listFiles((f, n) -> n.endsWith(".csv"));
+        if (files == null) return out;
+        for (File f : files) {
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader r = new BufferedReader(new FileReader(f))) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+                }
+            }
+            out.put(f.getName(), lines);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/** What StepProjection learns a finished day from, and how it loads its prefs. */
+@RunWith(RobolectricTestRunner.class)
+public class StepProjectionTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    private final Map<String, Integer> room = new HashMap<>();
+
+    /** Observed 08:00-18:00 of each weekday, then a last reading on the day after. */
+    private static void observeDays(StepProjection p, int days) {
+        for (int d = 0; d < days; d++) {
+            String date = MONDAY.plusDays(d).toString();
+            p.onProgress(date, 8 * 60, 1000);
+            p.onProgress(date, 12 * 60, 4000);
+            p.onProgress(date, 18 * 60, 6000);
+        }
+        p.onProgress(MONDAY.plusDays(days).toString(), 0, 0);
+    }
+
+    @Test
+    public void dayWithoutRoomRow_isNotLearned() {
+        StepProjection p = new StepProjection(null, room::get);
+        observeDays(p, 3);
+        assertFalse(p.project(MONDAY.plusDays(3), 12 * 60, 4000).learned);
+        assertEquals(3, p.recentDays().size()); // the curves are still kept
+    }
+
+    @Test
+    public void roomTotal_isWhatTheDayIsLearnedAs() {
+        for (int d = 0; d < 3; d++) room.put(MONDAY.plusDays(d).toString(), 9000);
+        StepProjection p = new StepProjection(null, room::get);
+        observeDays(p, 3);
+
+        StepProjection.Projection noon = p.project(MONDAY.plusDays(3), 12 * 60, 4000);
+        assertTrue(noon.learned);
+        assertEquals(9000, noon.expectedTotal);
+        // Nothing observed after 18:00 reached 9000, so the evening buckets were not learned
+        assertFalse(p.project(MONDAY.plusDays(3), 20 * 60, 6000).learned);
+    }
+
+    @Test
+    public void prefs_areReadOnFirstUse_notWhenBuilt() {
+        SharedPreferences prefs = ApplicationProvider.getApplicationContext()
+                .getSharedPreferences(StepProjection.PREFS, Context.MODE_PRIVATE);
+        StepProjection p = new StepProjection(prefs);
+
+        // Stored after construction, still picked up: nothing was read yet
+        StringBuilder curve = new StringBuilder("2025-06-02");
+        for (int b = 0; b < StepProjection.BUCKETS; b++) curve.append(',').append(b < 16 ? -1 : 5000);
+        prefs.edit().putString("progress", curve.toString()).commit();
+
+        p.onProgress("2025-06-03", 9 * 60, 500);
+        assertEquals(1, p.recentDays().size());
+        assertEquals(curve.toString(), p.recentDays().get(0));
+    }
+
+    @Test
+    public void corruptPrefs_areDroppedNotThrown() {
+        Context ctx = ApplicationProvider.getApplicationContext();
+        SharedPreferences prefs = ctx.getSharedPreferences(StepProjection.PREFS, Context.MODE_PRIVATE);
+        prefs.edit()
+                .putString("progress", "2025-06-02,12,oops")
+                .putString("model", "1.0,2.0;not,a,number,at,all")
+                .commit();
+
+        StepProjection p = new StepProjection(prefs);
+        p.onProgress("2025-06-03", 9 * 60, 500);
+        assertFalse(p.project(LocalDate.parse("2025-06-03"), 9 * 60, 500).learned);
+        assertTrue(prefs.getString("progress", "").startsWith("2025-06-03,"));
+    }
+}
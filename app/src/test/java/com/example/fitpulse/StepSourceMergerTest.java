@@ -0,0 +1,106 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Ingesting a second source rewrites only the days it touches, with the merged total. */
+@RunWith(RobolectricTestRunner.class)
+public class StepSourceMergerTest {
+
+    private static final ZoneId ZONE = ZoneId.of("UTC");
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 2);
+    private static final long MIN = 60_000L;
+
+    private AppDatabase db;
+    private StepSourceMerger merger;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        merger = new StepSourceMerger(db, ZONE);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static long at(LocalDate day, int minute) {
+        return day.atStartOfDay(ZONE).toInstant().toEpochMilli() + minute * MIN;
+    }
+
+    @Test
+    public void phoneOnlyDays_areLeftToTheLiveCounter() {
+        merger.ingest(StepSources.PHONE, Collections.singletonList(
+                new StepInterval(StepSources.PHONE, at(DAY, 600), at(DAY, 601), 80)), at(DAY, 602));
+        assertNull(db.stepDao().getStepsByDate("2025-06-02"));
+        assertFalse(merger.hasOtherSource("2025-06-02"));
+    }
+
+    @Test
+    public void watchSync_rewritesOnlyTheDaysItCovers() {
+        // A week of phone data with the raw daily totals already written
+        for (int d = 0; d < 7; d++) {
+            LocalDate day = DAY.plusDays(d);
+            List<StepInterval> phone = new ArrayList<>();
+            for (int m = 8 * 60; m < 9 * 60; m++) phone.add(new StepInterval(StepSources.PHONE, at(day, m), at(day, m + 1), 50));
+            merger.ingest(StepSources.PHONE, phone, at(day, 9 * 60));
+            db.stepDao().upsertLocal(new StepEntry(day.format(StepStats.DB_FMT), 3000), at(day, 9 * 60));
+        }
+        long seqBefore = db.stepDao().maxChangeSeq();
+
+        // A late watch sync for day 3: 08:30-09:30 in 5-minute intervals of 400 steps
+        LocalDate day3 = DAY.plusDays(3);
+        List<StepInterval> watch = new ArrayList<>();
+        for (int m = 8 * 60 + 30; m < 9 * 60 + 30; m += 5) {
+            watch.add(new StepInterval(StepSources.WATCH, at(day3, m), at(day3, m + 5), 400));
+        }
+        int written = merger.ingest(StepSources.WATCH, watch, at(DAY.plusDays(7), 0));
+
+        assertEquals(1, written);
+        // 08:00-08:30 from the phone, 08:30-09:30 from the watch
+        assertEquals(30 * 50 + 12 * 400, db.stepDao().getStepsByDate("2025-06-05").steps);
+        assertEquals(3000, db.stepDao().getStepsByDate("2025-06-04").steps);
+        assertEquals(3000, db.stepDao().getStepsByDate("2025-06-06").steps);
+        assertEquals(seqBefore + 1, db.stepDao().maxChangeSeq());
+        assertTrue(merger.hasOtherSource("2025-06-05"));
+        assertFalse(merger.hasOtherSource("2025-06-04"));
+
+        // Re-sending the same data changes nothing
+        assertEquals(0, merger.recomputeDays(day3, 1, at(DAY.plusDays(8), 0)));
+    }
+
+    @Test
+    public void longIntervals_areSplitOnIngest() {
+        merger.ingest(StepSources.WATCH, Collections.singletonList(
+                new StepInterval(StepSources.WATCH, at(DAY, 0), at(DAY, 150), 1001)), at(DAY, 200));
+        List<StepInterval> rows = db.stepIntervalDao().getOverlapping(at(DAY, 0), at(DAY, 1440));
+        assertEquals(3, rows.size());
+        int sum = 0;
+        for (StepInterval iv : rows) {
+            assertTrue(iv.endMs - iv.startMs <= StepInterval.MAX_MS);
+            sum += iv.steps;
+        }
+        assertEquals(1001, sum);
+        assertEquals(1001, db.stepDao().getStepsByDate("2025-06-02").steps);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Widget pushes under a 5 Hz step stream: bounded by the interval, always ending on the latest value. */
+@RunWith(RobolectricTestRunner.class)
+public class StepWidgetUpdaterTest {
+
+    private static final long INTERVAL_MS = 30_000L;
+    private static final long TICK_MS = 200L; // StepCounterManager's throttle rate
+
+    private MutableClock clock;
+    private final List<StepSnapshot> pushed = new ArrayList<>();
+    private StepWidgetUpdater updater;
+
+    @Before
+    public void setUp() {
+        clock = new MutableClock(1_750_000_000_000L, ZoneId.of("UTC"));
+        updater = new StepWidgetUpdater(clock, new Handler(Looper.getMainLooper()), pushed::add, INTERVAL_MS);
+    }
+
+    private void tick() {
+        clock.advance(TICK_MS);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(TICK_MS));
+    }
+
+    @Test
+    public void highRateStream_pushesAtMostOncePerInterval() {
+        // Ten minutes of walking: one step per tick
+        int ticks = (int) (10 * 60_000 / TICK_MS);
+        int steps = 0;
+        for (int i = 0; i < ticks; i++) {
+            steps++;
+            updater.offer(new StepSnapshot("2025-06-02", steps, 10_000, 8_000, clock.millis()));
+            tick();
+        }
+        // Let the trailing flush run
+        for (int i = 0; i < INTERVAL_MS / TICK_MS; i++) tick();
+
+        assertEquals(ticks, updater.offered());
+        int maxPushes = (int) (ticks * TICK_MS / INTERVAL_MS) + 1;
+        assertTrue(pushed.size() + " pushes", pushed.size() <= maxPushes);
+        assertTrue(pushed.size() >= maxPushes - 1);
+        assertEquals(steps, pushed.get(pushed.size() - 1).steps);
+        for (int i = 1; i < pushed.size(); i++) {
+            assertTrue(pushed.get(i).atMs - pushed.get(i - 1).atMs >= INTERVAL_MS - TICK_MS);
+        }
+    }
+
+    @Test
+    public void unchangedDisplay_isNeverPushed() {
+        updater.offer(new StepSnapshot("2025-06-02", 500, 10_000, 8_010, clock.millis()));
+        assertEquals(1, pushed.size());
+        // Standing still: same steps, projection wobbling below the display rounding
+        for (int i = 0; i < 1_000; i++) {
+            tick();
+            updater.offer(new StepSnapshot("2025-06-02", 500, 10_000, 8_000 + i % 40, clock.millis()));
+        }
+        assertEquals(1, pushed.size());
+        assertEquals(1_000, updater.unchanged());
+
+        // A goal change is a visible change
+        updater.goalChanged(12_000);
+        assertEquals(2, pushed.size());
+        assertEquals(12_000, pushed.get(1).goal);
+    }
+
+    @Test
+    public void burstAfterQuietPeriod_isPushedImmediately() {
+        updater.offer(new StepSnapshot("2025-06-02", 1, 10_000, 0, clock.millis()));
+        clock.advance(INTERVAL_MS);
+        updater.offer(new StepSnapshot("2025-06-02", 2, 10_000, 0, clock.millis()));
+        assertEquals(2, pushed.size());
+        updater.offer(new StepSnapshot("2025-06-02", 3, 10_000, 0, clock.millis()));
+        assertEquals(2, pushed.size());
+        // Held until the interval since the last push is over
+        clock.advance(INTERVAL_MS);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(INTERVAL_MS));
+        assertEquals(3, pushed.size());
+        assertEquals(3, pushed.get(2).steps);
+    }
+}
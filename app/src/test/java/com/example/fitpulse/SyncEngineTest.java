@@ -0,0 +1,253 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SyncEngine + HttpSyncTransport against FakeSyncServer over real loopback HTTP.
+ * The 100k-row initial sync also records throughput and wire size to
+ * build/reports/benchmarks/sync.json.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SyncEngineTest {
+
+    private static final LocalDate END = LocalDate.of(2025, 6, 30);
+    private static final long T0 = 1_750_000_000_000L;
+
+    @Rule public final BenchmarkReport report = new BenchmarkReport("sync");
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private Context ctx;
+    private AppDatabase db;
+    private FakeSyncServer server;
+    private HttpSyncTransport transport;
+    private MutableClock clock;
+
+    @Before
+    public void setUp() throws IOException {
+        ctx = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(ctx, AppDatabase.class).allowMainThreadQueries().build();
+        server = new FakeSyncServer();
+        transport = new HttpSyncTransport(server.baseUrl(), "test-device");
+        clock = new MutableClock(T0, ZoneId.of("UTC"));
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        db.close();
+    }
+
+    private SyncEngine engine(int batchSize) {
+        return new SyncEngine(ctx, db, transport, clock, batchSize);
+    }
+
+    private void fill(int days) {
+        SyntheticHistory.fill(db, new SyntheticHistory.Dataset("d" + days, SyntheticHistory.Granularity.DAILY, days), END, 7);
+    }
+
+    @Test
+    public void initialSync_100kRows() throws Exception {
+        int rows = 100_000;
+        fill(rows);
+        SyncEngine engine = engine(SyncEngine.DEFAULT_BATCH_SIZE);
+        engine.requeueAll();
+
+        long t0 = System.nanoTime();
+        SyncEngine.Result r = engine.sync();
+        long nanos = System.nanoTime() - t0;
+
+        assertEquals(rows, r.uploaded);
+        assertEquals(rows / SyncEngine.DEFAULT_BATCH_SIZE, r.uploadBatches);
+        assertEquals(rows, server.size());
+        assertEquals(rows, server.rowsReceived());
+        assertEquals(0, db.stepDao().countPendingChanges());
+        // Our own rows come back on the pull but never overwrite the local copy
+        assertEquals(rows, r.downloaded);
+        assertEquals(0, r.applied);
+
+        // ~45 bytes of JSON per row before gzip
+        long sent = transport.bytesSent();
+        assertTrue("upload not compressed: " + sent + " bytes", sent < rows * 20L);
+
+        Map<String, Object> row = report.row();
+        row.put("case", "initial_100k");
+        row.put("rows", rows);
+        row.put("batches", r.uploadBatches);
+        row.put("totalMs", nanos / 1e6);
+        row.put("rowsPerSec", rows / (nanos / 1e9));
+        row.put("bytesSent", sent);
+        row.put("bytesPerRow", (double) sent / rows);
+        row.put("bytesReceived", transport.bytesReceived());
+    }
+
+    @Test
+    public void incrementalSync_uploadsOnlyChangedDays() throws Exception {
+        fill(90);
+        SyncEngine engine = engine(50);
+        engine.requeueAll();
+        engine.sync();
+        long receivedBefore = server.rowsReceived();
+
+        clock.advance(60_000);
+        db.stepDao().upsertLocal(new StepEntry("2025-06-30", 12_345), clock.millis());
+        db.stepDao().upsertLocal(new StepEntry("2025-07-01", 321), clock.millis());
+
+        SyncEngine.Result r = engine.sync();
+        assertEquals(2, r.uploaded);
+        assertEquals(1, r.uploadBatches);
+        assertEquals(2, server.rowsReceived() - receivedBefore);
+        assertEquals(12_345, server.get("2025-06-30").steps);
+        assertEquals(91, server.size());
+
+        // Nothing pending: a third sync sends nothing
+        assertEquals(0, engine.sync().uploaded);
+    }
+
+    @Test
+    public void interruptedSync_resumesAtNextBatch() throws Exception {
+        fill(1000);
+        SyncEngine engine = engine(100);
+        engine.requeueAll();
+
+        server.failUploadsAfter(3);
+        try {
+            engine.sync();
+            fail("expected the upload to fail");
+        } catch (IOException expected) {
+            // 3 batches acknowledged before the server went away
+        }
+        assertEquals(700, db.stepDao().countPendingChanges());
+
+        server.failUploadsAfter(Integer.MAX_VALUE);
+        SyncEngine.Result r = engine.sync();
+        assertEquals(700, r.uploaded);
+        assertEquals(1000, server.size());
+        // Every row crossed the wire exactly once
+        assertEquals(1000, server.rowsReceived());
+    }
+
+    @Test
+    public void partlyAcceptedBatch_resendsOnlyTheRest() throws Exception {
+        fill(100);
+        SyncEngine engine = engine(50);
+        engine.requeueAll();
+
+        server.acceptRowsPerBatch(30);
+        SyncEngine.Result r = engine.sync();
+        // The push stops at the first short batch; its last 20 rows stay pending
+        assertEquals(30, r.uploaded);
+        assertEquals(70, db.stepDao().countPendingChanges());
+
+        server.acceptRowsPerBatch(Integer.MAX_VALUE);
+        r = engine.sync();
+        assertEquals(70, r.uploaded);
+        assertEquals(100, server.size());
+        assertEquals(100, server.rowsReceived());
+    }
+
+    @Test
+    public void configuredServer_uploadsExistingHistoryOnce() throws Exception {
+        fill(30); // written before sync was turned on: nothing pending yet
+        assertEquals(0, db.stepDao().countPendingChanges());
+        SyncEngine.setServer(ctx, server.baseUrl());
+        assertEquals(server.baseUrl(), SyncEngine.serverUrl(ctx));
+
+        SyncEngine engine = engine(50);
+        assertEquals(30, engine.sync().uploaded);
+        assertEquals(0, engine.sync().uploaded);
+        assertEquals(30, server.size());
+
+        SyncEngine.setServer(ctx, null);
+        assertEquals(null, SyncEngine.serverUrl(ctx));
+    }
+
+    @Test
+    public void requeue_alsoUploadsArchivedDays() throws Exception {
+        fill(400);
+        StepHistory history = new StepHistory(db.stepDao(), new File(tmp.getRoot(), StepHistory.ARCHIVE_FILE));
+        new ArchiveManager(db, history, clock).archiveBefore(ArchiveManager.cutoff(END, 6));
+        assertNotNull(history.archiveLastDay());
+
+        SyncEngine engine = new SyncEngine(UserSession.prefs(ctx, SyncEngine.PREFS), db, history,
+                transport, clock, 50);
+        engine.requeueAll();
+        // Short batches stop both Room and archive uploads; the next run resumes each
+        server.acceptRowsPerBatch(30);
+        assertEquals(60, engine.sync().uploaded);
+        server.acceptRowsPerBatch(Integer.MAX_VALUE);
+        assertEquals(340, engine.sync().uploaded);
+        assertEquals(400, server.size());
+        assertEquals(400, server.rowsReceived());
+        assertEquals(0, engine.sync().uploaded);
+    }
+
+    @Test
+    public void everyAccountWithAServer_syncsUnderTheInstallsDeviceId() {
+        UserSession.resetForTests();
+        try {
+            LocalAccounts.register(ctx, "Ann", "ann@example.com", "pw"); // current (legacy id)
+            LocalAccounts.Account bob = LocalAccounts.register(ctx, "Bob", "bob@example.com", "pw");
+            ctx.getSharedPreferences(LocalAccounts.scoped(SyncEngine.PREFS, bob.id), Context.MODE_PRIVATE)
+                    .edit().putString(SyncEngine.KEY_SERVER_URL, server.baseUrl()).commit();
+            assertEquals(List.of(bob.id), SyncEngine.accountsWithServer(ctx));
+            assertNull(SyncEngine.forConfiguredServer(ctx));
+            assertNotNull(SyncEngine.forConfiguredServer(ctx, UserSession.of(ctx, bob.id)));
+
+            SyncEngine.setServer(ctx, server.baseUrl());
+            assertEquals(List.of(LocalAccounts.LEGACY_ID, bob.id), SyncEngine.accountsWithServer(ctx));
+
+            // One id for the install, not kept in (backed-up) account prefs
+            String device = SyncEngine.deviceId(ctx);
+            assertEquals(device, SyncEngine.deviceId(ctx));
+            assertFalse(UserSession.prefs(ctx, SyncEngine.PREFS).contains(SyncEngine.KEY_DEVICE_ID));
+        } finally {
+            UserSession.resetForTests();
+        }
+    }
+
+    @Test
+    public void merge_lastWriterWinsPerDay() throws Exception {
+        StepDao dao = db.stepDao();
+        dao.upsertLocal(new StepEntry("2025-06-01", 5000), T0);
+        dao.upsertLocal(new StepEntry("2025-06-02", 7000), T0);
+
+        server.put("2025-06-01", 9000, T0 + 1000);   // newer on the server
+        server.put("2025-06-02", 1000, T0 - 1000);   // older on the server
+        server.put("2025-05-31", 4000, T0 - 5000);   // only on the server
+
+        SyncEngine.Result r = engine(100).sync();
+
+        assertEquals(9000, dao.getStepsByDate("2025-06-01").steps);
+        assertEquals(7000, dao.getStepsByDate("2025-06-02").steps);
+        assertEquals(4000, dao.getStepsByDate("2025-05-31").steps);
+        assertEquals(7000, server.get("2025-06-02").steps);
+        assertEquals(9000, server.get("2025-06-01").steps);
+        assertEquals(2, r.applied);
+        assertEquals(0, dao.countPendingChanges());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.fitpulse;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates deterministic step history for benchmarks.
+ * - DAILY rows use the production "yyyy-MM-dd" key.
+ * - MINUTE rows use "yyyy-MM-dd HH:mm" keys in the same table; they sort correctly and
+ *   model the row counts minute-level storage would produce.
+ * Rows are inserted in batched transactions so multi-million-row sets fit in memory.
+ */
+final class SyntheticHistory {
+
+    enum Granularity { DAILY, MINUTE }
+
+    /** A named dataset: granularity × number of days ending at "end". */
+    static final class Dataset {
+        final String name;
+        final Granularity granularity;
+        final int days;
+
+        Dataset(String name, Granularity granularity, int days) {
+            this.name = name;
+            this.granularity = granularity;
+            this.days = days;
+        }
+
+        long rows() {
+            return granularity == Granularity.DAILY ? days : days * 1440L;
+        }
+    }
+
+    private static final DateTimeFormatter MINUTE_FMT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm", Locale.ROOT);
+    private static final int BATCH = 10_000;
+
+    private SyntheticHistory() {}
+
+    /** Fill db with the dataset; returns the number of rows written. */
+    static long fill(AppDatabase db, Dataset ds, LocalDate end, long seed) {
+        Random rnd = new Random(seed);
+        List<StepEntry> batch = new ArrayList<>(BATCH);
+        long written = 0;
+        LocalDate first = end.minusDays(ds.days - 1);
+        for (int d = 0; d < ds.days; d++) {
+            LocalDate day = first.plusDays(d);
+            if (ds.granularity == Granularity.DAILY) {
+                batch.add(new StepEntry(day.format(StepStats.DB_FMT), dailySteps(day, rnd)));
+            } else {
+                LocalDateTime t = day.atStartOfDay();
+                for (int m = 0; m < 1440; m++, t = t.plusMinutes(1)) {
+                    batch.add(new StepEntry(t.format(MINUTE_FMT), minuteSteps(m, rnd)));
+                    if (batch.size() == BATCH) written += flush(db, batch);
+                }
+            }
+            if (batch.size() >= BATCH) written += flush(db, batch);
+        }
+        written += flush(db, batch);
+        return written;
+    }
+
+    private static int flush(AppDatabase db, List<StepEntry> batch) {
+        if (batch.isEmpty()) return 0;
+        int n = batch.size();
+        db.runInTransaction(() -> db.stepDao().insertAll(batch));
+        batch.clear();
+        return n;
+    }
+
+    /** Weekday/weekend pattern plus noise, 2k..16k. */
+    static int dailySteps(LocalDate day, Random rnd) {
+        int base = day.getDayOfWeek().getValue() >= 6 ? 6000 : 8500;
+        return Math.max(2000, Math.min(16000, base + (int) (rnd.nextGaussian() * 2500)));
+    }
+
+    /** Zero at night, bursts of walking during the day. */
+    static int minuteSteps(int minuteOfDay, Random rnd) {
+        if (minuteOfDay < 7 * 60 || minuteOfDay >= 23 * 60) return 0;
+        return rnd.nextInt(10) < 7 ? rnd.nextInt(8) : 60 + rnd.nextInt(60);
+    }
+}
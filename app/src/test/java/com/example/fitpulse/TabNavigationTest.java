@@ -0,0 +1,124 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.fragment.app.Fragment;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.material.bottomnavigation.BottomNavigationView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bottom-nav switching must reuse the single MainActivity host and its four retained tabs.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TabNavigationTest {
+
+    private static final int[] TABS = {
+            R.id.nav_home, R.id.nav_stats, R.id.nav_monitor, R.id.nav_settings
+    };
+
+    @Test
+    public void hundredTabSwitches_keepOneHostAndFourRetainedTabs() {
+        Application app = ApplicationProvider.getApplicationContext();
+        int[] activitiesCreated = {0};
+        app.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override public void onActivityCreated(Activity a, Bundle b) { activitiesCreated[0]++; }
+            @Override public void onActivityStarted(Activity a) {}
+            @Override public void onActivityResumed(Activity a) {}
+            @Override public void onActivityPaused(Activity a) {}
+            @Override public void onActivityStopped(Activity a) {}
+            @Override public void onActivitySaveInstanceState(Activity a, Bundle b) {}
+            @Override public void onActivityDestroyed(Activity a) {}
+        });
+
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+        BottomNavigationView nav = activity.findViewById(R.id.bottom_navigation);
+
+        Map<String, View> firstViews = new HashMap<>();
+        for (int i = 1; i <= 100; i++) {
+            int tab = TABS[i % TABS.length];
+            nav.setSelectedItemId(tab);
+            shadowOf(Looper.getMainLooper()).idle();
+            assertEquals(tab, activity.getCurrentTab());
+
+            if (i == TABS.length) {
+                // Every tab has been visited once: remember each tab's root view
+                for (Fragment f : activity.getSupportFragmentManager().getFragments()) {
+                    firstViews.put(f.getTag(), f.getView());
+                }
+            }
+        }
+
+        assertEquals("tab switches must not create activities", 1, activitiesCreated[0]);
+        assertNull(shadowOf(activity).getNextStartedActivity());
+
+        List<Fragment> fragments = activity.getSupportFragmentManager().getFragments();
+        assertEquals(4, fragments.size());
+        int visible = 0;
+        for (Fragment f : fragments) {
+            assertSame("tab " + f.getTag() + " was re-inflated", firstViews.get(f.getTag()), f.getView());
+            if (f.isVisible()) visible++;
+        }
+        assertEquals(1, visible);
+
+        ViewGroup container = activity.findViewById(R.id.fragment_container);
+        assertEquals(4, container.getChildCount());
+
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void backFromOtherTab_returnsHomeInsteadOfFinishing() {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+        activity.selectTab(R.id.nav_stats);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        activity.getOnBackPressedDispatcher().onBackPressed();
+        assertEquals(R.id.nav_home, activity.getCurrentTab());
+        assertFalse(activity.isFinishing());
+
+        activity.getOnBackPressedDispatcher().onBackPressed();
+        assertTrue(activity.isFinishing());
+    }
+
+    @Test
+    public void backFromOtherTab_stillReturnsHomeAfterBackgrounding() {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+
+        // Back on Home: as the task root on API 31+ the app only goes to the background...
+        activity.getOnBackPressedDispatcher().onBackPressed();
+        controller.pause().stop();
+        // ...and comes back as the same instance
+        controller.restart().start().resume();
+
+        activity.selectTab(R.id.nav_settings);
+        shadowOf(Looper.getMainLooper()).idle();
+        activity.getOnBackPressedDispatcher().onBackPressed();
+        assertEquals(R.id.nav_home, activity.getCurrentTab());
+    }
+}
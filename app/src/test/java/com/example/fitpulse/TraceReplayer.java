@@ -0,0 +1,140 @@
+package com.example.fitpulse;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
+import android.os.Looper;
+
+import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.robolectric.shadows.SensorEventBuilder;
+import org.robolectric.shadows.ShadowSensor;
+import org.robolectric.shadows.ShadowSensorManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds a {@link SensorTrace} through Robolectric's SensorManager into the real
+ * {@link StepCounterManager}, backed by an in-memory Room database.
+ * - Time comes from a {@link MutableClock} set to each event's trace time.
+ * - Room writes run inline so rows are visible as soon as an event is dispatched.
+ * - The main looper is drained after every event so STEP_UPDATE broadcasts are observed.
+ * - Playback is paced to {@code speed} × real time (Double.POSITIVE_INFINITY = unpaced),
+ *   per replayer or per replay() call.
+ */
+final class TraceReplayer implements AutoCloseable {
+
+    private final Context ctx;
+    private final SensorManager sensorManager;
+    private final ShadowSensorManager shadowSensors;
+    private final Sensor stepSensor, accelSensor, gyroSensor;
+    private final AppDatabase db;
+    private final double speed;
+
+    private final List<Integer> uiUpdates = new ArrayList<>();
+    private final BroadcastReceiver uiReceiver = new BroadcastReceiver() {
+        @Override public void onReceive(Context context, Intent intent) {
+            uiUpdates.add(intent.getIntExtra("steps_today", -1));
+        }
+    };
+
+    private MutableClock clock;
+    private StepCounterManager manager;
+
+    TraceReplayer(double speed) {
+        this.speed = speed;
+        ctx = ApplicationProvider.getApplicationContext();
+        sensorManager = (SensorManager) ctx.getSystemService(Context.SENSOR_SERVICE);
+        shadowSensors = shadowOf(sensorManager);
+
+        stepSensor  = ShadowSensor.newInstance(Sensor.TYPE_STEP_COUNTER);
+        accelSensor = ShadowSensor.newInstance(Sensor.TYPE_ACCELEROMETER);
+        gyroSensor  = ShadowSensor.newInstance(Sensor.TYPE_GYROSCOPE);
+        shadowSensors.addSensor(stepSensor);
+        shadowSensors.addSensor(accelSensor);
+        shadowSensors.addSensor(gyroSensor);
+
+        db = Room.inMemoryDatabaseBuilder(ctx, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+
+        LocalBroadcastManager.getInstance(ctx).registerReceiver(uiReceiver, new IntentFilter("STEP_UPDATE"));
+    }
+
+    AppDatabase db() { return db; }
+
+    /** steps_today values broadcast to the UI, in order. */
+    List<Integer> uiUpdates() { return uiUpdates; }
+
+    /** Replay every event of the trace and return timing figures. */
+    ReplayReport replay(SensorTrace trace) {
+        return replay(trace, speed);
+    }
+
+    /** As replay(trace), paced at speed instead of the replayer's default. */
+    ReplayReport replay(SensorTrace trace, double speed) {
+        clock = new MutableClock(trace.startMillis(), trace.zone);
+        boot();
+
+        long[] latencies = new long[trace.events.size()];
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < trace.events.size(); i++) {
+            SensorTrace.Event e = trace.events.get(i);
+            pace(wallStart, e.tMs, speed);
+            clock.setMillis(trace.startMillis() + e.tMs);
+
+            long t0 = System.nanoTime();
+            if (e.kind == SensorTrace.REBOOT) {
+                // Process dies with the device: drop the instance and its in-memory throttle state
+                manager.stop();
+                boot();
+            } else {
+                shadowSensors.sendSensorEventToListeners(toSensorEvent(e));
+                shadowOf(Looper.getMainLooper()).idle();
+            }
+            latencies[i] = System.nanoTime() - t0;
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        manager.stop();
+        return new ReplayReport(trace.name, trace.events.size(), trace.durationMs(), wallNanos, latencies);
+    }
+
+    private void boot() {
+        manager = new StepCounterManager(ctx, sensorManager, db, clock, Runnable::run);
+        manager.start();
+    }
+
+    /** Sleep until trace time tMs is due at the configured speed-up. */
+    private static void pace(long wallStart, long tMs, double speed) {
+        if (Double.isInfinite(speed)) return;
+        long dueNanos = wallStart + (long) (tMs * 1_000_000L / speed);
+        long wait = dueNanos - System.nanoTime();
+        if (wait > 0) LockSupport.parkNanos(wait);
+    }
+
+    private SensorEvent toSensorEvent(SensorTrace.Event e) {
+        Sensor sensor = (e.kind == SensorTrace.COUNTER) ? stepSensor
+                : (e.kind == SensorTrace.ACCEL) ? accelSensor : gyroSensor;
+        return SensorEventBuilder.newBuilder()
+                .setSensor(sensor)
+                .setTimestamp(e.tMs * 1_000_000L)
+                .setValues(e.values.clone())
+                .build();
+    }
+
+    @Override
+    public void close() {
+        LocalBroadcastManager.getInstance(ctx).unregisterReceiver(uiReceiver);
+        db.close();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Looper;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.github.mikephil.charting.charts.BarChart;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The last rendered Home/Stats state survives a restart and is on screen when setup() returns.
+ * Time to first meaningful frame (today's real count visible), with and without a snapshot, is
+ * in build/reports/benchmarks/ui_first_frame.json.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class UiSnapshotTest {
+
+    private static final int STEPS = 4321;
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+    @Rule public final BenchmarkReport report = new BenchmarkReport("ui_first_frame");
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private Context ctx;
+
+    @Before
+    public void setUp() {
+        ctx = ApplicationProvider.getApplicationContext();
+        UserSession.resetForTests();
+    }
+
+    @After
+    public void tearDown() {
+        io.shutdownNow();
+        UserSession.resetForTests();
+    }
+
+    @Test
+    public void savedState_readsBackAfterRestart() throws Exception {
+        File file = tmp.newFile("ui.bin");
+        LocalDate today = LocalDate.of(2025, 6, 30);
+        UiSnapshot a = new UiSnapshot(file);
+        a.putToday(today, 5120, 8000);
+        a.putWeek(today.minusDays(6).toEpochDay(), new int[]{1, 2, 3, 4, 5, 6, 5120});
+        a.putCards(today, new int[]{5120, 9000, 7000});
+        a.flush();
+        a.awaitWritten();
+
+        UiSnapshot.State s = new UiSnapshot(file).read();
+        assertEquals(5120, s.stepsOn(today));
+        assertEquals(8000, s.goal());
+        assertEquals(-1, s.stepsOn(today.plusDays(1)));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 5120}, s.weekOf(today.minusDays(6).toEpochDay()));
+        assertNull(s.weekOf(today.plusDays(1).toEpochDay()));
+        assertArrayEquals(new int[]{5120, 9000, 7000}, s.cardsOn(today));
+        // Next morning the cards move down a row; three days on they are too old
+        assertArrayEquals(new int[]{0, 5120, 9000}, s.cardsOn(today.plusDays(1)));
+        assertNull(s.cardsOn(today.plusDays(3)));
+    }
+
+    @Test
+    public void damagedFile_isAnEmptySnapshot() throws Exception {
+        File file = tmp.newFile("ui.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{0x46, 0x50, 0x55, 0x31, 0, 0});
+        }
+        UiSnapshot.State s = new UiSnapshot(file).read();
+        assertEquals(-1, s.stepsOn(LocalDate.now()));
+        assertEquals(0, s.goal());
+        assertNull(s.cardsOn(LocalDate.now()));
+    }
+
+    @Test
+    public void coldStart_paintsLastStateInTheFirstFrame() throws Exception {
+        LocalDate today = LocalDate.now();
+        io.submit(() -> UserSession.current(ctx).db.stepDao()
+                .upsertLocal(new StepEntry(today.format(StepStats.DB_FMT), STEPS), 1L)).get();
+
+        // Warm-up launch (class loading, first inflation), then forget what it saved
+        launchAndClose(false);
+        new File(ctx.getFilesDir(), LocalAccounts.scoped(UiSnapshot.FILE, LocalAccounts.currentId(ctx))).delete();
+        UserSession.resetForTests();
+
+        long withoutMs = launchAndClose(true);
+        Map<String, Object> row = report.row();
+        row.put("start", "noSnapshot");
+        row.put("firstFrameMs", withoutMs);
+
+        // Process death: only the file is left
+        UserSession.resetForTests();
+        UiSnapshot.State saved = UserSession.current(ctx).ui.read();
+        assertEquals(STEPS, saved.stepsOn(today));
+
+        long t0 = System.nanoTime();
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+        assertEquals(String.format("%,d Steps", STEPS), homeSteps(activity).getText().toString());
+        activity.selectTab(R.id.nav_stats);
+        BarChart chart = activity.findViewById(R.id.bar_chart);
+        assertNotNull(chart.getData());
+        int todayIndex = today.getDayOfWeek().getValue() - 1;
+        assertEquals(STEPS, chart.getData().getDataSetByIndex(0).getEntryForIndex(todayIndex).getY(), 0f);
+        LinearLayout cards = activity.findViewById(R.id.step_history_container);
+        assertEquals(3, cards.getChildCount());
+        long withMs = (System.nanoTime() - t0) / 1_000_000;
+        controller.pause().stop().destroy();
+
+        row = report.row();
+        row.put("start", "snapshot");
+        row.put("firstFrameMs", withMs);
+    }
+
+    /**
+     * Launch, wait for today's count on Home and this week on Stats, then close (which flushes
+     * the snapshot). Returns ms until both showed the real values.
+     */
+    private long launchAndClose(boolean awaitData) throws Exception {
+        long t0 = System.nanoTime();
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        MainActivity activity = controller.get();
+        String expected = String.format("%,d Steps", STEPS);
+        if (awaitData) pollUntil(() -> expected.contentEquals(homeSteps(activity).getText()));
+        activity.selectTab(R.id.nav_stats);
+        BarChart chart = activity.findViewById(R.id.bar_chart);
+        LinearLayout cards = activity.findViewById(R.id.step_history_container);
+        if (awaitData) {
+            int todayIndex = LocalDate.now().getDayOfWeek().getValue() - 1;
+            pollUntil(() -> chart.getData() != null && cards.getChildCount() == 3
+                    && chart.getData().getDataSetByIndex(0).getEntryForIndex(todayIndex).getY() == STEPS);
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        UiSnapshot ui = UserSession.current(ctx).ui;
+        controller.pause().stop().destroy();
+        ui.awaitWritten();
+        return ms;
+    }
+
+    private static TextView homeSteps(MainActivity activity) {
+        // Stats cards reuse the steps_text id; look inside the Home tab only
+        return activity.getSupportFragmentManager().findFragmentByTag("tab_home")
+                .requireView().findViewById(R.id.steps_text);
+    }
+
+    /** Pump the main looper (frames, animations, posted results) until condition holds. */
+    private static void pollUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("timed out");
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(16));
+            Thread.sleep(1);
+        }
+    }
+}
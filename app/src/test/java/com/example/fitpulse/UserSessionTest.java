@@ -0,0 +1,201 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Per-account storage and session switching.
+ * - Accounts never see each other's steps or prefs; the legacy account keeps the old files.
+ * - A switch is one reference swap that hands listeners the new session.
+ * - With 10 accounts × 5 years on the device, a range read costs what it does for one user.
+ *   Writes build/reports/benchmarks/user_sessions.json.
+ * Room refuses main-thread queries on the production builder, so DB work runs on io.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class UserSessionTest {
+
+    private static final LocalDate END = LocalDate.of(2025, 6, 30);
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+    @Rule public final BenchmarkReport report = new BenchmarkReport("user_sessions");
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private Context ctx;
+
+    @Before
+    public void setUp() {
+        ctx = ApplicationProvider.getApplicationContext();
+        UserSession.resetForTests();
+    }
+
+    @After
+    public void tearDown() {
+        io.shutdownNow();
+        UserSession.resetForTests();
+    }
+
+    private <T> T onIo(Callable<T> work) throws Exception {
+        return io.submit(work).get();
+    }
+
+    private void runOnIo(Runnable work) throws Exception {
+        io.submit(work).get();
+    }
+
+    @Test
+    public void accounts_seeOnlyTheirOwnSteps() throws Exception {
+        LocalAccounts.Account anna = LocalAccounts.register(ctx, "Anna", "anna@example.com", "pw1");
+        LocalAccounts.Account ben = LocalAccounts.register(ctx, "Ben", "ben@example.com", "pw2");
+        assertNotNull(anna);
+        assertNotNull(ben);
+        assertEquals(LocalAccounts.LEGACY_ID, anna.id);
+        assertNull(LocalAccounts.register(ctx, "Again", "ANNA@example.com", "x"));
+        assertEquals(ben.id, LocalAccounts.authenticate(ctx, "ben@example.com", "pw2").id);
+        assertNull(LocalAccounts.authenticate(ctx, "ben@example.com", "pw1"));
+
+        UserSession a = UserSession.switchTo(ctx, anna.id);
+        runOnIo(() -> a.db.stepDao().upsertLocal(new StepEntry("2025-06-01", 4000), 1L));
+        a.prefs(SettingsFragment.PREFS_NAME).edit().putInt(SettingsFragment.STEP_GOAL_KEY, 6000).commit();
+
+        UserSession b = UserSession.switchTo(ctx, ben.id);
+        assertNull(onIo(() -> b.db.stepDao().getStepsByDate("2025-06-01")));
+        assertEquals(10000, UserSession.prefs(ctx, SettingsFragment.PREFS_NAME).getInt(SettingsFragment.STEP_GOAL_KEY, 10000));
+        runOnIo(() -> b.db.stepDao().upsertLocal(new StepEntry("2025-06-01", 9000), 1L));
+
+        assertEquals(4000, onIo(() -> a.db.stepDao().getStepsByDate("2025-06-01")).steps);
+        assertEquals(9000, onIo(() -> AppDatabase.getInstance(ctx).stepDao().getStepsByDate("2025-06-01")).steps);
+
+        // The first account still uses the pre-multi-account file names
+        assertTrue(ctx.getDatabasePath(AppDatabase.DB_NAME).exists());
+        assertTrue(ctx.getDatabasePath(AppDatabase.DB_NAME + "_" + ben.id).exists());
+        assertEquals(6000, ctx.getSharedPreferences(SettingsFragment.PREFS_NAME, Context.MODE_PRIVATE)
+                .getInt(SettingsFragment.STEP_GOAL_KEY, 0));
+    }
+
+    @Test
+    public void legacyUser_isMigratedIntoTheDefaultAccount() {
+        ctx.getSharedPreferences(LocalAccounts.LEGACY_PREFS, Context.MODE_PRIVATE).edit()
+                .putString("name", "Old").putString("email", "old@example.com")
+                .putString("password", "pw").putBoolean("logged_in", true).commit();
+
+        assertTrue(LocalAccounts.isLoggedIn(ctx));
+        LocalAccounts.Account current = LocalAccounts.current(ctx);
+        assertNotNull(current);
+        assertEquals(LocalAccounts.LEGACY_ID, current.id);
+        assertEquals("Old", current.name);
+        assertEquals(AppDatabase.DB_NAME, LocalAccounts.scoped(AppDatabase.DB_NAME, current.id));
+    }
+
+    @Test
+    public void switch_swapsEverythingAtOnce() throws Exception {
+        LocalAccounts.Account anna = LocalAccounts.register(ctx, "Anna", "anna@example.com", "pw1");
+        LocalAccounts.Account ben = LocalAccounts.register(ctx, "Ben", "ben@example.com", "pw2");
+        UserSession a = UserSession.switchTo(ctx, anna.id);
+        // As LoginActivity does once the email field is left
+        assertEquals(ben.id, LocalAccounts.byEmail(ctx, "BEN@example.com").id);
+        UserSession.prewarm(ctx, ben.id);
+
+        List<UserSession> seen = new ArrayList<>();
+        UserSession.Listener l = seen::add;
+        UserSession.addListener(l);
+        try {
+            UserSession b = UserSession.switchTo(ctx, ben.id);
+            assertSame(b, UserSession.current(ctx));
+            assertSame(b.history, StepHistory.get(ctx));
+            assertSame(b.projection, StepProjection.get(ctx));
+            assertSame(b.merger, StepSourceMerger.get(ctx));
+            assertNotSame(a.history, b.history);
+            assertNotSame(a.db, b.db);
+            assertEquals(1, seen.size());
+            assertSame(b, seen.get(0));
+
+            // Switching to the current account is a no-op
+            UserSession.switchTo(ctx, ben.id);
+            assertEquals(1, seen.size());
+
+            // Back and forth between two built sessions never touches the disk
+            long[] samples = Bench.time(5, 200, () -> {
+                UserSession.switchTo(ctx, anna.id);
+                UserSession.switchTo(ctx, ben.id);
+            });
+            assertTrue("switch p50 " + Bench.percentileMs(samples, 50) + " ms",
+                    Bench.percentileMs(samples, 50) < 5);
+            assertSame(a, UserSession.switchTo(ctx, anna.id));
+        } finally {
+            UserSession.removeListener(l);
+        }
+    }
+
+    @Test
+    public void tenAccounts_readAsFastAsOne() throws Exception {
+        int accounts = 10;
+        SyntheticHistory.Dataset ds = new SyntheticHistory.Dataset("daily_5y", SyntheticHistory.Granularity.DAILY, 5 * 365);
+        List<UserSession> sessions = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            LocalAccounts.Account acc = LocalAccounts.register(ctx, "User " + i, "u" + i + "@example.com", "pw");
+            UserSession s = UserSession.switchTo(ctx, acc.id);
+            onIo(() -> SyntheticHistory.fill(s.db, ds, END, 100 + sessions.size()));
+            sessions.add(s);
+        }
+
+        // Baseline: the same data for a single user
+        File single = new File(tmp.getRoot(), "single.db");
+        AppDatabase one = Room.databaseBuilder(ctx, AppDatabase.class, single.getAbsolutePath()).build();
+        try {
+            onIo(() -> SyntheticHistory.fill(one, ds, END, 100));
+            StepHistory oneHistory = new StepHistory(one.stepDao(), new File(tmp.getRoot(), StepHistory.ARCHIVE_FILE));
+            LocalDate from = END.minusDays(364);
+            StepColumns cols = new StepColumns(365);
+
+            long[] baseline = onIo(() -> Bench.time(5, 50, () -> oneHistory.read(from, END, cols)));
+            long[] multi = onIo(() -> Bench.time(5, 50, () -> {
+                for (UserSession s : sessions) s.history.read(from, END, cols);
+            }));
+            assertEquals(365, cols.size);
+
+            Map<String, Object> row = report.row();
+            row.put("op", "yearRead_singleUser");
+            row.put("accounts", 1);
+            BenchmarkReport.putTimings(row, baseline);
+            row = report.row();
+            row.put("op", "yearRead_perAccount_of10");
+            row.put("accounts", accounts);
+            // One sample covers all 10 accounts; report per account
+            long[] perAccount = new long[multi.length];
+            for (int i = 0; i < multi.length; i++) perAccount[i] = multi[i] / accounts;
+            BenchmarkReport.putTimings(row, perAccount);
+
+            // Separate files: another account's rows never enter the query
+            double ratio = Bench.percentileMs(perAccount, 50) / Math.max(0.001, Bench.percentileMs(baseline, 50));
+            assertTrue("per-account read " + ratio + "x single user", ratio < 3);
+        } finally {
+            one.close();
+        }
+    }
+}
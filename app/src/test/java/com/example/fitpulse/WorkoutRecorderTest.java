@@ -0,0 +1,173 @@
+package com.example.fitpulse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.SensorEventBuilder;
+import org.robolectric.shadows.ShadowSensor;
+import org.robolectric.shadows.ShadowSensorManager;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Workout recording end to end: a synthetic one-hour walk at 50 Hz accel + gyro
+ * goes through WorkoutRecorder into Room as compressed chunks and decodes back. Stored size
+ * goes to build/reports/benchmarks/workout_storage.json.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WorkoutRecorderTest {
+
+    private static final long T0 = 1_750_000_000_000L;
+    private static final int HZ = 50;
+
+    @Rule public final BenchmarkReport report = new BenchmarkReport("workout_storage");
+
+    private AppDatabase db;
+    private MutableClock clock;
+    private WorkoutRecorder recorder;
+    private Sensor accel, gyro, counter;
+
+    @Before
+    public void setUp() {
+        Context ctx = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(ctx, AppDatabase.class).allowMainThreadQueries().build();
+        SensorManager sm = (SensorManager) ctx.getSystemService(Context.SENSOR_SERVICE);
+        ShadowSensorManager shadow = shadowOf(sm);
+        accel = ShadowSensor.newInstance(Sensor.TYPE_ACCELEROMETER);
+        gyro = ShadowSensor.newInstance(Sensor.TYPE_GYROSCOPE);
+        counter = ShadowSensor.newInstance(Sensor.TYPE_STEP_COUNTER);
+        shadow.addSensor(accel);
+        shadow.addSensor(gyro);
+        shadow.addSensor(counter);
+        clock = new MutableClock(T0, ZoneId.of("UTC"));
+        recorder = new WorkoutRecorder(sm, db, clock, Runnable::run, null);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    /** Walking-like accel: gravity + 1.8 Hz bounce + deterministic jitter. */
+    private static float accelAt(int i, int axis) {
+        double t = i / (double) HZ;
+        return (float) ((axis == 2 ? 9.81 : 0) + 3 * Math.sin(2 * Math.PI * 1.8 * t + axis) + jitter(i * 3 + axis) * 0.4);
+    }
+
+    private static float gyroAt(int i, int axis) {
+        double t = i / (double) HZ;
+        return (float) (0.8 * Math.sin(2 * Math.PI * 0.9 * t + axis) + jitter(i * 7 + axis) * 0.05);
+    }
+
+    /** Repeatable pseudo-noise in [-0.5, 0.5). */
+    private static double jitter(long n) {
+        return (((n * 2654435761L) >>> 8) & 0xFFFF) / 65536.0 - 0.5;
+    }
+
+    private static SensorEvent event(Sensor s, long ns, float... values) {
+        return SensorEventBuilder.newBuilder().setSensor(s).setTimestamp(ns).setValues(values).build();
+    }
+
+    @Test
+    public void oneHourSession_isChunkedCompressedAndLoadsInOneRead() throws Exception {
+        int seconds = 3600;
+        recorder.start();
+        int stepBase = 20_000;
+        for (int i = 0; i < seconds * HZ; i++) {
+            long ns = i * (1_000_000_000L / HZ);
+            recorder.onSensorChanged(event(accel, ns, accelAt(i, 0), accelAt(i, 1), accelAt(i, 2)));
+            recorder.onSensorChanged(event(gyro, ns, gyroAt(i, 0), gyroAt(i, 1), gyroAt(i, 2)));
+            // Counter reports about once a second, ~110 spm
+            if (i % HZ == 0) recorder.onSensorChanged(event(counter, ns, stepBase + (i / HZ) * 11 / 6f));
+        }
+        clock.advance(seconds * 1000L);
+        recorder.stop();
+
+        WorkoutDao dao = db.workoutDao();
+        List<WorkoutSession> sessions = dao.getSessions();
+        assertEquals(1, sessions.size());
+        WorkoutSession s = sessions.get(0);
+        assertEquals(seconds * 1000L, s.durationMs());
+        assertEquals(3599 * 11 / 6, s.steps);
+        assertEquals(seconds * 1000 / WorkoutRecorder.CHUNK_MS, s.chunkCount);
+        assertTrue(s.avgCadence() >= 105 && s.avgCadence() <= 115);
+
+        long bytes = dao.getStoredBytes(s.id);
+        Map<String, Object> row = report.row();
+        row.put("case", "oneHourWorkout");
+        row.put("bytes", bytes);
+        row.put("chunks", s.chunkCount);
+        row.put("samples", s.sampleCount);
+        assertTrue("session too large: " + bytes, bytes < 4L * 1024 * 1024);
+
+        // One query brings the whole timeline; chunks decode independently
+        List<WorkoutChunk> chunks = dao.getChunks(s.id);
+        assertEquals(s.chunkCount, chunks.size());
+        WorkoutChunkCodec codec = new WorkoutChunkCodec();
+        WorkoutSamples out = new WorkoutSamples();
+        int accelTotal = 0;
+        for (WorkoutChunk c : chunks) {
+            codec.decode(c.data, out);
+            accelTotal += out.count[WorkoutSamples.ACCEL];
+            assertEquals(c.sampleCount, out.total());
+            for (int st = 0; st < WorkoutSamples.STREAMS; st++) {
+                for (int k = 0; k < out.count[st]; k++) {
+                    int t = out.times[st][k];
+                    assertTrue(t >= c.startMs && t < c.endMs);
+                }
+            }
+        }
+        assertEquals(seconds * HZ, accelTotal);
+
+        // Values survive at the stored resolution (0.01 m/s²)
+        WorkoutSamples mid = codec.decode(chunks.get(60).data, new WorkoutSamples());
+        int i = mid.times[WorkoutSamples.ACCEL][0] * HZ / 1000;
+        assertEquals(accelAt(i, 1), mid.value(WorkoutSamples.ACCEL, 0, 1), 0.006f);
+        assertEquals(gyroAt(i, 2), mid.value(WorkoutSamples.GYRO, 0, 2), 0.0006f);
+    }
+
+    @Test
+    public void stopFlushesPartialChunk_andNextSessionStartsFresh() {
+        recorder.start();
+        for (int i = 0; i < 10 * HZ; i++) {
+            recorder.onSensorChanged(event(accel, i * 20_000_000L, 0f, 0f, 9.81f));
+        }
+        clock.advance(10_000);
+        recorder.stop();
+
+        clock.advance(60_000);
+        recorder.start();
+        recorder.onSensorChanged(event(counter, 0, 500f));
+        recorder.onSensorChanged(event(counter, 6_000_000_000L, 520f));
+        clock.advance(6_000);
+        recorder.stop();
+
+        List<WorkoutSession> sessions = db.workoutDao().getSessions();
+        assertEquals(2, sessions.size());
+        WorkoutSession second = sessions.get(0); // newest first
+        WorkoutSession first = sessions.get(1);
+        assertEquals(1, first.chunkCount);
+        assertEquals(10 * HZ, first.sampleCount);
+        assertEquals(20, second.steps);
+        assertNotNull(db.workoutDao().getSession(second.id));
+        assertEquals(1, db.workoutDao().getChunks(second.id).size());
+    }
+}
@@ -0,0 +1,21 @@
+// Group-challenge service (JDK only): embeddable in tests, or run with
+// ./gradlew :challenge-server:run --args=8090
+plugins {
+    `java-library`
+    application
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+application {
+    mainClass.set("com.example.fitpulse.server.ChallengeServer")
+    applicationDefaultJvmArgs = listOf("-Dsun.net.httpserver.nodelay=true")
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,146 @@
+package com.example.fitpulse.server;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One group challenge: every participant's daily totals in [start, end] and the ranking by
+ * their sum, kept incrementally in a RankTree (a post moves one participant in O(log n)).
+ * - A post replaces the given days' totals, so re-sending a day is idempotent and a device
+ *   can simply push its recent days every time.
+ * - Every change bumps the board version and stamps the participant with it.
+ * - delta(since): clients keep the top k they were sent and ask only for what changed. The
+ *   reply is the entries of the current top k changed after since. While scores only grow,
+ *   anyone in the new top k who didn't change was in the old one, so the client upserts the
+ *   entries, re-sorts and truncates to k (which also evicts whoever fell out). After a score
+ *   drop (a corrected day) that doesn't hold and the answer is the full top k instead.
+ * Thread-safe; one lock per board.
+ */
+public final class ChallengeBoard {
+
+    /** Where one participant stands after a post or in a board reply. */
+    public static final class Standing {
+        public final String id;
+        public final String name;
+        public final long score;
+        public final int rank;
+
+        Standing(String id, String name, long score, int rank) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+            this.rank = rank;
+        }
+    }
+
+    /** Answer to a board request. */
+    public static final class Delta {
+        public final long version;
+        /** Entries replace the client's board instead of updating it. */
+        public final boolean full;
+        public final int participants;
+        /** Changed (or, when full, all) entries now in the top k, in rank order. */
+        public final List<Standing> entries;
+        /** The asking participant, or null if they haven't posted yet. */
+        public final Standing me;
+
+        Delta(long version, boolean full, int participants, List<Standing> entries, Standing me) {
+            this.version = version;
+            this.full = full;
+            this.participants = participants;
+            this.entries = entries;
+            this.me = me;
+        }
+    }
+
+    private static final class Participant {
+        final String id;
+        String name;
+        final Map<LocalDate, Integer> days = new HashMap<>();
+        long score;
+        /** Board version of this participant's latest change. */
+        long version;
+
+        Participant(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public final String id;
+    public final LocalDate start, end;
+
+    private final RankTree ranking = new RankTree();
+    private final Map<String, Participant> participants = new HashMap<>();
+    private long version;
+    /** Latest version at which some score went down. */
+    private long lastDrop;
+
+    public ChallengeBoard(String id, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) throw new IllegalArgumentException("end before start");
+        this.id = id;
+        this.start = start;
+        this.end = end;
+    }
+
+    public synchronized int participants() {
+        return participants.size();
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Set participant's totals for the given days (days outside the challenge are ignored)
+     * and return where they stand now. Joins the challenge on the first post.
+     */
+    public synchronized Standing post(String participantId, String name, Map<LocalDate, Integer> days) {
+        Participant p = participants.get(participantId);
+        boolean joined = p == null;
+        if (joined) {
+            p = new Participant(participantId, name);
+            participants.put(participantId, p);
+        }
+        long score = p.score;
+        for (Map.Entry<LocalDate, Integer> d : days.entrySet()) {
+            if (d.getKey().isBefore(start) || d.getKey().isAfter(end)) continue;
+            int steps = Math.max(0, d.getValue());
+            Integer old = p.days.put(d.getKey(), steps);
+            score += steps - (old != null ? old : 0);
+        }
+        boolean renamed = !name.equals(p.name);
+        p.name = name;
+        if (joined || score != p.score || renamed) {
+            if (!joined) ranking.remove(p.id, p.score);
+            ranking.insert(p.id, score);
+            if (score < p.score) lastDrop = version + 1;
+            p.score = score;
+            p.version = ++version;
+        }
+        return standing(p);
+    }
+
+    /** The top k and participantId's standing, as changes since the client's version since (0: none). */
+    public synchronized Delta delta(String participantId, int k, long since) {
+        Participant me = participants.get(participantId);
+        Standing mine = me != null ? standing(me) : null;
+        boolean full = since <= 0 || since > version || lastDrop > since;
+        List<RankTree.Entry> top = new ArrayList<>(k);
+        ranking.top(k, top);
+        List<Standing> entries = new ArrayList<>(full ? top.size() : 0);
+        for (int i = 0; i < top.size(); i++) {
+            RankTree.Entry e = top.get(i);
+            Participant p = participants.get(e.id);
+            if (full || p.version > since) entries.add(new Standing(e.id, p.name, e.score, i + 1));
+        }
+        return new Delta(version, full, participants.size(), entries, mine);
+    }
+
+    private Standing standing(Participant p) {
+        return new Standing(p.id, p.name, p.score, ranking.rank(p.id, p.score));
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.fitpulse.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Group-challenge service: an embeddable HTTP server (JDK only) holding ChallengeBoards.
+ *
+ * Endpoints (JSON bodies and replies, dates yyyy-MM-dd):
+ * - POST /challenges                  {"id":c,"start":d,"end":d}   create (idempotent)
+ * - GET  /challenges/{c}              {"id","start","end","participants"}
+ * - POST /challenges/{c}/totals       {"participant":p,"name":n,"days":[{"d":date,"s":steps},...]}
+ *                                     reply {"rank","score","participants","version"}
+ * - GET  /challenges/{c}/board?participant=p&top=k&since=v
+ *                                     reply {"version","full","participants","entries":[{"p","n","s","r"}],
+ *                                            "me":{...}|null}
+ * Embed with {@code new ChallengeServer(address, threads).start()}; run it on its own with
+ * {@code ./gradlew :challenge-server:run --args=8090}. State is in memory only.
+ * Run with -Dsun.net.httpserver.nodelay=true (main() sets it): the JDK server writes headers
+ * and body separately, and without TCP_NODELAY each small reply waits ~40 ms for a delayed ACK.
+ */
+public final class ChallengeServer implements AutoCloseable {
+
+    /** Largest top k a board request may ask for. */
+    public static final int MAX_TOP = 100;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, ChallengeBoard> boards = new ConcurrentHashMap<>();
+
+    /** Bound to address (port 0 picks a free one); requests are served by threads workers. */
+    public ChallengeServer(InetSocketAddress address, int threads) throws IOException {
+        server = HttpServer.create(address, 0);
+        executor = Executors.newFixedThreadPool(threads, r -> new Thread(r, "challenge-http"));
+        server.setExecutor(executor);
+        server.createContext("/challenges", this::handle);
+    }
+
+    /** Loopback only, free port, one worker per core. */
+    public static ChallengeServer local() throws IOException {
+        return new ChallengeServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    public ChallengeServer start() {
+        server.start();
+        return this;
+    }
+
+    public String baseUrl() {
+        InetSocketAddress a = server.getAddress();
+        return "http://" + a.getAddress().getHostAddress() + ":" + a.getPort();
+    }
+
+    /** Create a challenge unless one with that id exists; returns the board either way. */
+    public ChallengeBoard create(String id, LocalDate start, LocalDate end) {
+        return boards.computeIfAbsent(id, k -> new ChallengeBoard(k, start, end));
+    }
+
+    /** The board of challenge id, or null. */
+    public ChallengeBoard board(String id) {
+        return boards.get(id);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String[] path = ex.getRequestURI().getPath().split("/");
+            // "", "challenges", id?, action?
+            String method = ex.getRequestMethod();
+            if (path.length == 2 && method.equals("POST")) {
+                createChallenge(ex);
+            } else if (path.length >= 3) {
+                ChallengeBoard board = boards.get(path[2]);
+                if (board == null) {
+                    reply(ex, 404, "{\"error\":\"no such challenge\"}");
+                } else if (path.length == 3 && method.equals("GET")) {
+                    reply(ex, 200, info(board));
+                } else if (path.length == 4 && path[3].equals("totals") && method.equals("POST")) {
+                    postTotals(ex, board);
+                } else if (path.length == 4 && path[3].equals("board") && method.equals("GET")) {
+                    getBoard(ex, board);
+                } else {
+                    reply(ex, 404, "{\"error\":\"unknown endpoint\"}");
+                }
+            } else {
+                reply(ex, 404, "{\"error\":\"unknown endpoint\"}");
+            }
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException | DateTimeParseException e) {
+            reply(ex, 400, "{\"error\":" + MiniJson.quote(String.valueOf(e.getMessage())) + "}");
+        }
+    }
+
+    private void createChallenge(HttpExchange ex) throws IOException {
+        Map<?, ?> body = (Map<?, ?>) MiniJson.parse(readBody(ex));
+        String id = (String) body.get("id");
+        if (id == null || id.isEmpty() || id.contains("/")) throw new IllegalArgumentException("bad id");
+        LocalDate start = LocalDate.parse((String) body.get("start"));
+        LocalDate end = LocalDate.parse((String) body.get("end"));
+        ChallengeBoard board = create(id, start, end);
+        if (!board.start.equals(start) || !board.end.equals(end)) {
+            reply(ex, 409, "{\"error\":\"exists with other dates\"}");
+            return;
+        }
+        reply(ex, 200, info(board));
+    }
+
+    private void postTotals(HttpExchange ex, ChallengeBoard board) throws IOException {
+        Map<?, ?> body = (Map<?, ?>) MiniJson.parse(readBody(ex));
+        String participant = (String) body.get("participant");
+        if (participant == null || participant.isEmpty()) throw new IllegalArgumentException("no participant");
+        Object name = body.get("name");
+        Map<LocalDate, Integer> days = new HashMap<>();
+        for (Object o : (List<?>) body.get("days")) {
+            Map<?, ?> d = (Map<?, ?>) o;
+            days.put(LocalDate.parse((String) d.get("d")), ((Number) d.get("s")).intValue());
+        }
+        ChallengeBoard.Standing s = board.post(participant, name != null ? (String) name : participant, days);
+        reply(ex, 200, "{\"rank\":" + s.rank + ",\"score\":" + s.score
+                + ",\"participants\":" + board.participants() + ",\"version\":" + board.version() + "}");
+    }
+
+    private void getBoard(HttpExchange ex, ChallengeBoard board) throws IOException {
+        Map<String, String> q = query(ex);
+        int top = Math.max(1, Math.min(MAX_TOP, Integer.parseInt(q.getOrDefault("top", "10"))));
+        long since = Long.parseLong(q.getOrDefault("since", "0"));
+        ChallengeBoard.Delta d = board.delta(q.getOrDefault("participant", ""), top, since);
+
+        StringBuilder sb = new StringBuilder(64 + 48 * d.entries.size());
+        sb.append("{\"version\":").append(d.version)
+                .append(",\"full\":").append(d.full)
+                .append(",\"participants\":").append(d.participants)
+                .append(",\"entries\":[");
+        for (int i = 0; i < d.entries.size(); i++) {
+            if (i > 0) sb.append(',');
+            appendStanding(sb, d.entries.get(i));
+        }
+        sb.append("],\"me\":");
+        if (d.me != null) appendStanding(sb, d.me);
+        else sb.append("null");
+        reply(ex, 200, sb.append('}').toString());
+    }
+
+    private static void appendStanding(StringBuilder sb, ChallengeBoard.Standing s) {
+        sb.append("{\"p\":").append(MiniJson.quote(s.id))
+                .append(",\"n\":").append(MiniJson.quote(s.name))
+                .append(",\"s\":").append(s.score)
+                .append(",\"r\":").append(s.rank).append('}');
+    }
+
+    private static String info(ChallengeBoard b) {
+        return "{\"id\":" + MiniJson.quote(b.id) + ",\"start\":\"" + b.start + "\",\"end\":\"" + b.end
+                + "\",\"participants\":" + b.participants() + "}";
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> q = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return q;
+        for (String kv : raw.split("&")) {
+            int i = kv.indexOf('=');
+            if (i <= 0) continue;
+            q.put(URLDecoder.decode(kv.substring(0, i), StandardCharsets.UTF_8),
+                    URLDecoder.decode(kv.substring(i + 1), StandardCharsets.UTF_8));
+        }
+        return q;
+    }
+
+    private static String readBody(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void reply(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Run standalone: {@code ChallengeServer [port]} (default 8090, all interfaces). */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        // Read once, when the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        ChallengeServer s = new ChallengeServer(new InetSocketAddress(port),
+                Runtime.getRuntime().availableProcessors()).start();
+        System.out.println("Challenge server on " + s.baseUrl());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.fitpulse.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the challenge protocol, so the service needs nothing beyond the JDK.
+ * - parse() gives Map (objects), List (arrays), String, Long (integral numbers), Double,
+ *   Boolean or null; malformed input throws IllegalArgumentException.
+ * - quote() escapes a string for output; replies are written with a StringBuilder.
+ */
+final class MiniJson {
+
+    private final String s;
+    private int i;
+
+    private MiniJson(String s) {
+        this.s = s;
+    }
+
+    static Object parse(String json) {
+        MiniJson p = new MiniJson(json);
+        Object v = p.value();
+        p.skipSpace();
+        if (p.i != json.length()) throw p.error("trailing characters");
+        return v;
+    }
+
+    static String quote(String v) {
+        StringBuilder sb = new StringBuilder(v.length() + 2).append('"');
+        for (int k = 0; k < v.length(); k++) {
+            char c = v.charAt(k);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    private Object value() {
+        skipSpace();
+        if (i >= s.length()) throw error("unexpected end");
+        char c = s.charAt(i);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default: return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        i++;
+        skipSpace();
+        if (peek() == '}') {
+            i++;
+            return m;
+        }
+        while (true) {
+            skipSpace();
+            if (peek() != '"') throw error("expected a key");
+            String key = string();
+            skipSpace();
+            expect(':');
+            m.put(key, value());
+            skipSpace();
+            if (peek() == ',') {
+                i++;
+            } else {
+                expect('}');
+                return m;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> l = new ArrayList<>();
+        i++;
+        skipSpace();
+        if (peek() == ']') {
+            i++;
+            return l;
+        }
+        while (true) {
+            l.add(value());
+            skipSpace();
+            if (peek() == ',') {
+                i++;
+            } else {
+                expect(']');
+                return l;
+            }
+        }
+    }
+
+    private String string() {
+        i++; // opening quote
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (i >= s.length()) throw error("unterminated string");
+            char c = s.charAt(i++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i >= s.length()) throw error("unterminated escape");
+            char e = s.charAt(i++);
+            switch (e) {
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (i + 4 > s.length()) throw error("bad \\u escape");
+                    sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                    i += 4;
+                    break;
+                default: sb.append(e);
+            }
+        }
+    }
+
+    private Object number() {
+        int from = i;
+        while (i < s.length() && "+-0123456789.eE".indexOf(s.charAt(i)) >= 0) i++;
+        String n = s.substring(from, i);
+        if (n.isEmpty()) throw error("unexpected character");
+        try {
+            if (n.indexOf('.') < 0 && n.indexOf('e') < 0 && n.indexOf('E') < 0) return Long.parseLong(n);
+            return Double.parseDouble(n);
+        } catch (NumberFormatException ex) {
+            throw error("bad number " + n);
+        }
+    }
+
+    private Object literal(String word, Object v) {
+        if (!s.startsWith(word, i)) throw error("unexpected character");
+        i += word.length();
+        return v;
+    }
+
+    private char peek() {
+        return i < s.length() ? s.charAt(i) : '\0';
+    }
+
+    private void expect(char c) {
+        if (peek() != c) throw error("expected '" + c + "'");
+        i++;
+    }
+
+    private void skipSpace() {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+    }
+
+    private IllegalArgumentException error(String what) {
+        return new IllegalArgumentException(what + " at " + i);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.fitpulse.server;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Order-statistics tree of (participant, score): a treap whose nodes also count their subtree.
+ * - Order is score descending, then participant id ascending, so rank 1 is the leader and
+ *   ties rank deterministically.
+ * - insert/remove/rank/select are O(log n) expected; top(k) is O(log n + k).
+ * - A score change is remove(old) + insert(new); the caller keeps each participant's current
+ *   score (the tree is keyed by it). Not thread-safe.
+ */
+public final class RankTree {
+
+    /** One ranked participant. */
+    public static final class Entry {
+        public final String id;
+        public final long score;
+
+        Entry(String id, long score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private static final class Node {
+        final String id;
+        final long score;
+        final int priority;
+        Node left, right;
+        int size = 1;
+
+        Node(String id, long score, int priority) {
+            this.id = id;
+            this.score = score;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random;
+    private Node root;
+
+    public RankTree() {
+        this(new SplittableRandom());
+    }
+
+    RankTree(SplittableRandom random) {
+        this.random = random;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /** Add id with score; id must not be in the tree already. */
+    public void insert(String id, long score) {
+        root = insert(root, new Node(id, score, random.nextInt()));
+    }
+
+    /** Remove id, which must currently be in the tree with score. Returns whether it was. */
+    public boolean remove(String id, long score) {
+        int before = size(root);
+        root = remove(root, id, score);
+        return size(root) < before;
+    }
+
+    /** 1-based rank of id at score, or 0 if it isn't in the tree. */
+    public int rank(String id, long score) {
+        int above = 0;
+        Node n = root;
+        while (n != null) {
+            int c = compare(id, score, n);
+            if (c == 0) return above + size(n.left) + 1;
+            if (c < 0) {
+                n = n.left;
+            } else {
+                above += size(n.left) + 1;
+                n = n.right;
+            }
+        }
+        return 0;
+    }
+
+    /** The entry at a 1-based rank, or null past the end. */
+    public Entry select(int rank) {
+        if (rank < 1 || rank > size(root)) return null;
+        Node n = root;
+        int k = rank;
+        while (true) {
+            int left = size(n.left);
+            if (k <= left) {
+                n = n.left;
+            } else if (k == left + 1) {
+                return new Entry(n.id, n.score);
+            } else {
+                k -= left + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    /** Append the first k entries (rank order) to out. */
+    public void top(int k, List<Entry> out) {
+        collect(root, k, out);
+    }
+
+    private static void collect(Node n, int k, List<Entry> out) {
+        if (n == null || out.size() >= k) return;
+        collect(n.left, k, out);
+        if (out.size() < k) out.add(new Entry(n.id, n.score));
+        collect(n.right, k, out);
+    }
+
+    /** Negative if (id, score) ranks before n. */
+    private static int compare(String id, long score, Node n) {
+        if (score != n.score) return score > n.score ? -1 : 1;
+        return id.compareTo(n.id);
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static Node update(Node n) {
+        n.size = size(n.left) + size(n.right) + 1;
+        return n;
+    }
+
+    private static Node insert(Node n, Node x) {
+        if (n == null) return x;
+        if (compare(x.id, x.score, n) < 0) {
+            n.left = insert(n.left, x);
+            if (n.left.priority > n.priority) return rotateRight(n);
+        } else {
+            n.right = insert(n.right, x);
+            if (n.right.priority > n.priority) return rotateLeft(n);
+        }
+        return update(n);
+    }
+
+    private static Node remove(Node n, String id, long score) {
+        if (n == null) return null;
+        int c = compare(id, score, n);
+        if (c < 0) {
+            n.left = remove(n.left, id, score);
+        } else if (c > 0) {
+            n.right = remove(n.right, id, score);
+        } else {
+            return merge(n.left, n.right);
+        }
+        return update(n);
+    }
+
+    /** Join two treaps where every key of a ranks before every key of b. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+
+    private static Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = update(n);
+        return update(l);
+    }
+
+    private static Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = update(n);
+        return update(r);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.fitpulse.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/** RankTree against a sorted reference, and ChallengeBoard's delta rule. */
+public class RankTreeTest {
+
+    private static final Comparator<RankTree.Entry> ORDER = (a, b) ->
+            a.score != b.score ? Long.compare(b.score, a.score) : a.id.compareTo(b.id);
+
+    @Test
+    public void randomMoves_matchSortedReference() {
+        SplittableRandom random = new SplittableRandom(3);
+        RankTree tree = new RankTree(new SplittableRandom(5));
+        TreeSet<RankTree.Entry> reference = new TreeSet<>(ORDER);
+        Map<String, Long> scores = new HashMap<>();
+
+        for (int op = 0; op < 20_000; op++) {
+            String id = "p" + random.nextInt(500);
+            Long old = scores.get(id);
+            if (old != null) {
+                assertTrue(tree.remove(id, old));
+                reference.removeIf(e -> e.id.equals(id));
+            }
+            if (old == null || random.nextInt(10) > 0) {
+                // Narrow score range, so ties (broken by id) are common
+                long score = random.nextInt(50);
+                tree.insert(id, score);
+                reference.add(new RankTree.Entry(id, score));
+                scores.put(id, score);
+            } else {
+                scores.remove(id);
+            }
+            if (op % 500 == 0) assertSame(reference, tree, scores);
+        }
+        assertSame(reference, tree, scores);
+        assertFalse(tree.remove("nobody", 1));
+        assertEquals(0, tree.rank("nobody", 1));
+        assertNull(tree.select(tree.size() + 1));
+    }
+
+    private static void assertSame(TreeSet<RankTree.Entry> reference, RankTree tree, Map<String, Long> scores) {
+        assertEquals(reference.size(), tree.size());
+        int rank = 1;
+        for (RankTree.Entry e : reference) {
+            assertEquals(rank, tree.rank(e.id, e.score));
+            assertEquals(e.id, tree.select(rank).id);
+            rank++;
+        }
+        List<RankTree.Entry> top = new ArrayList<>();
+        tree.top(10, top);
+        List<RankTree.Entry> expected = new ArrayList<>(reference).subList(0, Math.min(10, reference.size()));
+        assertEquals(expected.size(), top.size());
+        for (int i = 0; i < top.size(); i++) assertEquals(expected.get(i).id, top.get(i).id);
+        assertEquals(scores.size(), tree.size());
+    }
+
+    @Test
+    public void boardDelta_sendsChangesUntilAScoreDrops() {
+        LocalDate day = LocalDate.of(2025, 6, 1);
+        ChallengeBoard board = new ChallengeBoard("c", day, day.plusDays(6));
+        for (int p = 0; p < 20; p++) board.post("p" + p, "P" + p, Map.of(day, 100 * p));
+        ChallengeBoard.Delta first = board.delta("p3", 5, 0);
+        assertTrue(first.full);
+        assertEquals("p19", first.entries.get(0).id);
+        assertEquals(17, first.me.rank);
+
+        // p3 jumps into the top 5, p4 rises but stays outside: only p3 is sent
+        board.post("p3", "P3", Map.of(day.plusDays(1), 5_000));
+        board.post("p4", "P4", Map.of(day.plusDays(1), 10));
+        ChallengeBoard.Delta delta = board.delta("p3", 5, first.version);
+        assertFalse(delta.full);
+        assertEquals(1, delta.entries.size());
+        assertEquals("p3", delta.entries.get(0).id);
+        assertEquals(1, delta.entries.get(0).rank);
+
+        // More changes than the board has rows, all outside it: still an (empty) delta
+        for (int p = 5; p < 15; p++) board.post("p" + p, "P" + p, Map.of(day.plusDays(2), 1));
+        ChallengeBoard.Delta quiet = board.delta("p3", 5, delta.version);
+        assertFalse(quiet.full);
+        assertTrue(quiet.entries.isEmpty());
+        delta = quiet;
+
+        // Replacing a day with fewer steps may lift unchanged participants into the top: full board
+        board.post("p3", "P3", Map.of(day.plusDays(1), 0));
+        assertTrue(board.delta("p3", 5, delta.version).full);
+
+        // Days outside the challenge don't count
+        board.post("p0", "P0", Map.of(day.minusDays(1), 99_999));
+        assertEquals(20, board.delta("p0", 5, 0).me.rank);
+    }
+}
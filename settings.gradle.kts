@@ -23,4 +23,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "FitPulse"
 include(":app")
+include(":challenge-server")
  
\ No newline at end of file